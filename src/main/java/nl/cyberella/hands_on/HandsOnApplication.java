@@ -2,12 +2,16 @@
 
 package nl.cyberella.hands_on;
 
+import nl.cyberella.hands_on.config.NativeImageHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 // SpringBootApplication annotation indicates this is a Spring Boot application-
 // It includes component scanning (to scan packages), auto-configuration (to configure beans), and property support (to load application properties).
 @SpringBootApplication
+// Reflection and resource hints for the native image build (-Pnative); ignored on the JVM.
+@ImportRuntimeHints(NativeImageHints.class)
 public class HandsOnApplication {
 
     // This is the main method that serves as the entry point for the Spring Boot application.
@@ -0,0 +1,21 @@
+package nl.cyberella.hands_on.audit;
+
+/**
+ * Receives audit events from the {@link AuditPipeline} consumer thread.
+ *
+ * All calls happen on that single thread, so implementations need no locking.
+ * onEvent is called once per event; onBatchEnd after each batch (the place to flush).
+ */
+public interface AuditEventHandler {
+
+    /**
+     * @param timestamp epoch millis at which the event was recorded
+     * @param userId    user id, or {@link AuditPipeline#UNKNOWN_USER_ID}
+     * @param reason    may be null
+     */
+    void onEvent(long timestamp, AuditEventType type, int userId, boolean success, AuditReason reason);
+
+    default void onBatchEnd() {}
+
+    default void close() {}
+}
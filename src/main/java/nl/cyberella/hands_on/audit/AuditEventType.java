@@ -0,0 +1,11 @@
+package nl.cyberella.hands_on.audit;
+
+/**
+ * Kinds of audit events. The names are emitted verbatim in audit.log
+ * (e.g. "SIGNIN_ATTEMPT id=7 success=true"), so keep them stable.
+ */
+public enum AuditEventType {
+    SIGNIN_ATTEMPT,
+    UPDATEPROFILE_ATTEMPT,
+    REGISTER_ATTEMPT
+}
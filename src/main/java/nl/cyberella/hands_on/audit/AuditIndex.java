@@ -0,0 +1,205 @@
+package nl.cyberella.hands_on.audit;
+
+import nl.cyberella.hands_on.utils.IntLongHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory index of recent audit events, fed by the audit pipeline.
+ *
+ * - Events: a ring of maxEvents preallocated slots in primitive arrays. Every slot
+ *   also stores the sequence of the previous event of the same user, and a primitive
+ *   userId -&gt; latest sequence map heads those per-user chains. "Events of user X"
+ *   walks only that user's events, newest first.
+ * - Counts: one bucket per minute for the retention window, each with a counter per
+ *   AuditReason, so "PASSWORD_MISMATCH per minute" never looks at single events.
+ *
+ * Retention: an event is forgotten when it is overwritten in the ring (size) or when
+ * it is older than the retention window (time), whichever comes first.
+ *
+ * Written only by the pipeline consumer thread. It stages a batch's events in small
+ * arrays without any lock and applies them under the write lock in onBatchEnd (or when
+ * the stage is full), so a query waits for at most STAGE_SIZE inserts, never for the
+ * pipeline to hand over the rest of a batch. Queries take the read lock.
+ */
+public class AuditIndex implements AuditEventHandler {
+
+    /** A decoded event, as returned by {@link #eventsForUser}. */
+    public record Event(long timestamp, AuditEventType type, int userId, boolean success, AuditReason reason) {
+    }
+
+    private static final AuditEventType[] TYPES = AuditEventType.values();
+    private static final AuditReason[] REASONS = AuditReason.values();
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    // Publish timestamps can be slightly out of ring order across producer threads
+    private static final long CLOCK_SKEW_MILLIS = 1_000;
+    static final int STAGE_SIZE = 256;
+
+    private final int capacity;
+    private final int retentionMinutes;
+    private final LongSupplier clock;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final long[] timestamps;
+    private final byte[] types;
+    private final boolean[] successes;
+    private final byte[] reasons;
+    private final long[] previousOfUser;
+    private final IntLongHashMap latestOfUser;
+    private long nextSeq;
+
+    private final long[] bucketMinute;
+    private final int[] reasonCounts; // [bucket * REASONS.length + reason ordinal]
+
+    // Events of the current batch not applied yet; consumer thread only, no lock
+    private final long[] stagedTimestamps = new long[STAGE_SIZE];
+    private final AuditEventType[] stagedTypes = new AuditEventType[STAGE_SIZE];
+    private final int[] stagedUserIds = new int[STAGE_SIZE];
+    private final boolean[] stagedSuccesses = new boolean[STAGE_SIZE];
+    private final AuditReason[] stagedReasons = new AuditReason[STAGE_SIZE];
+    private int staged;
+
+    public AuditIndex(int maxEvents, int retentionMinutes) {
+        this(maxEvents, retentionMinutes, System::currentTimeMillis);
+    }
+
+    AuditIndex(int maxEvents, int retentionMinutes, LongSupplier clock) {
+        if (maxEvents < 1) throw new IllegalArgumentException("audit index max events must be at least 1");
+        if (retentionMinutes < 1) throw new IllegalArgumentException("audit index retention must be at least 1 minute");
+        this.capacity = maxEvents;
+        this.retentionMinutes = retentionMinutes;
+        this.clock = clock;
+        this.timestamps = new long[maxEvents];
+        this.types = new byte[maxEvents];
+        this.successes = new boolean[maxEvents];
+        this.reasons = new byte[maxEvents];
+        this.previousOfUser = new long[maxEvents];
+        this.latestOfUser = new IntLongHashMap(Math.min(maxEvents, 1 << 16));
+        this.bucketMinute = new long[retentionMinutes];
+        Arrays.fill(bucketMinute, Long.MIN_VALUE);
+        this.reasonCounts = new int[retentionMinutes * REASONS.length];
+    }
+
+    public int retentionMinutes() {
+        return retentionMinutes;
+    }
+
+    @Override
+    public void onEvent(long timestamp, AuditEventType type, int userId, boolean success, AuditReason reason) {
+        stagedTimestamps[staged] = timestamp;
+        stagedTypes[staged] = type;
+        stagedUserIds[staged] = userId;
+        stagedSuccesses[staged] = success;
+        stagedReasons[staged] = reason;
+        if (++staged == STAGE_SIZE) applyStaged();
+    }
+
+    @Override
+    public void onBatchEnd() {
+        applyStaged();
+    }
+
+    @Override
+    public void close() {
+        applyStaged();
+    }
+
+    // One short write lock for all staged events
+    private void applyStaged() {
+        if (staged == 0) return;
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < staged; i++) {
+                insert(stagedTimestamps[i], stagedTypes[i], stagedUserIds[i], stagedSuccesses[i], stagedReasons[i]);
+            }
+        } finally {
+            staged = 0;
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void insert(long timestamp, AuditEventType type, int userId, boolean success, AuditReason reason) {
+        long seq = nextSeq++;
+        int slot = (int) (seq % capacity);
+        timestamps[slot] = timestamp;
+        types[slot] = (byte) type.ordinal();
+        successes[slot] = success;
+        reasons[slot] = reason == null ? -1 : (byte) reason.ordinal();
+        if (userId != AuditPipeline.UNKNOWN_USER_ID) {
+            previousOfUser[slot] = latestOfUser.get(userId, -1);
+            latestOfUser.put(userId, seq);
+        } else {
+            previousOfUser[slot] = -1;
+        }
+        // Drop users whose newest event has left the ring; keeps the map bounded
+        if (nextSeq % capacity == 0) {
+            long oldest = nextSeq - capacity;
+            latestOfUser.removeIfValue(s -> s < oldest);
+        }
+
+        if (reason != null) {
+            long minute = Math.floorDiv(timestamp, MINUTE);
+            int bucket = (int) Math.floorMod(minute, retentionMinutes);
+            if (bucketMinute[bucket] != minute) {
+                if (bucketMinute[bucket] > minute) return; // older than the window
+                bucketMinute[bucket] = minute;
+                Arrays.fill(reasonCounts, bucket * REASONS.length, (bucket + 1) * REASONS.length, 0);
+            }
+            reasonCounts[bucket * REASONS.length + reason.ordinal()]++;
+        }
+    }
+
+    /**
+     * Events of one user with timestamp &gt;= sinceMillis, newest first, at most limit.
+     */
+    public List<Event> eventsForUser(int userId, long sinceMillis, int limit) {
+        long since = Math.max(sinceMillis, clock.getAsLong() - retentionMinutes * MINUTE);
+        List<Event> out = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long oldest = nextSeq - capacity;
+            long seq = latestOfUser.get(userId, -1);
+            while (seq >= 0 && seq >= oldest && out.size() < limit) {
+                int slot = (int) (seq % capacity);
+                long ts = timestamps[slot];
+                if (ts < since - CLOCK_SKEW_MILLIS) break;
+                if (ts >= since) {
+                    byte r = reasons[slot];
+                    out.add(new Event(ts, TYPES[types[slot]], userId, successes[slot], r < 0 ? null : REASONS[r]));
+                }
+                seq = previousOfUser[slot];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return out;
+    }
+
+    /**
+     * Number of events with the given reason in each of the last {@code minutes} whole
+     * minutes up to nowMillis, oldest first; the last element is the minute containing
+     * nowMillis. At most retentionMinutes are returned.
+     */
+    public int[] countPerMinute(AuditReason reason, int minutes, long nowMillis) {
+        int n = Math.max(1, Math.min(minutes, retentionMinutes));
+        long current = Math.floorDiv(nowMillis, MINUTE);
+        int[] out = new int[n];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < n; i++) {
+                long minute = current - (n - 1) + i;
+                int bucket = (int) Math.floorMod(minute, retentionMinutes);
+                if (bucketMinute[bucket] == minute) out[i] = reasonCounts[bucket * REASONS.length + reason.ordinal()];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,38 @@
+package nl.cyberella.hands_on.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+/**
+ * Writes audit events as JSON lines, e.g.
+ * {@code {"timestamp":"2024-05-01T12:00:00.123Z","event":"SIGNIN_ATTEMPT","userId":7,"success":false,"reason":"PASSWORD_MISMATCH"}}
+ *
+ * userId and reason are null when unknown. The caller owns (flushes and closes) the generator.
+ */
+public class AuditJsonLinesWriter implements AuditEventHandler {
+
+    private final JsonGenerator gen;
+
+    public AuditJsonLinesWriter(JsonGenerator gen) {
+        this.gen = gen;
+    }
+
+    @Override
+    public void onEvent(long timestamp, AuditEventType type, int userId, boolean success, AuditReason reason) {
+        try {
+            gen.writeStartObject();
+            gen.writeStringField("timestamp", Instant.ofEpochMilli(timestamp).toString());
+            gen.writeStringField("event", type.name());
+            if (userId == AuditPipeline.UNKNOWN_USER_ID) gen.writeNullField("userId"); else gen.writeNumberField("userId", userId);
+            gen.writeBooleanField("success", success);
+            gen.writeStringField("reason", reason == null ? null : reason.name());
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -2,11 +2,25 @@ package nl.cyberella.hands_on.audit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
- * Simple audit logger component. Writes messages to the dedicated audit logger
- * configured in logback.xml (logger name: nl.cyberella.audit).
+ * Simple audit logger component.
+ *
+ * When an {@link AuditPipeline} is configured (audit.pipeline.enabled=true) events are
+ * handed to the pipeline, which writes them to audit.log from its own thread; the
+ * request thread only copies a few primitives into a preallocated slot. Without a
+ * pipeline, messages are written to the dedicated audit logger configured in
+ * logback.xml (logger name: nl.cyberella.audit).
+ *
+ * With a pipeline, events it does not accept (DROP overflow, or after it has been
+ * closed during shutdown) go to nl.cyberella.audit.fallback instead, which logback
+ * writes to audit-fallback.log. The pipeline owns audit.log and rolls it itself, so
+ * logback must never append to or roll that file at the same time.
+ *
+ * Auditing never throws: a failure to record an event must not fail the request.
  *
  * Audit entries MUST NOT contain PII. Only include user identifiers (IDs) and
  * generic event names/outcomes.
@@ -14,48 +28,66 @@ import org.springframework.stereotype.Component;
 @Component
 public class AuditLogger {
 
-    private final Logger auditLogger = LoggerFactory.getLogger("nl.cyberella.audit");
+    static final String LOGGER_NAME = "nl.cyberella.audit";
+    static final String FALLBACK_LOGGER_NAME = "nl.cyberella.audit.fallback";
+
+    private final Logger auditLogger;
+    private final AuditPipeline pipeline;
+
+    /** Synchronous logger writing straight to the logback audit logger. */
+    public AuditLogger() {
+        this((AuditPipeline) null);
+    }
+
+    @Autowired
+    public AuditLogger(ObjectProvider<AuditPipeline> pipeline) {
+        this(pipeline.getIfAvailable());
+    }
+
+    AuditLogger(AuditPipeline pipeline) {
+        this.pipeline = pipeline;
+        this.auditLogger = LoggerFactory.getLogger(pipeline == null ? LOGGER_NAME : FALLBACK_LOGGER_NAME);
+    }
 
     public void auditSignInAttempt(Integer userId, boolean success) {
-        // userId may be null if unknown — write a placeholder to avoid logging PII
-        String id = userId == null ? "unknown" : String.valueOf(userId);
-        auditLogger.info("SIGNIN_ATTEMPT id={} success={}", id, success);
+        record(AuditEventType.SIGNIN_ATTEMPT, userId, success, null);
     }
 
     public void auditSignInAttempt(Integer userId, boolean success, AuditReason reason) {
-        String id = userId == null ? "unknown" : String.valueOf(userId);
-        if (reason == null) {
-            auditLogger.info("SIGNIN_ATTEMPT id={} success={}", id, success);
-        } else {
-            auditLogger.info("SIGNIN_ATTEMPT id={} success={} reason={}", id, success, reason.name());
-        }
+        record(AuditEventType.SIGNIN_ATTEMPT, userId, success, reason);
     }
 
     public void auditUpdateProfileAttempt(Integer userId, boolean success) {
-        String id = userId == null ? "unknown" : String.valueOf(userId);
-        auditLogger.info("UPDATEPROFILE_ATTEMPT id={} success={}", id, success);
+        record(AuditEventType.UPDATEPROFILE_ATTEMPT, userId, success, null);
     }
 
     public void auditUpdateProfileAttempt(Integer userId, boolean success, AuditReason reason) {
-        String id = userId == null ? "unknown" : String.valueOf(userId);
-        if (reason == null) {
-            auditLogger.info("UPDATEPROFILE_ATTEMPT id={} success={}", id, success);
-        } else {
-            auditLogger.info("UPDATEPROFILE_ATTEMPT id={} success={} reason={}", id, success, reason.name());
-        }
+        record(AuditEventType.UPDATEPROFILE_ATTEMPT, userId, success, reason);
     }
 
     public void auditRegisterAttempt(Integer userId, boolean success) {
-        String id = userId == null ? "unknown" : String.valueOf(userId);
-        auditLogger.info("REGISTER_ATTEMPT id={} success={}", id, success);
+        record(AuditEventType.REGISTER_ATTEMPT, userId, success, null);
     }
 
     public void auditRegisterAttempt(Integer userId, boolean success, AuditReason reason) {
-        String id = userId == null ? "unknown" : String.valueOf(userId);
-        if (reason == null) {
-            auditLogger.info("REGISTER_ATTEMPT id={} success={}", id, success);
-        } else {
-            auditLogger.info("REGISTER_ATTEMPT id={} success={} reason={}", id, success, reason.name());
+        record(AuditEventType.REGISTER_ATTEMPT, userId, success, reason);
+    }
+
+    private void record(AuditEventType type, Integer userId, boolean success, AuditReason reason) {
+        try {
+            if (pipeline != null) {
+                int id = userId == null ? AuditPipeline.UNKNOWN_USER_ID : userId;
+                if (pipeline.publish(type, id, success, reason)) return;
+            }
+            // userId may be null if unknown — write a placeholder to avoid logging PII
+            String id = userId == null ? "unknown" : String.valueOf(userId);
+            if (reason == null) {
+                auditLogger.info("{} id={} success={}", type.name(), id, success);
+            } else {
+                auditLogger.info("{} id={} success={} reason={}", type.name(), id, success, reason.name());
+            }
+        } catch (RuntimeException ex) {
+            LoggerFactory.getLogger(AuditLogger.class).warn("Failed to record audit event {}: {}", type, ex.getMessage());
         }
     }
 }
@@ -0,0 +1,39 @@
+package nl.cyberella.hands_on.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts audit events per event type, outcome and AuditReason (metric audit.events).
+ *
+ * Every tag combination is registered up front, so counting an event on the pipeline
+ * consumer thread is an array lookup and an increment.
+ */
+public class AuditMetricsHandler implements AuditEventHandler {
+
+    private static final AuditEventType[] TYPES = AuditEventType.values();
+    private static final AuditReason[] REASONS = AuditReason.values();
+
+    // [type][reason ordinal + 1, 0 = none][success ? 1 : 0]
+    private final Counter[][][] counters = new Counter[TYPES.length][REASONS.length + 1][2];
+
+    public AuditMetricsHandler(MeterRegistry registry) {
+        for (AuditEventType type : TYPES) {
+            for (int r = 0; r <= REASONS.length; r++) {
+                for (int s = 0; s < 2; s++) {
+                    counters[type.ordinal()][r][s] = Counter.builder("audit.events")
+                            .description("Audit events recorded by AuditLogger")
+                            .tag("event", type.name())
+                            .tag("reason", r == 0 ? "none" : REASONS[r - 1].name())
+                            .tag("success", s == 1 ? "true" : "false")
+                            .register(registry);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onEvent(long timestamp, AuditEventType type, int userId, boolean success, AuditReason reason) {
+        counters[type.ordinal()][reason == null ? 0 : reason.ordinal() + 1][success ? 1 : 0].increment();
+    }
+}
@@ -0,0 +1,232 @@
+package nl.cyberella.hands_on.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous audit pipeline in the style of the LMAX Disruptor.
+ *
+ * - A fixed-size ring of preallocated slots stored as primitive arrays (timestamp,
+ *   event type, user id, success, reason ordinal). Publishing an event only claims a
+ *   sequence number and writes primitives: no allocation, no formatting, no I/O.
+ * - Any number of request threads publish; one consumer thread reads batches and
+ *   hands every event to the configured {@link AuditEventHandler}s, then calls
+ *   onBatchEnd so handlers can write/flush once per batch.
+ * - When the ring is full the {@link OverflowPolicy} decides: DROP counts the event as
+ *   dropped (the consumer logs the running total as a warning), BLOCK waits for space.
+ * - close() stops accepting events, waits for in-flight publishers, drains every
+ *   published event to the handlers and only then closes them. After that publish
+ *   returns false so the caller can fall back to synchronous logging.
+ */
+@Slf4j
+public class AuditPipeline {
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    /** Value used for userId when the user is not known. */
+    public static final int UNKNOWN_USER_ID = -1;
+
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final AuditEventType[] TYPES = AuditEventType.values();
+    private static final AuditReason[] REASONS = AuditReason.values();
+
+    private final int mask;
+    private final int shift;
+    private final OverflowPolicy overflowPolicy;
+    private final List<AuditEventHandler> handlers;
+
+    // Preallocated slots
+    private final long[] timestamps;
+    private final byte[] types;
+    private final int[] userIds;
+    private final boolean[] successes;
+    private final byte[] reasons;
+    // published[slot] == round number of the sequence last published into that slot
+    private final int[] published;
+
+    private final AtomicLong cursor = new AtomicLong(-1);   // last claimed sequence
+    private volatile long consumed = -1;                     // last sequence handed to handlers
+    private final LongAdder inFlight = new LongAdder();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean accepting = true;
+    private volatile boolean running = true;
+    private final Thread consumer;
+
+    public AuditPipeline(int bufferSize, OverflowPolicy overflowPolicy, List<AuditEventHandler> handlers) {
+        if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("audit buffer size must be a power of two");
+        }
+        this.mask = bufferSize - 1;
+        this.shift = Integer.numberOfTrailingZeros(bufferSize);
+        this.overflowPolicy = overflowPolicy;
+        this.handlers = List.copyOf(handlers);
+
+        this.timestamps = new long[bufferSize];
+        this.types = new byte[bufferSize];
+        this.userIds = new int[bufferSize];
+        this.successes = new boolean[bufferSize];
+        this.reasons = new byte[bufferSize];
+        this.published = new int[bufferSize];
+        Arrays.fill(published, -1);
+
+        this.consumer = new Thread(this::consume, "audit-pipeline");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Queue an audit event. Never blocks with the DROP policy.
+     *
+     * @return false if the pipeline is closed and the caller must record the event itself
+     */
+    public boolean publish(AuditEventType type, int userId, boolean success, AuditReason reason) {
+        inFlight.increment();
+        try {
+            if (!accepting) return false;
+            long seq = claim();
+            if (seq < 0) {
+                dropped.incrementAndGet();
+                return true;
+            }
+            int slot = (int) (seq & mask);
+            timestamps[slot] = System.currentTimeMillis();
+            types[slot] = (byte) type.ordinal();
+            userIds[slot] = userId;
+            successes[slot] = success;
+            reasons[slot] = reason == null ? -1 : (byte) reason.ordinal();
+            PUBLISHED.setRelease(published, slot, (int) (seq >>> shift));
+            return true;
+        } finally {
+            inFlight.decrement();
+        }
+    }
+
+    /** Number of events dropped because the ring was full (DROP policy). */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    // Returns the claimed sequence, or -1 when full and the policy is DROP.
+    private long claim() {
+        int capacity = mask + 1;
+        long current, next;
+        do {
+            current = cursor.get();
+            next = current + 1;
+            while (next - capacity > consumed) {
+                if (overflowPolicy == OverflowPolicy.DROP) return -1;
+                LockSupport.parkNanos(50_000);
+            }
+        } while (!cursor.compareAndSet(current, next));
+        return next;
+    }
+
+    private void consume() {
+        long next = consumed + 1;
+        int idle = 0;
+        long reportedDrops = 0;
+        while (true) {
+            long available = highestPublished(next, cursor.get());
+            if (available >= next) {
+                for (long seq = next; seq <= available; seq++) {
+                    dispatch((int) (seq & mask));
+                }
+                consumed = available; // frees the slots for producers
+                next = available + 1;
+                reportedDrops = reportDrops(reportedDrops);
+                endBatch();
+                idle = 0;
+            } else if (!running && cursor.get() < next) {
+                break; // closed and fully drained
+            } else {
+                reportedDrops = reportDrops(reportedDrops);
+                idle = backOff(idle);
+            }
+        }
+    }
+
+    // Highest sequence in [from, max] such that every sequence up to it is published.
+    private long highestPublished(long from, long max) {
+        for (long seq = from; seq <= max; seq++) {
+            int slot = (int) (seq & mask);
+            if ((int) PUBLISHED.getAcquire(published, slot) != (int) (seq >>> shift)) return seq - 1;
+        }
+        return max;
+    }
+
+    private void dispatch(int slot) {
+        long ts = timestamps[slot];
+        AuditEventType type = TYPES[types[slot]];
+        int userId = userIds[slot];
+        boolean success = successes[slot];
+        byte r = reasons[slot];
+        AuditReason reason = r < 0 ? null : REASONS[r];
+        for (AuditEventHandler h : handlers) {
+            try {
+                h.onEvent(ts, type, userId, success, reason);
+            } catch (RuntimeException ex) {
+                log.warn("Audit handler {} failed: {}", h.getClass().getSimpleName(), ex.getMessage());
+            }
+        }
+    }
+
+    private void endBatch() {
+        for (AuditEventHandler h : handlers) {
+            try {
+                h.onBatchEnd();
+            } catch (RuntimeException ex) {
+                log.warn("Audit handler {} failed to flush: {}", h.getClass().getSimpleName(), ex.getMessage());
+            }
+        }
+    }
+
+    // Dropped events are themselves an audit-relevant fact; surface them in the log.
+    private long reportDrops(long reported) {
+        long total = dropped.get();
+        if (total > reported) {
+            log.warn("Audit pipeline full: dropped {} audit events (total {})", total - reported, total);
+        }
+        return total;
+    }
+
+    private static int backOff(int idle) {
+        if (idle < 100) {
+            Thread.onSpinWait();
+        } else if (idle < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return idle + 1;
+    }
+
+    /** Stop accepting events, drain everything already published, then close the handlers. */
+    public void close() {
+        accepting = false;
+        // Publishers that passed the accepting check finish claiming and publishing first.
+        while (inFlight.sum() > 0) Thread.onSpinWait();
+        running = false;
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (consumer.isAlive()) log.error("Audit pipeline did not drain within 30s");
+        for (AuditEventHandler h : handlers) {
+            try {
+                h.close();
+            } catch (RuntimeException ex) {
+                log.warn("Failed to close audit handler {}: {}", h.getClass().getSimpleName(), ex.getMessage());
+            }
+        }
+        log.info("Audit pipeline closed (dropped={})", dropped.get());
+    }
+}
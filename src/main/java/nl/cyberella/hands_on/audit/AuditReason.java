@@ -7,7 +7,7 @@ package nl.cyberella.hands_on.audit;
 public enum AuditReason {
     NO_LOGIN_RECORD,
     PASSWORD_MISMATCH,
-    USER_PROFILE_MISSING,
+    USER_PROFILE_MISSING, // no longer emitted: login.user_id references users, so a login always has a profile
     TWO_FA_REQUIRED,
     SUCCESS,
     UNKNOWN
@@ -0,0 +1,44 @@
+package nl.cyberella.hands_on.audit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Command line decoder: prints binary audit segments as JSON lines on stdout.
+ *
+ * Usage (from the packaged jar):
+ *   java -cp hands_on.jar -Dloader.main=nl.cyberella.hands_on.audit.AuditSegmentDump \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher &lt;directory&gt; [from] [to]
+ *
+ * from/to are optional ISO-8601 instants (e.g. 2024-05-01T12:00:00Z); to is exclusive.
+ * A summary is written to stderr so stdout can be piped straight into a SIEM shipper.
+ */
+public final class AuditSegmentDump {
+
+    private AuditSegmentDump() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("usage: AuditSegmentDump <directory> [from] [to]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        long from = args.length > 1 ? Instant.parse(args[1]).toEpochMilli() : Long.MIN_VALUE;
+        long to = args.length > 2 ? Instant.parse(args[2]).toEpochMilli() : Long.MAX_VALUE;
+
+        OutputStream out = System.out;
+        JsonGenerator gen = new JsonFactory().createGenerator(out);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null);
+        AuditSegmentReader.Stats stats = AuditSegmentReader.read(directory, from, to, new AuditJsonLinesWriter(gen));
+        gen.flush();
+        out.flush();
+        System.err.printf("segments=%d records=%d corrupt=%d%n", stats.segments(), stats.records(), stats.corrupt());
+    }
+}
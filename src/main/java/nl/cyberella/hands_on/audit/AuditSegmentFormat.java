@@ -0,0 +1,110 @@
+package nl.cyberella.hands_on.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk layout of binary audit segments (all values little-endian).
+ *
+ * A segment is a preallocated file named audit-&lt;20 digit index&gt;.seg:
+ *
+ * Header (64 bytes)
+ *   0  int   magic "AUDS" (0x53445541)
+ *   4  short format version (1)
+ *   6  short record size (20)
+ *   8  long  segment index
+ *   16 long  creation time (epoch millis)
+ *   24 int   record capacity
+ *   28 int   CRC32C of bytes 0..27
+ *   32..63   reserved (zero)
+ *
+ * Records (20 bytes each, directly after the header)
+ *   0  long  timestamp (epoch millis)
+ *   8  int   user id (-1 = unknown)
+ *   12 byte  AuditEventType ordinal
+ *   13 byte  success (0/1)
+ *   14 byte  AuditReason ordinal (-1 = none)
+ *   15 byte  reserved (zero)
+ *   16 int   CRC32C of bytes 0..15
+ *
+ * The unused tail of a segment is zero-filled; an all-zero record marks the end of data.
+ * Enum ordinals are part of the format: append new AuditEventType/AuditReason values, never reorder.
+ */
+public final class AuditSegmentFormat {
+
+    public static final int MAGIC = 0x53445541; // "AUDS" in little-endian byte order
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 20;
+    public static final int RECORD_PAYLOAD_SIZE = 16;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int HEADER_CRC_OFFSET = 28;
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".seg";
+
+    private AuditSegmentFormat() {
+    }
+
+    public static String fileName(long index) {
+        return PREFIX + String.format("%020d", index) + SUFFIX;
+    }
+
+    /** Segment index encoded in the file name, or -1 if the name is not a segment name. */
+    public static long indexOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /** Segment files in the directory, oldest first. Empty if the directory does not exist. */
+    public static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return segments;
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path p : dir) {
+                if (indexOf(p) >= 0) segments.add(p);
+            }
+        }
+        // Zero-padded indexes sort in numeric order
+        Collections.sort(segments);
+        return segments;
+    }
+
+    static void writeHeader(ByteBuffer buf, long index, long createdAt, int capacity) {
+        buf.putInt(0, MAGIC);
+        buf.putShort(4, VERSION);
+        buf.putShort(6, (short) RECORD_SIZE);
+        buf.putLong(8, index);
+        buf.putLong(16, createdAt);
+        buf.putInt(24, capacity);
+        buf.putInt(HEADER_CRC_OFFSET, crc(buf, 0, HEADER_CRC_OFFSET));
+    }
+
+    /** Checks magic, version, record size and header CRC. */
+    static boolean isValidHeader(ByteBuffer buf) {
+        return buf.limit() >= HEADER_SIZE
+                && buf.getInt(0) == MAGIC
+                && buf.getShort(4) == VERSION
+                && buf.getShort(6) == RECORD_SIZE
+                && buf.getInt(HEADER_CRC_OFFSET) == crc(buf, 0, HEADER_CRC_OFFSET);
+    }
+
+    static int crc(ByteBuffer buf, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buf.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,115 @@
+package nl.cyberella.hands_on.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static nl.cyberella.hands_on.audit.AuditSegmentFormat.*;
+
+/**
+ * Structured audit sink: appends fixed-width binary records to memory-mapped segment
+ * files (layout in {@link AuditSegmentFormat}).
+ *
+ * Writing an event is a handful of primitive stores into a reused scratch buffer, one
+ * CRC32C over 16 bytes and a bulk copy into the mapping: no String formatting, no
+ * allocation and no system call. The operating system writes dirty pages back; a
+ * segment is forced to disk when it is full and on close.
+ *
+ * A new segment is started on startup and whenever the current one is full; only the
+ * newest maxSegments files are kept. Runs on the audit pipeline consumer thread, so it
+ * is not thread-safe.
+ */
+@Slf4j
+public class AuditSegmentWriter implements AuditEventHandler {
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private final byte[] scratchBytes = new byte[RECORD_SIZE];
+    private final ByteBuffer scratch = ByteBuffer.wrap(scratchBytes).order(BYTE_ORDER);
+    private final CRC32C crc = new CRC32C();
+
+    private MappedByteBuffer segment;
+    private long nextIndex;
+    private int position;
+
+    public AuditSegmentWriter(Path directory, int segmentSize, int maxSegments) {
+        if (segmentSize < HEADER_SIZE + RECORD_SIZE) {
+            throw new IllegalArgumentException("audit segment size must be at least " + (HEADER_SIZE + RECORD_SIZE) + " bytes");
+        }
+        if (maxSegments < 1) throw new IllegalArgumentException("audit max segments must be at least 1");
+        this.directory = directory.toAbsolutePath();
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        try {
+            Files.createDirectories(this.directory);
+            List<Path> existing = listSegments(this.directory);
+            this.nextIndex = existing.isEmpty() ? 1 : indexOf(existing.get(existing.size() - 1)) + 1;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void onEvent(long timestamp, AuditEventType type, int userId, boolean success, AuditReason reason) {
+        if (segment == null || position + RECORD_SIZE > segmentSize) roll(timestamp);
+
+        scratch.putLong(0, timestamp);
+        scratch.putInt(8, userId);
+        scratch.put(12, (byte) type.ordinal());
+        scratch.put(13, success ? (byte) 1 : 0);
+        scratch.put(14, reason == null ? -1 : (byte) reason.ordinal());
+        scratch.put(15, (byte) 0);
+        crc.reset();
+        crc.update(scratchBytes, 0, RECORD_PAYLOAD_SIZE);
+        scratch.putInt(RECORD_PAYLOAD_SIZE, (int) crc.getValue());
+
+        segment.put(position, scratchBytes, 0, RECORD_SIZE);
+        position += RECORD_SIZE;
+    }
+
+    @Override
+    public void close() {
+        if (segment != null) segment.force();
+        segment = null;
+    }
+
+    private void roll(long timestamp) {
+        if (segment != null) segment.force();
+        long index = nextIndex++; // never retry a name whose creation failed halfway
+        Path file = directory.resolve(fileName(index));
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            segment = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException ex) {
+            segment = null;
+            throw new UncheckedIOException(ex);
+        }
+        segment.order(BYTE_ORDER);
+        writeHeader(segment, index, timestamp, (segmentSize - HEADER_SIZE) / RECORD_SIZE);
+        position = HEADER_SIZE;
+        deleteOldSegments();
+    }
+
+    private void deleteOldSegments() {
+        try {
+            List<Path> segments = listSegments(directory);
+            for (Path old : segments.subList(0, Math.max(0, segments.size() - maxSegments))) {
+                Files.deleteIfExists(old);
+            }
+        } catch (IOException ex) {
+            log.warn("Failed to delete old audit segments in {}: {}", directory, ex.getMessage());
+        }
+    }
+}
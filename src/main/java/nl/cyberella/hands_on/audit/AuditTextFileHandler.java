@@ -0,0 +1,144 @@
+package nl.cyberella.hands_on.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes audit events as text lines to audit.log from the pipeline consumer thread.
+ *
+ * Lines keep the layout of the logback audit appender (logback.xml LOG_PATTERN), e.g.
+ * {@code 2024-05-01 12:00:00,123 [audit-pipeline] INFO  nl.cyberella.audit - SIGNIN_ATTEMPT id=7 success=true reason=SUCCESS}
+ * so existing SIEM parsing keeps working. Events are appended to a buffered writer and
+ * flushed once per batch. The file rolls daily to audit-yyyy-MM-dd.log and only the
+ * newest maxHistory rolled files are kept, matching the logback rolling policy.
+ */
+@Slf4j
+public class AuditTextFileHandler implements AuditEventHandler {
+
+    private static final DateTimeFormatter SECOND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String LINE_PREFIX = " [audit-pipeline] INFO  nl.cyberella.audit - ";
+
+    private final Path file;
+    private final int maxHistory;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final StringBuilder line = new StringBuilder(160);
+
+    private Writer writer;
+    private LocalDate currentDay;
+    // The "yyyy-MM-dd HH:mm:ss" part only changes once per second; cache it.
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedSecondText;
+
+    public AuditTextFileHandler(Path file, int maxHistory) {
+        this.file = file.toAbsolutePath();
+        this.maxHistory = maxHistory;
+    }
+
+    @Override
+    public void onEvent(long timestamp, AuditEventType type, int userId, boolean success, AuditReason reason) {
+        try {
+            rollIfNeeded(timestamp);
+            line.setLength(0);
+            appendTimestamp(timestamp);
+            line.append(LINE_PREFIX).append(type.name()).append(" id=");
+            if (userId == AuditPipeline.UNKNOWN_USER_ID) line.append("unknown"); else line.append(userId);
+            line.append(" success=").append(success);
+            if (reason != null) line.append(" reason=").append(reason.name());
+            line.append('\n');
+            writer.append(line);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void onBatchEnd() {
+        try {
+            if (writer != null) writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (writer != null) writer.close();
+        } catch (IOException ex) {
+            log.warn("Failed to close audit file {}: {}", file, ex.getMessage());
+        }
+        writer = null;
+    }
+
+    private void appendTimestamp(long timestamp) {
+        long second = Math.floorDiv(timestamp, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedSecondText = SECOND_FORMAT.format(LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone));
+        }
+        int millis = (int) Math.floorMod(timestamp, 1000);
+        line.append(cachedSecondText).append(',');
+        if (millis < 100) line.append('0');
+        if (millis < 10) line.append('0');
+        line.append(millis);
+    }
+
+    private void rollIfNeeded(long timestamp) throws IOException {
+        LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), zone);
+        if (writer != null && day.equals(currentDay)) return;
+
+        if (writer == null) {
+            // First event: if audit.log was last written on an earlier day, roll it first.
+            if (Files.exists(file) && Files.size(file) > 0) {
+                LocalDate lastWritten = LocalDate.ofInstant(Files.getLastModifiedTime(file).toInstant(), zone);
+                if (lastWritten.isBefore(day)) roll(lastWritten);
+            }
+        } else {
+            writer.close();
+            roll(currentDay);
+        }
+        Path parent = file.getParent();
+        if (parent != null) Files.createDirectories(parent);
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        currentDay = day;
+    }
+
+    private void roll(LocalDate day) throws IOException {
+        String base = file.getFileName().toString();
+        String stem = base.endsWith(".log") ? base.substring(0, base.length() - 4) : base;
+        Path target = file.resolveSibling(stem + "-" + day + ".log");
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        deleteOldRolls(stem);
+    }
+
+    private void deleteOldRolls(String stem) throws IOException {
+        List<Path> rolled = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(file.getParent(), stem + "-????-??-??.log")) {
+            dir.forEach(rolled::add);
+        }
+        if (rolled.size() <= maxHistory) return;
+        // yyyy-MM-dd sorts chronologically
+        Collections.sort(rolled);
+        for (Path old : rolled.subList(0, rolled.size() - maxHistory)) {
+            Files.deleteIfExists(old);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package nl.cyberella.hands_on.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.cyberella.hands_on.audit.AuditEventHandler;
+import nl.cyberella.hands_on.audit.AuditIndex;
+import nl.cyberella.hands_on.audit.AuditMetricsHandler;
+import nl.cyberella.hands_on.audit.AuditPipeline;
+import nl.cyberella.hands_on.audit.AuditSegmentWriter;
+import nl.cyberella.hands_on.audit.AuditTextFileHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Wires the asynchronous audit pipeline. Every AuditEventHandler bean receives the
+ * events: the text handler keeps writing the familiar audit.log, the optional
+ * segment writer adds the structured binary log, the index serves admin queries and
+ * the metrics handler counts events per AuditReason.
+ */
+@Configuration
+@ConditionalOnProperty(name = "audit.pipeline.enabled", havingValue = "true")
+public class AuditConfig {
+
+    // The pipeline closes its handlers after draining; keep Spring from closing them earlier.
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(name = "audit.pipeline.text-enabled", havingValue = "true", matchIfMissing = true)
+    public AuditTextFileHandler auditTextFileHandler(
+            @Value("${audit.pipeline.file:audit.log}") String file,
+            @Value("${audit.pipeline.max-history:30}") int maxHistory) {
+        return new AuditTextFileHandler(Path.of(file), maxHistory);
+    }
+
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(name = "audit.segments.enabled", havingValue = "true")
+    public AuditSegmentWriter auditSegmentWriter(
+            @Value("${audit.segments.directory:audit-segments}") String directory,
+            @Value("${audit.segments.segment-size:67108864}") int segmentSize,
+            @Value("${audit.segments.max-segments:64}") int maxSegments) {
+        return new AuditSegmentWriter(Path.of(directory), segmentSize, maxSegments);
+    }
+
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(name = "audit.index.enabled", havingValue = "true", matchIfMissing = true)
+    public AuditIndex auditIndex(
+            @Value("${audit.index.max-events:262144}") int maxEvents,
+            @Value("${audit.index.retention-minutes:60}") int retentionMinutes) {
+        return new AuditIndex(maxEvents, retentionMinutes);
+    }
+
+    @Bean(destroyMethod = "")
+    public AuditMetricsHandler auditMetricsHandler(MeterRegistry meterRegistry) {
+        return new AuditMetricsHandler(meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public AuditPipeline auditPipeline(
+            ObjectProvider<AuditEventHandler> handlers,
+            @Value("${audit.pipeline.buffer-size:8192}") int bufferSize,
+            @Value("${audit.pipeline.overflow-policy:DROP}") AuditPipeline.OverflowPolicy overflowPolicy) {
+        return new AuditPipeline(bufferSize, overflowPolicy, handlers.orderedStream().toList());
+    }
+}
@@ -0,0 +1,119 @@
+package nl.cyberella.hands_on.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource that lets at most maxConcurrent callers hold a connection at a time.
+ *
+ * With virtual threads the Tomcat thread limit no longer caps concurrency: every
+ * request gets its own thread, so thousands of them can ask the Hikari pool for one of
+ * its few connections at once. Hikari hands connections out unfairly (a thread that
+ * just returned one may take it again ahead of older waiters), so under that fan-in
+ * some requests wait far longer than others. A fair Semaphore in front of the pool
+ * queues them FIFO instead, parks them without holding a monitor (no carrier pinning),
+ * makes the queue visible as a metric and fails with an SQLTransientConnectionException
+ * after acquireTimeout, like Hikari's own connection-timeout.
+ *
+ * The permit is taken before the pool is asked and returned when the connection is
+ * closed (once, however often close() is called).
+ */
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutNanos;
+
+    public ConcurrencyLimitedDataSource(DataSource target, int maxConcurrent, Duration acquireTimeout) {
+        super(target);
+        if (maxConcurrent < 1) throw new IllegalArgumentException("max concurrent connections must be at least 1");
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /** Callers currently holding a connection. */
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /** Callers queued for a permit (an estimate, for metrics). */
+    public int waiting() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return gate(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return gate(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("No database connection available within "
+                        + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + "ms (" + maxConcurrent + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private Connection gate(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (isClose(method)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) permits.release();
+                        }
+                        return null;
+                    }
+                    if (method.getName().equals("equals") && method.getParameterCount() == 1) return proxy == args[0];
+                    if (method.getName().equals("hashCode") && method.getParameterCount() == 0) return System.identityHashCode(proxy);
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private static boolean isClose(Method method) {
+        return method.getName().equals("close") && method.getParameterCount() == 0;
+    }
+}
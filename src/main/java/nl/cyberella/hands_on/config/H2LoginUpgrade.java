@@ -0,0 +1,84 @@
+package nl.cyberella.hands_on.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Upgrades a local H2 database whose login table predates login.user_id: the H2 counterpart
+of db/migration/V2__login_user_id.sql, which Flyway runs on PostgreSQL only.
+
+Such a table is keyed by email. Neither h2/schema.sql (CREATE TABLE IF NOT EXISTS) nor
+Hibernate's ddl-auto update can change that: update cannot add the NOT NULL user_id column
+to a table with rows, let alone backfill it or move the primary key. Sign-in joins users on
+login.user_id, so without this step every existing account is locked out.
+
+H2 cannot add a primary key conditionally in SQL, so the check runs here: when login's
+primary key is not (user_id), the V2 steps run once; otherwise nothing happens. Decided at
+startup from the database itself, so the AOT-built image needs no profile switch; on
+PostgreSQL it returns at once. Runs after Hibernate's own schema update (@DependsOn the
+EntityManagerFactory) and before the web server accepts requests.
+*/
+
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class H2LoginUpgrade {
+
+    private final DataSource dataSource;
+
+    public H2LoginUpgrade(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    void upgrade() throws SQLException {
+        List<String> primaryKey;
+        try (Connection c = dataSource.getConnection()) {
+            DatabaseMetaData meta = c.getMetaData();
+            if (!"H2".equals(meta.getDatabaseProductName()) || !hasTable(meta)) return;
+            primaryKey = primaryKeyColumns(meta);
+        }
+        if (primaryKey.equals(List.of("USER_ID"))) return;
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("ALTER TABLE public.login ADD COLUMN IF NOT EXISTS user_id INT");
+        // A login without a users row could never sign in (signin needs the profile)
+        int orphans = jdbc.update("DELETE FROM public.login l WHERE NOT EXISTS "
+                + "(SELECT 1 FROM public.users u WHERE u.email = l.email)");
+        int logins = jdbc.update("UPDATE public.login l SET user_id = (SELECT u.id FROM public.users u WHERE u.email = l.email)");
+        if (!primaryKey.isEmpty()) jdbc.execute("ALTER TABLE public.login DROP PRIMARY KEY");
+        jdbc.execute("ALTER TABLE public.login ALTER COLUMN user_id SET NOT NULL");
+        jdbc.execute("ALTER TABLE public.login ALTER COLUMN email SET NOT NULL");
+        jdbc.execute("ALTER TABLE public.login ADD CONSTRAINT login_pkey PRIMARY KEY (user_id)");
+        jdbc.execute("ALTER TABLE public.login ADD CONSTRAINT login_user_id_fkey "
+                + "FOREIGN KEY (user_id) REFERENCES public.users (id) ON DELETE CASCADE");
+        // Email was unique through the old primary key; keep it unique (no-op if it already was)
+        jdbc.execute("ALTER TABLE public.login ADD CONSTRAINT IF NOT EXISTS login_email_key UNIQUE (email)");
+        log.info("Upgraded H2 login table to user_id keys: logins={} removed without user={}", logins, orphans);
+    }
+
+    private static boolean hasTable(DatabaseMetaData meta) throws SQLException {
+        try (ResultSet rs = meta.getTables(null, "PUBLIC", "LOGIN", null)) {
+            return rs.next();
+        }
+    }
+
+    private static List<String> primaryKeyColumns(DatabaseMetaData meta) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (ResultSet rs = meta.getPrimaryKeys(null, "PUBLIC", "LOGIN")) {
+            while (rs.next()) columns.add(rs.getString("COLUMN_NAME"));
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,115 @@
+package nl.cyberella.hands_on.config;
+
+import com.clarifai.grpc.api.status.Status;
+import nl.cyberella.hands_on.dto.admin.ImportResult;
+import nl.cyberella.hands_on.dto.audit.AuditEventView;
+import nl.cyberella.hands_on.dto.audit.MinuteCount;
+import nl.cyberella.hands_on.dto.auth.LoginCredentials;
+import nl.cyberella.hands_on.dto.auth.TwoFactorRequiredResponse;
+import nl.cyberella.hands_on.dto.clarifai.FaceDetectionResult;
+import nl.cyberella.hands_on.dto.error.ErrorResponse;
+import nl.cyberella.hands_on.dto.leaderboard.LeaderboardEntry;
+import nl.cyberella.hands_on.dto.leaderboard.UserRank;
+import nl.cyberella.hands_on.dto.stats.UserStats;
+import nl.cyberella.hands_on.dto.twofa.EnableResponse;
+import nl.cyberella.hands_on.dto.twofa.SuccessResponse;
+import nl.cyberella.hands_on.dto.twofa.VerifiedUserResponse;
+import nl.cyberella.hands_on.dto.user.ProfileBatchGetResponse;
+import nl.cyberella.hands_on.dto.user.UserResponse;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reflection and resource hints for the native image (-Pnative, docs/native-image.md).
+ *
+ * Spring's AOT processing already registers what it can see: the beans, the JPA entities
+ * and their listener (User, Login, UserWriteListener), the repositories and every
+ * @RequestBody type. This adds what is only reached by name or hidden from it:
+ * - response bodies: the controllers return ResponseEntity<?>, so the DTOs Jackson
+ *   serializes cannot be inferred from the signatures
+ * - LoginCredentials: created by Hibernate from the constructor expression in
+ *   LoginRepository.findCredentialsByEmail
+ * - Clarifai: building, sending and reading the protobuf messages is generated code, but
+ *   printing a Status (the message of a failed call) goes through protobuf's reflective
+ *   field accessors, which look up the getters and builder methods of every message type
+ *   the Status refers to
+ * - second-level cache: Hibernate creates the "jcache" region factory by name,
+ *   SecondLevelCacheConfig asks for Caffeine's caching provider by name, and Caffeine
+ *   picks a generated cache and node class by name for each configuration (SSMSW/PSWMS:
+ *   bounded, expire after write). Caffeine's JCache reads its defaults from reference.conf.
+ * - Flyway: the migrations and Flyway's version file, for an image built with
+ *   spring.flyway.enabled=true (the default image leaves migrations to a separate run)
+ *
+ * Nothing is needed for gRPC or googleauth. gRPC finds its channel, name resolver and
+ * load balancer providers through ServiceLoader, which native-image resolves at build
+ * time, and grpc-netty-shaded ships the metadata for its Netty. googleauth only
+ * generates secrets (SHA1PRNG from the SUN provider) and TotpVerifier uses HmacSHA1;
+ * both are JCA services the image includes. NativeSmokeIT covers those paths.
+ */
+public class NativeImageHints implements RuntimeHintsRegistrar {
+
+    static final String JCACHE_REGION_FACTORY = "org.hibernate.cache.jcache.internal.JCacheRegionFactory";
+    static final String CAFFEINE_CACHING_PROVIDER = "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+    static final String CAFFEINE_BOUNDED_CACHE = "com.github.benmanes.caffeine.cache.SSMSW";
+    static final String CAFFEINE_BOUNDED_NODE = "com.github.benmanes.caffeine.cache.PSWMS";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Includes the @JsonSerialize serializers of the records that have one
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                UserResponse.class, ErrorResponse.class, ImportResult.class, AuditEventView.class,
+                MinuteCount.class, LeaderboardEntry.class, UserRank.class, FaceDetectionResult.class,
+                TwoFactorRequiredResponse.class, EnableResponse.class, SuccessResponse.class,
+                VerifiedUserResponse.class, ProfileBatchGetResponse.class, UserStats.class);
+
+        hints.reflection().registerType(LoginCredentials.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+        registerMessageTypes(hints, Status.class, new HashSet<>());
+
+        hints.reflection().registerType(TypeReference.of(JCACHE_REGION_FACTORY), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(TypeReference.of(CAFFEINE_CACHING_PROVIDER), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(TypeReference.of(CAFFEINE_BOUNDED_CACHE), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.reflection().registerType(TypeReference.of(CAFFEINE_BOUNDED_NODE), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.resources().registerPattern("reference.conf");
+
+        hints.resources().registerPattern("db/migration/*.sql");
+        hints.resources().registerPattern("org/flywaydb/core/internal/version.txt");
+    }
+
+    /**
+     * A protobuf message type, its Builder and, recursively, the message types its public
+     * getters return. Message types are recognised by their static newBuilder().
+     */
+    private static void registerMessageTypes(RuntimeHints hints, Class<?> type, Set<Class<?>> seen) {
+        if (!seen.add(type)) return;
+        hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS);
+        for (Method method : type.getDeclaredMethods()) {
+            if (!Modifier.isPublic(method.getModifiers())) continue;
+            if (Modifier.isStatic(method.getModifiers())) {
+                if (method.getName().equals("newBuilder") && method.getParameterCount() == 0) {
+                    hints.reflection().registerType(method.getReturnType(), MemberCategory.INVOKE_PUBLIC_METHODS);
+                }
+            } else if (isMessageType(method.getReturnType())) {
+                registerMessageTypes(hints, method.getReturnType(), seen);
+            }
+        }
+    }
+
+    private static boolean isMessageType(Class<?> type) {
+        if (!type.getName().startsWith("com.clarifai.grpc.")) return false;
+        try {
+            Method newBuilder = type.getMethod("newBuilder");
+            return Modifier.isStatic(newBuilder.getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
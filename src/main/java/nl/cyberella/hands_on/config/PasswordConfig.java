@@ -1,13 +1,57 @@
 package nl.cyberella.hands_on.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import nl.cyberella.hands_on.utils.MappedBloomFilter;
+import nl.cyberella.hands_on.utils.PasswordValidator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 @Configuration
+@Slf4j
 public class PasswordConfig {
+
+    private final boolean breachedEnabled;
+    private final Path breachedFile;
+
+    public PasswordConfig(@Value("${password.breached.enabled:false}") boolean breachedEnabled,
+                          @Value("${password.breached.file:breached-passwords.bloom}") Path breachedFile) {
+        this.breachedEnabled = breachedEnabled;
+        this.breachedFile = breachedFile;
+    }
+
+    // BCrypt dominates sign-in latency, so matches/encode get their own timers (password.encoder).
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        Timer matchesTimer = Timer.builder("password.encoder").tag("operation", "matches").register(meterRegistry);
+        Timer encodeTimer = Timer.builder("password.encoder").tag("operation", "encode").register(meterRegistry);
+        return new BCryptPasswordEncoder() {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return matchesTimer.record(() -> super.matches(rawPassword, encodedPassword));
+            }
+
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return encodeTimer.record(() -> super.encode(rawPassword));
+            }
+        };
+    }
+
+    // Breached-password check in PasswordValidator (docs/password-policy.md). Checked at startup
+    // instead of with @ConditionalOnProperty, so the AOT-built image can still switch it.
+    // A missing or corrupt file fails the startup rather than silently accepting leaked passwords.
+    @PostConstruct
+    void loadBreachedPasswords() throws IOException {
+        if (!breachedEnabled) return;
+        PasswordValidator.useBreachedPasswords(MappedBloomFilter.open(breachedFile));
+        log.info("Breached-password check enabled ({})", breachedFile.toAbsolutePath());
     }
 }
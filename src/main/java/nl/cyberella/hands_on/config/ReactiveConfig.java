@@ -0,0 +1,119 @@
+package nl.cyberella.hands_on.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+import nl.cyberella.hands_on.controllers.ReactiveProfileHandler;
+import nl.cyberella.hands_on.repositories.ReactiveUserRepository;
+import nl.cyberella.hands_on.repositories.UserStatsRepository;
+import nl.cyberella.hands_on.services.interfaces.ILeaderboardService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.StringUtils;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.List;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
+
+/**
+ * Optional reactive side server (reactive.enabled=true).
+ *
+ * Serves GET /profile/{id} and PUT /image from WebFlux handlers on a separate Netty
+ * port (reactive.server.port), backed by an R2DBC connection pool on the same database.
+ * The servlet application keeps running unchanged; route those two paths to the
+ * reactive port at the ingress to use it instead of the MVC controllers.
+ *
+ * The connection pool is deliberately not a bean: a ConnectionFactory bean would switch
+ * on Spring Boot's R2DBC SQL initialization and transaction manager, which would
+ * compete with the JDBC DataSource and the JPA transaction manager. For the same reason
+ * the repository gets its own R2DBC transaction manager rather than a bean.
+ */
+@Configuration
+@ConditionalOnProperty(name = "reactive.enabled", havingValue = "true")
+public class ReactiveConfig implements DisposableBean {
+
+    private final ConnectionPool pool;
+    private final String url;
+
+    public ReactiveConfig(@Value("${reactive.r2dbc.url}") String url,
+                          @Value("${reactive.r2dbc.username:}") String username,
+                          @Value("${reactive.r2dbc.password:}") String password,
+                          @Value("${reactive.r2dbc.pool-size:10}") int poolSize) {
+        this.url = url;
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (StringUtils.hasText(username)) options.option(ConnectionFactoryOptions.USER, username);
+        if (StringUtils.hasText(password)) options.option(ConnectionFactoryOptions.PASSWORD, password);
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name("reactive")
+                .maxSize(poolSize)
+                .build());
+    }
+
+    @Bean
+    public ReactiveUserRepository reactiveUserRepository(EntityManagerFactory entityManagerFactory) {
+        return new ReactiveUserRepository(DatabaseClient.create(pool),
+                TransactionalOperator.create(new R2dbcTransactionManager(pool)),
+                entityManagerFactory.getCache(),
+                UserStatsRepository.upsertFor(url));
+    }
+
+    @Bean
+    public ReactiveProfileHandler reactiveProfileHandler(ReactiveUserRepository reactiveUserRepository,
+                                                         ILeaderboardService leaderboardService,
+                                                         Validator validator) {
+        return new ReactiveProfileHandler(reactiveUserRepository, leaderboardService, validator);
+    }
+
+    @Bean
+    public ReactiveServer reactiveServer(ReactiveProfileHandler handler,
+                                         ObjectMapper objectMapper,
+                                         @Value("${reactive.server.port:8081}") int port) {
+        RouterFunction<ServerResponse> routes = RouterFunctions.route()
+                .add(RouterFunctions.route(GET("/profile/{id}"), handler::getProfile))
+                .add(RouterFunctions.route(PUT("/image"), handler::imageEntries))
+                .build();
+
+        // Same JSON settings as the MVC side (ISO dates etc.) and the same CORS rule as CorsConfig
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOrigins(List.of("http://localhost:5173"));
+        cors.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        cors.setAllowedHeaders(List.of("*"));
+        cors.setAllowCredentials(true);
+        UrlBasedCorsConfigurationSource corsSource = new UrlBasedCorsConfigurationSource();
+        corsSource.registerCorsConfiguration("/**", cors);
+
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .webFilter(new CorsWebFilter(corsSource))
+                .build();
+        return new ReactiveServer(RouterFunctions.toHttpHandler(routes, strategies), port);
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+}
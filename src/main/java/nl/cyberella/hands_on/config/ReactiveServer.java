@@ -0,0 +1,45 @@
+package nl.cyberella.hands_on.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+
+/**
+ * Netty server for the reactive handlers, running next to the servlet container on its
+ * own port. Started and stopped with the application context.
+ */
+@Slf4j
+public class ReactiveServer implements SmartLifecycle {
+
+    private final WebServer webServer;
+    private volatile boolean running;
+
+    public ReactiveServer(HttpHandler httpHandler, int port) {
+        this.webServer = new NettyReactiveWebServerFactory(port).getWebServer(httpHandler);
+    }
+
+    /** The bound port (useful when configured as 0); -1 before start. */
+    public int port() {
+        return running ? webServer.getPort() : -1;
+    }
+
+    @Override
+    public void start() {
+        webServer.start();
+        running = true;
+        log.info("Reactive server started on port {}", webServer.getPort());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        webServer.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
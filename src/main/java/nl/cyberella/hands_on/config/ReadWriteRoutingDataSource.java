@@ -0,0 +1,112 @@
+package nl.cyberella.hands_on.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ *
+ * The decision is made when a connection is first needed, so this must sit behind a
+ * LazyConnectionDataSourceProxy (see ReadReplicaConfig): the transaction manager asks
+ * for a connection before the read-only flag is visible to
+ * TransactionSynchronizationManager.
+ *
+ * A read-only transaction still goes to the primary when it has been pinned:
+ * - pinToPrimary(): for the rest of the current transaction, used for reads on behalf
+ *   of a user inside their read-your-writes window (IReadYourWritesService)
+ * - onPrimary(work): for everything inside work, used for credential checks
+ *
+ * Every decision is counted as datasource.routing{target, reason}, with reason one of
+ * write, no_transaction, read_only, read_your_writes or pinned. Work outside a Spring
+ * transaction (JdbcTemplate repositories, Spring Data derived queries called directly)
+ * always uses the primary.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final String READ_YOUR_WRITES = "read_your_writes";
+    private static final String PINNED_BY_CALLER = "pinned";
+
+    // Why the current thread's read-only transactions go to the primary, if they do
+    private static final ThreadLocal<String> PINNED = new ThreadLocal<>();
+
+    private final Counter writes;
+    private final Counter nonTransactional;
+    private final Counter readYourWritesReads;
+    private final Counter pinnedReads;
+    private final Counter replicaReads;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, MeterRegistry registry) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        this.writes = counter(registry, Target.PRIMARY, "write");
+        this.nonTransactional = counter(registry, Target.PRIMARY, "no_transaction");
+        this.readYourWritesReads = counter(registry, Target.PRIMARY, READ_YOUR_WRITES);
+        this.pinnedReads = counter(registry, Target.PRIMARY, PINNED_BY_CALLER);
+        this.replicaReads = counter(registry, Target.REPLICA, "read_only");
+        afterPropertiesSet();
+    }
+
+    private static Counter counter(MeterRegistry registry, Target target, String reason) {
+        return Counter.builder("datasource.routing")
+                .description("Connections handed out by the read/write routing DataSource")
+                .tag("target", target.name().toLowerCase())
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            nonTransactional.increment();
+            return Target.PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            return Target.PRIMARY;
+        }
+        String pinned = PINNED.get();
+        if (pinned != null) {
+            (READ_YOUR_WRITES.equals(pinned) ? readYourWritesReads : pinnedReads).increment();
+            return Target.PRIMARY;
+        }
+        replicaReads.increment();
+        return Target.REPLICA;
+    }
+
+    /**
+     * Route the rest of the current transaction to the primary. Must be called before its
+     * first statement; without an active transaction this does nothing.
+     */
+    public static void pinToPrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || PINNED.get() != null) return;
+        PINNED.set(READ_YOUR_WRITES);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PINNED.remove();
+            }
+        });
+    }
+
+    /** Run work with every transaction it starts routed to the primary. */
+    public static <T> T onPrimary(Supplier<T> work) {
+        String previous = PINNED.get();
+        PINNED.set(PINNED_BY_CALLER);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) PINNED.remove();
+            else PINNED.set(previous);
+        }
+    }
+}
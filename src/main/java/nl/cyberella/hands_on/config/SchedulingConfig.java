@@ -0,0 +1,12 @@
+package nl.cyberella.hands_on.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled methods (e.g. the periodic leaderboard reconciliation).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,82 @@
+package nl.cyberella.hands_on.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import jakarta.persistence.SharedCacheMode;
+import nl.cyberella.hands_on.models.User;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hibernate second-level cache (jpa.cache.enabled, on by default).
+ *
+ * Regions live in a Caffeine JCache manager owned by this class, one bounded cache per
+ * region, so every region has an explicit size and Hibernate fails at startup if an
+ * entity asks for a region that is not configured here:
+ * - User.CACHE_REGION: User entities by id (em.find, UserRepository.findById)
+ * - User.NATURAL_ID_CACHE_REGION: email -> id for UserRepository.findByEmail
+ *
+ * Only entities annotated with @Cache are cached (ENABLE_SELECTIVE); Login is left out
+ * on purpose so password hashes are never kept in memory beyond a sign-in. The query
+ * cache stays off: every write to users would invalidate all of its results.
+ *
+ * With jpa.cache.statistics, Hibernate statistics are collected and Spring Boot
+ * publishes them as hibernate.* meters (cache hits, misses and puts per region).
+ */
+@Configuration
+@ConditionalOnProperty(name = "jpa.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+    private static final AtomicInteger MANAGERS = new AtomicInteger();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager jpaCacheManager(@Value("${jpa.cache.users.max-entries:10000}") long usersMaxEntries,
+                                        @Value("${jpa.cache.users-by-email.max-entries:10000}") long usersByEmailMaxEntries,
+                                        @Value("${jpa.cache.time-to-live:60s}") Duration timeToLive) {
+        // The provider keeps one manager per URI for the whole JVM: a URI of its own per
+        // context, so a second context (tests, a refresh) does not find the regions taken
+        URI uri = URI.create("jpa-second-level-cache-" + MANAGERS.incrementAndGet());
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(uri, SecondLevelCacheConfig.class.getClassLoader());
+        cacheManager.createCache(User.CACHE_REGION, region(usersMaxEntries, timeToLive));
+        cacheManager.createCache(User.NATURAL_ID_CACHE_REGION, region(usersByEmailMaxEntries, timeToLive));
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, Duration timeToLive) {
+        CaffeineConfiguration<Object, Object> region = new CaffeineConfiguration<>();
+        region.setMaximumSize(OptionalLong.of(maxEntries));
+        region.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+        // Hibernate stores immutable disassembled state; copying it on every get is wasted work
+        region.setStoreByValue(false);
+        return region;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(CacheManager jpaCacheManager,
+                                                          @Value("${jpa.cache.statistics:true}") boolean statistics) {
+        return properties -> {
+            properties.put(AvailableSettings.JAKARTA_SHARED_CACHE_MODE, SharedCacheMode.ENABLE_SELECTIVE);
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, jpaCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, statistics);
+            // Statistics also switch on a multi-line INFO log of every session's metrics
+            properties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+}
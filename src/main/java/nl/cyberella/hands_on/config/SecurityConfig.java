@@ -1,28 +1,120 @@
-
 package nl.cyberella.hands_on.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
 @Configuration
 @EnableWebSecurity
+@Slf4j
 public class SecurityConfig {
 
+    static final String ADMIN = "ADMIN";
+    static final String METRICS = "METRICS";
+
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, UserDetailsService accounts) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(HttpMethod.POST, "/register", "/signin", "/enable-2fa", "/verify-2fa-setup", "/verify-2fa").permitAll()
                 .requestMatchers(HttpMethod.PUT, "/image").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
+                // Bulk import/export of accounts and the audit trail: admin account only
+                .requestMatchers("/admin/**").hasRole(ADMIN)
+                // Health stays open for load balancers; metrics only for the scrape account
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasRole(METRICS)
                 .anyRequest().permitAll()
             )
+            .httpBasic(Customizer.withDefaults())
+            .authenticationManager(accountAuthentication(accounts))
             .headers(headers -> headers.frameOptions(frame -> frame.sameOrigin()));
         return http.build();
     }
-}
\ No newline at end of file
+
+    /*
+    The HTTP Basic accounts, decided at startup so the AOT-built image can still switch them:
+    - admin (admin.username / admin.password, ADMIN_USERNAME / ADMIN_PASSWORD) for /admin/**
+    - the Prometheus scrape account (metrics.username / metrics.password, METRICS_USERNAME /
+      METRICS_PASSWORD) for /actuator/** other than health
+    An account without a password is not created, so its endpoints answer every request with
+    401 until an operator configures one.
+    */
+    @Bean
+    public UserDetailsService accounts(@Value("${admin.username:admin}") String adminUsername,
+                                       @Value("${admin.password:}") String adminPassword,
+                                       @Value("${metrics.username:prometheus}") String metricsUsername,
+                                       @Value("${metrics.password:}") String metricsPassword) {
+        InMemoryUserDetailsManager accounts = new InMemoryUserDetailsManager();
+        addAccount(accounts, adminUsername, adminPassword, ADMIN, "Admin endpoints disabled: admin.password is not set");
+        addAccount(accounts, metricsUsername, metricsPassword, METRICS, "Metrics endpoints disabled: metrics.password is not set");
+        return accounts;
+    }
+
+    private static void addAccount(InMemoryUserDetailsManager accounts, String username, String password, String role, String disabledMessage) {
+        if (password.isBlank()) {
+            log.info(disabledMessage);
+            return;
+        }
+        accounts.createUser(User.withUsername(username)
+                .password(ACCOUNT_PASSWORDS.encode(password))
+                .roles(role)
+                .build());
+    }
+
+    /*
+    The chain is stateless, so every admin call and every Prometheus scrape checks its Basic
+    credentials again. They are checked with ACCOUNT_PASSWORDS, not the password.encoder bean:
+    that one is BCrypt, would spend a full hash on each request, and its timer is meant to
+    show the cost of user sign-in and registration only.
+    */
+    static AuthenticationManager accountAuthentication(UserDetailsService accounts) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(accounts);
+        provider.setPasswordEncoder(ACCOUNT_PASSWORDS);
+        return new ProviderManager(provider);
+    }
+
+    // The account passwords are operator secrets from the configuration and their hashes never
+    // leave this process, so a slow hash protects nothing: SHA-256, compared in constant time.
+    static final PasswordEncoder ACCOUNT_PASSWORDS = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return HexFormat.of().formatHex(sha256(rawPassword));
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword != null
+                    && MessageDigest.isEqual(sha256(rawPassword), HexFormat.of().parseHex(encodedPassword));
+        }
+    };
+
+    private static byte[] sha256(CharSequence value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package nl.cyberella.hands_on.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Extra wiring for the virtual-thread mode (spring.threads.virtual.enabled=true).
+ *
+ * Spring Boot itself then runs Tomcat requests, the applicationTaskExecutor (@Async,
+ * async MVC) and @Scheduled methods on virtual threads. Here the DataSource is wrapped
+ * in a ConcurrencyLimitedDataSource so the unbounded number of request threads queue
+ * fairly for the Hikari pool, with gauges for the gate. With a read replica
+ * (ReadReplicaConfig) each pool gets its own gate; the routing proxy in front of them,
+ * like any other delegating DataSource, is left alone.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "datasource.gate.enabled", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadConfig {
+
+    // static: post-processors are created before regular beans
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof DelegatingDataSource) return bean;
+                int maxConcurrent = environment.getProperty("datasource.gate.max-concurrent", Integer.class, 0);
+                if (maxConcurrent <= 0) {
+                    // Default: as many as the pool has connections, so nobody waits inside Hikari
+                    maxConcurrent = bean instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                }
+                Duration acquireTimeout = environment.getProperty("datasource.gate.acquire-timeout", Duration.class, Duration.ofSeconds(30));
+                return new ConcurrencyLimitedDataSource(dataSource, maxConcurrent, acquireTimeout);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder dataSourceGateMetrics(Map<String, DataSource> dataSources) {
+        return registry -> dataSources.forEach((name, dataSource) -> {
+            if (!(dataSource instanceof ConcurrencyLimitedDataSource gate)) return;
+            Gauge.builder("datasource.gate.active", gate, ConcurrencyLimitedDataSource::active)
+                    .description("Callers holding a database connection")
+                    .tag("datasource", name)
+                    .register(registry);
+            Gauge.builder("datasource.gate.waiting", gate, ConcurrencyLimitedDataSource::waiting)
+                    .description("Callers queued for a database connection")
+                    .tag("datasource", name)
+                    .register(registry);
+            Gauge.builder("datasource.gate.max", gate, ConcurrencyLimitedDataSource::maxConcurrent)
+                    .tag("datasource", name)
+                    .register(registry);
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package nl.cyberella.hands_on.controllers;
+
+import jakarta.servlet.http.HttpServletResponse;
+import nl.cyberella.hands_on.audit.AuditReason;
+import nl.cyberella.hands_on.dto.admin.ImportResult;
+import nl.cyberella.hands_on.services.interfaces.IAuditExportService;
+import nl.cyberella.hands_on.services.interfaces.IAuditQueryService;
+import nl.cyberella.hands_on.services.interfaces.IUserExportService;
+import nl.cyberella.hands_on.services.interfaces.IUserImportService;
+import nl.cyberella.hands_on.exceptions.InvalidRequestException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+
+/**
+ * Admin endpoints for operating on many accounts at once and for reading the audit trail.
+ */
+@RestController
+public class AdminController {
+
+    private final IUserImportService userImportService;
+    private final IUserExportService userExportService;
+    private final IAuditExportService auditExportService;
+    private final IAuditQueryService auditQueryService;
+
+    public AdminController(IUserImportService userImportService, IUserExportService userExportService,
+                           IAuditExportService auditExportService, IAuditQueryService auditQueryService) {
+        this.userImportService = userImportService;
+        this.userExportService = userExportService;
+        this.auditExportService = auditExportService;
+        this.auditQueryService = auditQueryService;
+    }
+
+    /**
+     * POST /admin/users/import
+     *
+     * Bulk-create accounts from a streamed body:
+     * - text/csv: header line with name,email,password followed by one row per account
+     * - application/x-ndjson: one {"name","email","password"} object per line
+     *
+     * The body is read as a stream (never buffered as a whole). Rows are committed in
+     * chunks; invalid rows are listed in the response and do not abort the import.
+     *
+     * Response: 200 OK with an {@link ImportResult}.
+     */
+    @PostMapping(value = "/admin/users/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        ImportResult result = userImportService.importUsers(body, contentType);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * GET /admin/users/export?format=ndjson|csv
+     *
+     * Streams every user profile (no password hashes or 2FA secrets) directly to the
+     * response while it is read from a JDBC cursor, so memory stays flat regardless
+     * of table size. Defaults to NDJSON.
+     */
+    @GetMapping("/admin/users/export")
+    public void exportUsers(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+        String f = format.toLowerCase();
+        // Validate before any header is written so errors still become a normal 400 body
+        if (!f.equals("ndjson") && !f.equals("csv")) {
+            throw new InvalidRequestException("Unsupported export format; use ndjson or csv");
+        }
+        response.setContentType(f.equals("csv") ? "text/csv;charset=UTF-8" : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + f + "\"");
+        userExportService.exportUsers(f, response.getOutputStream());
+    }
+
+    /**
+     * GET /admin/audit/export?from=2024-05-01T00:00:00Z&to=2024-05-02T00:00:00Z
+     *
+     * Streams the structured binary audit log (audit.segments.enabled) as JSON lines,
+     * oldest first. from/to are optional ISO-8601 instants; to is exclusive.
+     */
+    @GetMapping("/admin/audit/export")
+    public void exportAudit(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                            HttpServletResponse response) throws IOException {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidRequestException("from must be before to");
+        }
+        response.setContentType("application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audit.ndjson\"");
+        auditExportService.exportAudit(from, to, response.getOutputStream());
+    }
+
+    /**
+     * GET /admin/audit/users/{id}/events?minutes=15&limit=100
+     *
+     * Audit events of one user in the last N minutes, newest first (limit capped at 1000).
+     * Served from the in-memory audit index; only events within its retention are seen.
+     */
+    @GetMapping("/admin/audit/users/{id}/events")
+    public ResponseEntity<?> auditEventsForUser(@PathVariable Integer id,
+                                                @RequestParam(defaultValue = "15") int minutes,
+                                                @RequestParam(defaultValue = "100") int limit) {
+        if (minutes < 1) throw new InvalidRequestException("minutes must be >= 1");
+        if (limit < 1) throw new InvalidRequestException("limit must be >= 1");
+        return ResponseEntity.ok(auditQueryService.eventsForUser(id, minutes, limit));
+    }
+
+    /**
+     * GET /admin/audit/reasons/{reason}/per-minute?minutes=60
+     *
+     * Number of audit events with the given AuditReason (e.g. PASSWORD_MISMATCH) in each
+     * of the last N minutes, oldest first; minutes without events report 0.
+     */
+    @GetMapping("/admin/audit/reasons/{reason}/per-minute")
+    public ResponseEntity<?> auditReasonPerMinute(@PathVariable String reason,
+                                                  @RequestParam(defaultValue = "60") int minutes) {
+        if (minutes < 1) throw new InvalidRequestException("minutes must be >= 1");
+        AuditReason r;
+        try {
+            r = AuditReason.valueOf(reason.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidRequestException("Unknown audit reason");
+        }
+        return ResponseEntity.ok(auditQueryService.countPerMinute(r, minutes));
+    }
+}
@@ -2,7 +2,10 @@ package nl.cyberella.hands_on.controllers;
 
 import nl.cyberella.hands_on.dto.auth.RegisterRequest;
 import nl.cyberella.hands_on.dto.auth.SigninRequest;
+import nl.cyberella.hands_on.dto.auth.TwoFactorRequiredResponse;
 import nl.cyberella.hands_on.models.User;
+import nl.cyberella.hands_on.dto.user.ProfileBatchGetRequest;
+import nl.cyberella.hands_on.dto.user.ProfileBatchGetResponse;
 import nl.cyberella.hands_on.dto.user.UserMapper;
 import nl.cyberella.hands_on.dto.user.UserResponse;
 import nl.cyberella.hands_on.models.UpdateProfileRequest;
@@ -13,14 +16,21 @@ import nl.cyberella.hands_on.services.interfaces.IAuthService;
 import nl.cyberella.hands_on.audit.AuditLogger;
 import lombok.extern.slf4j.Slf4j;
 import nl.cyberella.hands_on.controllers.interfaces.IAuthController;
+import nl.cyberella.hands_on.exceptions.InvalidCredentialsException;
+import nl.cyberella.hands_on.exceptions.InvalidRequestException;
+import nl.cyberella.hands_on.exceptions.NotFoundException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-
-import jakarta.persistence.EntityNotFoundException;
-import org.springframework.security.authentication.BadCredentialsException;
+import java.util.Map;
+import java.util.Set;
 
 
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -32,14 +42,17 @@ public class AuthController implements IAuthController {
     private final IUserService userService;
     private final UserService userServiceImpl;
     private final AuditLogger auditLogger;
+    private final int maxBatchIds;
 
     // Constructor injection for the services. Whenever an AuthController gets created, this constructor is called.
     // Calling the interfaces here, so the controller is decoupled from the specific implementation
-    public AuthController(IAuthService authService, IUserService userService, UserService userServiceImpl, AuditLogger auditLogger) {
+    public AuthController(IAuthService authService, IUserService userService, UserService userServiceImpl, AuditLogger auditLogger,
+                          @Value("${profiles.batch-get.max-ids:100}") int maxBatchIds) {
         this.authService = authService;
         this.userService = userService;
         this.userServiceImpl = userServiceImpl;
         this.auditLogger = auditLogger;
+        this.maxBatchIds = maxBatchIds;
     }
 
     /**
@@ -63,7 +76,35 @@ public class AuthController implements IAuthController {
             return ResponseEntity.ok(resp);
         }
         // If user not found, return 404 error
-        throw new EntityNotFoundException("User not found");
+        throw new NotFoundException("User not found");
+    }
+
+    /**
+     * POST /profiles:batchGet
+     * Fetch many profiles at once (friend list, admin dashboard) instead of one GET /profile/{id}
+     * per user. Body {"ids":[1,2,7]}, at most profiles.batch-get.max-ids distinct ids. Unknown ids
+     * do not fail the request: they come back in "missing", next to the profiles that were found.
+     * One database query at most; cached users are not read again (UserService.findAllById).
+     */
+    @PostMapping("/profiles:batchGet")
+    public ResponseEntity<?> batchGetProfiles(@Valid @RequestBody ProfileBatchGetRequest body) {
+        if (body.ids() == null || body.ids().isEmpty()) throw new InvalidRequestException("ids are required");
+        Set<Integer> ids = new LinkedHashSet<>(body.ids());
+        if (ids.contains(null)) throw new InvalidRequestException("ids must not contain null");
+        if (ids.size() > maxBatchIds) throw new InvalidRequestException("At most " + maxBatchIds + " ids per request");
+
+        Map<Integer, User> found = new HashMap<>();
+        for (User u : userService.findAllById(ids)) found.put(u.getId(), u);
+
+        // Answer in request order: found ids as profiles, the others as missing
+        Map<Integer, UserResponse> profiles = new LinkedHashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            User u = found.get(id);
+            if (u == null) missing.add(id);
+            else profiles.put(id, UserMapper.from(u));
+        }
+        return ResponseEntity.ok(new ProfileBatchGetResponse(profiles, missing));
     }
 
     /**
@@ -75,7 +116,7 @@ public class AuthController implements IAuthController {
     // defined in the class (like @NotNull, @Email, etc.) -> see models/UpdateProfileRequest.java
     // @RequestBody UpdateProfileRequest req -> binds the JSON sent in the request body to a Java object req
     public ResponseEntity<?> updateProfile(@Valid @RequestBody UpdateProfileRequest req) {
-        if (req.getId() == null) throw new IllegalArgumentException("ID is required");
+        if (req.getId() == null) throw new InvalidRequestException("ID is required");
 
         // Audit: attempt to update profile for given ID (will be marked success later)
         Integer attemptId = req.getId();
@@ -83,14 +124,14 @@ public class AuthController implements IAuthController {
         var userOpt = userService.findById(req.getId());
         if (userOpt.isEmpty()) {
             // Audit failure: no user to update
-            try { auditLogger.auditUpdateProfileAttempt(attemptId, false); } catch (Exception ignore) {}
-            throw new EntityNotFoundException("User not found");
+            auditLogger.auditUpdateProfileAttempt(attemptId, false);
+            throw new NotFoundException("User not found");
         }
         var user = userOpt.get(); // extracting the User object with userOpt.get()
 
         // Update name if provided
         if (req.getName() != null) {
-            if (req.getName().isBlank()) throw new IllegalArgumentException("Name cannot be empty");
+            if (req.getName().isBlank()) throw new InvalidRequestException("Name cannot be empty");
             user.setName(req.getName());
         }
 
@@ -98,7 +139,7 @@ public class AuthController implements IAuthController {
         if (req.getPhone() != null) {
             String phone = req.getPhone();
             // Simple regex to allow digits, spaces, +, -, parentheses
-            if (!phone.matches("^[0-9 +()\\-]{6,20}$")) throw new IllegalArgumentException("Invalid phone format");
+            if (!phone.matches("^[0-9 +()\\-]{6,20}$")) throw new InvalidRequestException("Invalid phone format");
             user.setPhone(phone);
         }
 
@@ -106,17 +147,15 @@ public class AuthController implements IAuthController {
         if (req.getEmail() != null) {
             try {
                 boolean ok = userService.changeEmail(user, req.getEmail());
-                if (!ok) throw new IllegalArgumentException("Email already in use");
+                if (!ok) throw new InvalidRequestException("Email already in use");
             } catch (IllegalArgumentException ex) {
-                throw new IllegalArgumentException("Invalid email");
+                throw new InvalidRequestException("Invalid email");
             }
         }
 
         userService.save(user); // Save the updated user
         // Audit success
-        try {
-            auditLogger.auditUpdateProfileAttempt(attemptId, true);
-        } catch (Exception ignore) {}
+        auditLogger.auditUpdateProfileAttempt(attemptId, true);
         UserResponse resp = UserMapper.from(user);
         return ResponseEntity.ok(resp);
     }
@@ -129,29 +168,29 @@ public class AuthController implements IAuthController {
     public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest body) {
         // Basic input validation
         if (body.name() == null || body.name().isBlank()) {
-            throw new IllegalArgumentException("Name is required.");
+            throw new InvalidRequestException("Name is required.");
         }
         if (body.email() == null || body.email().isBlank() || !body.email().contains("@")) {
-            throw new IllegalArgumentException("Valid email is required.");
+            throw new InvalidRequestException("Valid email is required.");
         }
         if (body.password() == null || body.password().isBlank()) {
-            throw new IllegalArgumentException("Password is required.");
+            throw new InvalidRequestException("Password is required.");
         }
 
         // Validate password strength using PasswordValidator
         PasswordValidator.ValidationResult validation = PasswordValidator.validate(body.password());
         if (!validation.isValid()) {
-            throw new IllegalArgumentException("Password invalid: " + String.join(", ", validation.getErrors()));
+            throw new InvalidRequestException("Password invalid: " + String.join(", ", validation.getErrors()));
         }
 
         String normalizedEmail = body.email().trim().toLowerCase(); // Normalize email
         // Application-level attempt log for registration — avoid logging email (PII)
         User u = authService.register(body.name(), normalizedEmail, body.password()); // Call service to create user
         if (u == null) {
-            try { auditLogger.auditRegisterAttempt(null, false); } catch (Exception ignore) {}
-            throw new IllegalArgumentException("Unable to register. Please verify your credentials.");
+            auditLogger.auditRegisterAttempt(null, false);
+            throw new InvalidRequestException("Unable to register. Please verify your credentials.");
         }
-        try { auditLogger.auditRegisterAttempt(u.getId(), true); } catch (Exception ignore) {}
+        auditLogger.auditRegisterAttempt(u.getId(), true);
             UserResponse resp = UserMapper.from(u);
             return ResponseEntity.ok(resp);
         }
@@ -164,7 +203,7 @@ public class AuthController implements IAuthController {
     public ResponseEntity<?> signin(@Valid @RequestBody SigninRequest body) {
         // Basic input validation
         if (body.email() == null || body.email().isBlank() || body.password() == null || body.password().isBlank()) {
-            throw new IllegalArgumentException("Email and password are required");
+            throw new InvalidRequestException("Email and password are required");
         }
 
         String normalizedEmail = body.email().trim().toLowerCase();
@@ -174,16 +213,13 @@ public class AuthController implements IAuthController {
 
         if (res == null) {
             // Authentication failed — AuthService records an audit entry with the reason.
-            throw new BadCredentialsException("Invalid email or password");
+            throw new InvalidCredentialsException("Invalid email or password");
         }
 
         // If credentials are valid but 2FA is required — treat credentials check as successful
     if (res.requiresTwoFactor()) {
         // AuthService records audit for 2FA-required signins.
-        return ResponseEntity.ok(java.util.Map.of(
-            "requiresTwoFactor", true,
-            "userID", res.userId()
-        ));
+        return ResponseEntity.ok(new TwoFactorRequiredResponse(res.userId()));
     }
 
         UserResponse resp = UserMapper.from(res.user()); // Take the full user from res.user(), convert it into a safe format using UserMapper.from(), and store it in resp to return to the frontend
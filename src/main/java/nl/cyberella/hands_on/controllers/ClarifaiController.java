@@ -5,9 +5,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 
-import java.util.Map;
 import nl.cyberella.hands_on.services.interfaces.IClarifaiService;
 import nl.cyberella.hands_on.dto.clarifai.ClarifaiRequest;
+import nl.cyberella.hands_on.dto.clarifai.FaceDetectionResult;
 import nl.cyberella.hands_on.controllers.interfaces.IClarifaiController;
 
 @RestController
@@ -26,7 +26,7 @@ public class ClarifaiController implements IClarifaiController {
     var url = body.url();
 
         try {
-            Map<String, Object> result = clarifaiService.analyzeUrl(url);
+            FaceDetectionResult result = clarifaiService.analyzeUrl(url);
             return ResponseEntity.ok(result);
 
         } catch (IllegalStateException ex) {
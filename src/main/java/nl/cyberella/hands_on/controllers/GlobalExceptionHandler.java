@@ -14,7 +14,6 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
-import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -31,6 +30,10 @@ Handles:
 - Any other exceptions → 500
 Logs errors with appropriate severity (debug, warn, info, error). 
 
+Expected failures (bad input, unknown user, wrong password) are thrown as the stackless
+exceptions in the exceptions package, which extend the types handled here; see
+docs/error-handling.md.
+
 
 How it works in practice:
 1. A controller method throws an exception (e.g., IllegalArgumentException).
@@ -52,11 +55,6 @@ RestControllerAdvice:
 @Slf4j
 public class GlobalExceptionHandler {
 
-    // Get current timestamp
-    private String now() {
-        return LocalDateTime.now().toString();
-    }
-
     /**
      * Sanitize user-controlled input before logging to prevent log injection attacks.
      * Removes control characters, normalizes whitespace and replaces any remaining
@@ -83,10 +81,10 @@ public class GlobalExceptionHandler {
     fieldErrors is optional and used for validation errors.
 
     Generic error builder -> Creates consistent JSON response objects
-
+    (error is the status's reason phrase, the timestamp comes from CoarseClock)
     */
-    private ErrorResponse build(int status, String error, String message, String path, Map<String, String> fieldErrors) {
-        return new ErrorResponse(status, error, message, path, now(), fieldErrors);
+    private ResponseEntity<ErrorResponse> build(HttpStatus status, String message, String path, Map<String, String> fieldErrors) {
+        return new ResponseEntity<>(ErrorResponse.of(status, message, path, fieldErrors), status);
     }
 
     /* Each method is annotated with @ExceptionHandler for a specific exception type. */
@@ -102,8 +100,7 @@ public class GlobalExceptionHandler {
             .stream()
             .collect(Collectors.toMap(FieldError::getField, FieldError::getDefaultMessage, (a, b) -> a));
 
-        ErrorResponse body = build(HttpStatus.BAD_REQUEST.value(), "Bad Request", "Validation failed", req.getRequestURI(), fieldErrors);
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        return build(HttpStatus.BAD_REQUEST, "Validation failed", req.getRequestURI(), fieldErrors);
     }
 
     /* Malformed JSON:
@@ -113,8 +110,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(HttpMessageNotReadableException.class)
     protected ResponseEntity<ErrorResponse> handleUnreadable(HttpMessageNotReadableException ex, HttpServletRequest req) {
     log.warn("Malformed JSON request", ex);
-        ErrorResponse body = build(HttpStatus.BAD_REQUEST.value(), "Bad Request", "Malformed JSON request", req.getRequestURI(), null);
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        return build(HttpStatus.BAD_REQUEST, "Malformed JSON request", req.getRequestURI(), null);
     }
 
     /* Illegal arguments:
@@ -124,8 +120,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(IllegalArgumentException.class)
     protected ResponseEntity<ErrorResponse> handleIllegalArg(IllegalArgumentException ex, HttpServletRequest req) {
     log.warn("Illegal argument: {}", ex.getMessage());
-        ErrorResponse body = build(HttpStatus.BAD_REQUEST.value(), "Bad Request", ex.getMessage(), req.getRequestURI(), null);
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        return build(HttpStatus.BAD_REQUEST, ex.getMessage(), req.getRequestURI(), null);
     }
 
     /* Entity not found:
@@ -135,8 +130,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(EntityNotFoundException.class)
     protected ResponseEntity<ErrorResponse> handleNotFound(EntityNotFoundException ex, HttpServletRequest req) {
     log.info("Entity not found: {}", ex.getMessage());
-        ErrorResponse body = build(HttpStatus.NOT_FOUND.value(), "Not Found", ex.getMessage(), req.getRequestURI(), null);
-        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+        return build(HttpStatus.NOT_FOUND, ex.getMessage(), req.getRequestURI(), null);
     }
 
     /* Authentication failed:
@@ -146,8 +140,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(AuthenticationException.class)
     protected ResponseEntity<ErrorResponse> handleAuth(AuthenticationException ex, HttpServletRequest req) {
     log.info("Authentication failed: {}", ex.getMessage());
-        ErrorResponse body = build(HttpStatus.UNAUTHORIZED.value(), "Unauthorized", ex.getMessage(), req.getRequestURI(), null);
-        return new ResponseEntity<>(body, HttpStatus.UNAUTHORIZED);
+        return build(HttpStatus.UNAUTHORIZED, ex.getMessage(), req.getRequestURI(), null);
     }
 
     /* Data integrity violation:
@@ -157,8 +150,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(DataIntegrityViolationException.class)
     protected ResponseEntity<ErrorResponse> handleConflict(DataIntegrityViolationException ex, HttpServletRequest req) {
     log.warn("Data integrity violation: {}", ex.getMessage());
-        ErrorResponse body = build(HttpStatus.CONFLICT.value(), "Conflict", "Data integrity violation", req.getRequestURI(), null);
-        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+        return build(HttpStatus.CONFLICT, "Data integrity violation", req.getRequestURI(), null);
     }
 
     /* Catch-all for other exceptions
@@ -172,7 +164,6 @@ public class GlobalExceptionHandler {
         // Sanitize URI to prevent log injection (CWE-117)
         String safeUri = sanitizeForLog(req.getRequestURI());
         log.error("Unhandled exception for request {}", safeUri, ex);
-        ErrorResponse body = build(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Internal Server Error", "An unexpected error occurred", req.getRequestURI(), null);
-        return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
+        return build(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred", req.getRequestURI(), null);
     }
 }
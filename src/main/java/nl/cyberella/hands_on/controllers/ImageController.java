@@ -2,10 +2,10 @@ package nl.cyberella.hands_on.controllers;
 
 import nl.cyberella.hands_on.dto.user.ImageRequest;
 import org.springframework.http.ResponseEntity;
-import jakarta.persistence.EntityNotFoundException;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import nl.cyberella.hands_on.services.interfaces.IUserService;
+import nl.cyberella.hands_on.exceptions.NotFoundException;
 
 /**
  * Controller that exposes the image/entries endpoint used by the frontend to
@@ -49,7 +49,7 @@ public class ImageController {
         Integer entries = userService.incrementEntries(req.getId(), req.getFaceCount());
         if (entries == null) {
             // 400 used to match previous behaviour; consider 404 for clearer semantics.
-            throw new EntityNotFoundException("user not found");
+            throw new NotFoundException("user not found");
         }
         return ResponseEntity.ok(entries);
     }
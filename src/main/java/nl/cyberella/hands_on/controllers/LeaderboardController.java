@@ -0,0 +1,42 @@
+package nl.cyberella.hands_on.controllers;
+
+import nl.cyberella.hands_on.services.interfaces.ILeaderboardService;
+import nl.cyberella.hands_on.exceptions.InvalidRequestException;
+import nl.cyberella.hands_on.exceptions.NotFoundException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Read-only leaderboard of users ranked by entries.
+ * Served from the in-memory ranking in LeaderboardService (no ORDER BY per request).
+ */
+@RestController
+public class LeaderboardController {
+
+    private final ILeaderboardService leaderboardService;
+
+    public LeaderboardController(ILeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    /**
+     * GET /leaderboard?limit=10
+     * The top users by entries (limit is capped at 100).
+     */
+    @GetMapping("/leaderboard")
+    public ResponseEntity<?> top(@RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1) throw new InvalidRequestException("limit must be >= 1");
+        return ResponseEntity.ok(leaderboardService.top(limit));
+    }
+
+    /**
+     * GET /leaderboard/{id}
+     * Rank of a single user; 404 if the user does not exist.
+     */
+    @GetMapping("/leaderboard/{id}")
+    public ResponseEntity<?> rank(@PathVariable Integer id) {
+        var rank = leaderboardService.rankOf(id);
+        if (rank.isEmpty()) throw new NotFoundException("User not found");
+        return ResponseEntity.ok(rank.get());
+    }
+}
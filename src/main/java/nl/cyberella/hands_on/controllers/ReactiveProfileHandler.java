@@ -0,0 +1,112 @@
+package nl.cyberella.hands_on.controllers;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import nl.cyberella.hands_on.dto.error.ErrorResponse;
+import nl.cyberella.hands_on.dto.user.ImageRequest;
+import nl.cyberella.hands_on.repositories.ReactiveUserRepository;
+import nl.cyberella.hands_on.services.interfaces.ILeaderboardService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * WebFlux handlers for the reactive side server (see ReactiveConfig):
+ * - GET /profile/{id}: same UserResponse as AuthController.getProfile
+ * - PUT /image: same request and response as ImageController.imageEntries
+ *
+ * Errors use the ErrorResponse body and status codes of GlobalExceptionHandler, which
+ * only covers the servlet stack: 400 for malformed JSON, validation failures and
+ * out-of-range values, 404 for an unknown user, 415 for a non-JSON body, 500 otherwise.
+ *
+ * Nothing here blocks: the database work goes through R2DBC and the leaderboard
+ * update is an in-memory write.
+ */
+@Slf4j
+public class ReactiveProfileHandler {
+
+    // Same upper bound as UserService.incrementEntries
+    private static final int MAX_FACE_COUNT = 1000;
+
+    private final ReactiveUserRepository users;
+    private final ILeaderboardService leaderboardService;
+    private final Validator validator;
+
+    public ReactiveProfileHandler(ReactiveUserRepository users, ILeaderboardService leaderboardService, Validator validator) {
+        this.users = users;
+        this.leaderboardService = leaderboardService;
+        this.validator = validator;
+    }
+
+    public Mono<ServerResponse> getProfile(ServerRequest request) {
+        int id;
+        try {
+            id = Integer.parseInt(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return error(request, HttpStatus.BAD_REQUEST, "id must be a number", null);
+        }
+        return users.findProfileById(id)
+                .flatMap(profile -> ServerResponse.ok().bodyValue(profile))
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.info("Entity not found: User not found");
+                    return error(request, HttpStatus.NOT_FOUND, "User not found", null);
+                }))
+                .onErrorResume(e -> internalError(request, e));
+    }
+
+    public Mono<ServerResponse> imageEntries(ServerRequest request) {
+        return request.bodyToMono(ImageRequest.class)
+                .flatMap(body -> {
+                    Map<String, String> fieldErrors = validate(body);
+                    if (!fieldErrors.isEmpty()) return error(request, HttpStatus.BAD_REQUEST, "Validation failed", fieldErrors);
+                    int faceCount = body.getFaceCount() == null ? 1 : body.getFaceCount();
+                    if (faceCount > MAX_FACE_COUNT) {
+                        return error(request, HttpStatus.BAD_REQUEST, "faceCount exceeds maximum allowed value", null);
+                    }
+                    int id = body.getId();
+                    return users.addEntries(id, faceCount)
+                            .flatMap(entries -> {
+                                leaderboardService.recordEntries(id, entries);
+                                return ServerResponse.ok().bodyValue(entries);
+                            })
+                            .switchIfEmpty(Mono.defer(() -> {
+                                log.info("Entity not found: user not found");
+                                return error(request, HttpStatus.NOT_FOUND, "user not found", null);
+                            }));
+                })
+                .switchIfEmpty(Mono.defer(() -> error(request, HttpStatus.BAD_REQUEST, "Malformed JSON request", null)))
+                .onErrorResume(UnsupportedMediaTypeStatusException.class,
+                        e -> error(request, HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Content type must be application/json", null))
+                .onErrorResume(ServerWebInputException.class, e -> {
+                    log.warn("Malformed JSON request: {}", e.getReason());
+                    return error(request, HttpStatus.BAD_REQUEST, "Malformed JSON request", null);
+                })
+                .onErrorResume(e -> internalError(request, e));
+    }
+
+    private Map<String, String> validate(ImageRequest body) {
+        Set<ConstraintViolation<ImageRequest>> violations = validator.validate(body);
+        Map<String, String> fieldErrors = new LinkedHashMap<>();
+        for (ConstraintViolation<ImageRequest> v : violations) {
+            fieldErrors.putIfAbsent(v.getPropertyPath().toString(), v.getMessage());
+        }
+        return fieldErrors;
+    }
+
+    private Mono<ServerResponse> internalError(ServerRequest request, Throwable e) {
+        log.error("Unhandled exception on {}", request.path(), e);
+        return error(request, HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred", null);
+    }
+
+    private static Mono<ServerResponse> error(ServerRequest request, HttpStatus status, String message, Map<String, String> fieldErrors) {
+        return ServerResponse.status(status).bodyValue(ErrorResponse.of(status, message, request.path(), fieldErrors));
+    }
+}
@@ -0,0 +1,37 @@
+package nl.cyberella.hands_on.controllers;
+
+import nl.cyberella.hands_on.exceptions.NotFoundException;
+import nl.cyberella.hands_on.services.interfaces.IUserService;
+import nl.cyberella.hands_on.services.interfaces.IUserStatsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Read-only per-user image statistics, next to GET /profile/{id}.
+ * Served from the daily and weekly rollups in public.user_stats (docs/user-stats.md),
+ * so a request never scans the user's history.
+ */
+@RestController
+public class StatsController {
+
+    private final IUserService userService;
+    private final IUserStatsService userStatsService;
+
+    public StatsController(IUserService userService, IUserStatsService userStatsService) {
+        this.userService = userService;
+        this.userStatsService = userStatsService;
+    }
+
+    /**
+     * GET /profile/{id}/stats?days=7&weeks=4
+     * The user's last days (at most 92) and ISO weeks (at most 53), oldest first and including
+     * today and the current week; 404 if the user does not exist.
+     */
+    @GetMapping("/profile/{id}/stats")
+    public ResponseEntity<?> stats(@PathVariable Integer id,
+                                   @RequestParam(defaultValue = "7") int days,
+                                   @RequestParam(defaultValue = "4") int weeks) {
+        if (userService.findById(id).isEmpty()) throw new NotFoundException("User not found");
+        return ResponseEntity.ok(userStatsService.stats(id, days, weeks));
+    }
+}
@@ -2,14 +2,17 @@ package nl.cyberella.hands_on.controllers;
 
 import nl.cyberella.hands_on.dto.auth.UserIdRequest;
 import nl.cyberella.hands_on.dto.auth.VerifyRequest;
+import nl.cyberella.hands_on.dto.twofa.SuccessResponse;
+import nl.cyberella.hands_on.dto.twofa.VerifiedUserResponse;
 import nl.cyberella.hands_on.models.User;
 import org.springframework.http.ResponseEntity;
-import jakarta.persistence.EntityNotFoundException;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import java.util.Optional;
 import nl.cyberella.hands_on.services.interfaces.ITwoFaService;
 import nl.cyberella.hands_on.controllers.interfaces.ITwoFaController;
+import nl.cyberella.hands_on.exceptions.InvalidRequestException;
+import nl.cyberella.hands_on.exceptions.NotFoundException;
 
 @RestController
 public class TwoFaController implements ITwoFaController {
@@ -24,7 +27,7 @@ public class TwoFaController implements ITwoFaController {
     public ResponseEntity<?> enable(@Valid @RequestBody UserIdRequest body) throws Exception {
     Optional<User> userOpt = twoFaService.findUserById(body.userId());
         if (userOpt.isEmpty()) {
-            throw new EntityNotFoundException("user not found");
+            throw new NotFoundException("user not found");
         }
 
         // Generate a temporary secret and an otpauth URL for the user. The
@@ -34,15 +37,12 @@ public class TwoFaController implements ITwoFaController {
         var resp = twoFaService.enable2fa(userOpt.get());
         if (resp == null) {
             // Something went wrong during secret generation or save.
-            throw new IllegalArgumentException("failed to enable 2FA");
+            throw new InvalidRequestException("failed to enable 2FA");
         }
 
     // Return the manual secret and otpauth URL so the frontend can
     // render the QR code client-side and/or show the manual entry.
-    return ResponseEntity.ok(java.util.Map.of(
-        "manualEntry", resp.secret(),
-        "otpauth_url", resp.otpauth_url()
-    ));
+    return ResponseEntity.ok(resp);
     }
 
     @PostMapping("/verify-2fa-setup")
@@ -55,23 +55,23 @@ public class TwoFaController implements ITwoFaController {
     Optional<User> userOpt = twoFaService.findUserById(body.userId());
         if (userOpt.isEmpty()) {
             // Return 400 for a bad request where the provided user id doesn't exist.
-            throw new EntityNotFoundException("user not found");
+            throw new NotFoundException("user not found");
         }
 
         int token;
         try {
             token = Integer.parseInt(body.token());
         } catch (NumberFormatException ex) {
-            throw new IllegalArgumentException("invalid token format");
+            throw new InvalidRequestException("invalid token format");
         }
 
         boolean ok;
             ok = twoFaService.verifySetup(userOpt.get(), token);
         if (!ok) {
-            throw new IllegalArgumentException("invalid token");
+            throw new InvalidRequestException("invalid token");
         }
         // Return a small JSON payload so the frontend can call response.json()
-        return ResponseEntity.ok(java.util.Map.of("success", true));
+        return ResponseEntity.ok(SuccessResponse.OK);
     }
 
     @PostMapping("/verify-2fa")
@@ -82,28 +82,20 @@ public class TwoFaController implements ITwoFaController {
     Optional<User> userOpt = twoFaService.findUserById(body.userId());
         if (userOpt.isEmpty()) {
             // Return 400 for a bad request where the provided user id doesn't exist.
-            throw new EntityNotFoundException("user not found");
+            throw new NotFoundException("user not found");
         }
         
         int token;
         try {
             token = Integer.parseInt(body.token());
         } catch (NumberFormatException ex) {
-            throw new IllegalArgumentException("invalid token format");
+            throw new InvalidRequestException("invalid token format");
         }
         boolean ok;
         ok = twoFaService.verify(userOpt.get(), token);
         if (!ok) {
-            throw new IllegalArgumentException("invalid token");
+            throw new InvalidRequestException("invalid token");
         }
-        var user = userOpt.get();
-        return ResponseEntity.ok(java.util.Map.of("user", java.util.Map.of(
-                "id", user.getId(),
-                "email", user.getEmail(),
-                "name", user.getName(),
-                "entries", user.getEntries(),
-                "joined", user.getJoined(),
-                "two_factor_enabled", user.getTwoFactorEnabled()
-        )));
+        return ResponseEntity.ok(VerifiedUserResponse.from(userOpt.get()));
     }
 }
\ No newline at end of file
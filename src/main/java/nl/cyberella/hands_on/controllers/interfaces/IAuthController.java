@@ -5,13 +5,14 @@
  * This decouples the controller API from the implementation -> implementations can be swapped or mocked in tests
  * 
  * AuthController implements IAuthController and must provide the concrete implementations 
- * of the four methods declared below.
+ * of the five methods declared below.
  */
 
 package nl.cyberella.hands_on.controllers.interfaces;
 
 import nl.cyberella.hands_on.dto.auth.RegisterRequest;
 import nl.cyberella.hands_on.dto.auth.SigninRequest;
+import nl.cyberella.hands_on.dto.user.ProfileBatchGetRequest;
 import nl.cyberella.hands_on.models.UpdateProfileRequest;
 import org.springframework.http.ResponseEntity;
 
@@ -20,5 +21,6 @@ public interface IAuthController {
     ResponseEntity<?> register(RegisterRequest body); // contract for registration endpoint. Accepts a RegisterRequest object and returns an HTTP response (wrapped as ResponseEntity<?> -> the wildcard means any body type may be returned)
     ResponseEntity<?> signin(SigninRequest body); // contract for signin endpoint. 
     ResponseEntity<?> getProfile(Integer id); // contract for fetching a profile by ID. Accepts an int (ID) and returns the object (also wildcard)
+    ResponseEntity<?> batchGetProfiles(ProfileBatchGetRequest body); // contract for fetching many profiles at once. Accepts the list of IDs and returns the profiles found plus the IDs that were not
     ResponseEntity<?> updateProfile(UpdateProfileRequest req); // contract for updating a user profile. Accepts a an UpdateProfileRequest and returns an HTTP response
 }
@@ -0,0 +1,12 @@
+package nl.cyberella.hands_on.dto.admin;
+
+import java.util.List;
+
+/**
+ * Summary returned by the bulk user import endpoint.
+ * - total: number of data rows read
+ * - imported: rows that were written to users + login
+ * - failed: rows that were skipped
+ * - errors: per-row errors (capped; failed is always the full count)
+ */
+public record ImportResult(long total, long imported, long failed, List<ImportRowError> errors) {}
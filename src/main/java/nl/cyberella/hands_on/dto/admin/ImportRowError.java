@@ -0,0 +1,8 @@
+package nl.cyberella.hands_on.dto.admin;
+
+/**
+ * One rejected row of a bulk import.
+ * - line: 1-based line number in the uploaded body (header line included for CSV)
+ * - reason: why the row was skipped. Never contains the row's email or password (PII).
+ */
+public record ImportRowError(long line, String reason) {}
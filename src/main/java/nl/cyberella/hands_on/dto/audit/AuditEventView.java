@@ -0,0 +1,10 @@
+package nl.cyberella.hands_on.dto.audit;
+
+import java.time.Instant;
+
+/**
+ * One audit event from the in-memory audit index.
+ * - userId: null when the user was unknown
+ * - reason: AuditReason name, or null when none was recorded
+ */
+public record AuditEventView(Instant timestamp, String event, Integer userId, boolean success, String reason) {}
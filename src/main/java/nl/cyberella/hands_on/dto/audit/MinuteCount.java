@@ -0,0 +1,8 @@
+package nl.cyberella.hands_on.dto.audit;
+
+import java.time.Instant;
+
+/**
+ * Number of audit events in the minute starting at {@code minute}.
+ */
+public record MinuteCount(Instant minute, int count) {}
@@ -0,0 +1,10 @@
+package nl.cyberella.hands_on.dto.auth;
+
+import nl.cyberella.hands_on.models.User;
+
+/*
+ * LoginCredentials is what signin needs from one query: the stored password hash
+ * and the user it belongs to (login joined with users on user_id).
+ */
+
+public record LoginCredentials(String hash, User user) {}
@@ -0,0 +1,39 @@
+package nl.cyberella.hands_on.dto.auth;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import nl.cyberella.hands_on.utils.JsonFields;
+
+import java.io.IOException;
+
+/**
+ * Returned by POST /signin when the password was right but the account has 2FA on:
+ * {"requiresTwoFactor":true,"userID":42}. The frontend then asks for a code and calls
+ * POST /verify-2fa with the userID.
+ */
+@JsonSerialize(using = TwoFactorRequiredResponse.Serializer.class)
+public record TwoFactorRequiredResponse(Integer userID) {
+
+    static final class Serializer extends StdSerializer<TwoFactorRequiredResponse> {
+
+        private static final SerializedString REQUIRES_TWO_FACTOR = new SerializedString("requiresTwoFactor");
+        private static final SerializedString USER_ID = new SerializedString("userID");
+
+        Serializer() {
+            super(TwoFactorRequiredResponse.class);
+        }
+
+        @Override
+        public void serialize(TwoFactorRequiredResponse response, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(response, 2);
+            gen.writeFieldName(REQUIRES_TWO_FACTOR);
+            gen.writeBoolean(true);
+            gen.writeFieldName(USER_ID);
+            JsonFields.writeNumber(gen, response.userID());
+            gen.writeEndObject();
+        }
+    }
+}
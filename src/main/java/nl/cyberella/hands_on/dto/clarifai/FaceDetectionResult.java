@@ -0,0 +1,92 @@
+package nl.cyberella.hands_on.dto.clarifai;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Faces found by ClarifaiService, returned by POST /clarifaiAPI.
+ *
+ * The JSON keeps the shape the frontend reads: the boxes nested as in Clarifai's own
+ * response, and the same boxes again as a flat list.
+ * <pre>
+ * {"outputs":[{"data":{"regions":[{"region_info":{"bounding_box":{box}}}, ...]}}],
+ *  "regions":[{box}, ...]}
+ * </pre>
+ * where box is {"top_row":..,"left_col":..,"bottom_row":..,"right_col":..}, fractions of
+ * the image height and width.
+ */
+@JsonSerialize(using = FaceDetectionResult.Serializer.class)
+public record FaceDetectionResult(List<Box> regions) {
+
+    public record Box(float topRow, float leftCol, float bottomRow, float rightCol) {}
+
+    static final class Serializer extends StdSerializer<FaceDetectionResult> {
+
+        private static final SerializedString OUTPUTS = new SerializedString("outputs");
+        private static final SerializedString DATA = new SerializedString("data");
+        private static final SerializedString REGIONS = new SerializedString("regions");
+        private static final SerializedString REGION_INFO = new SerializedString("region_info");
+        private static final SerializedString BOUNDING_BOX = new SerializedString("bounding_box");
+        private static final SerializedString TOP_ROW = new SerializedString("top_row");
+        private static final SerializedString LEFT_COL = new SerializedString("left_col");
+        private static final SerializedString BOTTOM_ROW = new SerializedString("bottom_row");
+        private static final SerializedString RIGHT_COL = new SerializedString("right_col");
+
+        Serializer() {
+            super(FaceDetectionResult.class);
+        }
+
+        @Override
+        public void serialize(FaceDetectionResult result, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            List<Box> boxes = result.regions();
+            gen.writeStartObject(result, 2);
+
+            gen.writeFieldName(OUTPUTS);
+            gen.writeStartArray(null, 1);
+            gen.writeStartObject();
+            gen.writeFieldName(DATA);
+            gen.writeStartObject();
+            gen.writeFieldName(REGIONS);
+            gen.writeStartArray(boxes, boxes.size());
+            for (Box box : boxes) {
+                gen.writeStartObject();
+                gen.writeFieldName(REGION_INFO);
+                gen.writeStartObject();
+                gen.writeFieldName(BOUNDING_BOX);
+                writeBox(gen, box);
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeEndArray();
+
+            gen.writeFieldName(REGIONS);
+            gen.writeStartArray(boxes, boxes.size());
+            for (Box box : boxes) writeBox(gen, box);
+            gen.writeEndArray();
+
+            gen.writeEndObject();
+        }
+
+        private static void writeBox(JsonGenerator gen, Box box) throws IOException {
+            gen.writeStartObject(box, 4);
+            gen.writeFieldName(TOP_ROW);
+            gen.writeNumber(box.topRow());
+            gen.writeFieldName(LEFT_COL);
+            gen.writeNumber(box.leftCol());
+            gen.writeFieldName(BOTTOM_ROW);
+            gen.writeNumber(box.bottomRow());
+            gen.writeFieldName(RIGHT_COL);
+            gen.writeNumber(box.rightCol());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -1,11 +1,24 @@
 package nl.cyberella.hands_on.dto.error;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import nl.cyberella.hands_on.utils.CoarseClock;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
 import java.util.Map;
 
 /**
  * Generic error response returned by the application's global exception handler.
  * Uses a record to keep the response compact and immutable.
+ *
+ * Failed sign-ins and unknown ids make this a frequent body under attack, so it has a
+ * hand-written serializer like UserResponse (same JSON as the record would give).
  */
+@JsonSerialize(using = ErrorResponse.Serializer.class)
 public record ErrorResponse(
     int status,
     String error,
@@ -13,4 +26,50 @@ public record ErrorResponse(
     String path,
     String timestamp,
     Map<String, String> fieldErrors
-) {}
+) {
+
+    /** An error body for the current time, with the status's reason phrase as error. */
+    public static ErrorResponse of(HttpStatus status, String message, String path, Map<String, String> fieldErrors) {
+        return new ErrorResponse(status.value(), status.getReasonPhrase(), message, path, CoarseClock.isoNow(), fieldErrors);
+    }
+
+    static final class Serializer extends StdSerializer<ErrorResponse> {
+
+        private static final SerializedString STATUS = new SerializedString("status");
+        private static final SerializedString ERROR = new SerializedString("error");
+        private static final SerializedString MESSAGE = new SerializedString("message");
+        private static final SerializedString PATH = new SerializedString("path");
+        private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+        private static final SerializedString FIELD_ERRORS = new SerializedString("fieldErrors");
+
+        Serializer() {
+            super(ErrorResponse.class);
+        }
+
+        @Override
+        public void serialize(ErrorResponse body, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(body, 6);
+            gen.writeFieldName(STATUS);
+            gen.writeNumber(body.status());
+            gen.writeFieldName(ERROR);
+            gen.writeString(body.error());
+            gen.writeFieldName(MESSAGE);
+            gen.writeString(body.message());
+            gen.writeFieldName(PATH);
+            gen.writeString(body.path());
+            gen.writeFieldName(TIMESTAMP);
+            gen.writeString(body.timestamp());
+            gen.writeFieldName(FIELD_ERRORS);
+            if (body.fieldErrors() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartObject(body.fieldErrors(), body.fieldErrors().size());
+                for (Map.Entry<String, String> e : body.fieldErrors().entrySet()) {
+                    gen.writeStringField(e.getKey(), e.getValue());
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+    }
+}
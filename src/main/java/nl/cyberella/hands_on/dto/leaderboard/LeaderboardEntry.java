@@ -0,0 +1,7 @@
+package nl.cyberella.hands_on.dto.leaderboard;
+
+/**
+ * One row of the leaderboard.
+ * rank uses competition ranking: users with the same entries share a rank (1, 2, 2, 4).
+ */
+public record LeaderboardEntry(int rank, Integer id, String name, int entries) {}
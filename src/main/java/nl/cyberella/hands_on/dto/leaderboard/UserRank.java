@@ -0,0 +1,8 @@
+package nl.cyberella.hands_on.dto.leaderboard;
+
+/**
+ * Position of a single user on the leaderboard.
+ * - rank: 1-based competition rank by entries
+ * - total: number of ranked users
+ */
+public record UserRank(Integer id, int rank, int entries, int total) {}
@@ -0,0 +1,12 @@
+package nl.cyberella.hands_on.dto.stats;
+
+import java.time.LocalDate;
+
+/**
+ * Images processed by a user in one day or ISO week.
+ * - start: the day, or the Monday of the week
+ * - images: images processed (PUT /image calls)
+ * - faces: faces found in them
+ * - averageFacesPerImage: faces / images, 0 without images
+ */
+public record PeriodStats(LocalDate start, int images, long faces, double averageFacesPerImage) {}
@@ -0,0 +1,9 @@
+package nl.cyberella.hands_on.dto.stats;
+
+import java.util.List;
+
+/**
+ * Response of GET /profile/{id}/stats: the user's last days and weeks, oldest first,
+ * the current (partial) day and week last. Periods without images are included with zeros.
+ */
+public record UserStats(Integer id, List<PeriodStats> daily, List<PeriodStats> weekly) {}
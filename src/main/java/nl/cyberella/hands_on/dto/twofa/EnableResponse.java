@@ -1,8 +1,41 @@
 package nl.cyberella.hands_on.dto.twofa;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
 /**
  * DTO returned by the 2FA enable flow.
  * - secret: manual base32 secret the user can type into an authenticator app
  * - otpauth_url: otpauth:// URL suitable for QR code generation
+ *
+ * POST /enable-2fa returns it as {"manualEntry":secret,"otpauth_url":url}, the names the
+ * frontend reads.
  */
-public record EnableResponse(String secret, String otpauth_url) {}
+@JsonSerialize(using = EnableResponse.Serializer.class)
+public record EnableResponse(String secret, String otpauth_url) {
+
+    static final class Serializer extends StdSerializer<EnableResponse> {
+
+        private static final SerializedString MANUAL_ENTRY = new SerializedString("manualEntry");
+        private static final SerializedString OTPAUTH_URL = new SerializedString("otpauth_url");
+
+        Serializer() {
+            super(EnableResponse.class);
+        }
+
+        @Override
+        public void serialize(EnableResponse response, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(response, 2);
+            gen.writeFieldName(MANUAL_ENTRY);
+            gen.writeString(response.secret());
+            gen.writeFieldName(OTPAUTH_URL);
+            gen.writeString(response.otpauth_url());
+            gen.writeEndObject();
+        }
+    }
+}
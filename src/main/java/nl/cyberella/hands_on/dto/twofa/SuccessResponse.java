@@ -0,0 +1,34 @@
+package nl.cyberella.hands_on.dto.twofa;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * {"success":true}, returned by POST /verify-2fa-setup so the frontend can call
+ * response.json(). The body never changes: it is encoded once and copied as is.
+ */
+@JsonSerialize(using = SuccessResponse.Serializer.class)
+public record SuccessResponse(boolean success) {
+
+    public static final SuccessResponse OK = new SuccessResponse(true);
+
+    static final class Serializer extends StdSerializer<SuccessResponse> {
+
+        private static final SerializedString TRUE = new SerializedString("{\"success\":true}");
+        private static final SerializedString FALSE = new SerializedString("{\"success\":false}");
+
+        Serializer() {
+            super(SuccessResponse.class);
+        }
+
+        @Override
+        public void serialize(SuccessResponse response, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(response.success() ? TRUE : FALSE);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package nl.cyberella.hands_on.dto.twofa;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import nl.cyberella.hands_on.models.User;
+import nl.cyberella.hands_on.utils.JsonFields;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Returned by POST /verify-2fa once the code is accepted, completing the sign-in:
+ * {"user":{"id":..,"email":..,"name":..,"entries":..,"joined":..,"two_factor_enabled":..}}.
+ * Unlike UserResponse it has no phone and uses two_factor_enabled, as the frontend
+ * expects from this endpoint.
+ */
+@JsonSerialize(using = VerifiedUserResponse.Serializer.class)
+public record VerifiedUserResponse(
+        Integer id,
+        String email,
+        String name,
+        Integer entries,
+        LocalDate joined,
+        Boolean twoFactorEnabled
+) {
+
+    public static VerifiedUserResponse from(User user) {
+        return new VerifiedUserResponse(user.getId(), user.getEmail(), user.getName(), user.getEntries(),
+                user.getJoined(), user.getTwoFactorEnabled());
+    }
+
+    static final class Serializer extends StdSerializer<VerifiedUserResponse> {
+
+        private static final SerializedString USER = new SerializedString("user");
+        private static final SerializedString ID = new SerializedString("id");
+        private static final SerializedString EMAIL = new SerializedString("email");
+        private static final SerializedString NAME = new SerializedString("name");
+        private static final SerializedString ENTRIES = new SerializedString("entries");
+        private static final SerializedString JOINED = new SerializedString("joined");
+        private static final SerializedString TWO_FACTOR_ENABLED = new SerializedString("two_factor_enabled");
+
+        Serializer() {
+            super(VerifiedUserResponse.class);
+        }
+
+        @Override
+        public void serialize(VerifiedUserResponse user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(user, 1);
+            gen.writeFieldName(USER);
+            gen.writeStartObject(user, 6);
+            gen.writeFieldName(ID);
+            JsonFields.writeNumber(gen, user.id());
+            gen.writeFieldName(EMAIL);
+            gen.writeString(user.email());
+            gen.writeFieldName(NAME);
+            gen.writeString(user.name());
+            gen.writeFieldName(ENTRIES);
+            JsonFields.writeNumber(gen, user.entries());
+            gen.writeFieldName(JOINED);
+            JsonFields.writeDate(gen, user.joined());
+            gen.writeFieldName(TWO_FACTOR_ENABLED);
+            JsonFields.writeBoolean(gen, user.twoFactorEnabled());
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+}
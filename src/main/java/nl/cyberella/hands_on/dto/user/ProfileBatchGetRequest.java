@@ -0,0 +1,11 @@
+package nl.cyberella.hands_on.dto.user;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Body of POST /profiles:batchGet: the ids of the profiles to fetch. Duplicates are
+ * looked up once; the maximum count is profiles.batch-get.max-ids.
+ */
+public record ProfileBatchGetRequest(@NotNull(message = "ids required") List<Integer> ids) {}
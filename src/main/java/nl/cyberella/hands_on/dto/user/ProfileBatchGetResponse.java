@@ -0,0 +1,11 @@
+package nl.cyberella.hands_on.dto.user;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of POST /profiles:batchGet, in the order of the requested ids.
+ * - profiles: the profiles found, keyed by id
+ * - missing: the requested ids without a user (empty if all were found)
+ */
+public record ProfileBatchGetResponse(Map<Integer, UserResponse> profiles, List<Integer> missing) {}
@@ -0,0 +1,21 @@
+package nl.cyberella.hands_on.exceptions;
+
+import org.springframework.security.authentication.BadCredentialsException;
+
+/**
+ * Wrong email or password at sign-in. Handled as 401 by GlobalExceptionHandler.
+ *
+ * Credential stuffing makes this the most frequent exception under attack, and where it
+ * was thrown is never of interest: it has no stack trace (docs/error-handling.md).
+ */
+public class InvalidCredentialsException extends BadCredentialsException {
+
+    public InvalidCredentialsException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,20 @@
+package nl.cyberella.hands_on.exceptions;
+
+/**
+ * A request the application refuses: missing or malformed input, an invalid 2FA token,
+ * an out-of-range parameter. Handled as 400 by GlobalExceptionHandler.
+ *
+ * Stackless like the other expected failures in this package (docs/error-handling.md).
+ * Extends IllegalArgumentException so existing handlers and catch blocks keep working.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,19 @@
+package nl.cyberella.hands_on.exceptions;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * The requested user (or other entity) does not exist. Handled as 404 by
+ * GlobalExceptionHandler; stackless, see docs/error-handling.md.
+ */
+public class NotFoundException extends EntityNotFoundException {
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
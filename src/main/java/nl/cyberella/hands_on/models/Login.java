@@ -1,5 +1,6 @@
 package nl.cyberella.hands_on.models;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
@@ -11,19 +12,27 @@ import lombok.AllArgsConstructor;
 
 /**
  * Login is a database entity for authentication.
- * Primary key = email.
+ * Primary key = user_id, a foreign key to users.id (one login per user).
+ * Field email = sign-in name, unique, kept equal to users.email by UserService.changeEmail.
  * Field hash = hashed password (never store plain text).
  * Uses Lombok for boilerplate, JPA annotations for database mapping.
+ * Deliberately not in the second-level cache (no @Cache): hashes are only read at sign-in
+ * and should not stay in memory longer than that.
 */
 @Entity // marks this class as a database entity => JPA will map this class to a table
 @Table(name = "login", schema = "public") // maps the entity to a specific table in the database => explicitly sets table name (login) and schema (public).
 @Getter // automatically generate getters and setters for all fields
 @Setter
 @NoArgsConstructor // no-argument constructor for JPA
-@AllArgsConstructor // constructor with all fields (email and hash)
+@AllArgsConstructor // constructor with all fields (userId, email and hash)
 public class Login {
-    // The email is used as primary key for quick lookup during signin.
+    // The owning user's id; an integer key keeps the index small and lets signin join users on it.
     @Id // primary key of the table
+    @Column(name = "user_id")
+    private Integer userId;
+
+    // The email used to sign in (unique index, see db/migration/V2__login_user_id.sql).
+    @Column(nullable = false, unique = true)
     private String email;
 
     // The BCrypt hashed password (never store plain text here).
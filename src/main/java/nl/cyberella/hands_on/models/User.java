@@ -2,6 +2,11 @@ package nl.cyberella.hands_on.models;
 
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import nl.cyberella.hands_on.services.UserWriteListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -15,10 +20,17 @@ Contains:
 - Basic profile info (name, email, joined, entries, phone)
 - Two-factor authentication fields (twoFactorEnabled, twoFactorSecret, tempTwoFactorSecret)
 Lightweight and safe for returning user profile data without exposing sensitive info like passwords.
+
+Cached in Hibernate's second-level cache (see SecondLevelCacheConfig): by id in CACHE_REGION and,
+because email is the natural id, email -> id in NATURAL_ID_CACHE_REGION. READ_WRITE keeps both
+correct under concurrent updates, including an email change.
 */
 
 @Entity // JPA will map this class to a table
 @Table(name = "users", schema = "public") // explicitly sets table name and schema
+@EntityListeners(UserWriteListener.class) // keeps the user on the primary right after a write
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@NaturalIdCache(region = User.NATURAL_ID_CACHE_REGION)
 // Lombok annotations:
 @Getter // generate getter and setter methods
 @Setter
@@ -26,6 +38,9 @@ Lightweight and safe for returning user profile data without exposing sensitive
 @AllArgsConstructor // constructor with all fields
 public class User {
 
+    public static final String CACHE_REGION = "users";
+    public static final String NATURAL_ID_CACHE_REGION = "users-by-email";
+
     // Primary key (auto-incremented in H2 by IDENTITY strategy)
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -33,6 +48,7 @@ public class User {
 
     // Basic profile fields
     private String name;
+    @NaturalId(mutable = true) // unique; changes through UserService.changeEmail
     private String email;
 
     // Date the user joined the system (stored as DATE in the DB)
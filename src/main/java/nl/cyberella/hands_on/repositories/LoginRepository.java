@@ -1,19 +1,42 @@
 package nl.cyberella.hands_on.repositories;
 
+import nl.cyberella.hands_on.dto.auth.LoginCredentials;
 import nl.cyberella.hands_on.models.Login;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
-public interface LoginRepository extends JpaRepository<Login, String> {
+public interface LoginRepository extends JpaRepository<Login, Integer> {
 	/**
 	 * Repository for authentication records. Extends JpaRepository to inherit
-	 * common CRUD operations. The generic parameters are <Login, String>
-	 * where Login is the entity type and String is the type of its id
-	 * (in this design the email is used as the primary key for Login).
+	 * common CRUD operations. The generic parameters are <Login, Integer>
+	 * where Login is the entity type and Integer is the type of its id
+	 * (the id of the user the login belongs to).
+	 */
+
+	/**
+	 * Password hash and user for an email, in one query: the login row is found
+	 * through its unique email index and joined to users on the integer key.
+	 *
+	 * @param email the email to sign in with
+	 * @return the credentials, or empty if there is no login for this email
+	 */
+	@Query("SELECT new nl.cyberella.hands_on.dto.auth.LoginCredentials(l.hash, u) "
+			+ "FROM Login l JOIN User u ON u.id = l.userId WHERE l.email = :email")
+	Optional<LoginCredentials> findCredentialsByEmail(@Param("email") String email);
+
+	/**
+	 * Change the sign-in email of a user's login in place (one UPDATE, no new row).
+	 * Must run inside a transaction.
 	 *
-	 * No method declarations are required here for basic persistence —
-	 * Spring Data JPA will provide the implementation for standard
-	 * operations like save(), findById(), delete(), etc.
+	 * @return the number of rows updated (0 if the user has no login)
 	 */
+	@Modifying
+	@Query("UPDATE Login l SET l.email = :email WHERE l.userId = :userId")
+	int updateEmail(@Param("userId") Integer userId, @Param("email") String email);
 }
@@ -0,0 +1,83 @@
+package nl.cyberella.hands_on.repositories;
+
+import jakarta.persistence.Cache;
+import nl.cyberella.hands_on.dto.user.UserResponse;
+import nl.cyberella.hands_on.models.User;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Non-blocking R2DBC access to the users table for the reactive side server.
+ *
+ * Hand-written on DatabaseClient like the JDBC repositories, rather than a Spring Data
+ * R2DBC repository: those would be picked up (and rejected) by the JPA repository scan
+ * of the whole application package. Created by ReactiveConfig only when
+ * reactive.enabled=true; the SQL works on H2 and PostgreSQL.
+ *
+ * Writes bypass Hibernate, so they evict the user from its second-level cache
+ * themselves; otherwise the servlet side would keep serving the cached entries count.
+ * They also keep the user's daily and weekly stats (UserStatsRepository) current, with
+ * the upsert statement ReactiveConfig picks for the database behind the R2DBC URL.
+ */
+public class ReactiveUserRepository {
+
+    private final DatabaseClient client;
+    private final TransactionalOperator transactions;
+    private final Cache jpaCache;
+    private final String statsUpsert;
+
+    public ReactiveUserRepository(DatabaseClient client, TransactionalOperator transactions, Cache jpaCache, String statsUpsert) {
+        this.client = client;
+        this.transactions = transactions;
+        this.jpaCache = jpaCache;
+        this.statsUpsert = statsUpsert;
+    }
+
+    /** Profile fields of a user, or empty if the id is unknown. */
+    public Mono<UserResponse> findProfileById(int id) {
+        return client.sql("SELECT id, name, email, joined, entries, phone, two_factor_enabled FROM public.users WHERE id = :id")
+                .bind("id", id)
+                .map((row, meta) -> new UserResponse(
+                        row.get("id", Integer.class),
+                        row.get("name", String.class),
+                        row.get("email", String.class),
+                        row.get("joined", LocalDate.class),
+                        row.get("entries", Integer.class),
+                        row.get("phone", String.class),
+                        row.get("two_factor_enabled", Boolean.class)))
+                .one();
+    }
+
+    /**
+     * Adds faceCount to the user's entries in one UPDATE, capped at Integer.MAX_VALUE like
+     * UserService.incrementEntries, records the image in the user's stats and returns the
+     * new count; empty if the id is unknown. All three statements run in one transaction.
+     * The count is read right after the update, so it may already include concurrent
+     * increments of the same user.
+     */
+    public Mono<Integer> addEntries(int id, int faceCount) {
+        LocalDate today = LocalDate.now();
+        return client.sql("UPDATE public.users SET entries = LEAST(CAST(COALESCE(entries, 0) AS BIGINT) + :faceCount, 2147483647) WHERE id = :id")
+                .bind("faceCount", faceCount)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated == 0 ? Mono.empty() : client.sql(statsUpsert)
+                        .bind("userId", id)
+                        .bind("day", today)
+                        .bind("week", UserStatsRepository.weekStart(today))
+                        .bind("faces", (long) faceCount)
+                        .fetch()
+                        .rowsUpdated()
+                        .then(client.sql("SELECT entries FROM public.users WHERE id = :id")
+                                .bind("id", id)
+                                .map((row, meta) -> row.get("entries", Integer.class))
+                                .one()))
+                .as(transactions::transactional)
+                // After the commit, so the servlet side cannot cache the old count again in between
+                .doOnSuccess(entries -> jpaCache.evict(User.class, id));
+    }
+}
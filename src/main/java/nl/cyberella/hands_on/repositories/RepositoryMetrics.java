@@ -0,0 +1,24 @@
+package nl.cyberella.hands_on.repositories;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Timers for the hand-written JDBC repositories (repository.jdbc.invocations).
+ *
+ * Spring Data repositories (UserRepository, LoginRepository) are timed by Spring Boot
+ * Actuator as spring.data.repository.invocations; these cover the JdbcTemplate-based
+ * ones with the same repository/method tags.
+ */
+final class RepositoryMetrics {
+
+    private RepositoryMetrics() {
+    }
+
+    static Timer timer(MeterRegistry registry, String repository, String method) {
+        return Timer.builder("repository.jdbc.invocations")
+                .tag("repository", repository)
+                .tag("method", method)
+                .register(registry);
+    }
+}
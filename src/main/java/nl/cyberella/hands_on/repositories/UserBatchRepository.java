@@ -0,0 +1,111 @@
+package nl.cyberella.hands_on.repositories;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plain JDBC access for bulk writes of users and login rows.
+ *
+ * The JPA repositories cannot batch these inserts: User uses IDENTITY ids, which
+ * makes Hibernate flush every insert on its own. Here each chunk is written with one
+ * multi-row INSERT per table (INSERT ... VALUES (...), (...), ...), which works on
+ * both H2 and PostgreSQL. The login rows take their user_id from the users just
+ * inserted, matched on email.
+ *
+ * Callers are responsible for the surrounding transaction.
+ */
+@Repository
+public class UserBatchRepository {
+
+    /** Credentials row to insert; hash must already be BCrypt-encoded. */
+    public record NewAccount(String name, String email, String hash) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer findExistingEmailsTimer;
+    private final Timer insertAllTimer;
+
+    public UserBatchRepository(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.findExistingEmailsTimer = RepositoryMetrics.timer(meterRegistry, "UserBatchRepository", "findExistingEmails");
+        this.insertAllTimer = RepositoryMetrics.timer(meterRegistry, "UserBatchRepository", "insertAll");
+    }
+
+    /**
+     * Returns which of the given (lower-cased) emails already exist in users or login.
+     * users is matched on lower(email), which has an index on PostgreSQL, so rows stored
+     * before emails were normalized still count as taken.
+     */
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return findExistingEmailsTimer.record(() -> queryExistingEmails(emails));
+    }
+
+    /** Insert all accounts with one multi-row statement per table. */
+    public void insertAll(List<NewAccount> accounts) {
+        insertAllTimer.record(() -> insert(accounts));
+    }
+
+    private Set<String> queryExistingEmails(Collection<String> emails) {
+        Set<String> existing = new HashSet<>();
+        if (emails.isEmpty()) return existing;
+        String in = placeholders(emails.size());
+        Object[] args = emails.toArray();
+        existing.addAll(jdbcTemplate.queryForList("SELECT lower(email) FROM public.users WHERE lower(email) IN " + in, String.class, args));
+        existing.addAll(jdbcTemplate.queryForList("SELECT email FROM public.login WHERE email IN " + in, String.class, args));
+        return existing;
+    }
+
+    private void insert(List<NewAccount> accounts) {
+        if (accounts.isEmpty()) return;
+        Date today = Date.valueOf(LocalDate.now());
+
+        List<Object> userArgs = new ArrayList<>(accounts.size() * 5);
+        List<Object> loginArgs = new ArrayList<>(accounts.size() * 2);
+        for (NewAccount a : accounts) {
+            userArgs.add(a.name());
+            userArgs.add(a.email());
+            userArgs.add(today);
+            userArgs.add(0);
+            userArgs.add(false);
+            loginArgs.add(a.email());
+            loginArgs.add(a.hash());
+        }
+
+        jdbcTemplate.update("INSERT INTO public.users (name, email, joined, entries, two_factor_enabled) VALUES "
+                + rows(accounts.size(), 5), userArgs.toArray());
+        // login is keyed by the generated user id: pick it up by joining the new rows on email
+        jdbcTemplate.update("INSERT INTO public.login (user_id, email, hash) "
+                + "SELECT u.id, v.email, v.hash FROM (VALUES " + rows(accounts.size(), 2) + ") AS v (email, hash) "
+                + "JOIN public.users u ON u.email = v.email", loginArgs.toArray());
+    }
+
+    // "(?, ?), (?, ?), ..." for count rows of width columns
+    private static String rows(int count, int width) {
+        String row = placeholders(width);
+        StringBuilder sb = new StringBuilder(count * (row.length() + 2));
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(row);
+        }
+        return sb.toString();
+    }
+
+    // "(?, ?, ?)" with width placeholders
+    private static String placeholders(int width) {
+        StringBuilder sb = new StringBuilder(width * 3 + 2).append('(');
+        for (int i = 0; i < width; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('?');
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -0,0 +1,24 @@
+package nl.cyberella.hands_on.repositories;
+
+import nl.cyberella.hands_on.models.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Loads many users by id at once through Hibernate's multi-load API. Users already in
+ * the persistence context or the second-level cache come from there; the rest are read
+ * with one query (id = ANY(?) on PostgreSQL and H2). JpaRepository.findAllById always
+ * queries every id, cached or not. Mixed into UserRepository; implemented by
+ * UserMultiLoadRepositoryImpl.
+ */
+public interface UserMultiLoadRepository {
+
+    /**
+     * Find the users with the given ids.
+     *
+     * @param ids the ids to look up
+     * @return the users found, in no particular order; unknown ids are left out
+     */
+    List<User> findAllByIdCacheFirst(Collection<Integer> ids);
+}
@@ -0,0 +1,43 @@
+package nl.cyberella.hands_on.repositories;
+
+import jakarta.persistence.EntityManager;
+import nl.cyberella.hands_on.models.User;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Spring Data picks this up as the implementation of UserMultiLoadRepository by its
+ * Impl suffix. Read-only transaction for the same reason as UserNaturalIdRepositoryImpl.
+ */
+class UserMultiLoadRepositoryImpl implements UserMultiLoadRepository {
+
+    private final EntityManager entityManager;
+
+    UserMultiLoadRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> findAllByIdCacheFirst(Collection<Integer> ids) {
+        if (ids.isEmpty()) return List.of();
+        List<User> users = entityManager.unwrap(Session.class).byMultipleIds(User.class)
+                .with(CacheMode.NORMAL)          // read and fill the second-level cache
+                .enableSessionCheck(true)        // and take what this session already has
+                .enableOrderedReturn(false)
+                .multiLoad(List.copyOf(ids));
+        // Unordered results should leave unknown ids out, but Hibernate 6.6 still returns a
+        // null for them when every other id came from the cache
+        if (users.contains(null)) {
+            users = new ArrayList<>(users);
+            users.removeIf(Objects::isNull);
+        }
+        return users;
+    }
+}
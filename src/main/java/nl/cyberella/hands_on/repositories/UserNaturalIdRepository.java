@@ -0,0 +1,22 @@
+package nl.cyberella.hands_on.repositories;
+
+import nl.cyberella.hands_on.models.User;
+
+import java.util.Optional;
+
+/**
+ * Email lookups through Hibernate's natural-id API (User.email is the natural id), so
+ * they are answered from the second-level cache when the email -> id mapping and the
+ * user are cached, instead of running a query every time. Mixed into UserRepository;
+ * implemented by UserNaturalIdRepositoryImpl.
+ */
+public interface UserNaturalIdRepository {
+
+    /**
+     * Find a user by their email address (exact match).
+     *
+     * @param email the email to search for
+     * @return Optional containing the User if found, otherwise empty
+     */
+    Optional<User> findByEmail(String email);
+}
@@ -0,0 +1,33 @@
+package nl.cyberella.hands_on.repositories;
+
+import jakarta.persistence.EntityManager;
+import nl.cyberella.hands_on.models.User;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Spring Data picks this up as the implementation of UserNaturalIdRepository by its
+ * Impl suffix.
+ *
+ * Unlike a derived query it needs a transaction: outside one, the shared EntityManager
+ * unwraps to a Session that is closed as soon as unwrap() returns (e.g. for
+ * AuthService.register called outside a request). Read-only, like JpaRepository's finders;
+ * it joins the caller's transaction if there is one.
+ */
+class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    private final EntityManager entityManager;
+
+    UserNaturalIdRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByEmail(String email) {
+        if (email == null) return Optional.empty();
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(email);
+    }
+}
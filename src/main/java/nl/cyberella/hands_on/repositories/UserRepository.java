@@ -2,24 +2,26 @@ package nl.cyberella.hands_on.repositories;
 
 import nl.cyberella.hands_on.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
+/**
+ * Users by id (JpaRepository), by email (UserNaturalIdRepository) and by many ids at once
+ * (UserMultiLoadRepository).
+ *
+ * findById goes through EntityManager.find, findByEmail through the natural-id API and
+ * findAllByIdCacheFirst through the multi-load API, so all three are served from
+ * Hibernate's second-level cache when the user is in it (see SecondLevelCacheConfig).
+ */
 @Repository
-public interface UserRepository extends JpaRepository<User, Integer> {
+public interface UserRepository extends JpaRepository<User, Integer>, UserNaturalIdRepository, UserMultiLoadRepository {
+
     /**
-     * Find a user by their email address.
-     *
-     * Note: this method is only declared here — Spring Data JPA will
-     * automatically generate the implementation at runtime based on the
-     * method name ("findByEmail"). It returns an Optional to clearly
-     * indicate the user may be absent.
-     *
-     * Equivalent JPQL: {@code SELECT u FROM User u WHERE u.email = :email}
-     *
-     * @param email the email to search for
-     * @return Optional containing the User if found, otherwise empty
+     * Count the users other than userId whose email equals the given (lower-cased) email
+     * ignoring case. Matches on lower(email), which has a unique index on PostgreSQL, so
+     * rows stored before emails were normalized are found too.
      */
-    Optional<User> findByEmail(String email);
+    @Query("SELECT count(u) FROM User u WHERE lower(u.email) = :email AND u.id <> :userId")
+    long countOtherUsersWithEmail(@Param("email") String email, @Param("userId") Integer userId);
 }
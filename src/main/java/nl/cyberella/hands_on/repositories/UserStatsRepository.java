@@ -0,0 +1,110 @@
+package nl.cyberella.hands_on.repositories;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+/**
+ * Plain JDBC access to the per-user image rollups in public.user_stats (V4 migration,
+ * docs/user-stats.md).
+ *
+ * record() adds one processed image to the user's row for the day and the row for the
+ * week with a single upsert, so the counters never need a read first and concurrent
+ * images of the same user cannot lose an increment. PostgreSQL gets
+ * INSERT ... ON CONFLICT DO UPDATE, which is atomic under concurrency. H2 (local profile)
+ * has no ON CONFLICT ... DO UPDATE and gets the standard MERGE instead. MERGE is not
+ * atomic: when two first images of a day race, one insert fails on the primary key and
+ * is retried once, finding the row the other one committed. The SQL is picked from the
+ * JDBC URL; ReactiveUserRepository uses the same statements over R2DBC.
+ *
+ * Callers are responsible for the surrounding transaction.
+ */
+@Repository
+public class UserStatsRepository {
+
+    public static final char DAY = 'D';
+    public static final char WEEK = 'W';
+
+    /** A stored rollup row; start is the day, or the Monday of the week. */
+    public record PeriodRow(char period, LocalDate start, int images, long faces) {}
+
+    static final String UPSERT_POSTGRES = "INSERT INTO public.user_stats (user_id, period, period_start, images, faces) "
+            + "VALUES (:userId, 'D', :day, 1, :faces), (:userId, 'W', :week, 1, :faces) "
+            + "ON CONFLICT (user_id, period, period_start) "
+            + "DO UPDATE SET images = user_stats.images + EXCLUDED.images, faces = user_stats.faces + EXCLUDED.faces";
+
+    static final String UPSERT_STANDARD = "MERGE INTO public.user_stats t "
+            + "USING (VALUES (CAST(:userId AS INT), 'D', CAST(:day AS DATE), CAST(:faces AS BIGINT)), "
+            + "(CAST(:userId AS INT), 'W', CAST(:week AS DATE), CAST(:faces AS BIGINT))) AS s (user_id, period, period_start, faces) "
+            + "ON t.user_id = s.user_id AND t.period = s.period AND t.period_start = s.period_start "
+            + "WHEN MATCHED THEN UPDATE SET images = t.images + 1, faces = t.faces + s.faces "
+            + "WHEN NOT MATCHED THEN INSERT (user_id, period, period_start, images, faces) "
+            + "VALUES (s.user_id, s.period, s.period_start, 1, s.faces)";
+
+    private static final String FIND = "SELECT period, period_start, images, faces FROM public.user_stats "
+            + "WHERE user_id = :userId "
+            + "AND ((period = 'D' AND period_start >= :fromDay) OR (period = 'W' AND period_start >= :fromWeek))";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final String upsert;
+    private final Timer recordTimer;
+    private final Timer findTimer;
+
+    public UserStatsRepository(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                               @Value("${spring.datasource.url:}") String url) {
+        this.jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.upsert = upsertFor(url);
+        this.recordTimer = RepositoryMetrics.timer(meterRegistry, "UserStatsRepository", "record");
+        this.findTimer = RepositoryMetrics.timer(meterRegistry, "UserStatsRepository", "find");
+    }
+
+    /** The upsert statement for a JDBC or R2DBC URL: ON CONFLICT for PostgreSQL, MERGE otherwise. */
+    public static String upsertFor(String url) {
+        return url != null && url.contains(":postgresql:") ? UPSERT_POSTGRES : UPSERT_STANDARD;
+    }
+
+    /** The Monday of the ISO week containing day. */
+    public static LocalDate weekStart(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /** Adds one image with the given number of faces to the user's day and week. */
+    public void record(int userId, LocalDate day, int faces) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("day", day)
+                .addValue("week", weekStart(day))
+                .addValue("faces", (long) faces);
+        recordTimer.record(() -> {
+            try {
+                jdbc.update(upsert, params);
+            } catch (DuplicateKeyException e) {
+                if (upsert == UPSERT_POSTGRES) throw e;
+                jdbc.update(upsert, params);
+            }
+        });
+    }
+
+    /** Day rows starting on or after fromDay and week rows starting on or after fromWeek, in no particular order. */
+    public List<PeriodRow> find(int userId, LocalDate fromDay, LocalDate fromWeek) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("fromDay", fromDay)
+                .addValue("fromWeek", fromWeek);
+        return findTimer.record(() -> jdbc.query(FIND, params, (rs, i) -> new PeriodRow(
+                rs.getString("period").charAt(0),
+                rs.getObject("period_start", LocalDate.class),
+                rs.getInt("images"),
+                rs.getLong("faces"))));
+    }
+}
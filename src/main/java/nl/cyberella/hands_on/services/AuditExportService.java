@@ -0,0 +1,59 @@
+package nl.cyberella.hands_on.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import nl.cyberella.hands_on.audit.AuditJsonLinesWriter;
+import nl.cyberella.hands_on.audit.AuditSegmentReader;
+import nl.cyberella.hands_on.services.interfaces.IAuditExportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/*
+AuditExportService decodes the structured audit segments (audit.segments.*) and
+streams them to the caller as JSON lines, one event per line, oldest first.
+Records are decoded straight into the response; nothing is buffered in memory.
+*/
+
+@Service
+@Slf4j
+public class AuditExportService implements IAuditExportService {
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+
+    public AuditExportService(ObjectMapper objectMapper,
+                              @Value("${audit.segments.directory:audit-segments}") String directory) {
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(directory);
+    }
+
+    @Override
+    public void exportAudit(Instant from, Instant to, OutputStream out) throws IOException {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(out);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null);
+        AuditSegmentReader.Stats stats;
+        try {
+            stats = AuditSegmentReader.read(directory, fromMillis, toMillis, new AuditJsonLinesWriter(gen));
+        } catch (UncheckedIOException ex) {
+            // Typically the client went away; nothing more can be sent.
+            log.warn("Audit export aborted: {}", ex.getCause().getMessage());
+            throw ex.getCause();
+        }
+        gen.flush();
+        log.info("Audit export finished: segments={} records={} corrupt={}", stats.segments(), stats.records(), stats.corrupt());
+    }
+}
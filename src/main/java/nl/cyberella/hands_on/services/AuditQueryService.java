@@ -0,0 +1,66 @@
+package nl.cyberella.hands_on.services;
+
+import nl.cyberella.hands_on.audit.AuditIndex;
+import nl.cyberella.hands_on.audit.AuditReason;
+import nl.cyberella.hands_on.dto.audit.AuditEventView;
+import nl.cyberella.hands_on.dto.audit.MinuteCount;
+import nl.cyberella.hands_on.exceptions.NotFoundException;
+import nl.cyberella.hands_on.services.interfaces.IAuditQueryService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+AuditQueryService serves incident queries from the in-memory AuditIndex that the
+audit pipeline keeps up to date, so no audit file is scanned. Only events within the
+index retention (audit.index.*) are visible. Without the index (audit pipeline or
+index disabled) the queries answer 404, as if the endpoints did not exist.
+*/
+
+@Service
+public class AuditQueryService implements IAuditQueryService {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private final AuditIndex auditIndex;
+
+    public AuditQueryService(ObjectProvider<AuditIndex> auditIndex) {
+        // Absent when the audit pipeline is disabled
+        this.auditIndex = auditIndex.getIfAvailable();
+    }
+
+    @Override
+    public List<AuditEventView> eventsForUser(int userId, int minutes, int limit) {
+        AuditIndex index = requireIndex();
+        long since = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(minutes);
+        List<AuditEventView> out = new ArrayList<>();
+        for (AuditIndex.Event e : index.eventsForUser(userId, since, Math.min(limit, MAX_LIMIT))) {
+            out.add(new AuditEventView(Instant.ofEpochMilli(e.timestamp()), e.type().name(), e.userId(),
+                    e.success(), e.reason() == null ? null : e.reason().name()));
+        }
+        return out;
+    }
+
+    @Override
+    public List<MinuteCount> countPerMinute(AuditReason reason, int minutes) {
+        AuditIndex index = requireIndex();
+        long now = System.currentTimeMillis();
+        int[] counts = index.countPerMinute(reason, minutes, now);
+        long minuteMillis = TimeUnit.MINUTES.toMillis(1);
+        long first = (now / minuteMillis - (counts.length - 1)) * minuteMillis;
+        List<MinuteCount> out = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            out.add(new MinuteCount(Instant.ofEpochMilli(first + i * minuteMillis), counts[i]));
+        }
+        return out;
+    }
+
+    private AuditIndex requireIndex() {
+        if (auditIndex == null) throw new NotFoundException("Audit index is not enabled (audit.pipeline.enabled, audit.index.enabled)");
+        return auditIndex;
+    }
+}
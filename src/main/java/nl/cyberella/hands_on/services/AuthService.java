@@ -9,6 +9,7 @@ import nl.cyberella.hands_on.services.interfaces.IAuthService;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.cyberella.hands_on.audit.AuditLogger;
+import nl.cyberella.hands_on.config.ReadWriteRoutingDataSource;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -42,7 +43,9 @@ public class AuthService implements IAuthService {
     public User register(String name, String email, String password) {
         // If a user with the same email already exists, signal failure by
         // returning null (controller handles this case and returns 400).
-        if (userRepository.findByEmail(email).isPresent()) return null;
+        // Checked on the primary: findByEmail runs a read-only transaction, and a
+        // lagging read replica could miss an account registered a moment ago.
+        if (ReadWriteRoutingDataSource.onPrimary(() -> userRepository.findByEmail(email)).isPresent()) return null;
 
         // Create a new User entity and populate non-sensitive fields.
         User u = new User();
@@ -62,6 +65,7 @@ public class AuthService implements IAuthService {
         // This keeps authentication data in a dedicated table (Login).
         // -> creating a new Login entity instance (a plain Java object that will hold the credentials of email and the hased password) -> will then be persisted using the loginRepository
         Login l = new Login();
+        l.setUserId(u.getId()); // login is keyed by the generated user id
         l.setEmail(email);
 
         // Hash the raw password before saving. Never store plaintext passwords.
@@ -76,12 +80,19 @@ public class AuthService implements IAuthService {
 
     @Override
     public SigninResult signin(String email, String password) {
+        // Credential checks always read the primary database, never the read replica:
+        // a new registration, password or 2FA setting must count immediately.
+        return ReadWriteRoutingDataSource.onPrimary(() -> checkCredentials(email, password));
+    }
+
+    private SigninResult checkCredentials(String email, String password) {
         // Basic null-checks for safety — return null to indicate failure.
         if (email == null || password == null) return null;
 
-        // Look up the Login record by email (login table stores the hashed password).
-        var loginOpt = loginRepository.findById(email);
-        if (loginOpt.isEmpty()) {
+        // Look up the password hash and the user profile in one query: the login row
+        // is found by its unique email and joined to users on the integer user id.
+        var credentialsOpt = loginRepository.findCredentialsByEmail(email);
+        if (credentialsOpt.isEmpty()) {
             // No login row — try to map to user id for non-PII logging
             Integer uid = null;
             try {
@@ -89,43 +100,31 @@ public class AuthService implements IAuthService {
                 if (uOpt.isPresent()) uid = uOpt.get().getId();
             } catch (Exception ignore) {}
             log.warn("Authentication failed: no login record for id={}", uid == null ? "unknown" : uid);
-            try { auditLogger.auditSignInAttempt(uid, false, nl.cyberella.hands_on.audit.AuditReason.NO_LOGIN_RECORD); } catch (Exception ignore) {}
+            auditLogger.auditSignInAttempt(uid, false, nl.cyberella.hands_on.audit.AuditReason.NO_LOGIN_RECORD);
             return null;
         }
+        // The user profile associated with this login. It contains user
+        // metadata (name, entries, 2FA flags) but not the password hash.
+        var user = credentialsOpt.get().user();
 
         // Verify the provided password against the stored hash.
-        boolean valid = passwordEncoder.matches(password, loginOpt.get().getHash());
+        boolean valid = passwordEncoder.matches(password, credentialsOpt.get().hash());
         if (!valid) {
-            Integer uid = null;
-            try {
-                var uOpt = userRepository.findByEmail(email);
-                if (uOpt.isPresent()) uid = uOpt.get().getId();
-            } catch (Exception ignore) {}
-            log.warn("Authentication failed: password mismatch for id={}", uid == null ? "unknown" : uid);
-            try { auditLogger.auditSignInAttempt(uid, false, nl.cyberella.hands_on.audit.AuditReason.PASSWORD_MISMATCH); } catch (Exception ignore) {}
-            return null;
-        }
-
-        // Fetch the user profile associated with this email. It contains
-        // user metadata (name, entries, 2FA flags) but not the password hash.
-        var userOpt = userRepository.findByEmail(email);
-        if (userOpt.isEmpty()) {
-            log.warn("Authentication failed: user profile not found for email lookup (id=unknown)");
-            try { auditLogger.auditSignInAttempt(null, false, nl.cyberella.hands_on.audit.AuditReason.USER_PROFILE_MISSING); } catch (Exception ignore) {}
+            log.warn("Authentication failed: password mismatch for id={}", user.getId());
+            auditLogger.auditSignInAttempt(user.getId(), false, nl.cyberella.hands_on.audit.AuditReason.PASSWORD_MISMATCH);
             return null;
         }
-        var user = userOpt.get();
 
         // If the user has 2FA enabled, return a SigninResult indicating that
         // second-factor verification is required. We include the userId so the
         // frontend can continue the 2FA flow without exposing sensitive data.
         if (Boolean.TRUE.equals(user.getTwoFactorEnabled())) {
-            try { auditLogger.auditSignInAttempt(user.getId(), true, nl.cyberella.hands_on.audit.AuditReason.TWO_FA_REQUIRED); } catch (Exception ignore) {}
+            auditLogger.auditSignInAttempt(user.getId(), true, nl.cyberella.hands_on.audit.AuditReason.TWO_FA_REQUIRED);
             return new SigninResult(true, user.getId(), null);
         }
 
         // Successful signin without 2FA — return the authenticated user.
-    try { auditLogger.auditSignInAttempt(user.getId(), true, nl.cyberella.hands_on.audit.AuditReason.SUCCESS); } catch (Exception ignore) {}
+        auditLogger.auditSignInAttempt(user.getId(), true, nl.cyberella.hands_on.audit.AuditReason.SUCCESS);
         return new SigninResult(false, null, user);
     }
 
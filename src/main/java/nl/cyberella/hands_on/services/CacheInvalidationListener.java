@@ -0,0 +1,209 @@
+package nl.cyberella.hands_on.services;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.cyberella.hands_on.services.CacheInvalidationService.Invalidation;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+CacheInvalidationListener receives the other replicas' invalidations and hands them
+to CacheInvalidationService (docs/cache-invalidation.md).
+
+One daemon thread holds its own connection, opened with the spring.datasource
+settings next to the Hikari pool, so the LISTEN session never takes a pool slot
+and is never handed to a request. The thread:
+- blocks on LISTEN for up to poll-interval, and applies whatever notifications
+  arrived together as one batch;
+- every poll-interval reads the rows logged since its last poll (minus LOOKBACK,
+  for transactions that logged a row shortly before committing). This is the
+  fallback for notifications it missed, e.g. while reconnecting, and the only path
+  with invalidation.listen=false (a connection pooler in transaction mode cannot
+  LISTEN). Rows already applied are skipped by sequence number;
+- deletes rows older than invalidation.retention about once a minute;
+- reconnects after poll-interval when the connection fails, keeping its last poll
+  time so the first poll after reconnecting catches up.
+*/
+
+@Component
+@Slf4j
+public class CacheInvalidationListener implements SmartLifecycle {
+
+    static final Duration LOOKBACK = Duration.ofSeconds(30);
+    private static final long PRUNE_INTERVAL_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private final CacheInvalidationService invalidationService;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final boolean listen;
+    private final Duration pollInterval;
+    private final Duration retention;
+
+    private volatile boolean running;
+    private volatile Thread thread;
+    private volatile Connection connection;
+    // Database time of the last poll; null until the first one
+    private Timestamp lastPoll;
+    private long lastPrune = System.nanoTime() - PRUNE_INTERVAL_NANOS;
+
+    public CacheInvalidationListener(CacheInvalidationService invalidationService,
+                                     @Value("${spring.datasource.url:}") String url,
+                                     @Value("${spring.datasource.username:}") String username,
+                                     @Value("${spring.datasource.password:}") String password,
+                                     @Value("${invalidation.listen:true}") boolean listen,
+                                     @Value("${invalidation.poll-interval:10s}") Duration pollInterval,
+                                     @Value("${invalidation.retention:10m}") Duration retention) {
+        if (pollInterval.toMillis() < 1) throw new IllegalArgumentException("invalidation.poll-interval must be positive");
+        if (retention.compareTo(pollInterval.plus(LOOKBACK)) <= 0) {
+            throw new IllegalArgumentException("invalidation.retention must be longer than poll-interval + " + LOOKBACK.toSeconds() + "s");
+        }
+        this.invalidationService = invalidationService;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.listen = listen;
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+    }
+
+    @Override
+    public void start() {
+        if (!invalidationService.isEnabled()) return;
+        running = true;
+        Thread t = new Thread(this::run, "cache-invalidation");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = thread;
+        if (t == null) return;
+        closeQuietly(connection); // wakes the thread up from getNotifications
+        t.interrupt();
+        try {
+            t.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection c = DriverManager.getConnection(url, username, password)) {
+                connection = c;
+                PGConnection pg = listen ? c.unwrap(PGConnection.class) : null;
+                if (pg != null) {
+                    try (Statement st = c.createStatement()) {
+                        st.execute("LISTEN " + invalidationService.channel());
+                    }
+                }
+                log.info("Cache invalidation {} on channel {}", listen ? "listening" : "polling", invalidationService.channel());
+                while (running) {
+                    poll(c);
+                    prune(c);
+                    if (pg != null) receive(pg);
+                    else Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (SQLException e) {
+                if (running) log.warn("Cache invalidation connection failed, retrying in {}s: {}", pollInterval.toSeconds(), e.getMessage());
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Cache invalidation failed, retrying in {}s", pollInterval.toSeconds(), e);
+            } finally {
+                connection = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Waits up to poll-interval for notifications; everything that arrived together is one batch
+    private void receive(PGConnection pg) throws SQLException {
+        long deadline = System.nanoTime() + pollInterval.toNanos();
+        long remaining;
+        while (running && (remaining = (deadline - System.nanoTime()) / 1_000_000) > 0) {
+            PGNotification[] notifications = pg.getNotifications((int) Math.min(remaining, Integer.MAX_VALUE));
+            if (notifications == null || notifications.length == 0) continue;
+            List<Invalidation> batch = new ArrayList<>(notifications.length);
+            for (PGNotification n : notifications) {
+                String parameter = n.getParameter();
+                int sep = parameter.indexOf(':');
+                try {
+                    batch.add(new Invalidation(Long.parseLong(parameter.substring(0, sep)), parameter.substring(sep + 1)));
+                } catch (RuntimeException e) {
+                    log.warn("Ignoring malformed cache invalidation notification on {}", n.getName());
+                }
+            }
+            invalidationService.apply(batch, "notify");
+        }
+    }
+
+    private void poll(Connection c) throws SQLException {
+        Timestamp now;
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery("SELECT clock_timestamp()")) {
+            rs.next();
+            now = rs.getTimestamp(1);
+        }
+        // The first poll only marks the start: this node's caches were empty before it
+        if (lastPoll != null) {
+            List<Invalidation> batch = new ArrayList<>();
+            try (PreparedStatement ps = c.prepareStatement(
+                    "SELECT seq, payload FROM public.cache_invalidations WHERE created_at > ? ORDER BY seq")) {
+                ps.setTimestamp(1, new Timestamp(lastPoll.getTime() - LOOKBACK.toMillis()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) batch.add(new Invalidation(rs.getLong(1), rs.getString(2)));
+                }
+            }
+            if (!batch.isEmpty()) invalidationService.apply(batch, "poll");
+        }
+        lastPoll = now;
+    }
+
+    private void prune(Connection c) throws SQLException {
+        if (System.nanoTime() - lastPrune < PRUNE_INTERVAL_NANOS) return;
+        lastPrune = System.nanoTime();
+        try (PreparedStatement ps = c.prepareStatement(
+                "DELETE FROM public.cache_invalidations WHERE created_at < clock_timestamp() - ? * INTERVAL '1 second'")) {
+            ps.setLong(1, retention.toSeconds());
+            ps.executeUpdate();
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (SQLException e) {
+            // closing anyway
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package nl.cyberella.hands_on.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import nl.cyberella.hands_on.models.User;
+import nl.cyberella.hands_on.services.interfaces.ICacheInvalidationService;
+import nl.cyberella.hands_on.services.interfaces.ILeaderboardService;
+import nl.cyberella.hands_on.services.interfaces.IReadYourWritesService;
+import nl.cyberella.hands_on.twofa.TotpVerifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/*
+CacheInvalidationService keeps the replicas' in-process caches coherent through
+PostgreSQL (docs/cache-invalidation.md).
+
+- Publishing: the changes a transaction makes are collected while it runs and sent
+  just before it commits, as one row in public.cache_invalidations plus one NOTIFY
+  carrying the same row, in a single statement. PostgreSQL delivers the NOTIFY only
+  if the transaction commits, so a rolled back write never evicts anything.
+- Payload: "<node>:<entries>", the entries comma-separated as U<id> (user changed),
+  E<id> (email changed) or T<id> (2FA changed). A transaction with more than
+  MAX_ENTRIES entries sends "*": evict everything. A notification is "<seq>:<payload>".
+- Applying: CacheInvalidationListener hands over everything it received or polled
+  in one batch. Per batch the users are evicted from the second-level cache, the
+  email -> id lookups are dropped once if any email changed, TOTP key material is
+  dropped for 2FA changes, and the leaderboard re-reads the changed users' entries
+  with one query. The users' read-your-writes windows are opened too, so the reload
+  after the eviction does not cache an older row from a lagging read replica.
+  A "*" in the batch evicts the whole region instead of single users; the users the
+  batch's other notifications name still get their windows, TOTP and leaderboard steps.
+  Rows this node wrote itself are skipped: Hibernate already updated its cache, and
+  LeaderboardService its ranking.
+
+Only PostgreSQL has LISTEN/NOTIFY; on any other database (the local H2 profile, a
+single instance) publishing does nothing.
+*/
+
+@Service
+@Slf4j
+public class CacheInvalidationService implements ICacheInvalidationService {
+
+    static final int MAX_ENTRIES = 500;
+    static final String ALL = "*";
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    // Sequence numbers applied recently, so a row seen by NOTIFY and by the poll counts once
+    private static final int SEEN_CAPACITY = 10_000;
+
+    /** A logged invalidation: its sequence number and payload. */
+    record Invalidation(long seq, String payload) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ILeaderboardService leaderboardService;
+    private final TotpVerifier totpVerifier;
+    private final IReadYourWritesService readYourWrites;
+    private final boolean enabled;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final String publishSql;
+
+    private final Counter published;
+    private final Counter receivedByNotify;
+    private final Counter receivedByPoll;
+
+    private final Map<Long, Boolean> seen = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > SEEN_CAPACITY;
+        }
+    };
+
+    public CacheInvalidationService(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                                    ILeaderboardService leaderboardService, TotpVerifier totpVerifier,
+                                    IReadYourWritesService readYourWrites, MeterRegistry meterRegistry,
+                                    @Value("${invalidation.enabled:true}") boolean enabled,
+                                    @Value("${invalidation.channel:cache_invalidation}") String channel,
+                                    @Value("${spring.datasource.url:}") String url) {
+        if (!CHANNEL.matcher(channel).matches()) throw new IllegalArgumentException("invalid invalidation.channel: " + channel);
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.leaderboardService = leaderboardService;
+        this.totpVerifier = totpVerifier;
+        this.readYourWrites = readYourWrites;
+        this.enabled = enabled && url != null && url.contains(":postgresql:");
+        this.channel = channel;
+        this.publishSql = "WITH entry AS (INSERT INTO public.cache_invalidations (payload) VALUES (?) RETURNING seq, payload) "
+                + "SELECT pg_notify('" + channel + "', seq || ':' || payload) FROM entry";
+        this.published = counter(meterRegistry, "published", "write");
+        this.receivedByNotify = counter(meterRegistry, "received", "notify");
+        this.receivedByPoll = counter(meterRegistry, "received", "poll");
+        if (enabled && !this.enabled) log.info("Cache invalidation disabled: the database is not PostgreSQL");
+    }
+
+    private static Counter counter(MeterRegistry registry, String direction, String source) {
+        return Counter.builder("cache.invalidations")
+                .description("Cache invalidation batches exchanged with the other replicas")
+                .tag("direction", direction)
+                .tag("source", source)
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String channel() {
+        return channel;
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void userChanged(Integer userId) {
+        publish('U', userId);
+    }
+
+    @Override
+    public void emailChanged(Integer userId) {
+        publish('E', userId);
+    }
+
+    @Override
+    public void twoFactorChanged(Integer userId) {
+        publish('T', userId);
+    }
+
+    private void publish(char kind, Integer userId) {
+        if (!enabled || userId == null) return;
+        String entry = kind + userId.toString();
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            send(Set.of(entry));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<String> entries = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, entries);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    send(entries);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationService.this);
+                }
+            });
+            pending = entries;
+        }
+        pending.add(entry);
+    }
+
+    // Runs in the writing transaction (if any), so row and NOTIFY commit or roll back with it
+    private void send(Set<String> entries) {
+        String payload = nodeId + ":" + (entries.size() > MAX_ENTRIES ? ALL : String.join(",", entries));
+        jdbcTemplate.query(publishSql, rs -> { }, payload);
+        published.increment();
+    }
+
+    /**
+     * Evicts what the given invalidations name, in one pass. Called by
+     * CacheInvalidationListener with everything it received (source "notify") or
+     * polled (source "poll") at once.
+     */
+    synchronized void apply(List<Invalidation> batch, String source) {
+        Set<Integer> users = new LinkedHashSet<>();
+        Set<Integer> entriesChanged = new LinkedHashSet<>();
+        Set<Integer> twoFactorChanged = new LinkedHashSet<>();
+        boolean emailChanged = false;
+        boolean all = false;
+        int applied = 0;
+
+        for (Invalidation invalidation : batch) {
+            if (seen.put(invalidation.seq(), Boolean.TRUE) != null) continue;
+            String payload = invalidation.payload();
+            int sep = payload.indexOf(':');
+            if (sep < 0) {
+                log.warn("Ignoring malformed cache invalidation seq={}", invalidation.seq());
+                continue;
+            }
+            if (payload.startsWith(nodeId + ":")) continue;
+            applied++;
+            try {
+                for (String entry : payload.substring(sep + 1).split(",")) {
+                    if (entry.equals(ALL)) {
+                        all = true;
+                        continue;
+                    }
+                    int id = Integer.parseInt(entry.substring(1));
+                    users.add(id);
+                    switch (entry.charAt(0)) {
+                        case 'U' -> entriesChanged.add(id);
+                        case 'E' -> emailChanged = true;
+                        case 'T' -> twoFactorChanged.add(id);
+                        default -> log.warn("Unknown cache invalidation entry {} in seq={}", entry, invalidation.seq());
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Evict everything rather than keep entries a newer node meant to drop
+                log.warn("Malformed cache invalidation seq={}, evicting all users", invalidation.seq());
+                all = true;
+            }
+        }
+        if (applied == 0) return;
+        ("poll".equals(source) ? receivedByPoll : receivedByNotify).increment(applied);
+
+        // Windows first, so no reload after the eviction caches a lagging replica's row
+        users.forEach(readYourWrites::recordWrite);
+        Cache cache = entityManagerFactory.getCache();
+        if (all) {
+            cache.evict(User.class);
+        } else {
+            for (Integer id : users) cache.evict(User.class, id);
+        }
+        if (all || emailChanged) cache.unwrap(org.hibernate.Cache.class).evictNaturalIdData(User.class);
+        // Also after an evict-all: the users named next to it in the batch are known. The
+        // leaderboard catches up with the rest ("*" names nobody) in its periodic reconciliation.
+        twoFactorChanged.forEach(totpVerifier::evict);
+        if (!entriesChanged.isEmpty()) leaderboardService.refresh(entriesChanged);
+    }
+}
@@ -4,20 +4,23 @@ import com.clarifai.channel.ClarifaiChannel;
 import com.clarifai.credentials.ClarifaiCallCredentials;
 import com.clarifai.grpc.api.*;
 import com.clarifai.grpc.api.status.StatusCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import nl.cyberella.hands_on.dto.clarifai.FaceDetectionResult;
 import nl.cyberella.hands_on.services.interfaces.IClarifaiService;
 
 import io.grpc.ManagedChannel;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -32,6 +35,8 @@ public class ClarifaiService implements IClarifaiService {
     private String USER_ID;
     @Value("${clarifai.api.app-id:}")
     private String APP_ID;
+    @Value("${clarifai.warmup:true}")
+    private boolean warmup;
 
     private static final String MODEL_ID = "face-detection";
     private static final String MODEL_VERSION_ID = "6dc7e46bc9124c5c8824be4822abe105";
@@ -39,32 +44,86 @@ public class ClarifaiService implements IClarifaiService {
     // Reused channel and stub for the lifetime of this service, instead of reconnecting every time
     // ManagedChannel → the connection to Clarifai’s gRPC server.
     // V2BlockingStub → client that actually sends requests.
+    // Both are created on first use (or by the warm-up after startup), not while the context
+    // starts: building the channel loads the shaded Netty/TLS stack, which delayed readiness.
+    // A lock rather than synchronized so a virtual thread waiting here does not pin its carrier.
+    private final ReentrantLock initLock = new ReentrantLock();
     private ManagedChannel channel;
-    private V2Grpc.V2BlockingStub stub;
+    private volatile V2Grpc.V2BlockingStub stub;
+    private boolean closed;
 
-    // Runs after Spring constructs the bean
-    @PostConstruct
-    public void init() {
+    // clarifai.analyze: end-to-end time of analyzeUrl (gRPC round trip + mapping), by outcome
+    private final Timer analyzeSuccessTimer;
+    private final Timer analyzeErrorTimer;
+
+    public ClarifaiService(MeterRegistry meterRegistry) {
+        this.analyzeSuccessTimer = Timer.builder("clarifai.analyze").tag("outcome", "success").register(meterRegistry);
+        this.analyzeErrorTimer = Timer.builder("clarifai.analyze").tag("outcome", "error").register(meterRegistry);
+    }
+
+    /**
+     * Once the application serves traffic, build the channel on a background thread and
+     * start connecting, so the first analyze call does not pay for it (clarifai.warmup).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!StringUtils.hasText(PAT)) {
+            log.warn("Clarifai PAT not configured; Clarifai client will be disabled");
+            return;
+        }
+        if (!warmup) return;
+        Thread.ofPlatform().daemon().name("clarifai-warmup").start(() -> {
+            try {
+                stub();
+                ManagedChannel c = channel;
+                if (c != null) c.getState(true); // begin connecting without sending a request
+            } catch (Exception ex) {
+                log.warn("Clarifai warm-up failed, the first request will retry: {}", ex.getMessage());
+            }
+        });
+    }
+
+    // Creates the gRPC channel and stub with authentication on first use
+    private V2Grpc.V2BlockingStub stub() {
+        V2Grpc.V2BlockingStub current = stub;
+        if (current != null) return current;
+        if (!StringUtils.hasText(PAT)) throw new IllegalStateException("Clarifai client not initialized or PAT not configured");
+        initLock.lock();
         try {
-            if (!StringUtils.hasText(PAT)) {
-                log.warn("Clarifai PAT not configured; Clarifai client will be disabled");
-                return;
+            if (stub != null) return stub;
+            if (closed) throw new IllegalStateException("Clarifai client is shut down");
+            try {
+                this.channel = ClarifaiChannel.INSTANCE.getGrpcChannel();
+                this.stub = V2Grpc.newBlockingStub(this.channel)
+                // ClarifaiCallCredentials → attaches the PAT to every gRPC call.
+                        .withCallCredentials(new ClarifaiCallCredentials(PAT));
+            } catch (Exception ex) {
+                // leave stub null so the next call tries again
+                log.error("Failed to initialize Clarifai client", ex);
+                throw new IllegalStateException("Clarifai client could not be initialized", ex);
             }
-            // Creates a gRPC channel and stub with authentication
-            this.channel = ClarifaiChannel.INSTANCE.getGrpcChannel();
-            this.stub = V2Grpc.newBlockingStub(this.channel)
-            // ClarifaiCallCredentials → attaches the PAT to every gRPC call.
-                    .withCallCredentials(new ClarifaiCallCredentials(PAT));
             log.info("Clarifai gRPC client initialized");
-        } catch (Exception ex) {
-            log.error("Failed to initialize Clarifai client", ex);
-            // leave stub null so analyzeUrl throws a helpful error
+            return stub;
+        } finally {
+            initLock.unlock();
         }
     }
 
     // Face detection
-    public Map<String, Object> analyzeUrl(String url) throws Exception {
-        if (stub == null) throw new IllegalStateException("Clarifai client not initialized or PAT not configured");
+    public FaceDetectionResult analyzeUrl(String url) throws Exception {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            FaceDetectionResult out = analyze(url);
+            success = true;
+            return out;
+        } finally {
+            (success ? analyzeSuccessTimer : analyzeErrorTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private FaceDetectionResult analyze(String url) {
+        V2Grpc.V2BlockingStub stub = stub();
 
         // Telling Clarifai all the information it needs
         PostModelOutputsRequest request = PostModelOutputsRequest.newBuilder()
@@ -84,68 +143,31 @@ public class ClarifaiService implements IClarifaiService {
         throw new RuntimeException("Clarifai gRPC call failed: " + status);
     }
 
-        // Map results: create a list of detected regions with bounding boxes.
-        // Be defensive: iterate all outputs and skip malformed regions instead of throwing.
-        List<Map<String, Object>> regionsOut = new ArrayList<>();
-        if (response.getOutputsCount() > 0) {
-            for (Output output : response.getOutputsList()) {
-                if (output == null) continue;
-                var data = output.getData();
-                if (data == null) continue;
-                for (Region region : data.getRegionsList()) {
-                    try {
-                        if (region == null) continue;
-                        var regionInfoObj = region.getRegionInfo();
-                        if (regionInfoObj == null) continue;
-                        var box = regionInfoObj.getBoundingBox();
-                        if (box == null) continue;
-
-                        Map<String, Object> bbox = new java.util.LinkedHashMap<>();
-                        bbox.put("top_row", box.getTopRow());
-                        bbox.put("left_col", box.getLeftCol());
-                        bbox.put("bottom_row", box.getBottomRow());
-                        bbox.put("right_col", box.getRightCol());
-
-                        Map<String, Object> regionInfo = new java.util.LinkedHashMap<>();
-                        regionInfo.put("bounding_box", bbox);
-
-                        Map<String, Object> regionMap = new java.util.LinkedHashMap<>();
-                        regionMap.put("region_info", regionInfo);
-
-                        regionsOut.add(regionMap);
-                    } catch (Exception ex) {
-                        // skip this region if any unexpected structure is encountered
-                        log.warn("Skipping malformed Clarifai region: {}", ex.getMessage());
-                    }
-                }
-            }
-        }
+        return mapResponse(response);
+    }
 
-        // Also expose a simple top-level list of bounding boxes (one per detected face)
-        List<Map<String, Object>> bboxList = new ArrayList<>();
-        for (Map<String, Object> regionMap : regionsOut) {
-            try {
-                Object regionInfoObj = regionMap.get("region_info");
-                if (!(regionInfoObj instanceof Map)) continue;
-                Map<?,?> regionInfo = (Map<?,?>) regionInfoObj;
-                Object bboxObj = regionInfo.get("bounding_box");
-                if (!(bboxObj instanceof Map)) continue;
-                Map<?,?> bboxMap = (Map<?,?>) bboxObj;
-                Map<String, Object> simple = new java.util.LinkedHashMap<>();
-                simple.put("top_row", bboxMap.get("top_row"));
-                simple.put("left_col", bboxMap.get("left_col"));
-                simple.put("bottom_row", bboxMap.get("bottom_row"));
-                simple.put("right_col", bboxMap.get("right_col"));
-                bboxList.add(simple);
-            } catch (Exception ex) {
-                // ignore malformed region entry
+    /**
+     * Maps a successful face-detection response to the result returned by the image
+     * endpoints: one box per detected region. Pure function of the response (no I/O),
+     * so it can be benchmarked on synthetic responses.
+     */
+    public static FaceDetectionResult mapResponse(MultiOutputResponse response) {
+        // Be defensive: iterate all outputs and skip malformed regions instead of throwing.
+        List<FaceDetectionResult.Box> boxes = new ArrayList<>();
+        for (Output output : response.getOutputsList()) {
+            if (output == null) continue;
+            var data = output.getData();
+            if (data == null) continue;
+            for (Region region : data.getRegionsList()) {
+                if (region == null) continue;
+                var regionInfo = region.getRegionInfo();
+                if (regionInfo == null) continue;
+                var box = regionInfo.getBoundingBox();
+                if (box == null) continue;
+                boxes.add(new FaceDetectionResult.Box(box.getTopRow(), box.getLeftCol(), box.getBottomRow(), box.getRightCol()));
             }
         }
-
-        Map<String, Object> out = new HashMap<>();
-        out.put("outputs", List.of(Map.of("data", Map.of("regions", regionsOut))));
-        out.put("regions", bboxList);
-        return out;
+        return new FaceDetectionResult(boxes);
     }
 
     // Runs when the service is destroyed (e.g., server shutdown).
@@ -153,6 +175,12 @@ public class ClarifaiService implements IClarifaiService {
     // Avoids leaking threads or connections.
     @PreDestroy
     public void shutdown() {
+        initLock.lock();
+        try {
+            closed = true;
+        } finally {
+            initLock.unlock();
+        }
         if (this.channel != null) {
             try {
                 this.channel.shutdown();
@@ -0,0 +1,277 @@
+package nl.cyberella.hands_on.services;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.cyberella.hands_on.dto.leaderboard.LeaderboardEntry;
+import nl.cyberella.hands_on.dto.leaderboard.UserRank;
+import nl.cyberella.hands_on.models.User;
+import nl.cyberella.hands_on.repositories.UserRepository;
+import nl.cyberella.hands_on.services.interfaces.ILeaderboardService;
+import nl.cyberella.hands_on.utils.OrderStatisticTree;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+LeaderboardService keeps users ranked by entries in memory so leaderboard requests
+never run ORDER BY on the users table.
+
+- Ranking: an OrderStatisticTree of packed (entries desc, id asc) keys, so top-N is
+  O(log n + N) and the rank of a user is O(log n).
+- Seeding: the ranking is loaded from the database once the application is ready.
+- Updates: UserService.incrementEntries reports new counts; they are applied after
+  the surrounding transaction commits so rolled back increments never show up.
+  Entries only grow and commit callbacks of concurrent requests can run in any
+  order, so a reported count never lowers the tracked one; only reconcile and
+  refresh, which read the database, can.
+- Other replicas: their increments arrive through CacheInvalidationService, which
+  calls refresh with the changed users (docs/cache-invalidation.md).
+- Reconciliation: a periodic pass compares the ranking with the database and fixes
+  drift (e.g. rows changed by the bulk import, or missed invalidations).
+*/
+
+@Service
+@Slf4j
+public class LeaderboardService implements ILeaderboardService {
+
+    public static final int MAX_LIMIT = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OrderStatisticTree ranking = new OrderStatisticTree();
+    // userId -> current entries and the update generation that last touched it
+    private final Map<Integer, Tracked> byUser = new HashMap<>();
+    private long generation;
+
+    public LeaderboardService(JdbcTemplate jdbcTemplate, UserRepository userRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public void recordEntries(Integer userId, int entries) {
+        if (userId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, entries);
+                }
+            });
+        } else {
+            apply(userId, entries);
+        }
+    }
+
+    @Override
+    public List<LeaderboardEntry> top(int limit) {
+        int n = Math.max(1, Math.min(limit, MAX_LIMIT));
+        long[] keys;
+        int[] ranks;
+        lock.readLock().lock();
+        try {
+            keys = ranking.first(n);
+            ranks = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                ranks[i] = competitionRank(entriesOf(keys[i]));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Names come from one primary-key lookup of at most MAX_LIMIT rows.
+        List<Integer> ids = new ArrayList<>(keys.length);
+        for (long key : keys) ids.add(idOf(key));
+        Map<Integer, String> names = new HashMap<>();
+        for (User u : userRepository.findAllById(ids)) names.put(u.getId(), u.getName());
+
+        List<LeaderboardEntry> out = new ArrayList<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            int id = idOf(keys[i]);
+            out.add(new LeaderboardEntry(ranks[i], id, names.get(id), entriesOf(keys[i])));
+        }
+        return out;
+    }
+
+    @Override
+    public Optional<UserRank> rankOf(Integer userId) {
+        if (userId == null) return Optional.empty();
+        Optional<UserRank> rank = tryRank(userId);
+        if (rank.isPresent()) return rank;
+
+        // Not ranked yet (e.g. registered since the last reconciliation): pick it up from the DB.
+        var user = userRepository.findById(userId);
+        if (user.isEmpty()) return Optional.empty();
+        Integer entries = user.get().getEntries();
+        apply(userId, entries == null ? 0 : entries);
+        return tryRank(userId);
+    }
+
+    /** Seed the ranking once the application has started. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    /**
+     * Compare the in-memory ranking with the database and repair any drift.
+     * Users updated in memory while the snapshot was read are left alone, so a
+     * concurrent increment is never overwritten by an older database value.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.reconcile-interval-ms:300000}",
+               initialDelayString = "${leaderboard.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long startGeneration;
+        lock.readLock().lock();
+        try {
+            startGeneration = generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Integer, Integer> snapshot = new HashMap<>();
+        jdbcTemplate.query("SELECT id, entries FROM public.users",
+                rs -> { snapshot.put(rs.getInt(1), rs.getInt(2)); }); // NULL entries read as 0
+
+        int changed = 0, removed = 0;
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Integer, Integer> row : snapshot.entrySet()) {
+                Tracked t = byUser.get(row.getKey());
+                if (t != null && (t.generation > startGeneration || t.entries == row.getValue())) continue;
+                put(row.getKey(), row.getValue());
+                changed++;
+            }
+            var it = byUser.entrySet().iterator();
+            while (it.hasNext()) {
+                var e = it.next();
+                if (snapshot.containsKey(e.getKey()) || e.getValue().generation > startGeneration) continue;
+                ranking.remove(pack(e.getValue().entries, e.getKey()));
+                it.remove();
+                removed++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Leaderboard reconciled: users={} updated={} removed={}", snapshot.size(), changed, removed);
+    }
+
+    /**
+     * Re-read the given users' entries with one query, e.g. after another replica changed
+     * them. Like reconcile, users updated in memory meanwhile are left alone, and users
+     * that no longer exist are removed.
+     */
+    @Override
+    public void refresh(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) return;
+        long startGeneration;
+        lock.readLock().lock();
+        try {
+            startGeneration = generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Integer, Integer> current = new HashMap<>();
+        jdbcTemplate.query("SELECT id, entries FROM public.users WHERE id IN ("
+                        + String.join(",", Collections.nCopies(userIds.size(), "?")) + ")",
+                rs -> { current.put(rs.getInt(1), rs.getInt(2)); }, userIds.toArray());
+
+        lock.writeLock().lock();
+        try {
+            for (Integer id : userIds) {
+                Tracked t = byUser.get(id);
+                if (t != null && t.generation > startGeneration) continue;
+                Integer entries = current.get(id);
+                if (entries != null) {
+                    if (t == null || t.entries != Math.max(0, entries)) put(id, entries);
+                } else if (t != null) {
+                    ranking.remove(pack(t.entries, id));
+                    byUser.remove(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Monotonic: an older count applied late (its commit callback ran after a newer one) is dropped.
+    private void apply(int userId, int entries) {
+        lock.writeLock().lock();
+        try {
+            Tracked t = byUser.get(userId);
+            if (t != null && t.entries >= entries) return;
+            put(userId, entries);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void put(int userId, int entries) {
+        int clamped = Math.max(0, entries);
+        Tracked t = byUser.get(userId);
+        if (t != null) {
+            ranking.remove(pack(t.entries, userId));
+            t.entries = clamped;
+            t.generation = ++generation;
+        } else {
+            byUser.put(userId, new Tracked(clamped, ++generation));
+        }
+        ranking.insert(pack(clamped, userId));
+    }
+
+    private Optional<UserRank> tryRank(int userId) {
+        lock.readLock().lock();
+        try {
+            Tracked t = byUser.get(userId);
+            if (t == null) return Optional.empty();
+            return Optional.of(new UserRank(userId, competitionRank(t.entries), t.entries, ranking.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 1 + number of users with strictly more entries. (entries, id 0) sorts before every
+    // real user with the same entries, so countLessThan only counts higher scores.
+    private int competitionRank(int entries) {
+        return ranking.countLessThan(pack(entries, 0)) + 1;
+    }
+
+    // Ascending key order = descending entries, then ascending id.
+    private static long pack(int entries, int userId) {
+        return ((long) (Integer.MAX_VALUE - entries) << 32) | (userId & 0xFFFFFFFFL);
+    }
+
+    private static int entriesOf(long key) {
+        return Integer.MAX_VALUE - (int) (key >>> 32);
+    }
+
+    private static int idOf(long key) {
+        return (int) key;
+    }
+
+    private static final class Tracked {
+        int entries;
+        long generation;
+
+        Tracked(int entries, long generation) {
+            this.entries = entries;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package nl.cyberella.hands_on.services;
+
+import nl.cyberella.hands_on.config.ReadWriteRoutingDataSource;
+import nl.cyberella.hands_on.services.interfaces.IReadYourWritesService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ReadYourWritesService tracks, per user id, until when reads must stay on the primary.
+
+The window (datasource.replica.read-your-writes-window) starts when the writing
+transaction commits and should be comfortably longer than the replica lag. Inside it,
+readingFor pins the current read-only transaction to the primary
+(ReadWriteRoutingDataSource.pinToPrimary); outside it the read goes to the replica.
+Without datasource.replica.enabled there is only one database and this does nothing.
+
+State is per instance: a write served by another instance does not open the window
+here, which is fine as long as a user's requests are not spread over instances faster
+than the replica catches up.
+*/
+
+@Service
+public class ReadYourWritesService implements IReadYourWritesService {
+
+    // Expired entries are dropped once the map grows past this size
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    // user id -> System.nanoTime() until which reads go to the primary
+    private final ConcurrentHashMap<Integer, Long> primaryUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesService(@Value("${datasource.replica.enabled:false}") boolean enabled,
+                                 @Value("${datasource.replica.read-your-writes-window:5s}") Duration window) {
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+    }
+
+    @Override
+    public void recordWrite(Integer userId) {
+        if (!enabled || userId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    openWindow(userId);
+                }
+            });
+        } else {
+            openWindow(userId);
+        }
+    }
+
+    @Override
+    public void readingFor(Integer userId) {
+        if (enabled && isInWindow(userId)) ReadWriteRoutingDataSource.pinToPrimary();
+    }
+
+    boolean isInWindow(Integer userId) {
+        if (userId == null) return false;
+        Long until = primaryUntil.get(userId);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    private void openWindow(Integer userId) {
+        long now = System.nanoTime();
+        primaryUntil.put(userId, now + windowNanos);
+        if (primaryUntil.size() > PRUNE_THRESHOLD) {
+            primaryUntil.values().removeIf(until -> until - now <= 0);
+        }
+    }
+}
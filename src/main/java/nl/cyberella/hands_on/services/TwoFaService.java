@@ -5,7 +5,11 @@ import com.warrenstrange.googleauth.GoogleAuthenticatorKey;
 import nl.cyberella.hands_on.models.User;
 import nl.cyberella.hands_on.dto.twofa.EnableResponse;
 import nl.cyberella.hands_on.repositories.UserRepository;
+import nl.cyberella.hands_on.services.interfaces.ICacheInvalidationService;
+import nl.cyberella.hands_on.services.interfaces.IReadYourWritesService;
+import nl.cyberella.hands_on.twofa.TotpVerifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -15,10 +19,18 @@ import java.util.Optional;
 public class TwoFaService implements nl.cyberella.hands_on.services.interfaces.ITwoFaService {
 
     private final UserRepository userRepository;
+    // Only used to generate new secrets; token checks go through TotpVerifier.
     private final GoogleAuthenticator gAuth = new GoogleAuthenticator();
+    private final TotpVerifier totpVerifier;
+    private final IReadYourWritesService readYourWrites;
+    private final ICacheInvalidationService cacheInvalidation;
 
-    public TwoFaService(UserRepository userRepository) {
+    public TwoFaService(UserRepository userRepository, TotpVerifier totpVerifier, IReadYourWritesService readYourWrites,
+                        ICacheInvalidationService cacheInvalidation) {
         this.userRepository = userRepository;
+        this.totpVerifier = totpVerifier;
+        this.readYourWrites = readYourWrites;
+        this.cacheInvalidation = cacheInvalidation;
     }
 
     /**
@@ -31,6 +43,8 @@ public class TwoFaService implements nl.cyberella.hands_on.services.interfaces.I
         String secret = key.getKey(); // contains the raw string secret
         user.setTempTwoFactorSecret(secret); // store temp secret
         userRepository.save(user); // save user with temp secret
+        // verify-setup may land on another replica, which must not serve its cached user without the temp secret
+        cacheInvalidation.twoFactorChanged(user.getId());
 
         String issuer = "hands_on";
         String otpAuth = String.format("otpauth://totp/%s:%s?secret=%s&issuer=%s",
@@ -46,12 +60,13 @@ public class TwoFaService implements nl.cyberella.hands_on.services.interfaces.I
     public boolean verifySetup(User user, int token) {
         String secret = user.getTempTwoFactorSecret();
         if (secret == null) return false;
-        boolean ok = gAuth.authorize(secret, token); // verify against temp secret
+        boolean ok = totpVerifier.verify(user.getId(), secret, token); // verify against temp secret
         if (ok) {
             user.setTwoFactorSecret(secret);
             user.setTwoFactorEnabled(true);
             user.setTempTwoFactorSecret(null);
             userRepository.save(user);
+            cacheInvalidation.twoFactorChanged(user.getId());
         }
         return ok;
     }
@@ -59,13 +74,18 @@ public class TwoFaService implements nl.cyberella.hands_on.services.interfaces.I
     public boolean verify(User user, int token) {
         String secret = user.getTwoFactorSecret();
         if (secret == null) return false;
-        return gAuth.authorize(secret, token);
+        // Cached key material + replay protection (see TotpVerifier)
+        return totpVerifier.verify(user.getId(), secret, token);
     }
 
     // secret: manual entry (base32). otpauth_url: standard otpauth URL.
     // EnableResponse is defined in nl.cyberella.hands_on.dto.twofa.EnableResponse
 
+    // Right after enable2fa the temp secret may not have reached the replica yet;
+    // the read-your-writes window keeps this lookup on the primary until it has.
+    @Transactional(readOnly = true)
     public Optional<User> findUserById(Integer id) {
+        readYourWrites.readingFor(id);
         return userRepository.findById(id);
     }
 }
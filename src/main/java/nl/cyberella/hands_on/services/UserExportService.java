@@ -0,0 +1,150 @@
+package nl.cyberella.hands_on.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import nl.cyberella.hands_on.repositories.UserExportRepository;
+import nl.cyberella.hands_on.services.interfaces.IUserExportService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/*
+UserExportService streams the users table to the caller for analytics dumps.
+
+Each row goes straight from the JDBC cursor to the output stream, so memory use is
+the same for ten rows or ten million. The export runs in one read-only transaction
+(needed for PostgreSQL cursor fetching and for a consistent snapshot).
+
+CSV exports end up in spreadsheets, which run a cell starting with =, +, -, @, tab or
+carriage return as a formula. Such text cells (name, email, phone) are written with a
+leading single quote, as OWASP recommends against CSV injection, so they show as text;
+a phone number "+31 6 ..." comes out as "'+31 6 ...". NDJSON is written unchanged.
+*/
+
+@Service
+@Slf4j
+public class UserExportService implements IUserExportService {
+
+    private static final String CSV_HEADER = "id,name,email,joined,entries,phone,two_factor_enabled\n";
+
+    private final UserExportRepository exportRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+
+    public UserExportService(UserExportRepository exportRepository, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.exportRepository = exportRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @Override
+    public void exportUsers(String format, OutputStream out) throws IOException {
+        long[] rows = {0};
+        try {
+            if ("csv".equals(format)) {
+                Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                w.write(CSV_HEADER);
+                readOnlyTx.executeWithoutResult(s -> exportRepository.forEachUser(rs -> {
+                    writeCsv(rs, w);
+                    rows[0]++;
+                }));
+                w.flush();
+            } else if ("ndjson".equals(format)) {
+                JsonGenerator gen = objectMapper.getFactory().createGenerator(out);
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                gen.setRootValueSeparator(null);
+                readOnlyTx.executeWithoutResult(s -> exportRepository.forEachUser(rs -> {
+                    writeJson(rs, gen);
+                    rows[0]++;
+                }));
+                gen.flush();
+            } else {
+                throw new IllegalArgumentException("Unsupported export format; use ndjson or csv");
+            }
+        } catch (UncheckedIOException ex) {
+            // Typically the client went away; nothing more can be sent.
+            log.warn("User export aborted after {} rows: {}", rows[0], ex.getCause().getMessage());
+            throw ex.getCause();
+        }
+        log.info("User export finished: format={} rows={}", format, rows[0]);
+    }
+
+    private static void writeJson(ResultSet rs, JsonGenerator gen) throws SQLException {
+        try {
+            gen.writeStartObject();
+            gen.writeNumberField("id", rs.getInt(1));
+            gen.writeStringField("name", rs.getString(2));
+            gen.writeStringField("email", rs.getString(3));
+            Date joined = rs.getDate(4);
+            gen.writeStringField("joined", joined == null ? null : joined.toLocalDate().toString());
+            int entries = rs.getInt(5);
+            if (rs.wasNull()) gen.writeNullField("entries"); else gen.writeNumberField("entries", entries);
+            gen.writeStringField("phone", rs.getString(6));
+            gen.writeBooleanField("two_factor_enabled", rs.getBoolean(7));
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void writeCsv(ResultSet rs, Writer w) throws SQLException {
+        try {
+            w.write(Integer.toString(rs.getInt(1)));
+            w.write(',');
+            writeCsvField(w, rs.getString(2));
+            w.write(',');
+            writeCsvField(w, rs.getString(3));
+            w.write(',');
+            Date joined = rs.getDate(4);
+            if (joined != null) w.write(joined.toLocalDate().toString());
+            w.write(',');
+            int entries = rs.getInt(5);
+            if (!rs.wasNull()) w.write(Integer.toString(entries));
+            w.write(',');
+            writeCsvField(w, rs.getString(6));
+            w.write(',');
+            w.write(rs.getBoolean(7) ? "true" : "false");
+            w.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks.
+    // Formula-like text gets a leading ' so spreadsheets do not evaluate it.
+    static void writeCsvField(Writer w, String value) throws IOException {
+        if (value == null) return;
+        if (!value.isEmpty() && isFormulaStart(value.charAt(0))) value = "'" + value;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            w.write(value);
+            return;
+        }
+        w.write('"');
+        w.write(value.replace("\"", "\"\""));
+        w.write('"');
+    }
+
+    private static boolean isFormulaStart(char c) {
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+}
@@ -0,0 +1,131 @@
+package nl.cyberella.hands_on.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+UserImportReader turns a streamed bulk-import body into rows, one chunk at a time,
+so the import never holds more than one chunk in memory.
+
+Supported formats:
+- CSV: first line is a header containing name, email and password (any order, extra
+  columns ignored). Fields may be quoted with "..." and "" escapes a quote, which matters
+  because passwords can contain commas and quotes.
+- NDJSON: one JSON object per line with name, email and password.
+
+Rows that cannot be parsed are returned with an error instead of aborting the import.
+*/
+class UserImportReader {
+
+    enum Format { CSV, NDJSON }
+
+    record Row(long line, String name, String email, String password, String error) {
+        static Row invalid(long line, String error) {
+            return new Row(line, null, null, null, error);
+        }
+    }
+
+    private final BufferedReader in;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private long lineNo;
+    private int nameCol = -1, emailCol = -1, passwordCol = -1;
+
+    UserImportReader(BufferedReader in, Format format, ObjectMapper objectMapper) throws IOException {
+        this.in = in;
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == Format.CSV) readHeader();
+    }
+
+    /** Read up to max rows; an empty list means the body is exhausted. */
+    List<Row> nextChunk(int max) throws IOException {
+        List<Row> rows = new ArrayList<>(max);
+        String line;
+        while (rows.size() < max && (line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            rows.add(format == Format.CSV ? parseCsv(line) : parseJson(line));
+        }
+        return rows;
+    }
+
+    private void readHeader() throws IOException {
+        String header = in.readLine();
+        lineNo++;
+        if (header == null) return; // empty body -> no rows
+        List<String> cols = splitCsv(header);
+        if (cols == null) throw new IllegalArgumentException("Invalid CSV header");
+        for (int i = 0; i < cols.size(); i++) {
+            switch (cols.get(i).trim().toLowerCase()) {
+                case "name" -> nameCol = i;
+                case "email" -> emailCol = i;
+                case "password" -> passwordCol = i;
+                default -> { /* extra columns are ignored */ }
+            }
+        }
+        if (nameCol < 0 || emailCol < 0 || passwordCol < 0) {
+            throw new IllegalArgumentException("CSV header must contain name, email and password");
+        }
+    }
+
+    private Row parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields == null) return Row.invalid(lineNo, "Malformed CSV line");
+        int needed = Math.max(nameCol, Math.max(emailCol, passwordCol));
+        if (fields.size() <= needed) return Row.invalid(lineNo, "Missing columns");
+        return new Row(lineNo, fields.get(nameCol), fields.get(emailCol), fields.get(passwordCol), null);
+    }
+
+    private Row parseJson(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (node == null || !node.isObject()) return Row.invalid(lineNo, "Expected a JSON object");
+            return new Row(lineNo, text(node, "name"), text(node, "email"), text(node, "password"), null);
+        } catch (IOException ex) {
+            return Row.invalid(lineNo, "Malformed JSON line");
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode v = node.get(field);
+        return v == null || v.isNull() ? null : v.asText();
+    }
+
+    // Minimal RFC 4180 field splitter for a single line. Returns null on an unterminated quote.
+    static List<String> splitCsv(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) return null;
+        out.add(field.toString());
+        return out;
+    }
+}
@@ -0,0 +1,201 @@
+package nl.cyberella.hands_on.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import nl.cyberella.hands_on.dto.admin.ImportResult;
+import nl.cyberella.hands_on.dto.admin.ImportRowError;
+import nl.cyberella.hands_on.repositories.UserBatchRepository;
+import nl.cyberella.hands_on.repositories.UserBatchRepository.NewAccount;
+import nl.cyberella.hands_on.services.interfaces.IUserImportService;
+import nl.cyberella.hands_on.utils.PasswordValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+UserImportService creates accounts in bulk for partner onboarding.
+
+The body is processed one chunk at a time:
+1. rows are validated with the same rules as POST /register
+2. emails that already exist are looked up with one IN query per chunk
+3. passwords are BCrypt-hashed in parallel on a bounded pool
+4. users and login rows are written with one multi-row INSERT per table and the
+   chunk is committed on its own transaction
+
+If a chunk insert fails (e.g. an email was registered concurrently) the chunk is
+rolled back and retried row by row, so one bad row never aborts the import.
+*/
+
+@Service
+@Slf4j
+public class UserImportService implements IUserImportService {
+
+    // Keep the response bounded even when every row of a huge file is invalid.
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final UserBatchRepository batchRepository;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final ExecutorService hashPool;
+
+    public UserImportService(UserBatchRepository batchRepository,
+                             BCryptPasswordEncoder passwordEncoder,
+                             TransactionTemplate transactionTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${admin.import.chunk-size:500}") int chunkSize,
+                             @Value("${admin.import.hash-threads:0}") int hashThreads) {
+        this.batchRepository = batchRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+
+        // Bounded pool + bounded queue: when hashing falls behind, the importing
+        // request thread hashes itself (CallerRunsPolicy) instead of queueing more work.
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger n = new AtomicInteger();
+        this.hashPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(chunkSize),
+                r -> {
+                    Thread t = new Thread(r, "import-hash-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public ImportResult importUsers(InputStream body, String contentType) {
+        UserImportReader.Format format = formatOf(contentType);
+        List<ImportRowError> errors = new ArrayList<>();
+        long total = 0, imported = 0, failed = 0;
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            UserImportReader reader = new UserImportReader(in, format, objectMapper);
+            List<UserImportReader.Row> chunk;
+            while (!(chunk = reader.nextChunk(chunkSize)).isEmpty()) {
+                List<ImportRowError> chunkErrors = new ArrayList<>();
+                int ok = importChunk(chunk, chunkErrors);
+                total += chunk.size();
+                imported += ok;
+                failed += chunk.size() - ok;
+                chunkErrors.sort(Comparator.comparingLong(ImportRowError::line));
+                for (ImportRowError e : chunkErrors) {
+                    if (errors.size() < MAX_REPORTED_ERRORS) errors.add(e);
+                }
+            }
+        } catch (IOException ex) {
+            // Chunks read so far are committed; report where the body broke off.
+            log.warn("Bulk import body could not be read after {} rows: {}", total, ex.getMessage());
+            errors.add(new ImportRowError(0, "Import body could not be read; stopped after " + total + " rows"));
+        }
+
+        log.info("Bulk import finished: total={} imported={} failed={}", total, imported, failed);
+        return new ImportResult(total, imported, failed, errors);
+    }
+
+    private int importChunk(List<UserImportReader.Row> rows, List<ImportRowError> errors) {
+        // 1. Validate and normalise; drop duplicates within the chunk.
+        List<Candidate> candidates = new ArrayList<>(rows.size());
+        Set<String> seen = new HashSet<>();
+        for (UserImportReader.Row row : rows) {
+            String error = row.error() != null ? row.error() : validate(row);
+            if (error != null) {
+                errors.add(new ImportRowError(row.line(), error));
+                continue;
+            }
+            String email = row.email().trim().toLowerCase();
+            if (!seen.add(email)) {
+                errors.add(new ImportRowError(row.line(), "Duplicate email in import"));
+                continue;
+            }
+            candidates.add(new Candidate(row.line(), row.name(), email, row.password()));
+        }
+        if (candidates.isEmpty()) return 0;
+
+        // 2. Skip emails that are already registered (one round trip per table).
+        Set<String> existing = batchRepository.findExistingEmails(seen);
+        candidates.removeIf(c -> {
+            if (!existing.contains(c.email())) return false;
+            errors.add(new ImportRowError(c.line(), "Email already registered"));
+            return true;
+        });
+        if (candidates.isEmpty()) return 0;
+
+        // 3. Hash in parallel; BCrypt dominates the cost of an import.
+        List<CompletableFuture<String>> hashes = new ArrayList<>(candidates.size());
+        for (Candidate c : candidates) {
+            hashes.add(CompletableFuture.supplyAsync(() -> passwordEncoder.encode(c.password()), hashPool));
+        }
+        List<NewAccount> accounts = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate c = candidates.get(i);
+            accounts.add(new NewAccount(c.name(), c.email(), hashes.get(i).join()));
+        }
+
+        // 4. Write the chunk in one transaction; fall back to row-by-row on failure.
+        try {
+            transactionTemplate.executeWithoutResult(status -> batchRepository.insertAll(accounts));
+            return accounts.size();
+        } catch (DataAccessException ex) {
+            log.warn("Bulk import chunk failed, retrying {} rows individually: {}", accounts.size(), ex.getMessage());
+        }
+        int ok = 0;
+        for (int i = 0; i < accounts.size(); i++) {
+            NewAccount account = accounts.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> batchRepository.insertAll(List.of(account)));
+                ok++;
+            } catch (DataAccessException ex) {
+                errors.add(new ImportRowError(candidates.get(i).line(), "Row could not be stored"));
+            }
+        }
+        return ok;
+    }
+
+    // Same rules and messages as AuthController.register
+    private static String validate(UserImportReader.Row row) {
+        if (row.name() == null || row.name().isBlank()) return "Name is required.";
+        if (row.email() == null || row.email().isBlank() || !row.email().contains("@")) return "Valid email is required.";
+        if (row.password() == null || row.password().isBlank()) return "Password is required.";
+        PasswordValidator.ValidationResult validation = PasswordValidator.validate(row.password());
+        if (!validation.isValid()) return "Password invalid: " + String.join(", ", validation.getErrors());
+        return null;
+    }
+
+    private static UserImportReader.Format formatOf(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase();
+        if (type.startsWith("text/csv")) return UserImportReader.Format.CSV;
+        if (type.startsWith("application/x-ndjson")) return UserImportReader.Format.NDJSON;
+        throw new IllegalArgumentException("Unsupported import format; use text/csv or application/x-ndjson");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+    }
+
+    private record Candidate(long line, String name, String email, String password) {}
+}
@@ -3,25 +3,34 @@ package nl.cyberella.hands_on.services;
 import nl.cyberella.hands_on.models.User;
 import nl.cyberella.hands_on.repositories.UserRepository;
 import nl.cyberella.hands_on.repositories.LoginRepository;
-import nl.cyberella.hands_on.models.Login;
+import nl.cyberella.hands_on.services.interfaces.ICacheInvalidationService;
+import nl.cyberella.hands_on.services.interfaces.ILeaderboardService;
+import nl.cyberella.hands_on.services.interfaces.IReadYourWritesService;
 import nl.cyberella.hands_on.services.interfaces.IUserService;
+import nl.cyberella.hands_on.services.interfaces.IUserStatsService;
+import nl.cyberella.hands_on.exceptions.InvalidRequestException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 
-import jakarta.transaction.Transactional;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /*
 UserService is the main user management service.
 Implements IUserService and provides concrete database operations.
 Key responsibilities:
-- Fetch users (findById)
-- Increment image entries (incrementEntries)
+- Fetch users (findById, findAllById for many at once)
+- Increment image entries (incrementEntries), also recorded in the user's daily/weekly stats
 - Create new users (createUser)
 - Save/update users (save)
-- Change email safely, including migrating login credentials (changeEmail)
+- Change email safely, in users and login alike (changeEmail)
+Writes to cached user data are announced to the other replicas (ICacheInvalidationService).
 Uses Spring Data JPA repositories and transaction management to ensure consistency.
+The lookups are read-only transactions, so with a read replica configured they are
+served by the replica unless the user wrote within their read-your-writes window.
 */
 
 @Service // @Service annotation so it can be injected into other services/controllers
@@ -30,13 +39,25 @@ public class UserService implements IUserService {
 
     private final UserRepository userRepository;
     private final LoginRepository loginRepository;
+    private final ILeaderboardService leaderboardService;
+    private final IReadYourWritesService readYourWrites;
+    private final IUserStatsService userStatsService;
+    private final ICacheInvalidationService cacheInvalidation;
 
-    public UserService(UserRepository userRepository, LoginRepository loginRepository) {
+    public UserService(UserRepository userRepository, LoginRepository loginRepository,
+                       ILeaderboardService leaderboardService, IReadYourWritesService readYourWrites,
+                       IUserStatsService userStatsService, ICacheInvalidationService cacheInvalidation) {
         this.userRepository = userRepository;
         this.loginRepository = loginRepository;
+        this.leaderboardService = leaderboardService;
+        this.readYourWrites = readYourWrites;
+        this.userStatsService = userStatsService;
+        this.cacheInvalidation = cacheInvalidation;
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> findById(Integer id) {
+        readYourWrites.readingFor(id);
         // Calling the user repository here because it is the data access layer (=> talks to the DB)
         var res = userRepository.findById(id);
         if (res.isEmpty()) {
@@ -45,6 +66,19 @@ public class UserService implements IUserService {
         return res;
     }
 
+    /*
+     * The users with the given ids, in no particular order; unknown ids are left out.
+     * Cached users come from the second-level cache, the rest from one query
+     * (UserRepository.findAllByIdCacheFirst). If any of them wrote within their
+     * read-your-writes window, the whole batch is read from the primary.
+     */
+    @Transactional(readOnly = true)
+    public List<User> findAllById(Collection<Integer> ids) {
+        for (Integer id : ids) readYourWrites.readingFor(id);
+        return userRepository.findAllByIdCacheFirst(ids);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<User> findByEmail(String email) {
         var res = userRepository.findByEmail(email);
         if (res.isEmpty()) {
@@ -57,10 +91,10 @@ public class UserService implements IUserService {
     public Integer incrementEntries(Integer id, int faceCount) {
         // Validate input to prevent integer overflow
         if (faceCount < 0) {
-            throw new IllegalArgumentException("faceCount must be non-negative");
+            throw new InvalidRequestException("faceCount must be non-negative");
         }
         if (faceCount > 1000) {
-            throw new IllegalArgumentException("faceCount exceeds maximum allowed value");
+            throw new InvalidRequestException("faceCount exceeds maximum allowed value");
         }
         
         Optional<User> u = userRepository.findById(id);
@@ -82,6 +116,12 @@ public class UserService implements IUserService {
         }
         
         userRepository.save(user);
+        // Keep the in-memory ranking current (applied once this transaction commits)
+        leaderboardService.recordEntries(id, user.getEntries());
+        // Daily and weekly rollups for GET /profile/{id}/stats, in the same transaction
+        userStatsService.recordImage(id, faceCount);
+        // Other replicas evict the cached user and re-rank it once this commits
+        cacheInvalidation.userChanged(id);
         return user.getEntries();
     }
 
@@ -96,12 +136,17 @@ public class UserService implements IUserService {
     }
 
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        cacheInvalidation.userChanged(saved.getId());
+        return saved;
     }
 
     /*
      * Change the user's email. Returns true on success, false if the new email is already taken.
-     * This will also migrate the login row (copy hash to new email and delete old login) when present.
+     * The email is stored trimmed and lower-cased, as at registration: signin lower-cases its
+     * input, and "taken" ignores case (users_email_lower_key would reject the UPDATE anyway).
+     * The login row is keyed by the user id, so the email changes in place in both tables:
+     * one UPDATE of users (when the transaction flushes) and one UPDATE of login.
     
 
     Without @Transactional, the find and save are separate operations.
@@ -110,22 +155,13 @@ public class UserService implements IUserService {
     */
     @Transactional
     public boolean changeEmail(User user, String newEmail) {
-        if (newEmail == null || newEmail.isBlank() || !newEmail.contains("@")) throw new IllegalArgumentException("invalid email");
-        if (userRepository.findByEmail(newEmail).isPresent()) return false;
-        String oldEmail = user.getEmail();
-        user.setEmail(newEmail);
+        if (newEmail == null || newEmail.isBlank() || !newEmail.contains("@")) throw new InvalidRequestException("invalid email");
+        String email = newEmail.trim().toLowerCase();
+        if (userRepository.countOtherUsersWithEmail(email, user.getId()) > 0) return false;
+        user.setEmail(email);
         userRepository.save(user);
-
-        // Migrate login row if exists
-        var oldLoginOpt = loginRepository.findById(oldEmail);
-        if (oldLoginOpt.isPresent()) {
-            Login oldLogin = oldLoginOpt.get();
-            Login newLogin = new Login();
-            newLogin.setEmail(newEmail);
-            newLogin.setHash(oldLogin.getHash());
-            loginRepository.save(newLogin);
-            loginRepository.delete(oldLogin);
-        }
+        loginRepository.updateEmail(user.getId(), email);
+        cacheInvalidation.emailChanged(user.getId());
         return true;
     }
 }
@@ -0,0 +1,88 @@
+package nl.cyberella.hands_on.services;
+
+import nl.cyberella.hands_on.dto.stats.PeriodStats;
+import nl.cyberella.hands_on.dto.stats.UserStats;
+import nl.cyberella.hands_on.exceptions.InvalidRequestException;
+import nl.cyberella.hands_on.repositories.UserStatsRepository;
+import nl.cyberella.hands_on.repositories.UserStatsRepository.PeriodRow;
+import nl.cyberella.hands_on.services.interfaces.IReadYourWritesService;
+import nl.cyberella.hands_on.services.interfaces.IUserStatsService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+UserStatsService maintains and reads the per-user rollups in public.user_stats
+(docs/user-stats.md).
+
+- Writes: UserService.incrementEntries records every processed image in the same
+  transaction as the entries update, as one upsert of the day's and the week's row.
+  The reactive PUT /image does the same in ReactiveUserRepository.
+- Reads: the requested days and weeks are at most MAX_DAYS + MAX_WEEKS rows, read
+  through the table's primary key; periods without a row are filled in with zeros.
+  Read-only, so they may go to the read replica outside the read-your-writes window.
+
+Days and weeks follow the server's time zone, like User.joined.
+*/
+
+@Service
+public class UserStatsService implements IUserStatsService {
+
+    public static final int MAX_DAYS = 92;
+    public static final int MAX_WEEKS = 53;
+
+    private final UserStatsRepository userStatsRepository;
+    private final IReadYourWritesService readYourWrites;
+
+    public UserStatsService(UserStatsRepository userStatsRepository, IReadYourWritesService readYourWrites) {
+        this.userStatsRepository = userStatsRepository;
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public void recordImage(Integer userId, int faceCount) {
+        userStatsRepository.record(userId, LocalDate.now(), faceCount);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserStats stats(Integer userId, int days, int weeks) {
+        if (days < 0 || days > MAX_DAYS) throw new InvalidRequestException("days must be between 0 and " + MAX_DAYS);
+        if (weeks < 0 || weeks > MAX_WEEKS) throw new InvalidRequestException("weeks must be between 0 and " + MAX_WEEKS);
+        // Right after PUT /image the user should see that image counted, like in their profile
+        readYourWrites.readingFor(userId);
+        return stats(userId, days, weeks, LocalDate.now());
+    }
+
+    UserStats stats(Integer userId, int days, int weeks, LocalDate today) {
+        LocalDate thisWeek = UserStatsRepository.weekStart(today);
+        LocalDate fromDay = today.minusDays(Math.max(0, days - 1));
+        LocalDate fromWeek = thisWeek.minusWeeks(Math.max(0, weeks - 1));
+
+        Map<LocalDate, PeriodRow> byDay = new HashMap<>();
+        Map<LocalDate, PeriodRow> byWeek = new HashMap<>();
+        if (days > 0 || weeks > 0) {
+            for (PeriodRow row : userStatsRepository.find(userId, fromDay, fromWeek)) {
+                (row.period() == UserStatsRepository.DAY ? byDay : byWeek).put(row.start(), row);
+            }
+        }
+
+        List<PeriodStats> daily = new ArrayList<>(days);
+        for (int i = days - 1; i >= 0; i--) daily.add(toStats(today.minusDays(i), byDay));
+        List<PeriodStats> weekly = new ArrayList<>(weeks);
+        for (int i = weeks - 1; i >= 0; i--) weekly.add(toStats(thisWeek.minusWeeks(i), byWeek));
+        return new UserStats(userId, daily, weekly);
+    }
+
+    private static PeriodStats toStats(LocalDate start, Map<LocalDate, PeriodRow> rows) {
+        PeriodRow row = rows.get(start);
+        if (row == null) return new PeriodStats(start, 0, 0, 0);
+        double average = row.images() == 0 ? 0 : (double) row.faces() / row.images();
+        return new PeriodStats(start, row.images(), row.faces(), average);
+    }
+}
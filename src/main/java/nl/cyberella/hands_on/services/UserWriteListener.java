@@ -0,0 +1,31 @@
+package nl.cyberella.hands_on.services;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import nl.cyberella.hands_on.models.User;
+import nl.cyberella.hands_on.services.interfaces.IReadYourWritesService;
+
+/*
+JPA entity listener on User: every insert, update or delete of a user row opens that
+user's read-your-writes window, whichever service made the change.
+
+Hibernate creates entity listeners through Spring's bean container, so constructor
+injection works here like in any other bean.
+*/
+
+public class UserWriteListener {
+
+    private final IReadYourWritesService readYourWrites;
+
+    public UserWriteListener(IReadYourWritesService readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void written(User user) {
+        readYourWrites.recordWrite(user.getId());
+    }
+}
@@ -0,0 +1,14 @@
+package nl.cyberella.hands_on.services.interfaces;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+/*
+IAuditExportService streams the binary audit segments as JSON lines.
+- from/to: optional time window (to is exclusive); null means unbounded
+*/
+
+public interface IAuditExportService {
+    void exportAudit(Instant from, Instant to, OutputStream out) throws IOException;
+}
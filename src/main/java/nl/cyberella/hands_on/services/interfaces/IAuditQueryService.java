@@ -0,0 +1,18 @@
+package nl.cyberella.hands_on.services.interfaces;
+
+import nl.cyberella.hands_on.audit.AuditReason;
+import nl.cyberella.hands_on.dto.audit.AuditEventView;
+import nl.cyberella.hands_on.dto.audit.MinuteCount;
+
+import java.util.List;
+
+/*
+IAuditQueryService answers questions about recent audit events from memory:
+- eventsForUser → one user's events in the last N minutes, newest first
+- countPerMinute → events with a given reason per minute over the last N minutes
+*/
+
+public interface IAuditQueryService {
+    List<AuditEventView> eventsForUser(int userId, int minutes, int limit);
+    List<MinuteCount> countPerMinute(AuditReason reason, int minutes);
+}
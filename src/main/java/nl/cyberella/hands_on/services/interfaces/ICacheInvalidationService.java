@@ -0,0 +1,16 @@
+package nl.cyberella.hands_on.services.interfaces;
+
+/*
+ICacheInvalidationService tells the other replicas which cached data a write changed,
+so they evict their local copies (docs/cache-invalidation.md):
+- userChanged → a user row changed (profile, entries)
+- emailChanged → a user's email changed; also drops the email -> id lookups
+- twoFactorChanged → a user's 2FA secrets changed; also drops cached TOTP key material
+Inside a transaction the changes are sent once it commits, and not at all on rollback.
+*/
+
+public interface ICacheInvalidationService {
+    void userChanged(Integer userId);
+    void emailChanged(Integer userId);
+    void twoFactorChanged(Integer userId);
+}
@@ -1,10 +1,10 @@
 package nl.cyberella.hands_on.services.interfaces;
 
-import java.util.Map;
+import nl.cyberella.hands_on.dto.clarifai.FaceDetectionResult;
 
 /*
 IClarifaiService is a service interface for interacting with the Clarifai API.
-Defines a single method, analyzeUrl, which takes an image URL and returns a map of results.
+Defines a single method, analyzeUrl, which takes an image URL and returns the detected faces.
 Implementation (like ClarifaiService) handles:
 - gRPC connection
 - Model selection
@@ -13,5 +13,5 @@ Implementation (like ClarifaiService) handles:
 */
 
 public interface IClarifaiService {
-    Map<String, Object> analyzeUrl(String url) throws Exception;
+    FaceDetectionResult analyzeUrl(String url) throws Exception;
 }
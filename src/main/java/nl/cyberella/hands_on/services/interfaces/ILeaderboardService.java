@@ -0,0 +1,23 @@
+package nl.cyberella.hands_on.services.interfaces;
+
+import nl.cyberella.hands_on.dto.leaderboard.LeaderboardEntry;
+import nl.cyberella.hands_on.dto.leaderboard.UserRank;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ILeaderboardService ranks users by entries from an in-memory structure:
+- recordEntries → called when a user's entries change
+- top → the N users with most entries
+- rankOf → a single user's rank
+- refresh → re-read some users' entries, e.g. after another replica changed them
+*/
+
+public interface ILeaderboardService {
+    void recordEntries(Integer userId, int entries);
+    List<LeaderboardEntry> top(int limit);
+    Optional<UserRank> rankOf(Integer userId);
+    void refresh(Collection<Integer> userIds);
+}
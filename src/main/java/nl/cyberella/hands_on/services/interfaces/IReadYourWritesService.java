@@ -0,0 +1,13 @@
+package nl.cyberella.hands_on.services.interfaces;
+
+/*
+IReadYourWritesService keeps users on the primary database right after they write,
+so a lagging read replica never shows them an older version of their own data:
+- recordWrite → called when a user's row changes (once the transaction commits)
+- readingFor → called at the start of a read-only transaction on behalf of a user
+*/
+
+public interface IReadYourWritesService {
+    void recordWrite(Integer userId);
+    void readingFor(Integer userId);
+}
@@ -0,0 +1,13 @@
+package nl.cyberella.hands_on.services.interfaces;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+IUserExportService writes every user profile to an output stream as it is read.
+- format: "ndjson" (one JSON object per line) or "csv" (with header line)
+*/
+
+public interface IUserExportService {
+    void exportUsers(String format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,15 @@
+package nl.cyberella.hands_on.services.interfaces;
+
+import nl.cyberella.hands_on.dto.admin.ImportResult;
+
+import java.io.InputStream;
+
+/*
+IUserImportService bulk-creates accounts (users + login rows) from a streamed body.
+- contentType selects the format: text/csv or application/x-ndjson
+- invalid rows are reported in the result instead of aborting the import
+*/
+
+public interface IUserImportService {
+    ImportResult importUsers(InputStream body, String contentType);
+}
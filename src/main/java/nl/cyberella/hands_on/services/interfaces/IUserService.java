@@ -2,12 +2,15 @@ package nl.cyberella.hands_on.services.interfaces;
 
 import nl.cyberella.hands_on.models.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
 IUserService is a service interface for user operations.
 Provides common user management functions:
 - Find user by ID
+- Find many users by ID at once
 - Increment entries
 - Create new user
 - Save user
@@ -15,6 +18,7 @@ Provides common user management functions:
  */
 public interface IUserService {
     Optional<User> findById(Integer id);
+    List<User> findAllById(Collection<Integer> ids);
     Optional<User> findByEmail(String email);
     Integer incrementEntries(Integer id, int faceCount);
     User createUser(String name, String email);
@@ -0,0 +1,14 @@
+package nl.cyberella.hands_on.services.interfaces;
+
+import nl.cyberella.hands_on.dto.stats.UserStats;
+
+/*
+IUserStatsService keeps per-user daily and weekly rollups of processed images:
+- recordImage → called when a user's image was processed (PUT /image)
+- stats → the user's last days and weeks
+*/
+
+public interface IUserStatsService {
+    void recordImage(Integer userId, int faceCount);
+    UserStats stats(Integer userId, int days, int weeks);
+}
@@ -0,0 +1,194 @@
+package nl.cyberella.hands_on.twofa;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Base32;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * TOTP (RFC 6238) verifier used by the 2FA flows instead of GoogleAuthenticator.authorize.
+ *
+ * Compared to the library call it:
+ * - decodes each user's Base32 secret once and keeps the key in a bounded per-user cache
+ * - reuses one HmacSHA1 Mac instance per thread instead of creating one per call
+ * - computes the codes of the accepted window once per time step and reuses them
+ *   for every attempt within that step (brute force attempts hit the cache)
+ * - remembers which (user, time step) pairs were already accepted so a code
+ *   cannot be replayed while it is still inside the window
+ *
+ * Codes are compatible with GoogleAuthenticator: 30 second steps, 6 digits,
+ * HmacSHA1, and the same window semantics (window-size 3 accepts -1..+1 steps).
+ */
+@Component
+@Slf4j
+public class TotpVerifier {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA1";
+    private static final long TIME_STEP_MILLIS = 30_000L;
+    private static final int CODE_MODULUS = 1_000_000; // 6 digits
+
+    // One Mac per thread; Mac.getInstance is expensive and Mac is not thread-safe.
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+        }
+    });
+
+    private final int firstOffset;
+    private final int windowSize;
+    private final int replayCacheSize;
+    private final LongSupplier clock;
+
+    // userId -> decoded key material and the last computed window (access-ordered LRU)
+    private final Map<Integer, KeyEntry> keys;
+    // packed (userId, step) -> step of every accepted code that may still be inside the window
+    private final Map<Long, Long> usedSteps = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TotpVerifier(@Value("${twofa.totp.window-size:3}") int windowSize,
+                        @Value("${twofa.totp.key-cache-size:10000}") int keyCacheSize,
+                        @Value("${twofa.totp.replay-cache-size:100000}") int replayCacheSize) {
+        this(windowSize, keyCacheSize, replayCacheSize, System::currentTimeMillis);
+    }
+
+    TotpVerifier(int windowSize, int keyCacheSize, int replayCacheSize, LongSupplier clock) {
+        if (windowSize < 1) throw new IllegalArgumentException("window size must be >= 1");
+        this.windowSize = windowSize;
+        // same window layout as GoogleAuthenticator.checkCode
+        this.firstOffset = -((windowSize - 1) / 2);
+        this.replayCacheSize = replayCacheSize;
+        this.clock = clock;
+        this.keys = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, KeyEntry> eldest) {
+                return size() > keyCacheSize;
+            }
+        });
+    }
+
+    /**
+     * Verify a token for the given user and Base32 secret.
+     * Returns false for a wrong code, an invalid secret or a code that was already used.
+     */
+    public boolean verify(Integer userId, String secret, int token) {
+        if (userId == null || secret == null) return false;
+        if (token < 0 || token >= CODE_MODULUS) return false;
+
+        KeyEntry entry = keyFor(userId, secret);
+        if (entry == null) return false;
+
+        long step = clock.getAsLong() / TIME_STEP_MILLIS;
+        Window window = entry.window;
+        if (window == null || window.step != step) {
+            window = computeWindow(entry.key, step);
+            entry.window = window;
+        }
+
+        // Scan the whole window (no early exit) so timing does not reveal which step matched.
+        long matchedStep = -1;
+        int[] codes = window.codes;
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] == token && matchedStep < 0) matchedStep = step + firstOffset + i;
+        }
+        if (matchedStep < 0) return false;
+
+        if (usedSteps.putIfAbsent(pack(userId, matchedStep), matchedStep) != null) {
+            log.warn("Rejected replayed TOTP code for id={}", userId);
+            return false;
+        }
+        if (usedSteps.size() > replayCacheSize) pruneUsedSteps(step);
+        return true;
+    }
+
+    /** Drop cached key material for a user, e.g. after the secret changed. */
+    public void evict(Integer userId) {
+        if (userId != null) keys.remove(userId);
+    }
+
+    private KeyEntry keyFor(Integer userId, String secret) {
+        KeyEntry entry = keys.get(userId);
+        if (entry != null && entry.secret.equals(secret)) return entry;
+
+        byte[] decoded = new Base32().decode(secret.toUpperCase(Locale.ROOT));
+        if (decoded.length == 0) return null;
+        entry = new KeyEntry(secret, new SecretKeySpec(decoded, HMAC_ALGORITHM));
+        keys.put(userId, entry);
+        return entry;
+    }
+
+    private Window computeWindow(SecretKeySpec key, long step) {
+        Mac mac = MAC.get();
+        try {
+            mac.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid TOTP key", e);
+        }
+        int[] codes = new int[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            codes[i] = code(mac, step + firstOffset + i);
+        }
+        return new Window(step, codes);
+    }
+
+    // RFC 4226 HOTP: HMAC over the 8-byte big-endian counter followed by dynamic truncation.
+    private static int code(Mac mac, long counter) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            mac.update((byte) (counter >>> shift));
+        }
+        byte[] hash = mac.doFinal();
+        int offset = hash[hash.length - 1] & 0x0F;
+        int binary = ((hash[offset] & 0x7F) << 24)
+                | ((hash[offset + 1] & 0xFF) << 16)
+                | ((hash[offset + 2] & 0xFF) << 8)
+                | (hash[offset + 3] & 0xFF);
+        return binary % CODE_MODULUS;
+    }
+
+    private void pruneUsedSteps(long currentStep) {
+        // Anything older than the oldest accepted step can no longer be replayed.
+        long oldestLive = currentStep + firstOffset;
+        usedSteps.values().removeIf(s -> s < oldestLive);
+
+        // Still over capacity: every remaining entry is live. Keep the bound anyway.
+        int excess = usedSteps.size() - replayCacheSize;
+        if (excess > 0) {
+            log.warn("TOTP replay cache full; evicting {} live entries", excess);
+            Iterator<Long> it = usedSteps.keySet().iterator();
+            while (excess-- > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private static long pack(int userId, long step) {
+        return ((long) userId << 32) | (step & 0xFFFFFFFFL);
+    }
+
+    private static final class KeyEntry {
+        final String secret;
+        final SecretKeySpec key;
+        volatile Window window;
+
+        KeyEntry(String secret, SecretKeySpec key) {
+            this.secret = secret;
+            this.key = key;
+        }
+    }
+
+    private record Window(long step, int[] codes) {}
+}
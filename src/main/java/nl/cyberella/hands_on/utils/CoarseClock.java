@@ -0,0 +1,31 @@
+package nl.cyberella.hands_on.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Local date-time strings at millisecond resolution, formatted at most once per millisecond.
+ *
+ * Used for the timestamp of error bodies: during a burst of failed requests many of them
+ * fall in the same millisecond and share one string instead of each formatting its own.
+ * The format is LocalDateTime.toString() (ISO-8601, system time zone), as before.
+ */
+public final class CoarseClock {
+
+    private record Tick(long millis, String iso) {}
+
+    private static volatile Tick last = new Tick(Long.MIN_VALUE, "");
+
+    private CoarseClock() {}
+
+    public static String isoNow() {
+        long now = System.currentTimeMillis();
+        Tick tick = last;
+        if (tick.millis() != now) {
+            tick = new Tick(now, LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()).toString());
+            last = tick;
+        }
+        return tick.iso();
+    }
+}
@@ -0,0 +1,99 @@
+package nl.cyberella.hands_on.utils;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Hash map from primitive int keys to primitive long values.
+ *
+ * Open addressing with linear probing over two parallel arrays, so an entry costs
+ * 12-13 bytes instead of the ~60 bytes of a HashMap&lt;Integer, Long&gt; entry with its
+ * boxed key and value. The table doubles when it is more than half full.
+ *
+ * Not thread-safe: callers must guard access (e.g. with a read/write lock).
+ */
+public final class IntLongHashMap {
+
+    private int[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+
+    public IntLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Value for the key, or {@code missing} if the key is absent. */
+    public long get(int key, long missing) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        return missing;
+    }
+
+    public void put(int key, long value) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) rehash(keys.length * 2);
+    }
+
+    /** Removes every entry whose value matches; O(capacity). */
+    public void removeIfValue(LongPredicate predicate) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        int capacity = keys.length;
+        // Shrink when most entries are gone so the table does not stay sparse forever
+        int remaining = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i] && !predicate.test(oldValues[i])) remaining++;
+        }
+        while (capacity > 8 && remaining * 8 < capacity) capacity >>= 1;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i] && !predicate.test(oldValues[i])) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    public void clear() {
+        allocate(keys.length);
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+
+    // Spread sequential ids (the common case) over the table
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,32 @@
+package nl.cyberella.hands_on.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Value writers shared by the hand-written response serializers.
+ *
+ * They produce what the application's ObjectMapper writes for the same values with
+ * Spring Boot's defaults: null values are written as null (not omitted) and dates as
+ * ISO strings (write-dates-as-timestamps off). A change to those spring.jackson.*
+ * settings does not reach the hand-written serializers and has to be made here too.
+ */
+public final class JsonFields {
+
+    private JsonFields() {}
+
+    public static void writeNumber(JsonGenerator gen, Integer value) throws IOException {
+        if (value == null) gen.writeNull(); else gen.writeNumber(value.intValue());
+    }
+
+    public static void writeBoolean(JsonGenerator gen, Boolean value) throws IOException {
+        if (value == null) gen.writeNull(); else gen.writeBoolean(value);
+    }
+
+    /** yyyy-MM-dd, as Jackson's LocalDateSerializer writes it. */
+    public static void writeDate(JsonGenerator gen, LocalDate value) throws IOException {
+        if (value == null) gen.writeNull(); else gen.writeString(value.toString());
+    }
+}
@@ -0,0 +1,154 @@
+package nl.cyberella.hands_on.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * A read-only Bloom filter of strings, memory-mapped from a file.
+ *
+ * Used for the breached-password check (docs/password-policy.md): a hundred million leaked
+ * passwords take about 120 MB at a 1% false-positive rate, and mapping the file leaves it
+ * in the page cache, shared by every process on the node, instead of the heap.
+ * mightContain() never misses a string that was added; it answers true for a string that
+ * was not with about the probability the file was built for.
+ *
+ * File layout (big-endian):
+ *   int magic, int hash count k, long bit count m, then ceil(m / 64) longs of bits
+ * Bit i is bit (i % 64) of long (i / 64). The k bit positions of a string are
+ * h1 + j * h2 (mod m) for j = 0..k-1, with h1 and h2 derived from a 64-bit FNV-1a
+ * hash of its chars. The file must stay below 2 GB (one mapping).
+ *
+ * Build a file from a text file with one password per line:
+ *   java -cp hands_on.jar -Dloader.main=nl.cyberella.hands_on.utils.MappedBloomFilter \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher &lt;passwords.txt&gt; &lt;filter file&gt; [false-positive rate]
+ */
+public final class MappedBloomFilter {
+
+    static final int MAGIC = 0x48424C4D; // "HBLM"
+    static final int HEADER_BYTES = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int hashes;
+    private final long bits;
+
+    private MappedBloomFilter(MappedByteBuffer buffer, int hashes, long bits) {
+        this.buffer = buffer;
+        this.hashes = hashes;
+        this.bits = bits;
+    }
+
+    /** Maps the file. The mapping is released when the filter is garbage collected. */
+    public static MappedBloomFilter open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) throw new IOException(file + ": not a Bloom filter file");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int hashes = buffer.getInt(4);
+            long bits = buffer.getLong(8);
+            if (buffer.getInt(0) != MAGIC || hashes < 1 || bits < 1 || size != HEADER_BYTES + words(bits) * 8L) {
+                throw new IOException(file + ": not a Bloom filter file");
+            }
+            return new MappedBloomFilter(buffer, hashes, bits);
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long h = fnv1a(value);
+        long h1 = mix(h);
+        long h2 = mix(h ^ 0x9E3779B97F4A7C15L);
+        for (int j = 0; j < hashes; j++) {
+            long bit = Long.remainderUnsigned(h1 + j * h2, bits);
+            long word = buffer.getLong(HEADER_BYTES + (int) (bit >>> 6) * 8);
+            if ((word & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes a filter for the given values, sized for expected insertions at the given
+     * false-positive rate.
+     */
+    public static void write(Path file, Iterator<String> values, long expected, double falsePositiveRate) throws IOException {
+        if (expected < 1) throw new IllegalArgumentException("expected insertions must be positive");
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) throw new IllegalArgumentException("false-positive rate must be between 0 and 1");
+        long bits = Math.max(64, (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        if (HEADER_BYTES + words(bits) * 8L > Integer.MAX_VALUE) throw new IllegalArgumentException("filter would exceed 2 GB");
+        int hashes = Math.max(1, (int) Math.round((double) bits / expected * Math.log(2)));
+
+        long[] words = new long[(int) words(bits)];
+        while (values.hasNext()) {
+            long h = fnv1a(values.next());
+            long h1 = mix(h);
+            long h2 = mix(h ^ 0x9E3779B97F4A7C15L);
+            for (int j = 0; j < hashes; j++) {
+                long bit = Long.remainderUnsigned(h1 + j * h2, bits);
+                words[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+            chunk.putInt(MAGIC).putInt(hashes).putLong(bits);
+            for (long word : words) {
+                if (!chunk.hasRemaining()) {
+                    out.write(chunk.array(), 0, chunk.position());
+                    chunk.clear();
+                }
+                chunk.putLong(word);
+            }
+            out.write(chunk.array(), 0, chunk.position());
+        }
+    }
+
+    private static long words(long bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private static long fnv1a(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // MurmurHash3 fmix64: spreads FNV's weak low bits over the whole word
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("usage: MappedBloomFilter <passwords.txt> <filter file> [false-positive rate]");
+            System.exit(2);
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+
+        long count;
+        try (var lines = Files.lines(source, StandardCharsets.UTF_8)) {
+            count = lines.filter(line -> !line.isEmpty()).count();
+        }
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            Iterator<String> passwords = reader.lines().filter(line -> !line.isEmpty()).iterator();
+            write(target, passwords, Math.max(1, count), rate);
+        }
+        System.err.printf("passwords=%d bytes=%d%n", count, Files.size(target));
+    }
+}
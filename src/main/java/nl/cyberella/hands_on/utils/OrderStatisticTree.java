@@ -0,0 +1,153 @@
+package nl.cyberella.hands_on.utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+
+/**
+ * Sorted set of primitive long keys that also answers "what is the position of key k"
+ * and "which key is at position i" in O(log n).
+ *
+ * Implemented as a treap (randomised balanced binary search tree) where every node
+ * stores the size of its subtree. Positions are 0-based in ascending key order.
+ *
+ * Not thread-safe: callers must guard access (e.g. with a read/write lock).
+ */
+public final class OrderStatisticTree {
+
+    private static final class Node {
+        final long key;
+        final int priority;
+        int size = 1;
+        Node left, right;
+
+        Node(long key, int priority) {
+            this.key = key;
+            this.priority = priority;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean contains(long key) {
+        Node n = root;
+        while (n != null) {
+            if (key == n.key) return true;
+            n = key < n.key ? n.left : n.right;
+        }
+        return false;
+    }
+
+    /** Adds the key; returns false if it was already present. */
+    public boolean insert(long key) {
+        if (contains(key)) return false;
+        Node[] parts = split(root, key);
+        root = merge(merge(parts[0], new Node(key, random.nextInt())), parts[1]);
+        return true;
+    }
+
+    /** Removes the key; returns false if it was not present. */
+    public boolean remove(long key) {
+        if (!contains(key)) return false;
+        Node[] lower = split(root, key);        // [< key, >= key]
+        Node[] upper = split(lower[1], key + 1); // [== key, > key]
+        root = merge(lower[0], upper[1]);
+        return true;
+    }
+
+    /** Number of keys strictly smaller than the given key (the key need not be present). */
+    public int countLessThan(long key) {
+        int count = 0;
+        Node n = root;
+        while (n != null) {
+            if (key <= n.key) {
+                n = n.left;
+            } else {
+                count += size(n.left) + 1;
+                n = n.right;
+            }
+        }
+        return count;
+    }
+
+    /** Key at the given 0-based position in ascending order. */
+    public long select(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException(index);
+        Node n = root;
+        while (true) {
+            int leftSize = size(n.left);
+            if (index < leftSize) {
+                n = n.left;
+            } else if (index == leftSize) {
+                return n.key;
+            } else {
+                index -= leftSize + 1;
+                n = n.right;
+            }
+        }
+    }
+
+    /** The smallest {@code limit} keys in ascending order; O(log n + limit). */
+    public long[] first(int limit) {
+        long[] out = new long[Math.max(0, Math.min(limit, size()))];
+        Deque<Node> stack = new ArrayDeque<>();
+        Node n = root;
+        int i = 0;
+        while (i < out.length && (n != null || !stack.isEmpty())) {
+            while (n != null) {
+                stack.push(n);
+                n = n.left;
+            }
+            n = stack.pop();
+            out[i++] = n.key;
+            n = n.right;
+        }
+        return out;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    // Split into [keys < key, keys >= key]
+    private static Node[] split(Node n, long key) {
+        if (n == null) return new Node[]{null, null};
+        if (n.key < key) {
+            Node[] parts = split(n.right, key);
+            n.right = parts[0];
+            update(n);
+            return new Node[]{n, parts[1]};
+        }
+        Node[] parts = split(n.left, key);
+        n.left = parts[1];
+        update(n);
+        return new Node[]{parts[0], n};
+    }
+
+    // Every key in a must be smaller than every key in b
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static void update(Node n) {
+        n.size = 1 + size(n.left) + size(n.right);
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+}
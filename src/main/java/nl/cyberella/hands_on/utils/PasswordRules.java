@@ -0,0 +1,123 @@
+package nl.cyberella.hands_on.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A fixed set of password rules, compiled once and checked in a single pass.
+ *
+ * Three kinds of rule, each with the message reported when it fails:
+ * - minLength: at least n chars (String.length(), as before)
+ * - requireAny: at least one character matching a predicate, e.g. an uppercase letter
+ * - reject: a check on the whole password, e.g. a breached-password lookup
+ *
+ * The requireAny rules are the expensive part when written as regexes (one Pattern and one
+ * scan each). Here each rule gets a bit, a 128-entry table holds the bits every ASCII
+ * character satisfies, and check() ORs table entries over the password once, stopping as
+ * soon as every bit is set. Characters outside ASCII are tested against the predicates.
+ *
+ * Messages come back in declaration order. Instances are immutable and thread-safe.
+ */
+public final class PasswordRules {
+
+    private enum Kind { MIN_LENGTH, REQUIRE_ANY, REJECT }
+
+    private record Rule(Kind kind, int minLength, IntPredicate matches, Predicate<String> rejects, long bit, String message) {}
+
+    private final List<Rule> rules;
+    private final IntPredicate[] charRules;
+    private final long[] ascii = new long[128];
+    private final long allCharBits;
+
+    private PasswordRules(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+        List<IntPredicate> predicates = new ArrayList<>();
+        long all = 0;
+        for (Rule rule : rules) {
+            if (rule.kind() != Kind.REQUIRE_ANY) continue;
+            predicates.add(rule.matches());
+            all |= rule.bit();
+            for (int c = 0; c < ascii.length; c++) {
+                if (rule.matches().test(c)) ascii[c] |= rule.bit();
+            }
+        }
+        this.charRules = predicates.toArray(new IntPredicate[0]);
+        this.allCharBits = all;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Characters in the given range, inclusive. */
+    public static IntPredicate range(char from, char to) {
+        return c -> c >= from && c <= to;
+    }
+
+    /** Any of the given characters. */
+    public static IntPredicate anyOf(String characters) {
+        return c -> characters.indexOf(c) >= 0;
+    }
+
+    /** The messages of the rules the password fails, empty if it passes all of them. */
+    public List<String> check(String password) {
+        long seen = 0;
+        for (int i = 0; i < password.length() && seen != allCharBits; ) {
+            int c = password.codePointAt(i);
+            i += Character.charCount(c);
+            seen |= c < ascii.length ? ascii[c] : classify(c);
+        }
+
+        List<String> errors = null;
+        for (Rule rule : rules) {
+            boolean ok = switch (rule.kind()) {
+                case MIN_LENGTH -> password.length() >= rule.minLength();
+                case REQUIRE_ANY -> (seen & rule.bit()) != 0;
+                case REJECT -> !rule.rejects().test(password);
+            };
+            if (!ok) {
+                if (errors == null) errors = new ArrayList<>();
+                errors.add(rule.message());
+            }
+        }
+        return errors == null ? List.of() : errors;
+    }
+
+    private long classify(int c) {
+        long bits = 0;
+        for (int r = 0; r < charRules.length; r++) {
+            if (charRules[r].test(c)) bits |= 1L << r;
+        }
+        return bits;
+    }
+
+    public static final class Builder {
+
+        private final List<Rule> rules = new ArrayList<>();
+        private int charRules;
+
+        private Builder() {}
+
+        public Builder minLength(int length, String message) {
+            rules.add(new Rule(Kind.MIN_LENGTH, length, null, null, 0, message));
+            return this;
+        }
+
+        public Builder requireAny(IntPredicate matches, String message) {
+            if (charRules == Long.SIZE) throw new IllegalStateException("at most " + Long.SIZE + " character rules");
+            rules.add(new Rule(Kind.REQUIRE_ANY, 0, matches, null, 1L << charRules++, message));
+            return this;
+        }
+
+        public Builder reject(Predicate<String> rejects, String message) {
+            rules.add(new Rule(Kind.REJECT, 0, null, rejects, 0, message));
+            return this;
+        }
+
+        public PasswordRules build() {
+            return new PasswordRules(rules);
+        }
+    }
+}
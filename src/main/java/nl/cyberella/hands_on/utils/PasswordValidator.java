@@ -2,10 +2,21 @@ package nl.cyberella.hands_on.utils;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 
+/**
+ * Password strength rules for registration and the admin import.
+ *
+ * The rules are compiled once into a PasswordRules (one pass over the password). When
+ * PasswordConfig loads a breached-password filter, a lookup in it is added as the last rule.
+ */
 public class PasswordValidator {
 
+    static final String SPECIAL_CHARACTERS = "!@#$%^&*(),.?\":{}|<>";
+
+    private static final PasswordRules STRENGTH = strengthRules().build();
+
+    private static volatile PasswordRules rules = STRENGTH;
+
     public static class ValidationResult {
         private final boolean isValid;
         private final List<String> errors;
@@ -19,20 +30,29 @@ public class PasswordValidator {
         public List<String> getErrors() { return errors; }
     }
 
-    public static ValidationResult validate(String password) {
-        List<String> errors = new ArrayList<>();
+    private static PasswordRules.Builder strengthRules() {
+        return PasswordRules.builder()
+                .minLength(8, "at least 8 characters")
+                .requireAny(PasswordRules.range('A', 'Z'), "at least one uppercase letter")
+                .requireAny(PasswordRules.range('a', 'z'), "at least one lowercase letter")
+                .requireAny(PasswordRules.range('0', '9'), "at least one number")
+                .requireAny(PasswordRules.anyOf(SPECIAL_CHARACTERS), "at least one special character (" + SPECIAL_CHARACTERS + ")");
+    }
 
+    /** Rejects passwords found in the filter from then on; null removes the check again. */
+    public static void useBreachedPasswords(MappedBloomFilter breached) {
+        rules = breached == null ? STRENGTH
+                : strengthRules().reject(breached::mightContain, "not a password known from data breaches").build();
+    }
+
+    public static ValidationResult validate(String password) {
         if (password == null || password.isBlank()) {
+            List<String> errors = new ArrayList<>();
             errors.add("password required");
             return new ValidationResult(false, errors);
         }
 
-        if (password.length() < 8) errors.add("at least 8 characters");
-        if (!Pattern.compile("[A-Z]").matcher(password).find()) errors.add("at least one uppercase letter");
-        if (!Pattern.compile("[a-z]").matcher(password).find()) errors.add("at least one lowercase letter");
-        if (!Pattern.compile("\\d").matcher(password).find()) errors.add("at least one number");
-        if (!Pattern.compile("[!@#$%^&*(),.?\":{}|<>]").matcher(password).find()) errors.add("at least one special character (!@#$%^&*(),.?\":{}|<>)");
-
+        List<String> errors = rules.check(password);
         return new ValidationResult(errors.isEmpty(), errors);
     }
 }
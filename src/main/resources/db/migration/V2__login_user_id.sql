@@ -0,0 +1,23 @@
+-- Key login by the owning user's id instead of the email (PostgreSQL).
+-- Works on the schema from V1 and on one created earlier by Hibernate (ddl-auto),
+-- where email was the primary key.
+
+ALTER TABLE public.login ADD COLUMN user_id INT;
+
+UPDATE public.login l
+SET user_id = u.id
+FROM public.users u
+WHERE u.email = l.email;
+
+-- A login without a users row could never sign in (signin needs the profile)
+DELETE FROM public.login WHERE user_id IS NULL;
+
+ALTER TABLE public.login DROP CONSTRAINT IF EXISTS login_pkey;
+ALTER TABLE public.login DROP CONSTRAINT IF EXISTS login_email_key;
+ALTER TABLE public.login ALTER COLUMN user_id SET NOT NULL;
+ALTER TABLE public.login ALTER COLUMN email SET NOT NULL;
+
+ALTER TABLE public.login ADD CONSTRAINT login_pkey PRIMARY KEY (user_id);
+ALTER TABLE public.login ADD CONSTRAINT login_user_id_fkey
+    FOREIGN KEY (user_id) REFERENCES public.users (id) ON DELETE CASCADE;
+CREATE UNIQUE INDEX login_email_key ON public.login (email);
@@ -0,0 +1,18 @@
+-- Indexes for the hot queries (PostgreSQL). docs/database-indexes.md lists each query
+-- with the plan it gets; SchemaIndexTest checks those plans on an embedded PostgreSQL.
+
+-- Emails are stored trimmed and lower-cased (registration, UserService.changeEmail and
+-- UserImportService normalize them).
+-- Make that a guarantee: no two users may differ only by case, and lower(email)
+-- lookups get an index. Fails if such users already exist; list them with
+--   SELECT lower(email), count(*) FROM public.users GROUP BY 1 HAVING count(*) > 1;
+CREATE UNIQUE INDEX users_email_lower_key ON public.users (lower(email));
+
+-- Signin (LoginRepository.findCredentialsByEmail) reads user_id and hash by email.
+-- Carrying both in the unique email index makes the login side an index-only scan.
+DROP INDEX public.login_email_key;
+CREATE UNIQUE INDEX login_email_key ON public.login (email) INCLUDE (user_id, hash);
+
+-- Ranking order of LeaderboardService (entries desc, id asc): top-N and rank queries
+-- against the table read the index in order instead of sorting every user.
+CREATE INDEX users_entries_rank_idx ON public.users (entries DESC, id);
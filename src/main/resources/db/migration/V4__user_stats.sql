@@ -0,0 +1,13 @@
+-- Per-user rollups of processed images (docs/user-stats.md). One row per user and
+-- period: 'D' rows start on the day, 'W' rows on the Monday of the ISO week.
+-- PUT /image adds to the day's and the week's row with one upsert
+-- (UserStatsRepository), so GET /profile/{id}/stats reads a few rows through the
+-- primary key instead of aggregating a history of images.
+CREATE TABLE public.user_stats (
+    user_id      INT     NOT NULL REFERENCES public.users (id) ON DELETE CASCADE,
+    period       CHAR(1) NOT NULL CHECK (period IN ('D', 'W')),
+    period_start DATE    NOT NULL,
+    images       INT     NOT NULL,
+    faces        BIGINT  NOT NULL,
+    PRIMARY KEY (user_id, period, period_start)
+);
@@ -0,0 +1,13 @@
+-- Log of cache invalidations between replicas (docs/cache-invalidation.md).
+-- Every writing transaction that changes cached data adds one row, and sends the
+-- same row with NOTIFY when it commits (CacheInvalidationService). Listening
+-- replicas evict on the notification; the created_at index serves the polling
+-- fallback that catches notifications a replica missed while it was not listening.
+-- Rows are deleted after invalidation.retention by the replicas themselves.
+CREATE TABLE public.cache_invalidations (
+    seq        BIGSERIAL   PRIMARY KEY,
+    payload    TEXT        NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()
+);
+
+CREATE INDEX cache_invalidations_created_at_idx ON public.cache_invalidations (created_at);
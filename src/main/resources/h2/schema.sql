@@ -1,10 +1,5 @@
 CREATE SCHEMA IF NOT EXISTS public;
 SET SCHEMA public;
-CREATE TABLE IF NOT EXISTS login
-(
-    email VARCHAR(100) NOT NULL UNIQUE,
-    hash  VARCHAR(100) NOT NULL
-);
 CREATE TABLE IF NOT EXISTS users
 (
     id      INT auto_increment PRIMARY KEY,
@@ -17,3 +12,18 @@ CREATE TABLE IF NOT EXISTS users
     two_factor_secret VARCHAR(255),
     temp_two_factor_secret VARCHAR(255)
 );
+CREATE TABLE IF NOT EXISTS login
+(
+    user_id INT          NOT NULL PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    email   VARCHAR(100) NOT NULL UNIQUE,
+    hash    VARCHAR(100) NOT NULL
+);
+CREATE TABLE IF NOT EXISTS user_stats
+(
+    user_id      INT     NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    period       CHAR(1) NOT NULL CHECK (period IN ('D', 'W')),
+    period_start DATE    NOT NULL,
+    images       INT     NOT NULL,
+    faces        BIGINT  NOT NULL,
+    PRIMARY KEY (user_id, period, period_start)
+);
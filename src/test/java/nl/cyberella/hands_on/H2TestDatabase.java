@@ -0,0 +1,41 @@
+package nl.cyberella.hands_on;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-memory H2 database for tests, with the local profile's schema (h2/schema.sql).
+ *
+ * Every create() opens a new database under a name of its own (prefix-n), so no test
+ * class sees the rows of another, however the JVM is shared. DB_CLOSE_DELAY=-1 keeps it
+ * open between connections until shutdown().
+ */
+public record H2TestDatabase(String name, DriverManagerDataSource dataSource) {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    public static H2TestDatabase create(String prefix) {
+        String name = prefix + "-" + DATABASES.incrementAndGet();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("h2/schema.sql")).execute(dataSource);
+        return new H2TestDatabase(name, dataSource);
+    }
+
+    public String url() {
+        return dataSource.getUrl();
+    }
+
+    /** The same database through R2DBC, as the same user. */
+    public String r2dbcUrl() {
+        return "r2dbc:h2:mem://sa@/" + name;
+    }
+
+    /** Drops the database and everything in it. */
+    public void shutdown() {
+        new JdbcTemplate(dataSource).execute("SHUTDOWN");
+    }
+}
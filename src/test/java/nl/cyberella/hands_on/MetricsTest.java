@@ -0,0 +1,126 @@
+package nl.cyberella.hands_on;
+
+import com.clarifai.grpc.api.BoundingBox;
+import com.clarifai.grpc.api.Data;
+import com.clarifai.grpc.api.MultiOutputResponse;
+import com.clarifai.grpc.api.Output;
+import com.clarifai.grpc.api.Region;
+import com.clarifai.grpc.api.RegionInfo;
+import com.clarifai.grpc.api.V2Grpc;
+import com.clarifai.grpc.api.status.Status;
+import com.clarifai.grpc.api.status.StatusCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.cyberella.hands_on.config.PasswordConfig;
+import nl.cyberella.hands_on.repositories.UserBatchRepository;
+import nl.cyberella.hands_on.repositories.UserBatchRepository.NewAccount;
+import nl.cyberella.hands_on.repositories.UserExportRepository;
+import nl.cyberella.hands_on.repositories.UserStatsRepository;
+import nl.cyberella.hands_on.services.ClarifaiService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the application's own timers (README "Metrics") are registered when their
+ * component is created and record the calls they wrap: password.encoder (PasswordConfig),
+ * repository.jdbc.invocations (the JDBC repositories, on an in-memory H2 database) and
+ * clarifai.analyze (ClarifaiService, with a mocked gRPC stub).
+ */
+public class MetricsTest {
+
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    private Timer timer(String name, String... tags) {
+        Timer timer = registry.find(name).tags(tags).timer();
+        assertNotNull(timer, () -> name + " " + List.of(tags) + " is not registered");
+        return timer;
+    }
+
+    @Test
+    void passwordEncoder_timesMatchesAndEncode() {
+        BCryptPasswordEncoder encoder = new PasswordConfig(false, Path.of("unused")).passwordEncoder(registry);
+        assertEquals(0, timer("password.encoder", "operation", "encode").count());
+        assertEquals(0, timer("password.encoder", "operation", "matches").count());
+
+        String hash = encoder.encode("Secret1!");
+        assertTrue(encoder.matches("Secret1!", hash));
+        assertFalse(encoder.matches("wrong", hash));
+
+        assertEquals(1, timer("password.encoder", "operation", "encode").count());
+        assertEquals(2, timer("password.encoder", "operation", "matches").count());
+        assertTrue(timer("password.encoder", "operation", "encode").totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    void jdbcRepositories_timeEveryMethod() {
+        H2TestDatabase database = H2TestDatabase.create("metrics");
+        DataSource dataSource = database.dataSource();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        UserBatchRepository batch = new UserBatchRepository(jdbc, registry);
+        UserExportRepository export = new UserExportRepository(dataSource, 10, registry);
+        UserStatsRepository stats = new UserStatsRepository(jdbc, registry, database.url());
+        String[][] methods = {
+                {"UserBatchRepository", "findExistingEmails"}, {"UserBatchRepository", "insertAll"},
+                {"UserExportRepository", "forEachUser"}, {"UserStatsRepository", "record"}, {"UserStatsRepository", "find"}};
+        for (String[] m : methods) {
+            assertEquals(0, timer("repository.jdbc.invocations", "repository", m[0], "method", m[1]).count());
+        }
+
+        batch.insertAll(List.of(new NewAccount("Ann", "ann@example.com", "hash")));
+        batch.findExistingEmails(List.of("ann@example.com"));
+        export.forEachUser(rs -> { });
+        int userId = jdbc.queryForObject("SELECT id FROM public.users", Integer.class);
+        stats.record(userId, LocalDate.now(), 2);
+        stats.find(userId, LocalDate.now(), UserStatsRepository.weekStart(LocalDate.now()));
+
+        for (String[] m : methods) {
+            assertEquals(1, timer("repository.jdbc.invocations", "repository", m[0], "method", m[1]).count(), m[1]);
+        }
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    void clarifaiAnalyze_timesSuccessAndError() throws Exception {
+        ClarifaiService clarifai = new ClarifaiService(registry);
+        assertEquals(0, timer("clarifai.analyze", "outcome", "success").count());
+        assertEquals(0, timer("clarifai.analyze", "outcome", "error").count());
+
+        // No PAT configured: the call fails before reaching Clarifai
+        assertThrows(IllegalStateException.class, () -> clarifai.analyzeUrl("https://example.com/face.jpg"));
+        assertEquals(1, timer("clarifai.analyze", "outcome", "error").count());
+
+        V2Grpc.V2BlockingStub stub = mock(V2Grpc.V2BlockingStub.class);
+        when(stub.postModelOutputs(any())).thenReturn(MultiOutputResponse.newBuilder()
+                .setStatus(Status.newBuilder().setCode(StatusCode.SUCCESS))
+                .addOutputs(Output.newBuilder().setData(Data.newBuilder().addRegions(Region.newBuilder()
+                        .setRegionInfo(RegionInfo.newBuilder().setBoundingBox(BoundingBox.newBuilder()
+                                .setTopRow(0.1f).setLeftCol(0.2f).setBottomRow(0.3f).setRightCol(0.4f))))))
+                .build());
+        ReflectionTestUtils.setField(clarifai, "PAT", "test-pat");
+        ReflectionTestUtils.setField(clarifai, "stub", stub);
+
+        assertEquals(1, clarifai.analyzeUrl("https://example.com/face.jpg").regions().size());
+        assertEquals(1, timer("clarifai.analyze", "outcome", "success").count());
+        assertEquals(1, timer("clarifai.analyze", "outcome", "error").count());
+    }
+}
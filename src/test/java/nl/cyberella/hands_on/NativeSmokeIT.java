@@ -0,0 +1,263 @@
+package nl.cyberella.hands_on;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.commons.codec.binary.Base32;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Smoke tests for the native image, run by the failsafe plugin in the native profile
+ * (./mvnw -Pnative verify). Skipped when the native.binary system property does not
+ * point at an executable.
+ *
+ * The binary runs as the deployment runs it: prod profile against a PostgreSQL migrated
+ * by Flyway beforehand, with a dummy Clarifai PAT. The requests go through every path
+ * that depends on the hints in NativeImageHints or on library metadata: JSON bodies in
+ * and out, the JPQL constructor expression at sign-in, the second-level cache, the
+ * Caffeine and googleauth code behind 2FA, the batch import, error bodies, the
+ * Prometheus endpoint and a failing Clarifai call. At the end the output of the binary
+ * must not contain any of the errors a missing registration shows up as.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class NativeSmokeIT {
+
+    private static final List<String> MISSING_METADATA = List.of(
+            "MissingReflectionRegistrationError", "MissingResourceRegistrationError", "MissingJNIRegistrationError",
+            "UnsupportedFeatureError", "ClassNotFoundException", "NoSuchMethodException", "NoSuchFieldException");
+    private static final String PASSWORD = "Smoke-test-1!";
+    private static final String ADMIN_PASSWORD = "Smoke-admin-1!";
+    private static final String ADMIN_AUTHORIZATION = "Basic "
+            + Base64.getEncoder().encodeToString(("admin:" + ADMIN_PASSWORD).getBytes(StandardCharsets.UTF_8));
+    private static final String METRICS_AUTHORIZATION = "Basic "
+            + Base64.getEncoder().encodeToString("prometheus:Smoke-metrics-1!".getBytes(StandardCharsets.UTF_8));
+
+    private static EmbeddedPostgres postgres;
+    private static Process process;
+    private static Path output;
+    private static String baseUrl;
+    private static final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private static final ObjectMapper json = new ObjectMapper();
+
+    private static final String email = "smoke-" + UUID.randomUUID() + "@example.com";
+    private static int userId;
+
+    @BeforeAll
+    static void start() throws Exception {
+        String binary = System.getProperty("native.binary");
+        assumeTrue(binary != null && Files.isExecutable(Path.of(binary)), "no native binary, build with -Pnative");
+
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure().dataSource(postgres.getPostgresDatabase()).locations("classpath:db/migration").load().migrate();
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        baseUrl = "http://localhost:" + port;
+        Path workDir = Files.createTempDirectory("native-smoke");
+        output = workDir.resolve("output.log");
+        ProcessBuilder builder = new ProcessBuilder(binary, "--server.port=" + port)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile());
+        builder.environment().put("SPRING_PROFILES_ACTIVE", "prod");
+        builder.environment().put("SPRING_FLYWAY_ENABLED", "false");
+        builder.environment().put("RDS_HOST", "localhost");
+        builder.environment().put("RDS_PORT", String.valueOf(postgres.getPort()));
+        builder.environment().put("RDS_DB", "postgres");
+        builder.environment().put("RDS_USERNAME", "postgres");
+        builder.environment().put("RDS_PASSWORD", "postgres");
+        builder.environment().put("ADMIN_PASSWORD", ADMIN_PASSWORD);
+        builder.environment().put("METRICS_PASSWORD", "Smoke-metrics-1!");
+        builder.environment().put("CLARIFAI_API_PAT", "native-smoke");
+        builder.environment().put("CLARIFAI_USER_ID", "native-smoke");
+        builder.environment().put("CLARIFAI_APP_ID", "native-smoke");
+        process = builder.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (true) {
+            assertTrue(process.isAlive(), () -> "binary exited: " + read(output));
+            assertTrue(System.nanoTime() < deadline, () -> "no 200 on GET / within 60 s: " + read(output));
+            try {
+                if (get("/").statusCode() == 200) break;
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        }
+        if (postgres != null) postgres.close();
+    }
+
+    @Test
+    @Order(1)
+    void register_signin_profile() throws Exception {
+        JsonNode registered = body(send("POST", "/register",
+                "{\"name\":\"Smoke\",\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"), 200);
+        userId = registered.get("id").asInt();
+        assertEquals(email, registered.get("email").asText());
+
+        JsonNode signedIn = body(send("POST", "/signin", "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"), 200);
+        assertEquals(userId, signedIn.get("id").asInt());
+
+        // second lookup is served from the second-level cache
+        for (int i = 0; i < 2; i++) {
+            assertEquals("Smoke", body(get("/profile/" + userId), 200).get("name").asText());
+        }
+    }
+
+    @Test
+    @Order(2)
+    void image_and_leaderboard() throws Exception {
+        assertEquals(3, body(send("PUT", "/image", "{\"id\":" + userId + ",\"faceCount\":3}"), 200).asInt());
+        assertTrue(body(get("/leaderboard"), 200).isArray());
+        assertEquals(userId, body(get("/leaderboard/" + userId), 200).get("id").asInt());
+    }
+
+    @Test
+    @Order(3)
+    void twoFactor_enable_verify_signin() throws Exception {
+        JsonNode enabled = body(send("POST", "/enable-2fa", "{\"userId\":" + userId + "}"), 200);
+        byte[] key = new Base32().decode(enabled.get("manualEntry").asText());
+        assertTrue(enabled.get("otpauth_url").asText().startsWith("otpauth://totp/"));
+
+        long step = System.currentTimeMillis() / 30_000L;
+        body(send("POST", "/verify-2fa-setup", "{\"userId\":" + userId + ",\"token\":\"" + totp(key, step) + "\"}"), 200);
+
+        JsonNode signin = body(send("POST", "/signin", "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"), 200);
+        assertTrue(signin.get("requiresTwoFactor").asBoolean());
+        // the setup code is spent; the next step's code is inside the window
+        JsonNode verified = body(send("POST", "/verify-2fa", "{\"userId\":" + userId + ",\"token\":\"" + totp(key, step + 1) + "\"}"), 200);
+        assertTrue(verified.get("user").get("two_factor_enabled").asBoolean());
+    }
+
+    @Test
+    @Order(4)
+    void admin_import_and_export() throws Exception {
+        String csv = "name,email,password\nImported,imported-" + UUID.randomUUID() + "@example.com," + PASSWORD + "\nBroken,,\n";
+        HttpResponse<String> imported = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/admin/users/import"))
+                .header("Content-Type", "text/csv").header("Authorization", ADMIN_AUTHORIZATION)
+                .POST(HttpRequest.BodyPublishers.ofString(csv)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        JsonNode result = body(imported, 200);
+        assertEquals(1, result.get("imported").asInt());
+        assertEquals(1, result.get("failed").asInt());
+
+        assertEquals(401, get("/admin/users/export").statusCode());
+        HttpResponse<String> export = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/admin/users/export"))
+                .header("Authorization", ADMIN_AUTHORIZATION).timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, export.statusCode());
+        assertTrue(export.body().contains(email));
+    }
+
+    @Test
+    @Order(5)
+    void errors_haveJsonBodies() throws Exception {
+        JsonNode notFound = body(get("/profile/999999999"), 404);
+        assertEquals(404, notFound.get("status").asInt());
+
+        JsonNode invalid = body(send("POST", "/register", "{\"name\":\"\",\"email\":\"not-an-email\",\"password\":\"\"}"), 400);
+        assertTrue(invalid.get("fieldErrors").has("email"));
+
+        // Dummy PAT (or no network): the Clarifai call fails and the handler answers with an error body
+        HttpResponse<String> clarifai = send("POST", "/clarifaiAPI", "{\"url\":\"https://example.com/face.jpg\"}");
+        assertTrue(clarifai.statusCode() >= 400, clarifai::body);
+        assertTrue(json.readTree(clarifai.body()).has("status"), clarifai::body);
+    }
+
+    @Test
+    @Order(6)
+    void prometheus_includesCacheMetrics() throws Exception {
+        assertEquals(401, get("/actuator/prometheus").statusCode());
+        HttpResponse<String> metrics = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/prometheus"))
+                .header("Authorization", METRICS_AUTHORIZATION).timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.body().contains("http_server_requests_seconds"));
+        assertTrue(metrics.body().contains("hibernate_second_level_cache_requests"));
+    }
+
+    @Test
+    @Order(7)
+    void output_hasNoMissingMetadataErrors() throws Exception {
+        String log = read(output);
+        for (String error : MISSING_METADATA) {
+            assertFalse(log.contains(error), () -> error + " in the output of the binary:\n" + log);
+        }
+    }
+
+    private static HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonNode body(HttpResponse<String> response, int expectedStatus) throws IOException {
+        assertEquals(expectedStatus, response.statusCode(), response::body);
+        return json.readTree(response.body());
+    }
+
+    /** RFC 6238 code for a 30 second time step, as an authenticator app computes it. */
+    private static String totp(byte[] key, long step) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(key, "HmacSHA1"));
+        byte[] hash = mac.doFinal(ByteBuffer.allocate(8).putLong(step).array());
+        int offset = hash[hash.length - 1] & 0xf;
+        int binary = ((hash[offset] & 0x7f) << 24) | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8) | (hash[offset + 3] & 0xff);
+        return String.format("%06d", binary % 1_000_000);
+    }
+
+    private static String read(Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            return "(" + e.getMessage() + ")";
+        }
+    }
+}
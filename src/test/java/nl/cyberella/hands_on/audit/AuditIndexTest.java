@@ -0,0 +1,115 @@
+package nl.cyberella.hands_on.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuditIndex, driven directly (as the pipeline consumer would) with a
+ * controllable clock.
+ */
+public class AuditIndexTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long T0 = 1_000 * MINUTE; // start of a minute
+
+    private final AtomicLong now = new AtomicLong(T0);
+
+    private static void batch(AuditIndex index, Runnable events) {
+        events.run();
+        index.onBatchEnd();
+    }
+
+    @Test
+    void eventsForUser_returnsOnlyThatUser_newestFirst_withinWindow() {
+        AuditIndex index = new AuditIndex(100, 60, now::get);
+        batch(index, () -> {
+            index.onEvent(T0, AuditEventType.SIGNIN_ATTEMPT, 1, false, AuditReason.PASSWORD_MISMATCH);
+            index.onEvent(T0 + 1, AuditEventType.SIGNIN_ATTEMPT, 2, true, AuditReason.SUCCESS);
+            index.onEvent(T0 + 10 * MINUTE, AuditEventType.UPDATEPROFILE_ATTEMPT, 1, true, null);
+            index.onEvent(T0 + 10 * MINUTE, AuditEventType.REGISTER_ATTEMPT, AuditPipeline.UNKNOWN_USER_ID, false, null);
+        });
+        now.set(T0 + 11 * MINUTE);
+
+        List<AuditIndex.Event> all = index.eventsForUser(1, T0, 10);
+        assertEquals(List.of(
+                new AuditIndex.Event(T0 + 10 * MINUTE, AuditEventType.UPDATEPROFILE_ATTEMPT, 1, true, null),
+                new AuditIndex.Event(T0, AuditEventType.SIGNIN_ATTEMPT, 1, false, AuditReason.PASSWORD_MISMATCH)), all);
+
+        assertEquals(1, index.eventsForUser(1, T0 + 5 * MINUTE, 10).size(), "older events fall outside the window");
+        assertEquals(1, index.eventsForUser(1, T0, 1).size(), "limit is honoured");
+        assertTrue(index.eventsForUser(3, T0, 10).isEmpty());
+        assertTrue(index.eventsForUser(AuditPipeline.UNKNOWN_USER_ID, T0, 10).isEmpty(), "unknown users are not indexed");
+    }
+
+    @Test
+    void eventsForUser_forgetsEventsOverwrittenInTheRing_andOlderThanRetention() {
+        AuditIndex index = new AuditIndex(4, 5, now::get);
+        batch(index, () -> {
+            index.onEvent(T0, AuditEventType.SIGNIN_ATTEMPT, 1, false, AuditReason.PASSWORD_MISMATCH);
+            for (int i = 0; i < 4; i++) index.onEvent(T0 + i, AuditEventType.SIGNIN_ATTEMPT, 2, true, null);
+        });
+        assertTrue(index.eventsForUser(1, 0, 10).isEmpty(), "size retention");
+        assertEquals(4, index.eventsForUser(2, 0, 10).size());
+
+        now.set(T0 + 6 * MINUTE);
+        assertTrue(index.eventsForUser(2, 0, 10).isEmpty(), "time retention");
+    }
+
+    @Test
+    void countPerMinute_countsReasonPerMinuteBucket_oldestFirst() {
+        AuditIndex index = new AuditIndex(100, 10, now::get);
+        batch(index, () -> {
+            index.onEvent(T0 + 5, AuditEventType.SIGNIN_ATTEMPT, 1, false, AuditReason.PASSWORD_MISMATCH);
+            index.onEvent(T0 + 6, AuditEventType.SIGNIN_ATTEMPT, 2, false, AuditReason.PASSWORD_MISMATCH);
+            index.onEvent(T0 + 7, AuditEventType.SIGNIN_ATTEMPT, 2, true, AuditReason.SUCCESS);
+            index.onEvent(T0 + 2 * MINUTE, AuditEventType.SIGNIN_ATTEMPT, 3, false, AuditReason.PASSWORD_MISMATCH);
+        });
+        now.set(T0 + 2 * MINUTE + 30_000);
+
+        assertArrayEquals(new int[]{0, 2, 0, 1}, index.countPerMinute(AuditReason.PASSWORD_MISMATCH, 4, now.get()));
+        assertArrayEquals(new int[]{1, 0, 0}, index.countPerMinute(AuditReason.SUCCESS, 3, now.get()));
+
+        // A bucket is reused once its minute leaves the window
+        now.set(T0 + 10 * MINUTE);
+        batch(index, () -> index.onEvent(T0 + 10 * MINUTE, AuditEventType.SIGNIN_ATTEMPT, 1, false, AuditReason.PASSWORD_MISMATCH));
+        int[] counts = index.countPerMinute(AuditReason.PASSWORD_MISMATCH, 10, now.get());
+        assertEquals(10, counts.length);
+        assertEquals(1, counts[9]);
+        assertEquals(1, counts[1], "minute T0+2 is still inside the 10 minute window");
+    }
+
+    @Test
+    void queries_doNotWaitForAnUnfinishedBatch() throws Exception {
+        AuditIndex index = new AuditIndex(1000, 60, now::get);
+        index.onEvent(T0, AuditEventType.SIGNIN_ATTEMPT, 1, false, AuditReason.PASSWORD_MISMATCH);
+
+        // The consumer is still in the middle of the batch: another thread is answered at once
+        List<AuditIndex.Event> during = CompletableFuture.supplyAsync(() -> index.eventsForUser(1, T0, 10))
+                .get(5, TimeUnit.SECONDS);
+        assertTrue(during.isEmpty(), "events are applied at the end of the batch");
+
+        index.onBatchEnd();
+        assertEquals(1, index.eventsForUser(1, T0, 10).size());
+    }
+
+    @Test
+    void batchLargerThanTheStage_isAppliedCompletely_inOrder() {
+        AuditIndex index = new AuditIndex(1000, 60, now::get);
+        int n = AuditIndex.STAGE_SIZE * 2 + 3;
+        batch(index, () -> {
+            for (int i = 0; i < n; i++) index.onEvent(T0 + i, AuditEventType.SIGNIN_ATTEMPT, 1, false, AuditReason.PASSWORD_MISMATCH);
+        });
+
+        List<AuditIndex.Event> events = index.eventsForUser(1, T0, 1000);
+        assertEquals(n, events.size());
+        assertEquals(T0 + n - 1, events.get(0).timestamp());
+        assertEquals(T0, events.get(n - 1).timestamp());
+        assertEquals(n, index.countPerMinute(AuditReason.PASSWORD_MISMATCH, 1, T0)[0]);
+    }
+}
@@ -122,4 +122,30 @@ public class AuditLoggerTest {
         assertTrue(msg.contains("success=true"));
         assertTrue(msg.contains("reason=SUCCESS"));
     }
+
+    /**
+     * Verifies that with a pipeline, events it refuses (here: after it was closed)
+     * go to the fallback logger and never to the logger behind audit.log, which the
+     * pipeline owns.
+     */
+    @Test
+    void refusedPipelineEvent_goesToFallbackLogger() {
+        Logger fallbackLogbackLogger = (Logger) LoggerFactory.getLogger(AuditLogger.FALLBACK_LOGGER_NAME);
+        TestAppender fallback = new TestAppender();
+        fallback.setContext(fallbackLogbackLogger.getLoggerContext());
+        fallback.start();
+        fallbackLogbackLogger.addAppender(fallback);
+        AuditPipeline pipeline = new AuditPipeline(16, AuditPipeline.OverflowPolicy.DROP, List.of());
+        try {
+            pipeline.close();
+            new AuditLogger(pipeline).auditSignInAttempt(9, true, AuditReason.SUCCESS);
+
+            assertEquals(1, fallback.events.size());
+            assertTrue(fallback.events.get(0).getFormattedMessage().contains("SIGNIN_ATTEMPT id=9 success=true"));
+            assertTrue(appender.events.isEmpty(), "audit.log logger must not be written while a pipeline owns the file");
+        } finally {
+            fallbackLogbackLogger.detachAppender(fallback);
+            fallback.stop();
+        }
+    }
 }
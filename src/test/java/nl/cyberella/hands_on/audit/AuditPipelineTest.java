@@ -0,0 +1,107 @@
+package nl.cyberella.hands_on.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuditPipeline.
+ *
+ * A collecting handler records what the consumer thread delivers so the tests can
+ * check ordering, the shutdown drain and the overflow policies.
+ */
+public class AuditPipelineTest {
+
+    /** Collects delivered events as "TYPE id success reason" strings. */
+    static class CollectingHandler implements AuditEventHandler {
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean closed;
+        volatile CountDownLatch gate; // when set, the consumer waits on it before handling an event
+
+        @Override
+        public void onEvent(long timestamp, AuditEventType type, int userId, boolean success, AuditReason reason) {
+            CountDownLatch g = gate;
+            if (g != null) {
+                try {
+                    g.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add(type + " " + userId + " " + success + " " + reason);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    void publish_deliversEventsInOrder_andCloseDrainsEverything() {
+        CollectingHandler handler = new CollectingHandler();
+        AuditPipeline pipeline = new AuditPipeline(16, AuditPipeline.OverflowPolicy.BLOCK, List.of(handler));
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(pipeline.publish(AuditEventType.SIGNIN_ATTEMPT, i, i % 2 == 0, AuditReason.SUCCESS));
+        }
+        pipeline.close();
+
+        assertEquals(1_000, handler.events.size(), "every published event is handed to the handler before close returns");
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals("SIGNIN_ATTEMPT " + i + " " + (i % 2 == 0) + " SUCCESS", handler.events.get(i));
+        }
+        assertTrue(handler.closed);
+        assertFalse(pipeline.publish(AuditEventType.SIGNIN_ATTEMPT, 1, true, null), "closed pipeline rejects events");
+    }
+
+    @Test
+    void publish_fromManyThreads_losesNothingWithBlockPolicy() throws InterruptedException {
+        CollectingHandler handler = new CollectingHandler();
+        AuditPipeline pipeline = new AuditPipeline(64, AuditPipeline.OverflowPolicy.BLOCK, List.of(handler));
+
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            int base = t * 10_000;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    pipeline.publish(AuditEventType.REGISTER_ATTEMPT, base + i, true, null);
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread p : producers) p.join();
+        pipeline.close();
+
+        assertEquals(20_000, handler.events.size());
+        assertEquals(0, pipeline.droppedCount());
+    }
+
+    @Test
+    void publish_whenFull_dropsAndCountsWithDropPolicy() {
+        CollectingHandler handler = new CollectingHandler();
+        handler.gate = new CountDownLatch(1); // hold the consumer on the first event
+        AuditPipeline pipeline = new AuditPipeline(4, AuditPipeline.OverflowPolicy.DROP, List.of(handler));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(pipeline.publish(AuditEventType.UPDATEPROFILE_ATTEMPT, i, false, AuditReason.UNKNOWN));
+        }
+        handler.gate.countDown();
+        pipeline.close();
+
+        assertEquals(10, handler.events.size() + pipeline.droppedCount());
+        assertTrue(pipeline.droppedCount() >= 6, "at most the ring capacity is kept while the consumer is stalled");
+        assertEquals("UPDATEPROFILE_ATTEMPT 0 false UNKNOWN", handler.events.get(0));
+    }
+
+    @Test
+    void constructor_rejectsNonPowerOfTwoBuffer() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AuditPipeline(1000, AuditPipeline.OverflowPolicy.DROP, List.of()));
+    }
+}
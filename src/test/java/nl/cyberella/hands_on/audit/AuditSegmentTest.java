@@ -0,0 +1,137 @@
+package nl.cyberella.hands_on.audit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the binary audit segments: AuditSegmentWriter writes,
+ * AuditSegmentReader decodes, and corrupted bytes are detected by the CRCs.
+ */
+public class AuditSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    /** Collects decoded events as "timestamp TYPE id success reason" strings. */
+    static class Collector implements AuditEventHandler {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onEvent(long timestamp, AuditEventType type, int userId, boolean success, AuditReason reason) {
+            events.add(timestamp + " " + type + " " + userId + " " + success + " " + reason);
+        }
+    }
+
+    // Room for the header and exactly 4 records per segment
+    private static final int SMALL_SEGMENT = AuditSegmentFormat.HEADER_SIZE + 4 * AuditSegmentFormat.RECORD_SIZE;
+
+    @Test
+    void writeThenRead_roundTripsEveryField_acrossSegments() throws IOException {
+        AuditSegmentWriter writer = new AuditSegmentWriter(dir, SMALL_SEGMENT, 10);
+        for (int i = 0; i < 10; i++) {
+            writer.onEvent(1_000 + i, AuditEventType.SIGNIN_ATTEMPT, i == 0 ? AuditPipeline.UNKNOWN_USER_ID : i,
+                    i % 2 == 0, i % 3 == 0 ? null : AuditReason.PASSWORD_MISMATCH);
+        }
+        writer.close();
+
+        assertEquals(3, AuditSegmentFormat.listSegments(dir).size(), "4 + 4 + 2 records");
+        Collector c = new Collector();
+        AuditSegmentReader.Stats stats = AuditSegmentReader.read(dir, Long.MIN_VALUE, Long.MAX_VALUE, c);
+
+        assertEquals(new AuditSegmentReader.Stats(3, 10, 0), stats);
+        assertEquals("1000 SIGNIN_ATTEMPT -1 true null", c.events.get(0));
+        assertEquals("1001 SIGNIN_ATTEMPT 1 false PASSWORD_MISMATCH", c.events.get(1));
+        assertEquals("1009 SIGNIN_ATTEMPT 9 false null", c.events.get(9));
+    }
+
+    @Test
+    void read_filtersByTimeWindow() throws IOException {
+        AuditSegmentWriter writer = new AuditSegmentWriter(dir, SMALL_SEGMENT, 10);
+        for (int i = 0; i < 10; i++) writer.onEvent(1_000 + i, AuditEventType.REGISTER_ATTEMPT, i, true, null);
+        writer.close();
+
+        Collector c = new Collector();
+        AuditSegmentReader.read(dir, 1_003, 1_006, c);
+        assertEquals(List.of("1003 REGISTER_ATTEMPT 3 true null", "1004 REGISTER_ATTEMPT 4 true null",
+                "1005 REGISTER_ATTEMPT 5 true null"), c.events);
+    }
+
+    @Test
+    void writer_keepsOnlyMaxSegments_andContinuesNumberingAfterRestart() throws IOException {
+        AuditSegmentWriter writer = new AuditSegmentWriter(dir, SMALL_SEGMENT, 2);
+        for (int i = 0; i < 12; i++) writer.onEvent(1_000 + i, AuditEventType.SIGNIN_ATTEMPT, i, true, AuditReason.SUCCESS);
+        writer.close();
+
+        List<Path> segments = AuditSegmentFormat.listSegments(dir);
+        assertEquals(2, segments.size());
+        assertEquals(3, AuditSegmentFormat.indexOf(segments.get(1)));
+
+        AuditSegmentWriter restarted = new AuditSegmentWriter(dir, SMALL_SEGMENT, 2);
+        restarted.onEvent(2_000, AuditEventType.SIGNIN_ATTEMPT, 1, true, AuditReason.SUCCESS);
+        restarted.close();
+        segments = AuditSegmentFormat.listSegments(dir);
+        assertEquals(4, AuditSegmentFormat.indexOf(segments.get(1)));
+    }
+
+    @Test
+    void read_skipsRecordsAndSegmentsWithBadChecksums() throws IOException {
+        AuditSegmentWriter writer = new AuditSegmentWriter(dir, SMALL_SEGMENT, 10);
+        for (int i = 0; i < 8; i++) writer.onEvent(1_000 + i, AuditEventType.SIGNIN_ATTEMPT, i, true, null);
+        writer.close();
+        List<Path> segments = AuditSegmentFormat.listSegments(dir);
+
+        // Flip a bit in the user id of the second record of the first segment
+        flipByte(segments.get(0), AuditSegmentFormat.HEADER_SIZE + AuditSegmentFormat.RECORD_SIZE + 8);
+        // Break the header of the second segment
+        flipByte(segments.get(1), 8);
+
+        Collector c = new Collector();
+        AuditSegmentReader.Stats stats = AuditSegmentReader.read(dir, Long.MIN_VALUE, Long.MAX_VALUE, c);
+        assertEquals(new AuditSegmentReader.Stats(1, 3, 2), stats);
+        assertEquals(List.of("1000 SIGNIN_ATTEMPT 0 true null", "1002 SIGNIN_ATTEMPT 2 true null",
+                "1003 SIGNIN_ATTEMPT 3 true null"), c.events);
+    }
+
+    @Test
+    void jsonLinesWriter_writesOneObjectPerLine() throws IOException {
+        AuditSegmentWriter writer = new AuditSegmentWriter(dir, SMALL_SEGMENT, 10);
+        writer.onEvent(0, AuditEventType.SIGNIN_ATTEMPT, 7, false, AuditReason.PASSWORD_MISMATCH);
+        writer.onEvent(1, AuditEventType.REGISTER_ATTEMPT, AuditPipeline.UNKNOWN_USER_ID, false, null);
+        writer.close();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonGenerator gen = new JsonFactory().createGenerator(out);
+        gen.setRootValueSeparator(null);
+        AuditSegmentReader.read(dir, Long.MIN_VALUE, Long.MAX_VALUE, new AuditJsonLinesWriter(gen));
+        gen.flush();
+
+        assertEquals("""
+                {"timestamp":"1970-01-01T00:00:00Z","event":"SIGNIN_ATTEMPT","userId":7,"success":false,"reason":"PASSWORD_MISMATCH"}
+                {"timestamp":"1970-01-01T00:00:00.001Z","event":"REGISTER_ATTEMPT","userId":null,"success":false,"reason":null}
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static void flipByte(Path file, int offset) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            ch.read(b, offset);
+            b.put(0, (byte) (b.get(0) ^ 0x01));
+            b.rewind();
+            ch.write(b, offset);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package nl.cyberella.hands_on.benchmarks;
+
+import nl.cyberella.hands_on.audit.AuditEventType;
+import nl.cyberella.hands_on.audit.AuditReason;
+import nl.cyberella.hands_on.audit.AuditSegmentWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of appending one event to the memory-mapped binary audit segments
+ * (what the audit pipeline consumer pays per event with audit.segments.enabled).
+ * Segment rolls are included, amortised over 64 MiB segments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditSegmentWriteBenchmark {
+
+    private Path directory;
+    private AuditSegmentWriter writer;
+    private long timestamp;
+    private int userId;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("audit-bench");
+        writer = new AuditSegmentWriter(directory, 64 * 1024 * 1024, 2);
+        timestamp = System.currentTimeMillis();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        writer.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void append() {
+        writer.onEvent(timestamp, AuditEventType.SIGNIN_ATTEMPT, userId++, true, AuditReason.SUCCESS);
+    }
+}
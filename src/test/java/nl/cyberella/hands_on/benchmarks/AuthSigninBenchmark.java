@@ -0,0 +1,68 @@
+package nl.cyberella.hands_on.benchmarks;
+
+import nl.cyberella.hands_on.HandsOnApplication;
+import nl.cyberella.hands_on.dto.auth.SigninResult;
+import nl.cyberella.hands_on.services.interfaces.IAuthService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthService.signin end to end (repositories, BCrypt, audit) against an in-memory H2.
+ *
+ * The full application context is started once per fork with the local profile, a
+ * private in-memory database and no text audit file. BCrypt (strength 10) dominates
+ * the successful and wrong-password cases; the unknown-email case shows the cost of
+ * everything around it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthSigninBenchmark {
+
+    private static final String EMAIL = "bench@example.com";
+    private static final String PASSWORD = "Bench!Passw0rd";
+
+    private ConfigurableApplicationContext context;
+    private IAuthService authService;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(HandsOnApplication.class)
+                .profiles("local")
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:signin-bench;DB_CLOSE_DELAY=-1",
+                        "--spring.h2.console.enabled=false",
+                        "--audit.pipeline.text-enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.nl.cyberella=ERROR");
+        authService = context.getBean(IAuthService.class);
+        authService.register("Bench", EMAIL, PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SigninResult signinSuccess() {
+        return authService.signin(EMAIL, PASSWORD);
+    }
+
+    @Benchmark
+    public SigninResult signinWrongPassword() {
+        return authService.signin(EMAIL, "Wrong!Passw0rd");
+    }
+
+    @Benchmark
+    public SigninResult signinUnknownEmail() {
+        return authService.signin("nobody@example.com", PASSWORD);
+    }
+}
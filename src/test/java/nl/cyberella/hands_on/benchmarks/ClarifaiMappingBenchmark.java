@@ -0,0 +1,47 @@
+package nl.cyberella.hands_on.benchmarks;
+
+import com.clarifai.grpc.api.*;
+import com.clarifai.grpc.api.status.Status;
+import com.clarifai.grpc.api.status.StatusCode;
+import nl.cyberella.hands_on.dto.clarifai.FaceDetectionResult;
+import nl.cyberella.hands_on.services.ClarifaiService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClarifaiService response mapping (the part of analyzeUrl after the gRPC call) on
+ * synthetic face-detection responses with a varying number of faces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClarifaiMappingBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int faces;
+
+    private MultiOutputResponse response;
+
+    @Setup
+    public void setup() {
+        Data.Builder data = Data.newBuilder();
+        for (int i = 0; i < faces; i++) {
+            float top = i / (float) (faces + 1);
+            data.addRegions(Region.newBuilder().setRegionInfo(RegionInfo.newBuilder().setBoundingBox(
+                    BoundingBox.newBuilder().setTopRow(top).setLeftCol(0.1f).setBottomRow(top + 0.05f).setRightCol(0.2f))));
+        }
+        response = MultiOutputResponse.newBuilder()
+                .setStatus(Status.newBuilder().setCode(StatusCode.SUCCESS))
+                .addOutputs(Output.newBuilder().setData(data))
+                .build();
+    }
+
+    @Benchmark
+    public FaceDetectionResult mapResponse() {
+        return ClarifaiService.mapResponse(response);
+    }
+}
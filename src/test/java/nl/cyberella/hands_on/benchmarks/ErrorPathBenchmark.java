@@ -0,0 +1,127 @@
+package nl.cyberella.hands_on.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityNotFoundException;
+import nl.cyberella.hands_on.controllers.GlobalExceptionHandler;
+import nl.cyberella.hands_on.dto.error.ErrorResponse;
+import nl.cyberella.hands_on.exceptions.InvalidCredentialsException;
+import nl.cyberella.hands_on.exceptions.NotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.AuthenticationException;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Throughput of a failed sign-in (401) and an unknown user (404), from the throw to the
+ * JSON bytes of the error body.
+ * - before: the JDK/Jakarta/Spring exception with its stack trace, and the body built as
+ *   the handler used to (LocalDateTime.now().toString(), reflective serialization)
+ * - after: the stackless exception from the exceptions package through GlobalExceptionHandler
+ *
+ * The exception is thrown below `depth` frames, like a controller below Tomcat, the
+ * security filter chain and Spring MVC (typically more than 100 frames). The handler's
+ * logger is off, as in GlobalExceptionHandlerBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    /** Widens the protected handler methods for the benchmark. */
+    static class Handler extends GlobalExceptionHandler {
+        ErrorResponse unauthorized(AuthenticationException ex, MockHttpServletRequest req) {
+            return handleAuth(ex, req).getBody();
+        }
+
+        ErrorResponse notFound(EntityNotFoundException ex, MockHttpServletRequest req) {
+            return handleNotFound(ex, req).getBody();
+        }
+    }
+
+    @Param({"10", "120"})
+    int depth;
+
+    private Handler handler;
+    private ObjectMapper mapper;
+    private ObjectMapper reflective;
+    private MockHttpServletRequest signin;
+    private MockHttpServletRequest profile;
+
+    @Setup
+    public void setup() {
+        ((Logger) LoggerFactory.getLogger(GlobalExceptionHandler.class)).setLevel(Level.OFF);
+        handler = new Handler();
+        mapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        reflective = mapper.copy().disable(MapperFeature.USE_ANNOTATIONS);
+        signin = new MockHttpServletRequest("POST", "/signin");
+        profile = new MockHttpServletRequest("GET", "/profile/424242");
+    }
+
+    private static void throwAt(int depth, Function<String, RuntimeException> exception, String message) {
+        if (depth > 0) {
+            throwAt(depth - 1, exception, message);
+            return;
+        }
+        throw exception.apply(message);
+    }
+
+    private byte[] before(RuntimeException ex, HttpStatus status, MockHttpServletRequest req) throws Exception {
+        ErrorResponse body = new ErrorResponse(status.value(), status.getReasonPhrase(), ex.getMessage(), req.getRequestURI(),
+                LocalDateTime.now().toString(), null);
+        return reflective.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] unauthorized_before() throws Exception {
+        try {
+            throwAt(depth, BadCredentialsException::new, "Invalid email or password");
+            return null;
+        } catch (BadCredentialsException ex) {
+            return before(ex, HttpStatus.UNAUTHORIZED, signin);
+        }
+    }
+
+    @Benchmark
+    public byte[] unauthorized_after() throws Exception {
+        try {
+            throwAt(depth, InvalidCredentialsException::new, "Invalid email or password");
+            return null;
+        } catch (InvalidCredentialsException ex) {
+            return mapper.writeValueAsBytes(handler.unauthorized(ex, signin));
+        }
+    }
+
+    @Benchmark
+    public byte[] notFound_before() throws Exception {
+        try {
+            throwAt(depth, EntityNotFoundException::new, "User not found");
+            return null;
+        } catch (EntityNotFoundException ex) {
+            return before(ex, HttpStatus.NOT_FOUND, profile);
+        }
+    }
+
+    @Benchmark
+    public byte[] notFound_after() throws Exception {
+        try {
+            throwAt(depth, NotFoundException::new, "User not found");
+            return null;
+        } catch (NotFoundException ex) {
+            return mapper.writeValueAsBytes(handler.notFound(ex, profile));
+        }
+    }
+}
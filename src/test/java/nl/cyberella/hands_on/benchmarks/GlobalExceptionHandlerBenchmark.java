@@ -0,0 +1,75 @@
+package nl.cyberella.hands_on.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import jakarta.persistence.EntityNotFoundException;
+import nl.cyberella.hands_on.controllers.GlobalExceptionHandler;
+import nl.cyberella.hands_on.dto.error.ErrorResponse;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GlobalExceptionHandler building error responses for the most frequent errors
+ * (400 and 404) and the catch-all 500.
+ *
+ * The handler's logger is switched off so the numbers show response building only;
+ * the exceptions are created once, so stack trace capture is not measured either.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+
+    /** Widens the protected handler methods for the benchmark. */
+    static class Handler extends GlobalExceptionHandler {
+        ResponseEntity<ErrorResponse> illegalArgument(IllegalArgumentException ex, MockHttpServletRequest req) {
+            return handleIllegalArg(ex, req);
+        }
+
+        ResponseEntity<ErrorResponse> notFound(EntityNotFoundException ex, MockHttpServletRequest req) {
+            return handleNotFound(ex, req);
+        }
+
+        ResponseEntity<ErrorResponse> unexpected(Exception ex, MockHttpServletRequest req) {
+            return handleAll(ex, req);
+        }
+    }
+
+    private Handler handler;
+    private MockHttpServletRequest request;
+    private IllegalArgumentException illegalArgument;
+    private EntityNotFoundException notFound;
+    private IllegalStateException unexpected;
+
+    @Setup
+    public void setup() {
+        ((Logger) LoggerFactory.getLogger(GlobalExceptionHandler.class)).setLevel(Level.OFF);
+        handler = new Handler();
+        request = new MockHttpServletRequest("POST", "/signin");
+        illegalArgument = new IllegalArgumentException("Valid email is required.");
+        notFound = new EntityNotFoundException("User not found");
+        unexpected = new IllegalStateException("boom");
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> badRequest() {
+        return handler.illegalArgument(illegalArgument, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> entityNotFound() {
+        return handler.notFound(notFound, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> internalError() {
+        return handler.unexpected(unexpected, request);
+    }
+}
@@ -0,0 +1,87 @@
+package nl.cyberella.hands_on.benchmarks;
+
+import nl.cyberella.hands_on.utils.MappedBloomFilter;
+import nl.cyberella.hands_on.utils.PasswordValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * PasswordValidator.validate for a password that passes every rule and for one that
+ * fails most of them, against the five-regex implementation it replaced (regex*), and
+ * with the breached-password check on a memory-mapped filter of one million entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordValidatorBenchmark {
+
+    private String valid = "Str0ng!Passw0rd";
+    private String weak = "password";
+
+    /** Installs the breached-password check; each benchmark runs in its own fork. */
+    @State(Scope.Benchmark)
+    public static class Breached {
+
+        Path file;
+
+        @Setup
+        public void setup() throws IOException {
+            file = Files.createTempFile("breached", ".bloom");
+            MappedBloomFilter.write(file, IntStream.range(0, 1_000_000).mapToObj(i -> "leaked-" + i).iterator(), 1_000_000, 0.01);
+            PasswordValidator.useBreachedPasswords(MappedBloomFilter.open(file));
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            PasswordValidator.useBreachedPasswords(null);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // The implementation before PasswordRules
+    private static List<String> regexErrors(String password) {
+        List<String> errors = new ArrayList<>();
+        if (password.length() < 8) errors.add("at least 8 characters");
+        if (!Pattern.compile("[A-Z]").matcher(password).find()) errors.add("at least one uppercase letter");
+        if (!Pattern.compile("[a-z]").matcher(password).find()) errors.add("at least one lowercase letter");
+        if (!Pattern.compile("\\d").matcher(password).find()) errors.add("at least one number");
+        if (!Pattern.compile("[!@#$%^&*(),.?\":{}|<>]").matcher(password).find()) errors.add("at least one special character (!@#$%^&*(),.?\":{}|<>)");
+        return errors;
+    }
+
+    @Benchmark
+    public PasswordValidator.ValidationResult validPassword() {
+        return PasswordValidator.validate(valid);
+    }
+
+    @Benchmark
+    public PasswordValidator.ValidationResult weakPassword() {
+        return PasswordValidator.validate(weak);
+    }
+
+    @Benchmark
+    public PasswordValidator.ValidationResult validPasswordBreachedCheck(Breached breached) {
+        return PasswordValidator.validate(valid);
+    }
+
+    @Benchmark
+    public List<String> regexValidPassword() {
+        return regexErrors(valid);
+    }
+
+    @Benchmark
+    public List<String> regexWeakPassword() {
+        return regexErrors(weak);
+    }
+}
@@ -0,0 +1,96 @@
+package nl.cyberella.hands_on.benchmarks;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import nl.cyberella.hands_on.dto.clarifai.FaceDetectionResult;
+import nl.cyberella.hands_on.dto.user.UserResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing response bodies to JSON bytes, as the message converter does for every
+ * response: the hand-written serializers against what they replaced.
+ * - UserResponse: the record's serializer vs. Jackson's reflective bean serializer
+ *   (annotations off, so @JsonSerialize is ignored)
+ * - face detection with 1/10/50 faces: FaceDetectionResult vs. the nested Map
+ *   ClarifaiService used to build
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private ObjectMapper mapper;
+    private ObjectMapper reflective;
+    private UserResponse user;
+
+    @Setup
+    public void setup() {
+        // as Spring Boot configures it
+        mapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        reflective = mapper.copy().disable(MapperFeature.USE_ANNOTATIONS);
+        user = new UserResponse(42, "Ella", "ella@cyberella.com", LocalDate.of(2024, 5, 1), 7, "+31 6 12345678", true);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Faces {
+
+        @Param({"1", "10", "50"})
+        int faces;
+
+        FaceDetectionResult result;
+        Map<String, Object> map;
+
+        @Setup
+        public void setup() {
+            List<FaceDetectionResult.Box> boxes = new ArrayList<>();
+            List<Map<String, Object>> nested = new ArrayList<>();
+            List<Map<String, Object>> flat = new ArrayList<>();
+            for (int i = 0; i < faces; i++) {
+                float top = i / (float) (faces + 1);
+                FaceDetectionResult.Box box = new FaceDetectionResult.Box(top, 0.1f, top + 0.05f, 0.2f);
+                boxes.add(box);
+                Map<String, Object> bbox = new LinkedHashMap<>();
+                bbox.put("top_row", box.topRow());
+                bbox.put("left_col", box.leftCol());
+                bbox.put("bottom_row", box.bottomRow());
+                bbox.put("right_col", box.rightCol());
+                nested.add(Map.of("region_info", Map.of("bounding_box", bbox)));
+                flat.add(new LinkedHashMap<>(bbox));
+            }
+            result = new FaceDetectionResult(boxes);
+            map = Map.of("outputs", List.of(Map.of("data", Map.of("regions", nested))), "regions", flat);
+        }
+    }
+
+    @Benchmark
+    public byte[] userResponse_serializer() throws Exception {
+        return mapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] userResponse_reflective() throws Exception {
+        return reflective.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] faces_serializer(Faces faces) throws Exception {
+        return mapper.writeValueAsBytes(faces.result);
+    }
+
+    @Benchmark
+    public byte[] faces_map(Faces faces) throws Exception {
+        return mapper.writeValueAsBytes(faces.map);
+    }
+}
@@ -0,0 +1,48 @@
+package nl.cyberella.hands_on.benchmarks;
+
+import com.warrenstrange.googleauth.GoogleAuthenticator;
+import nl.cyberella.hands_on.twofa.TotpVerifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old verification path (GoogleAuthenticator.authorize) with TotpVerifier.
+ *
+ * Both benchmarks use a wrong token: that is the worst case (the full window is
+ * checked) and the common case during brute force attempts, and it keeps the
+ * replay cache out of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TotpVerifyBenchmark {
+
+    private static final Integer USER_ID = 1;
+
+    private GoogleAuthenticator gAuth;
+    private TotpVerifier totpVerifier;
+    private String secret;
+    private int wrongToken;
+
+    @Setup
+    public void setup() {
+        gAuth = new GoogleAuthenticator();
+        totpVerifier = new TotpVerifier(3, 10_000, 100_000);
+        secret = gAuth.createCredentials().getKey();
+        wrongToken = (gAuth.getTotpPassword(secret) + 500_000) % 1_000_000;
+    }
+
+    @Benchmark
+    public boolean googleAuthenticatorAuthorize() {
+        return gAuth.authorize(secret, wrongToken);
+    }
+
+    @Benchmark
+    public boolean totpVerifier() {
+        return totpVerifier.verify(USER_ID, secret, wrongToken);
+    }
+}
@@ -0,0 +1,44 @@
+package nl.cyberella.hands_on.benchmarks;
+
+import com.warrenstrange.googleauth.GoogleAuthenticator;
+import nl.cyberella.hands_on.models.User;
+import nl.cyberella.hands_on.services.TwoFaService;
+import nl.cyberella.hands_on.twofa.TotpVerifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TwoFaService.verify as called by POST /verify-2fa once the user is loaded.
+ *
+ * Uses a wrong token (full window checked, replay cache untouched); verify does not
+ * use the repository, so none is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TwoFaVerifyBenchmark {
+
+    private TwoFaService twoFaService;
+    private User user;
+    private int wrongToken;
+
+    @Setup
+    public void setup() {
+        GoogleAuthenticator gAuth = new GoogleAuthenticator();
+        twoFaService = new TwoFaService(null, new TotpVerifier(3, 10_000, 100_000), null, null);
+        user = new User();
+        user.setId(1);
+        user.setTwoFactorEnabled(true);
+        user.setTwoFactorSecret(gAuth.createCredentials().getKey());
+        wrongToken = (gAuth.getTotpPassword(user.getTwoFactorSecret()) + 500_000) % 1_000_000;
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return twoFaService.verify(user, wrongToken);
+    }
+}
@@ -0,0 +1,40 @@
+package nl.cyberella.hands_on.benchmarks;
+
+import nl.cyberella.hands_on.dto.user.UserMapper;
+import nl.cyberella.hands_on.dto.user.UserResponse;
+import nl.cyberella.hands_on.models.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserMapper.from: entity to response DTO, as done for every user-returning endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setup() {
+        user = new User();
+        user.setId(42);
+        user.setName("Ella");
+        user.setEmail("ella@cyberella.com");
+        user.setJoined(LocalDate.of(2024, 5, 1));
+        user.setEntries(7);
+        user.setPhone("+31 6 12345678");
+        user.setTwoFactorEnabled(true);
+    }
+
+    @Benchmark
+    public UserResponse from() {
+        return UserMapper.from(user);
+    }
+}
@@ -0,0 +1,109 @@
+package nl.cyberella.hands_on.config;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ConcurrencyLimitedDataSource.
+ *
+ * The target pool is a Mockito DataSource handing out mock connections, so the tests
+ * only see the gate: the limit, the timeout, permit release on close and on failure,
+ * and that waiting virtual threads are not pinned to their carrier.
+ */
+public class ConcurrencyLimitedDataSourceTest {
+
+    private static DataSource pool() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(inv -> mock(Connection.class));
+        return target;
+    }
+
+    @Test
+    void getConnection_timesOutWhenAllPermitsAreHeld() throws Exception {
+        ConcurrencyLimitedDataSource ds = new ConcurrencyLimitedDataSource(pool(), 2, Duration.ofMillis(50));
+        Connection first = ds.getConnection();
+        Connection second = ds.getConnection();
+        assertEquals(2, ds.active());
+
+        assertThrows(SQLTransientConnectionException.class, ds::getConnection);
+
+        first.close();
+        Connection third = ds.getConnection();
+        assertNotNull(third);
+        second.close();
+        third.close();
+        assertEquals(0, ds.active());
+    }
+
+    @Test
+    void close_releasesOnce_andFailedGetConnectionReleases() throws Exception {
+        DataSource target = pool();
+        ConcurrencyLimitedDataSource ds = new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50));
+
+        Connection connection = ds.getConnection();
+        connection.close();
+        connection.close();
+        assertEquals(0, ds.active());
+        ds.getConnection(); // still exactly one permit
+        assertThrows(SQLTransientConnectionException.class, ds::getConnection);
+
+        ConcurrencyLimitedDataSource failing = new ConcurrencyLimitedDataSource(target, 1, Duration.ofMillis(50));
+        when(target.getConnection()).thenThrow(new SQLException("pool down"));
+        assertThrows(SQLException.class, failing::getConnection);
+        assertEquals(0, failing.active());
+    }
+
+    @Test
+    void waitingVirtualThreads_areNotPinned_andNeverExceedTheLimit() throws Exception {
+        ConcurrencyLimitedDataSource ds = new ConcurrencyLimitedDataSource(pool(), 2, Duration.ofSeconds(10));
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger maxHolders = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        Path jfr = Files.createTempFile("pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.start();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                threads.add(Thread.ofVirtual().start(() -> {
+                    try (Connection ignored = ds.getConnection()) {
+                        maxHolders.accumulateAndGet(holders.incrementAndGet(), Math::max);
+                        Thread.sleep(2);
+                        holders.decrementAndGet();
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }));
+            }
+            for (Thread t : threads) t.join();
+
+            recording.stop();
+            recording.dump(jfr);
+            assertEquals(List.of(), RecordingFile.readAllEvents(jfr).stream()
+                    .map(e -> e.getStackTrace() == null ? "pinned" : e.getStackTrace().getFrames().toString())
+                    .toList());
+        } finally {
+            Files.deleteIfExists(jfr);
+        }
+        assertEquals(0, failures.get());
+        assertTrue(maxHolders.get() <= 2, "max concurrent holders was " + maxHolders.get());
+        assertEquals(0, ds.active());
+    }
+}
@@ -0,0 +1,105 @@
+package nl.cyberella.hands_on.config;
+
+import nl.cyberella.hands_on.H2TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for H2LoginUpgrade on in-memory H2 databases holding the login tables that local
+ * databases can still have: keyed by email as Hibernate created it, with the unique email
+ * of the old h2/schema.sql, and the current one keyed by user_id.
+ */
+public class H2LoginUpgradeTest {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+    private int ann;
+    private int bob;
+
+    @BeforeEach
+    void setup() {
+        dataSource = H2TestDatabase.create("loginupgrade").dataSource();
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("INSERT INTO public.users (name, email) VALUES ('Ann', 'ann@example.com'), ('Bob', 'bob@example.com')");
+        ann = jdbc.queryForObject("SELECT id FROM public.users WHERE email = 'ann@example.com'", Integer.class);
+        bob = jdbc.queryForObject("SELECT id FROM public.users WHERE email = 'bob@example.com'", Integer.class);
+    }
+
+    @AfterEach
+    void shutdown() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    private void oldLoginTable(String definition) {
+        jdbc.execute("DROP TABLE public.login");
+        jdbc.execute("CREATE TABLE public.login " + definition);
+    }
+
+    private List<String> primaryKey() throws Exception {
+        List<String> columns = new ArrayList<>();
+        try (Connection c = dataSource.getConnection(); ResultSet rs = c.getMetaData().getPrimaryKeys(null, "PUBLIC", "LOGIN")) {
+            while (rs.next()) columns.add(rs.getString("COLUMN_NAME"));
+        }
+        return columns;
+    }
+
+    // What sign-in needs afterwards: the hash and the user, joined on user_id, and unique emails
+    private void assertUpgraded() throws Exception {
+        assertEquals(List.of("USER_ID"), primaryKey());
+        assertEquals(List.of(Map.of("ID", ann, "HASH", "hash-a"), Map.of("ID", bob, "HASH", "hash-b")),
+                jdbc.queryForList("SELECT u.id, l.hash FROM public.login l JOIN public.users u ON u.id = l.user_id ORDER BY u.name"));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbc.update("UPDATE public.login SET email = 'ann@example.com' WHERE user_id = ?", bob));
+        // Deleting a user deletes their login
+        jdbc.update("DELETE FROM public.users WHERE id = ?", bob);
+        assertEquals(List.of("ann@example.com"), jdbc.queryForList("SELECT email FROM public.login", String.class));
+    }
+
+    @Test
+    void loginKeyedByEmail_isBackfilledAndRekeyed() throws Exception {
+        // As Hibernate created it from the old entity, with a login whose user is gone
+        oldLoginTable("(email VARCHAR(100) NOT NULL PRIMARY KEY, hash VARCHAR(100) NOT NULL)");
+        jdbc.update("INSERT INTO public.login (email, hash) VALUES ('ann@example.com', 'hash-a'), "
+                + "('bob@example.com', 'hash-b'), ('gone@example.com', 'hash-c')");
+
+        new H2LoginUpgrade(dataSource).upgrade();
+
+        assertUpgraded();
+    }
+
+    @Test
+    void oldSchemaSqlTable_withTheColumnHibernateAdded_isUpgraded() throws Exception {
+        // Old h2/schema.sql: no primary key. Hibernate's update added user_id while the table was empty.
+        oldLoginTable("(email VARCHAR(100) NOT NULL UNIQUE, hash VARCHAR(100) NOT NULL)");
+        jdbc.execute("ALTER TABLE public.login ADD COLUMN user_id INT NOT NULL");
+        jdbc.update("INSERT INTO public.login (email, hash, user_id) VALUES ('ann@example.com', 'hash-a', 0), "
+                + "('bob@example.com', 'hash-b', 0)");
+
+        new H2LoginUpgrade(dataSource).upgrade();
+
+        assertUpgraded();
+    }
+
+    @Test
+    void currentTable_isLeftAlone() throws Exception {
+        jdbc.update("INSERT INTO public.login (user_id, email, hash) VALUES (?, 'ann@example.com', 'hash-a'), "
+                + "(?, 'bob@example.com', 'hash-b')", ann, bob);
+
+        new H2LoginUpgrade(dataSource).upgrade();
+        new H2LoginUpgrade(dataSource).upgrade();
+
+        assertUpgraded();
+    }
+}
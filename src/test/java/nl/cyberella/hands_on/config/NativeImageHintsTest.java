@@ -0,0 +1,97 @@
+package nl.cyberella.hands_on.config;
+
+import com.clarifai.grpc.api.status.Status;
+import nl.cyberella.hands_on.dto.auth.LoginCredentials;
+import nl.cyberella.hands_on.dto.error.ErrorResponse;
+import nl.cyberella.hands_on.dto.user.UserResponse;
+import nl.cyberella.hands_on.models.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import javax.cache.CacheManager;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NativeImageHints.
+ *
+ * The class names registered for the second-level cache are checked against what
+ * SecondLevelCacheConfig actually creates, so a Caffeine or Hibernate upgrade that renames
+ * them fails here instead of in the native binary.
+ */
+public class NativeImageHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    NativeImageHintsTest() {
+        new NativeImageHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void responseBodies_areRegisteredForJackson() {
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(UserResponse.class, "email").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(ErrorResponse.class, "fieldErrors").test(hints));
+        // Jackson creates the hand-written serializers named in @JsonSerialize reflectively
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of(UserResponse.class.getName() + "$Serializer"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+    }
+
+    @Test
+    void loginCredentials_canBeCreatedByHibernate() throws NoSuchMethodException {
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onConstructor(LoginCredentials.class.getDeclaredConstructor(String.class, User.class)).test(hints));
+    }
+
+    @Test
+    void clarifaiStatus_canBePrinted() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Status.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Status.Builder.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS).test(hints));
+    }
+
+    @Test
+    void secondLevelCache_classesLoadedByNameAreRegistered() throws Exception {
+        try (CacheManager cacheManager = new SecondLevelCacheConfig().jpaCacheManager(100, 50, Duration.ofSeconds(30))) {
+            var cache = cacheManager.getCache(User.CACHE_REGION).unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+            cache.put(1, "cached");
+            Map<?, ?> data = (Map<?, ?>) field(cache.asMap().getClass(), "data").get(cache.asMap());
+
+            assertEquals(NativeImageHints.CAFFEINE_BOUNDED_CACHE, cache.asMap().getClass().getName());
+            assertEquals(NativeImageHints.CAFFEINE_BOUNDED_NODE, data.values().iterator().next().getClass().getName());
+            assertEquals(NativeImageHints.CAFFEINE_CACHING_PROVIDER, cacheManager.getCachingProvider().getClass().getName());
+        }
+        assertDoesNotThrow(() -> Class.forName(NativeImageHints.JCACHE_REGION_FACTORY));
+
+        for (String type : new String[] {NativeImageHints.CAFFEINE_BOUNDED_CACHE, NativeImageHints.CAFFEINE_BOUNDED_NODE}) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of(type))
+                    .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints), type);
+        }
+        assertTrue(RuntimeHintsPredicates.resource().forResource("reference.conf").test(hints));
+    }
+
+    @Test
+    void flywayMigrations_areIncluded() {
+        assertTrue(RuntimeHintsPredicates.resource().forResource("db/migration/V1__init.sql").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("org/flywaydb/core/internal/version.txt").test(hints));
+    }
+
+    private static Field field(Class<?> type, String name) throws NoSuchFieldException {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            try {
+                Field f = c.getDeclaredField(name);
+                f.setAccessible(true);
+                return f;
+            } catch (NoSuchFieldException e) {
+                // declared further up
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+}
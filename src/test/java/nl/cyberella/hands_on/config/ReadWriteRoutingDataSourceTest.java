@@ -0,0 +1,130 @@
+package nl.cyberella.hands_on.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.cyberella.hands_on.services.ReadYourWritesService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReadWriteRoutingDataSource together with ReadYourWritesService.
+ *
+ * The two pools are Mockito DataSources and transactions run through a real
+ * DataSourceTransactionManager behind a LazyConnectionDataSourceProxy, wired like
+ * ReadReplicaConfig, so the tests see which pool each transaction's first statement
+ * lands on and the datasource.routing counters.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private SimpleMeterRegistry registry;
+    private DataSource dataSource;
+    private TransactionTemplate write;
+    private TransactionTemplate readOnly;
+
+    private static DataSource pool() throws SQLException {
+        DataSource pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(inv -> mock(Connection.class));
+        return pool;
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = pool();
+        replica = pool();
+        registry = new SimpleMeterRegistry();
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, registry));
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource = proxy;
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        write = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    /** Runs one statement on the transaction's connection, which makes the proxy pick a pool. */
+    private void query() {
+        try {
+            DataSourceUtils.getConnection(dataSource).createStatement();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double routed(String target, String reason) {
+        return registry.get("datasource.routing").tag("target", target).tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void readOnlyTransactions_goToReplica_writesToPrimary() throws Exception {
+        readOnly.executeWithoutResult(status -> query());
+        write.executeWithoutResult(status -> query());
+        readOnly.executeWithoutResult(status -> { /* no statement, no connection */ });
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement();
+        }
+
+        verify(replica, times(1)).getConnection();
+        verify(primary, times(2)).getConnection();
+        assertEquals(1, routed("replica", "read_only"));
+        assertEquals(1, routed("primary", "write"));
+        assertEquals(1, routed("primary", "no_transaction"));
+    }
+
+    @Test
+    void readYourWritesWindow_opensOnCommit_andKeepsOnlyThatUserOnPrimary() throws Exception {
+        ReadYourWritesService readYourWrites = new ReadYourWritesService(true, Duration.ofMinutes(1));
+
+        write.executeWithoutResult(status -> readYourWrites.recordWrite(7));
+        write.executeWithoutResult(status -> {
+            readYourWrites.recordWrite(8);
+            status.setRollbackOnly();
+        });
+
+        readOnly.executeWithoutResult(status -> { readYourWrites.readingFor(7); query(); });
+        readOnly.executeWithoutResult(status -> { readYourWrites.readingFor(8); query(); });
+        // The pin ends with the transaction that set it
+        readOnly.executeWithoutResult(status -> query());
+
+        assertEquals(1, routed("primary", "read_your_writes"));
+        assertEquals(2, routed("replica", "read_only"));
+        verify(primary, times(1)).getConnection();
+    }
+
+    @Test
+    void expiredOrDisabledWindow_andOnPrimary() throws Exception {
+        ReadYourWritesService expired = new ReadYourWritesService(true, Duration.ZERO);
+        ReadYourWritesService disabled = new ReadYourWritesService(false, Duration.ofMinutes(1));
+        expired.recordWrite(7);
+        disabled.recordWrite(7);
+
+        readOnly.executeWithoutResult(status -> { expired.readingFor(7); query(); });
+        readOnly.executeWithoutResult(status -> { disabled.readingFor(7); query(); });
+        assertEquals(2, routed("replica", "read_only"));
+
+        String result = ReadWriteRoutingDataSource.onPrimary(() -> {
+            readOnly.executeWithoutResult(status -> query());
+            return "done";
+        });
+        assertEquals("done", result);
+        assertEquals(1, routed("primary", "pinned"));
+
+        readOnly.executeWithoutResult(status -> query());
+        assertEquals(3, routed("replica", "read_only"));
+        verify(primary, times(1)).getConnection();
+    }
+}
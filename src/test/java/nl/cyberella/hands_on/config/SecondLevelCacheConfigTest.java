@@ -0,0 +1,62 @@
+package nl.cyberella.hands_on.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import nl.cyberella.hands_on.models.Login;
+import nl.cyberella.hands_on.models.User;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalIdCache;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SecondLevelCacheConfig.
+ *
+ * Checks that every region the entities ask for exists with the configured bound (with
+ * missing_cache_strategy=fail a missing one would stop the application at startup) and
+ * that Login stays out of the cache.
+ */
+public class SecondLevelCacheConfigTest {
+
+    @Test
+    void jpaCacheManager_createsBoundedRegionsForUser() {
+        try (CacheManager cacheManager = new SecondLevelCacheConfig().jpaCacheManager(100, 50, Duration.ofSeconds(30))) {
+            Cache entity = User.class.getAnnotation(Cache.class);
+            NaturalIdCache naturalId = User.class.getAnnotation(NaturalIdCache.class);
+            assertEquals(CacheConcurrencyStrategy.READ_WRITE, entity.usage());
+
+            CaffeineConfiguration<?, ?> users = cacheManager.getCache(entity.region())
+                    .getConfiguration(CaffeineConfiguration.class);
+            CaffeineConfiguration<?, ?> byEmail = cacheManager.getCache(naturalId.region())
+                    .getConfiguration(CaffeineConfiguration.class);
+            assertEquals(OptionalLong.of(100), users.getMaximumSize());
+            assertEquals(OptionalLong.of(50), byEmail.getMaximumSize());
+            assertEquals(OptionalLong.of(Duration.ofSeconds(30).toNanos()), users.getExpireAfterWrite());
+            assertFalse(users.isStoreByValue());
+        }
+    }
+
+    @Test
+    void jpaCacheManager_ownsItsRegions_whenAnotherContextHoldsSome() {
+        SecondLevelCacheConfig config = new SecondLevelCacheConfig();
+        try (CacheManager first = config.jpaCacheManager(100, 50, Duration.ofSeconds(30));
+             CacheManager second = config.jpaCacheManager(10, 5, Duration.ofSeconds(30))) {
+            assertNotSame(first, second);
+            first.getCache(User.CACHE_REGION).put(1, "cached");
+            assertNull(second.getCache(User.CACHE_REGION).get(1));
+            assertEquals(OptionalLong.of(10), second.getCache(User.CACHE_REGION)
+                    .getConfiguration(CaffeineConfiguration.class).getMaximumSize());
+        }
+    }
+
+    @Test
+    void login_isNotCached() {
+        assertNull(Login.class.getAnnotation(Cache.class));
+        assertNull(Login.class.getAnnotation(jakarta.persistence.Cacheable.class));
+    }
+}
@@ -0,0 +1,110 @@
+package nl.cyberella.hands_on.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for SecurityConfig's filter chain on a minimal web context: a stub controller
+ * behind the real chain, with the admin and metrics accounts configured by property.
+ */
+@SpringJUnitWebConfig(SecurityConfigTest.TestConfig.class)
+@TestPropertySource(properties = {"admin.password=s3cret-admin", "metrics.password=s3cret-scrape"})
+public class SecurityConfigTest {
+
+    @Configuration
+    @EnableWebMvc
+    @Import(SecurityConfig.class)
+    static class TestConfig {
+        // Stands in for the timed password.encoder bean, which the Basic accounts must not use
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return mock(PasswordEncoder.class);
+        }
+
+        @Bean
+        StubController stubController() {
+            return new StubController();
+        }
+    }
+
+    @RestController
+    static class StubController {
+        @GetMapping({"/admin/users/export", "/admin/audit/export", "/profile/1", "/actuator/health", "/actuator/prometheus"})
+        String ok() {
+            return "ok";
+        }
+    }
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setup() {
+        mvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    }
+
+    @Test
+    void adminEndpoints_requireTheAdminAccount() throws Exception {
+        for (String path : new String[] {"/admin/users/export", "/admin/audit/export"}) {
+            mvc.perform(get(path)).andExpect(status().isUnauthorized());
+            mvc.perform(get(path).with(httpBasic("admin", "wrong"))).andExpect(status().isUnauthorized());
+            mvc.perform(get(path).with(httpBasic("admin", "s3cret-admin"))).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void prometheus_requiresTheMetricsAccount() throws Exception {
+        mvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/actuator/prometheus").with(httpBasic("admin", "s3cret-admin"))).andExpect(status().isForbidden());
+        mvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "s3cret-scrape"))).andExpect(status().isOk());
+        // and the scrape account cannot reach the admin endpoints
+        mvc.perform(get("/admin/users/export").with(httpBasic("prometheus", "s3cret-scrape"))).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void basicAccounts_doNotUseTheApplicationPasswordEncoder() throws Exception {
+        mvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "s3cret-scrape"))).andExpect(status().isOk());
+        mvc.perform(get("/admin/users/export").with(httpBasic("admin", "wrong"))).andExpect(status().isUnauthorized());
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    void publicEndpoints_stayOpen() throws Exception {
+        mvc.perform(get("/profile/1")).andExpect(status().isOk());
+        mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void withoutPassword_thereIsNoAccount() {
+        var accounts = new SecurityConfig().accounts("admin", "", "prometheus", " ");
+        assertThrows(UsernameNotFoundException.class, () -> accounts.loadUserByUsername("admin"));
+        assertThrows(UsernameNotFoundException.class, () -> accounts.loadUserByUsername("prometheus"));
+    }
+}
@@ -0,0 +1,67 @@
+package nl.cyberella.hands_on.controllers;
+
+import jakarta.persistence.EntityNotFoundException;
+import nl.cyberella.hands_on.dto.error.ErrorResponse;
+import nl.cyberella.hands_on.exceptions.InvalidCredentialsException;
+import nl.cyberella.hands_on.exceptions.InvalidRequestException;
+import nl.cyberella.hands_on.exceptions.NotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GlobalExceptionHandler with the stackless exceptions of the exceptions
+ * package: they must be handled exactly like the types they extend.
+ */
+public class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void domainExceptions_haveNoStackTrace_andExtendTheHandledTypes() {
+        RuntimeException[] exceptions = {
+                new InvalidRequestException("limit must be >= 1"),
+                new NotFoundException("User not found"),
+                new InvalidCredentialsException("Invalid email or password")};
+        for (RuntimeException ex : exceptions) {
+            assertEquals(0, ex.getStackTrace().length, ex.getClass().getSimpleName());
+        }
+        assertInstanceOf(IllegalArgumentException.class, exceptions[0]);
+        assertInstanceOf(EntityNotFoundException.class, exceptions[1]);
+        assertInstanceOf(BadCredentialsException.class, exceptions[2]);
+    }
+
+    @Test
+    void domainExceptions_becomeErrorBodies() {
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/signin");
+
+        assertBody(handler.handleIllegalArg(new InvalidRequestException("Email and password are required"), req),
+                HttpStatus.BAD_REQUEST, "Email and password are required");
+        assertBody(handler.handleNotFound(new NotFoundException("User not found"), req),
+                HttpStatus.NOT_FOUND, "User not found");
+        assertBody(handler.handleAuth(new InvalidCredentialsException("Invalid email or password"), req),
+                HttpStatus.UNAUTHORIZED, "Invalid email or password");
+    }
+
+    private static void assertBody(ResponseEntity<ErrorResponse> response, HttpStatus status, String message) {
+        ErrorResponse body = response.getBody();
+        assertEquals(status, response.getStatusCode());
+        assertNotNull(body);
+        assertEquals(status.value(), body.status());
+        assertEquals(status.getReasonPhrase(), body.error());
+        assertEquals(message, body.message());
+        assertEquals("/signin", body.path());
+        assertNull(body.fieldErrors());
+        // still LocalDateTime.toString(), now at millisecond resolution
+        LocalDateTime timestamp = LocalDateTime.parse(body.timestamp());
+        assertEquals(timestamp, timestamp.truncatedTo(ChronoUnit.MILLIS));
+        assertTrue(Math.abs(ChronoUnit.SECONDS.between(timestamp, LocalDateTime.now())) < 5);
+    }
+}
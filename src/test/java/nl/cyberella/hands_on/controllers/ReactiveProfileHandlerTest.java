@@ -0,0 +1,97 @@
+package nl.cyberella.hands_on.controllers;
+
+import jakarta.validation.Validation;
+import nl.cyberella.hands_on.dto.user.UserResponse;
+import nl.cyberella.hands_on.repositories.ReactiveUserRepository;
+import nl.cyberella.hands_on.services.interfaces.ILeaderboardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
+
+/**
+ * Unit tests for ReactiveProfileHandler.
+ *
+ * The handlers are bound to a WebTestClient through the same routes as ReactiveConfig,
+ * with a mocked ReactiveUserRepository, so the tests check status codes and bodies
+ * against the MVC endpoints without a database or a server.
+ */
+public class ReactiveProfileHandlerTest {
+
+    private ReactiveUserRepository users;
+    private ILeaderboardService leaderboardService;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        users = mock(ReactiveUserRepository.class);
+        leaderboardService = mock(ILeaderboardService.class);
+        ReactiveProfileHandler handler = new ReactiveProfileHandler(users, leaderboardService,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        client = WebTestClient.bindToRouterFunction(RouterFunctions.route(GET("/profile/{id}"), handler::getProfile)
+                .andRoute(PUT("/image"), handler::imageEntries)).build();
+    }
+
+    @Test
+    void getProfile_returnsUserResponse_or404() {
+        when(users.findProfileById(1)).thenReturn(Mono.just(
+                new UserResponse(1, "Ella", "ella@cyberella.com", LocalDate.of(2024, 5, 1), 3, null, false)));
+        when(users.findProfileById(2)).thenReturn(Mono.empty());
+
+        client.get().uri("/profile/1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Ella")
+                .jsonPath("$.entries").isEqualTo(3);
+
+        client.get().uri("/profile/2").exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("User not found")
+                .jsonPath("$.path").isEqualTo("/profile/2");
+    }
+
+    @Test
+    void imageEntries_addsFaces_andUpdatesLeaderboard() {
+        when(users.addEntries(5, 2)).thenReturn(Mono.just(7));
+        when(users.addEntries(6, 1)).thenReturn(Mono.empty());
+
+        client.put().uri("/image").contentType(MediaType.APPLICATION_JSON).bodyValue("{\"id\":5,\"faceCount\":2}").exchange()
+                .expectStatus().isOk()
+                .expectBody(Integer.class).isEqualTo(7);
+        verify(leaderboardService).recordEntries(5, 7);
+
+        // faceCount defaults to 1, unknown user is a 404
+        client.put().uri("/image").contentType(MediaType.APPLICATION_JSON).bodyValue("{\"id\":6}").exchange()
+                .expectStatus().isNotFound();
+        verifyNoMoreInteractions(leaderboardService);
+    }
+
+    @Test
+    void imageEntries_rejectsInvalidAndMalformedBodies() {
+        client.put().uri("/image").contentType(MediaType.APPLICATION_JSON).bodyValue("{\"faceCount\":-1}").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Validation failed")
+                .jsonPath("$.fieldErrors.id").isEqualTo("id required")
+                .jsonPath("$.fieldErrors.faceCount").isEqualTo("faceCount must be >= 0");
+
+        client.put().uri("/image").contentType(MediaType.APPLICATION_JSON).bodyValue("{\"id\":1,\"faceCount\":1001}").exchange()
+                .expectStatus().isBadRequest();
+
+        client.put().uri("/image").contentType(MediaType.APPLICATION_JSON).bodyValue("{bad").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Malformed JSON request");
+
+        verifyNoInteractions(users);
+    }
+}
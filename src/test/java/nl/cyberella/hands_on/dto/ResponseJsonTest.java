@@ -0,0 +1,122 @@
+package nl.cyberella.hands_on.dto;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import nl.cyberella.hands_on.dto.auth.TwoFactorRequiredResponse;
+import nl.cyberella.hands_on.dto.clarifai.FaceDetectionResult;
+import nl.cyberella.hands_on.dto.error.ErrorResponse;
+import nl.cyberella.hands_on.dto.twofa.EnableResponse;
+import nl.cyberella.hands_on.dto.twofa.SuccessResponse;
+import nl.cyberella.hands_on.dto.twofa.VerifiedUserResponse;
+import nl.cyberella.hands_on.dto.user.UserResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The hand-written response serializers must produce the JSON the frontend got before
+ * they existed: what the application's ObjectMapper writes for the record itself
+ * (UserResponse) or for the Map the controller used to build.
+ */
+public class ResponseJsonTest {
+
+    // Spring Boot's ObjectMapper: the same builder with write-dates-as-timestamps off
+    private static Jackson2ObjectMapperBuilder bootDefaults() {
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private final ObjectMapper mapper = bootDefaults().build();
+
+    private void assertSameJson(Object expected, Object actual) throws Exception {
+        assertEquals(mapper.readTree(mapper.writeValueAsString(expected)), mapper.readTree(mapper.writeValueAsString(actual)));
+    }
+
+    @Test
+    void userResponse_matchesReflectiveSerialization() throws Exception {
+        ObjectMapper reflective = bootDefaults().featuresToDisable(MapperFeature.USE_ANNOTATIONS).build();
+        UserResponse full = new UserResponse(42, "Ella \"E\"", "ella@cyberella.com", LocalDate.of(2024, 5, 1), 7, "+31 6", true);
+        UserResponse empty = new UserResponse(null, null, null, null, null, null, null);
+
+        for (UserResponse user : List.of(full, empty)) {
+            // same fields in the same order
+            assertEquals(reflective.writeValueAsString(user), mapper.writeValueAsString(user));
+        }
+        assertEquals("{\"id\":42,\"name\":\"Ella \\\"E\\\"\",\"email\":\"ella@cyberella.com\",\"joined\":\"2024-05-01\","
+                + "\"entries\":7,\"phone\":\"+31 6\",\"twoFactorEnabled\":true}", mapper.writeValueAsString(full));
+    }
+
+    @Test
+    void errorResponse_matchesReflectiveSerialization() throws Exception {
+        ObjectMapper reflective = bootDefaults().featuresToDisable(MapperFeature.USE_ANNOTATIONS).build();
+        Map<String, String> fieldErrors = new LinkedHashMap<>();
+        fieldErrors.put("email", "must be a well-formed email address");
+        fieldErrors.put("password", null);
+
+        for (ErrorResponse body : List.of(
+                new ErrorResponse(404, "Not Found", "User not found", "/profile/7", "2024-05-01T12:00:00.123", null),
+                new ErrorResponse(400, "Bad Request", "Validation failed", "/register", "2024-05-01T12:00:00.123", fieldErrors))) {
+            assertEquals(reflective.writeValueAsString(body), mapper.writeValueAsString(body));
+        }
+    }
+
+    @Test
+    void faceDetectionResult_keepsNestedAndFlatRegions() throws Exception {
+        List<FaceDetectionResult.Box> boxes = List.of(
+                new FaceDetectionResult.Box(0.1f, 0.2f, 0.3f, 0.35f),
+                new FaceDetectionResult.Box(0.4f, 0.55f, 0.6f, 0.7f));
+
+        // The Map ClarifaiService.mapResponse used to return
+        List<Map<String, Object>> nested = new ArrayList<>();
+        List<Map<String, Object>> flat = new ArrayList<>();
+        for (FaceDetectionResult.Box b : boxes) {
+            Map<String, Object> box = new LinkedHashMap<>();
+            box.put("top_row", b.topRow());
+            box.put("left_col", b.leftCol());
+            box.put("bottom_row", b.bottomRow());
+            box.put("right_col", b.rightCol());
+            nested.add(Map.of("region_info", Map.of("bounding_box", box)));
+            flat.add(box);
+        }
+        assertSameJson(Map.of("outputs", List.of(Map.of("data", Map.of("regions", nested))), "regions", flat),
+                new FaceDetectionResult(boxes));
+        assertSameJson(Map.of("outputs", List.of(Map.of("data", Map.of("regions", List.of()))), "regions", List.of()),
+                new FaceDetectionResult(List.of()));
+    }
+
+    @Test
+    void twoFactorResponses_matchPreviousMaps() throws Exception {
+        assertSameJson(Map.of("requiresTwoFactor", true, "userID", 42), new TwoFactorRequiredResponse(42));
+        assertSameJson(Map.of("manualEntry", "JBSWY3DPEHPK3PXP", "otpauth_url", "otpauth://totp/x"),
+                new EnableResponse("JBSWY3DPEHPK3PXP", "otpauth://totp/x"));
+        assertSameJson(Map.of("success", true), SuccessResponse.OK);
+        // written as a raw value, so separators inside arrays must still be right
+        assertEquals("[{\"success\":true},{\"success\":false}]",
+                mapper.writeValueAsString(List.of(SuccessResponse.OK, new SuccessResponse(false))));
+    }
+
+    @Test
+    void verifiedUser_matchesPreviousMap_andAllowsNulls() throws Exception {
+        LocalDate joined = LocalDate.of(2024, 5, 1);
+        assertSameJson(Map.of("user", Map.of("id", 42, "email", "ella@cyberella.com", "name", "Ella", "entries", 7,
+                        "joined", joined, "two_factor_enabled", true)),
+                new VerifiedUserResponse(42, "ella@cyberella.com", "Ella", 7, joined, true));
+
+        // Map.of rejected a null value (e.g. a user without a join date) with a 500
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("id", 42);
+        user.put("email", "ella@cyberella.com");
+        user.put("name", "Ella");
+        user.put("entries", null);
+        user.put("joined", null);
+        user.put("two_factor_enabled", true);
+        assertSameJson(Map.of("user", user), new VerifiedUserResponse(42, "ella@cyberella.com", "Ella", null, null, true));
+    }
+}
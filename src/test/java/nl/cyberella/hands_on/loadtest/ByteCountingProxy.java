@@ -0,0 +1,95 @@
+package nl.cyberella.hands_on.loadtest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TCP pass-through between the load generator and the server that counts the bytes on the
+ * wire in each direction: headers, bodies (compressed or not) and HTTP/2 framing, which the
+ * HTTP client does not expose. Also counts the TCP connections opened through it.
+ *
+ * Two threads per connection copy the streams; good enough for the few hundred
+ * connections of a load test, and both protocols being compared pay the same extra hop.
+ */
+final class ByteCountingProxy implements Closeable {
+
+    private final ServerSocket server;
+    private final InetSocketAddress target;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    final LongAdder requestBytes = new LongAdder();
+    final LongAdder responseBytes = new LongAdder();
+    final LongAdder connections = new LongAdder();
+
+    ByteCountingProxy(String host, int port) throws IOException {
+        this.server = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+        this.target = new InetSocketAddress(host, port);
+        Thread acceptor = new Thread(this::accept, "byte-counting-proxy");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                Socket upstream = new Socket(target.getAddress(), target.getPort());
+                client.setTcpNoDelay(true);
+                upstream.setTcpNoDelay(true);
+                sockets.add(client);
+                sockets.add(upstream);
+                connections.increment();
+                pump(client, upstream, requestBytes);
+                pump(upstream, client, responseBytes);
+            } catch (IOException e) {
+                // closed, or the server went away
+            }
+        }
+    }
+
+    private void pump(Socket from, Socket to, LongAdder counter) {
+        Thread t = new Thread(() -> {
+            byte[] buffer = new byte[16 * 1024];
+            try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                for (int n; (n = in.read(buffer)) >= 0; ) {
+                    counter.add(n);
+                    out.write(buffer, 0, n);
+                }
+            } catch (IOException e) {
+                // connection closed by either side
+            } finally {
+                closeQuietly(from);
+                closeQuietly(to);
+            }
+        }, "byte-counting-proxy-pump");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void closeQuietly(Socket socket) {
+        sockets.remove(socket);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        sockets.forEach(this::closeQuietly);
+    }
+}
@@ -0,0 +1,53 @@
+package nl.cyberella.hands_on.loadtest;
+
+import com.clarifai.grpc.api.*;
+import com.clarifai.grpc.api.status.Status;
+import com.clarifai.grpc.api.status.StatusCode;
+import nl.cyberella.hands_on.services.ClarifaiService;
+import nl.cyberella.hands_on.services.interfaces.IClarifaiService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Replaces the Clarifai gRPC backend during load tests.
+ *
+ * Every call waits loadtest.clarifai.latency-ms (a typical face-detection round trip)
+ * and then maps a canned response with loadtest.clarifai.faces faces (2 by default)
+ * through ClarifaiService.mapResponse, so the controller sees the same JSON shape as in
+ * production without network or credentials.
+ *
+ * Deliberately not annotated with @Configuration: it is passed to the
+ * SpringApplicationBuilder by the load generator and must not be picked up by
+ * component scanning of the test classpath.
+ */
+public class FakeClarifaiBackend {
+
+    @Bean
+    @Primary
+    public IClarifaiService fakeClarifaiService(@Value("${loadtest.clarifai.latency-ms:150}") long latencyMillis,
+                                                @Value("${loadtest.clarifai.faces:2}") int faces) {
+        MultiOutputResponse response = response(faces);
+        return url -> {
+            if (latencyMillis > 0) Thread.sleep(latencyMillis);
+            return ClarifaiService.mapResponse(response);
+        };
+    }
+
+    // Faces spread over the image in rows of five
+    private static MultiOutputResponse response(int faces) {
+        Data.Builder data = Data.newBuilder();
+        for (int i = 0; i < faces; i++) {
+            data.addRegions(face(0.10f + (i / 5) * 0.15f, 0.02f + (i % 5) * 0.19f));
+        }
+        return MultiOutputResponse.newBuilder()
+                .setStatus(Status.newBuilder().setCode(StatusCode.SUCCESS))
+                .addOutputs(Output.newBuilder().setData(data))
+                .build();
+    }
+
+    private static Region face(float top, float left) {
+        return Region.newBuilder().setRegionInfo(RegionInfo.newBuilder().setBoundingBox(BoundingBox.newBuilder()
+                .setTopRow(top).setLeftCol(left).setBottomRow(top + 0.2f).setRightCol(left + 0.15f))).build();
+    }
+}
@@ -0,0 +1,75 @@
+package nl.cyberella.hands_on.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal parser for the REST-client files in requests/*.http.
+ *
+ * A file holds one or more requests separated by a line starting with ###. Each request
+ * is a request line ("METHOD url [HTTP/1.1]"), optional "name: value" header lines, an
+ * empty line and an optional body. The scheme and host of the url are dropped so the
+ * request can be replayed against any base url; # comment lines are ignored.
+ */
+final class HttpRequestFile {
+
+    record Request(String method, String path, Map<String, String> headers, String body) {
+
+        /** Endpoint label used in reports, e.g. "GET /profile/1". */
+        String endpoint() {
+            int query = path.indexOf('?');
+            return method + " " + (query < 0 ? path : path.substring(0, query));
+        }
+    }
+
+    private HttpRequestFile() {
+    }
+
+    static List<Request> parse(Path file) throws IOException {
+        List<Request> requests = new ArrayList<>();
+        for (String block : Files.readString(file).split("(?m)^###.*$")) {
+            Request request = parseBlock(block);
+            if (request != null) requests.add(request);
+        }
+        if (requests.isEmpty()) throw new IllegalArgumentException("no requests in " + file);
+        return requests;
+    }
+
+    private static Request parseBlock(String block) {
+        String[] lines = block.split("\r?\n", -1);
+        int i = 0;
+        while (i < lines.length && (lines[i].isBlank() || lines[i].startsWith("#"))) i++;
+        if (i == lines.length) return null;
+
+        String[] requestLine = lines[i++].trim().split("\\s+");
+        if (requestLine.length < 2) throw new IllegalArgumentException("bad request line: " + lines[i - 1]);
+        String method = requestLine[0];
+        String path = toPath(requestLine[1]);
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (; i < lines.length && !lines[i].isBlank(); i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) headers.put(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+        }
+
+        StringBuilder body = new StringBuilder();
+        for (i++; i < lines.length; i++) {
+            if (!body.isEmpty()) body.append('\n');
+            body.append(lines[i]);
+        }
+        String text = body.toString().strip();
+        return new Request(method, path, headers, text.isEmpty() ? null : text);
+    }
+
+    private static String toPath(String url) {
+        if (url.startsWith("/")) return url;
+        URI uri = URI.create(url);
+        return uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+    }
+}
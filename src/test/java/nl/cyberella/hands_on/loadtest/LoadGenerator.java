@@ -0,0 +1,372 @@
+package nl.cyberella.hands_on.loadtest;
+
+import nl.cyberella.hands_on.HandsOnApplication;
+import nl.cyberella.hands_on.config.ReactiveServer;
+import nl.cyberella.hands_on.services.interfaces.IAuthService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load generator that replays the requests/*.http files as weighted scenarios.
+ *
+ * - The application is started in-process (local profile, private in-memory H2, no text
+ *   audit file, fake Clarifai backend) and seeded with the users the .http files refer
+ *   to; pass --base-url to drive an already running instance instead.
+ * - Scenarios start at a fixed arrival rate regardless of how fast the server answers
+ *   (open loop) and are run by a pool of --concurrency client threads. A scenario is a
+ *   sequence of .http files, e.g. clarifai+setimage for the "analyze, then count the
+ *   image" flow of the frontend.
+ * - Latency of the first request of a scenario is measured from its intended start
+ *   time, so time spent queued behind a slow server is included instead of silently
+ *   omitted (coordinated omission). Following requests are measured from their send.
+ * - Latencies go into one HdrHistogram per endpoint; requests started during --warmup
+ *   are not recorded.
+ *
+ * Usage (see the loadtest Maven profile):
+ *   ./mvnw -Ploadtest verify -Dloadtest.args="--rate=200 --duration=60 --concurrency=64"
+ *
+ * Options (defaults in brackets):
+ *   --scenarios=name[+name...]:weight,...  [getprofile:70,clarifai+setimage:20,signin:10]
+ *   --rate=scenarios per second            [100]
+ *   --duration=measured seconds            [30]
+ *   --warmup=unmeasured seconds first      [10]
+ *   --concurrency=client threads           [32]
+ *   --clarifai-latency-ms=fake backend     [150]
+ *   --clarifai-faces=faces per detection   [2] (fake backend; a group photo has 20+)
+ *   --virtual-threads=true|false           [false] (in-process server thread mode)
+ *   --stack=mvc|reactive                   [mvc] (reactive: GET /profile and PUT /image go to
+ *                                                 the WebFlux side server, see ReactiveConfig)
+ *   --http=1.1|2                           [1.1] (client; 2 = h2c, upgraded from HTTP/1.1)
+ *   --gzip=true|false                      [false] (client sends Accept-Encoding: gzip)
+ *   --prod-server=true|false               [false] (in-process server gets the server.* settings of
+ *                                                 application-prod.yml: HTTP/2, compression, keep-alive)
+ *   --count-bytes=true|false               [false] (route through ByteCountingProxy and report the
+ *                                                 bytes on the wire and TCP connections)
+ *   --requests-dir=.http directory         [requests]
+ *   --base-url=external server             [in-process]
+ *   --reactive-base-url=external side server (with --stack=reactive and --base-url)
+ */
+public final class LoadGenerator {
+
+    private static final String DEFAULT_SCENARIOS = "getprofile:70,clarifai+setimage:20,signin:10";
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    record Scenario(String name, int weight, List<HttpRequestFile.Request> requests) {
+    }
+
+    private static final class Endpoint {
+        final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final HttpClient client;
+    private final boolean gzip;
+    private final String baseUrl;
+    private final String reactiveBaseUrl; // null unless --stack=reactive
+    private final List<Scenario> scenarios;
+    private final int totalWeight;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Endpoint overall = new Endpoint();
+    private final Map<HttpClient.Version, LongAdder> versions = new ConcurrentHashMap<>();
+    private ByteCountingProxy proxy; // with --count-bytes
+    private long requestBytesBefore;
+    private long responseBytesBefore;
+    private long connectionsBefore;
+
+    private LoadGenerator(String baseUrl, String reactiveBaseUrl, List<Scenario> scenarios, HttpClient.Version version, boolean gzip) {
+        this.client = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.gzip = gzip;
+        this.baseUrl = baseUrl;
+        this.reactiveBaseUrl = reactiveBaseUrl;
+        this.scenarios = scenarios;
+        this.totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "100"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        boolean virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual-threads", "false"));
+        boolean reactive = "reactive".equals(options.getOrDefault("stack", "mvc"));
+        HttpClient.Version version = "2".equals(options.getOrDefault("http", "1.1")) ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+        boolean gzip = Boolean.parseBoolean(options.getOrDefault("gzip", "false"));
+        boolean prodServer = Boolean.parseBoolean(options.getOrDefault("prod-server", "false"));
+        boolean countBytes = Boolean.parseBoolean(options.getOrDefault("count-bytes", "false"));
+        List<Scenario> scenarios = parseScenarios(options.getOrDefault("scenarios", DEFAULT_SCENARIOS),
+                Path.of(options.getOrDefault("requests-dir", "requests")));
+        if (rate <= 0 || durationSeconds < 1 || warmupSeconds < 0 || concurrency < 1) {
+            throw new IllegalArgumentException("rate, duration and concurrency must be positive");
+        }
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.get("base-url");
+        String reactiveBaseUrl = options.get("reactive-base-url");
+        if (baseUrl == null) {
+            context = startApplication(options.getOrDefault("clarifai-latency-ms", "150"), options.getOrDefault("clarifai-faces", "2"),
+                    virtualThreads, reactive, prodServer);
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            if (reactive) reactiveBaseUrl = "http://localhost:" + context.getBean(ReactiveServer.class).port();
+        }
+        if (!reactive) reactiveBaseUrl = null;
+        ByteCountingProxy proxy = null;
+        try {
+            String target = baseUrl;
+            if (countBytes) {
+                URI uri = URI.create(baseUrl);
+                proxy = new ByteCountingProxy(uri.getHost(), uri.getPort());
+                target = "http://localhost:" + proxy.port();
+            }
+            LoadGenerator generator = new LoadGenerator(target, reactiveBaseUrl, scenarios, version, gzip);
+            generator.proxy = proxy;
+            System.out.printf("target=%s stack=%s threads=%s http=%s gzip=%s prod-server=%s rate=%.1f/s duration=%ds warmup=%ds concurrency=%d scenarios=%s%n",
+                    baseUrl, reactive ? "reactive" : "mvc", context == null ? "external" : virtualThreads ? "virtual" : "platform",
+                    version == HttpClient.Version.HTTP_2 ? "2" : "1.1", gzip, prodServer,
+                    rate, durationSeconds, warmupSeconds, concurrency,
+                    options.getOrDefault("scenarios", DEFAULT_SCENARIOS));
+            generator.run(rate, warmupSeconds, durationSeconds, concurrency);
+            generator.report(durationSeconds);
+        } finally {
+            if (proxy != null) proxy.close();
+            if (context != null) context.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(String clarifaiLatencyMillis, String clarifaiFaces,
+                                                                   boolean virtualThreads, boolean reactive, boolean prodServer) {
+        List<String> args = new ArrayList<>(List.of(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "--spring.h2.console.enabled=false",
+                        "--audit.pipeline.text-enabled=false",
+                        "--loadtest.clarifai.latency-ms=" + clarifaiLatencyMillis,
+                        "--loadtest.clarifai.faces=" + clarifaiFaces,
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--reactive.enabled=" + reactive,
+                        "--reactive.server.port=0",
+                        "--reactive.r2dbc.url=r2dbc:h2:mem:///loadtest?options=DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN",
+                        "--logging.level.nl.cyberella=ERROR"));
+        if (prodServer) args.addAll(prodServerSettings());
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HandsOnApplication.class, FakeClarifaiBackend.class)
+                .profiles("local")
+                .run(args.toArray(String[]::new));
+        try {
+            // The .http files use ella@cyberella.com / Ella2024! and user ids 1..5
+            IAuthService authService = context.getBean(IAuthService.class);
+            authService.register("Ella", "ella@cyberella.com", "Ella2024!");
+            for (int i = 2; i <= 5; i++) {
+                authService.register("Load" + i, "load" + i + "@example.com", "Load!Passw0rd" + i);
+            }
+        } catch (RuntimeException e) {
+            context.close(); // otherwise Tomcat's threads keep the JVM (and the Maven build) running
+            throw e;
+        }
+        return context;
+    }
+
+    // The server.* settings of application-prod.yml as command-line arguments (placeholders are
+    // resolved by the application, so e.g. ${HTTP2_ENABLED:true} still takes its default)
+    private static List<String> prodServerSettings() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application-prod.yml"));
+        Properties properties = yaml.getObject();
+        List<String> args = new ArrayList<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("server.") && !name.equals("server.port")) args.add("--" + name + "=" + properties.getProperty(name));
+        }
+        return args;
+    }
+
+    private void run(double rate, int warmupSeconds, int durationSeconds, int concurrency) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, new WorkerThreadFactory());
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        boolean measuring = false;
+        try {
+            for (long i = 0; ; i++) {
+                long intended = start + i * intervalNanos;
+                if (intended >= end) break;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+                Scenario scenario = pick();
+                boolean measured = intended >= measureFrom;
+                if (measured && !measuring && proxy != null) {
+                    // bytes of requests still running from the warm-up are counted; close enough
+                    requestBytesBefore = proxy.requestBytes.sum();
+                    responseBytesBefore = proxy.responseBytes.sum();
+                    connectionsBefore = proxy.connections.sum();
+                }
+                measuring = measured;
+                workers.execute(() -> runScenario(scenario, intended, measured));
+            }
+        } finally {
+            workers.shutdown();
+        }
+        if (!workers.awaitTermination(2, TimeUnit.MINUTES)) {
+            System.out.println("warning: requests still running after 2 minutes, report is incomplete");
+            workers.shutdownNow();
+        }
+    }
+
+    private Scenario pick() {
+        int r = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            r -= scenario.weight();
+            if (r < 0) return scenario;
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    private void runScenario(Scenario scenario, long intendedStart, boolean measured) {
+        long startedAt = intendedStart;
+        for (HttpRequestFile.Request request : scenario.requests()) {
+            HttpResponse<Void> response = send(request);
+            boolean ok = response != null && response.statusCode() < 400;
+            long now = System.nanoTime();
+            if (measured) {
+                record(request.endpoint(), now - startedAt, ok);
+                if (response != null) versions.computeIfAbsent(response.version(), k -> new LongAdder()).increment();
+            }
+            if (!ok) return;
+            startedAt = now;
+        }
+    }
+
+    // null if the request failed on the connection
+    private HttpResponse<Void> send(HttpRequestFile.Request request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(targetOf(request) + request.path()))
+                .timeout(Duration.ofSeconds(30))
+                .method(request.method(), request.body() == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(request.body()));
+        request.headers().forEach(builder::header);
+        if (gzip) builder.header("Accept-Encoding", "gzip");
+        try {
+            return client.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private String targetOf(HttpRequestFile.Request request) {
+        if (reactiveBaseUrl == null) return baseUrl;
+        boolean reactiveRoute = (request.method().equals("GET") && request.path().startsWith("/profile/"))
+                || (request.method().equals("PUT") && request.path().equals("/image"));
+        return reactiveRoute ? reactiveBaseUrl : baseUrl;
+    }
+
+    private void record(String endpoint, long nanos, boolean ok) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS);
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        stats.latency.recordValue(micros);
+        overall.latency.recordValue(micros);
+        if (!ok) {
+            stats.errors.increment();
+            overall.errors.increment();
+        }
+    }
+
+    private void report(int durationSeconds) {
+        String format = "%-22s %9s %8s %9s %9s %9s %9s %9s%n";
+        System.out.printf(format, "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        new TreeMap<>(endpoints).forEach((name, stats) -> printRow(format, name, stats, durationSeconds));
+        printRow(format, "total", overall, durationSeconds);
+        System.out.printf("responses by protocol: %s%n", new TreeMap<>(versions));
+        if (proxy != null) {
+            long requests = Math.max(1, overall.latency.getTotalCount());
+            long sent = proxy.requestBytes.sum() - requestBytesBefore;
+            long received = proxy.responseBytes.sum() - responseBytesBefore;
+            System.out.printf("wire bytes: sent=%d (%.0f/request) received=%d (%.0f/request) tcp connections=%d%n",
+                    sent, sent / (double) requests, received, received / (double) requests,
+                    proxy.connections.sum() - connectionsBefore);
+        }
+    }
+
+    private static void printRow(String format, String name, Endpoint stats, int durationSeconds) {
+        Histogram h = stats.latency;
+        System.out.printf(format, name, h.getTotalCount(), stats.errors.sum(),
+                String.format("%.1f", h.getTotalCount() / (double) durationSeconds),
+                millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+                millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()));
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    static List<Scenario> parseScenarios(String spec, Path requestsDir) throws IOException {
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            if (nameAndWeight.length != 2) throw new IllegalArgumentException("scenario must be name:weight, got " + part);
+            int weight = Integer.parseInt(nameAndWeight[1].trim());
+            if (weight <= 0) continue;
+            List<HttpRequestFile.Request> requests = new ArrayList<>();
+            for (String file : nameAndWeight[0].trim().split("\\+")) {
+                requests.addAll(HttpRequestFile.parse(requestsDir.resolve(file.endsWith(".http") ? file : file + ".http")));
+            }
+            scenarios.add(new Scenario(nameAndWeight[0].trim(), weight, requests));
+        }
+        if (scenarios.isEmpty()) throw new IllegalArgumentException("no scenarios with a positive weight");
+        return scenarios;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("expected --name=value, got " + arg);
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "loadtest-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
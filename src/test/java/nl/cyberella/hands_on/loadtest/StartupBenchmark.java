@@ -0,0 +1,262 @@
+package nl.cyberella.hands_on.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time-to-first-200: from launching the packaged application until
+ * GET / (HealthController) answers 200, the readiness a new pod waits for, and the
+ * resident set size of the process at that moment (VmRSS from /proc, so Linux only).
+ *
+ * - The jar runs as a separate JVM per run, like in the container: prod profile against
+ *   an embedded PostgreSQL migrated by Flyway (the deployment migrates before rollout and
+ *   runs with SPRING_FLYWAY_ENABLED=false), a dummy Clarifai PAT and a free port.
+ * - The jar is extracted with the Spring Boot jarmode tools first, as the Dockerfile does,
+ *   and every mode starts from that layout so they differ only in the JVM flags:
+ *     jar      plain start
+ *     cds      with a class data sharing archive from a training run
+ *     aot      with the AOT-generated bean definitions (-Dspring.aot.enabled=true)
+ *     aot+cds  both, the Docker image's configuration
+ *     native   the GraalVM native image (-Pnative, docs/native-image.md), not in the
+ *              default modes; it runs the binary from --native instead of the jar
+ *   Training runs (-Dspring.context.exit=onRefresh) happen once per CDS mode and are not
+ *   measured.
+ * - Runs of the modes are interleaved so a noisy neighbour affects all of them alike.
+ *
+ * Usage (see the startup Maven profile, which packages the jar first):
+ *   ./mvnw -Pstartup verify -Dstartup.args="--runs=10 --modes=jar,aot+cds"
+ *   ./mvnw -Pnative,startup verify -Dstartup.args="--modes=aot+cds,native"
+ *
+ * Options (defaults in brackets):
+ *   --jar=application jar        [target/hands_on-0.0.1.jar]
+ *   --runs=measured starts/mode  [5]
+ *   --modes=mode,...             [jar,cds,aot,aot+cds]
+ *   --native=native executable   [target/hands_on]
+ *   --work-dir=scratch directory [target/startup]
+ *   --timeout=seconds per start  [120]
+ */
+public final class StartupBenchmark {
+
+    private static final String JAVA = ProcessHandle.current().info().command().orElse("java");
+
+    private final Path workDir;
+    private final Path appJar;
+    private final Path nativeBinary;
+    private final Map<String, String> environment;
+    private final Duration timeout;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+    private StartupBenchmark(Path workDir, Path appJar, Path nativeBinary, Map<String, String> environment, Duration timeout) {
+        this.workDir = workDir;
+        this.appJar = appJar;
+        this.nativeBinary = nativeBinary;
+        this.environment = environment;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        Path jar = Path.of(options.getOrDefault("jar", "target/hands_on-0.0.1.jar")).toAbsolutePath();
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        List<String> modes = Arrays.asList(options.getOrDefault("modes", "jar,cds,aot,aot+cds").split(","));
+        Path nativeBinary = Path.of(options.getOrDefault("native", "target/hands_on")).toAbsolutePath();
+        Path workDir = Path.of(options.getOrDefault("work-dir", "target/startup")).toAbsolutePath();
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "120")));
+        for (String mode : modes) {
+            if (!List.of("jar", "cds", "aot", "aot+cds", "native").contains(mode)) throw new IllegalArgumentException("unknown mode " + mode);
+        }
+        if (runs < 1) throw new IllegalArgumentException("runs must be positive");
+        if (!Files.isRegularFile(jar)) throw new IllegalArgumentException(jar + " not found, package the application first");
+        if (modes.contains("native") && !Files.isExecutable(nativeBinary)) {
+            throw new IllegalArgumentException(nativeBinary + " not found, build it with -Pnative first");
+        }
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            Flyway.configure().dataSource(postgres.getPostgresDatabase()).locations("classpath:db/migration").load().migrate();
+            Map<String, String> environment = new HashMap<>();
+            environment.put("SPRING_PROFILES_ACTIVE", "prod");
+            environment.put("SPRING_FLYWAY_ENABLED", "false");
+            environment.put("RDS_HOST", "localhost");
+            environment.put("RDS_PORT", String.valueOf(postgres.getPort()));
+            environment.put("RDS_DB", "postgres");
+            environment.put("RDS_USERNAME", "postgres");
+            environment.put("RDS_PASSWORD", "postgres");
+            environment.put("CLARIFAI_API_PAT", "startup-benchmark");
+            environment.put("CLARIFAI_USER_ID", "startup-benchmark");
+            environment.put("CLARIFAI_APP_ID", "startup-benchmark");
+
+            StartupBenchmark benchmark = new StartupBenchmark(workDir, extract(jar, workDir), nativeBinary, environment, timeout);
+            Map<String, List<String>> commands = new HashMap<>();
+            for (String mode : modes) commands.put(mode, benchmark.prepare(mode));
+
+            Map<String, long[]> millis = new HashMap<>();
+            Map<String, long[]> rssMb = new HashMap<>();
+            for (String mode : modes) {
+                millis.put(mode, new long[runs]);
+                rssMb.put(mode, new long[runs]);
+            }
+            for (int run = 0; run < runs; run++) {
+                for (String mode : modes) {
+                    Sample sample = benchmark.timeToFirst200(commands.get(mode));
+                    millis.get(mode)[run] = sample.millis();
+                    rssMb.get(mode)[run] = sample.rssKb() / 1024;
+                    System.out.printf("run %d %-8s %6d ms %5d MB%n", run + 1, mode, sample.millis(), sample.rssKb() / 1024);
+                }
+            }
+
+            System.out.printf("%ntime to first 200 on GET / and RSS at that point (%d runs, %s)%n", runs, Runtime.version());
+            System.out.printf("%-8s %8s %8s %8s   %8s %8s %8s%n", "mode", "min", "median", "max", "min", "median", "max");
+            for (String mode : modes) {
+                long[] time = sorted(millis.get(mode));
+                long[] rss = sorted(rssMb.get(mode));
+                System.out.printf("%-8s %6d ms %6d ms %6d ms   %5d MB %5d MB %5d MB%n", mode,
+                        time[0], time[time.length / 2], time[time.length - 1], rss[0], rss[rss.length / 2], rss[rss.length - 1]);
+            }
+        }
+    }
+
+    // The layout the Dockerfile runs: app.jar plus lib/, which CDS needs (no nested jars)
+    private static Path extract(Path jar, Path workDir) throws IOException, InterruptedException {
+        Path extracted = workDir.resolve("extracted");
+        if (Files.exists(extracted)) {
+            try (var files = Files.walk(extracted)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+        }
+        Files.createDirectories(workDir);
+        exec(List.of(JAVA, "-Djarmode=tools", "-jar", jar.toString(), "extract", "--destination", extracted.toString()),
+                Map.of(), workDir);
+        return extracted.resolve(jar.getFileName());
+    }
+
+    private record Sample(long millis, long rssKb) {}
+
+    private static long[] sorted(long[] values) {
+        long[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /** Command line for mode; for the CDS modes this runs the training start that writes the archive. */
+    private List<String> prepare(String mode) throws IOException, InterruptedException {
+        if (mode.equals("native")) {
+            List<String> command = new ArrayList<>();
+            command.add(nativeBinary.toString());
+            return command;
+        }
+        List<String> flags = new ArrayList<>();
+        if (mode.startsWith("aot")) flags.add("-Dspring.aot.enabled=true");
+        if (mode.endsWith("cds")) {
+            Path archive = workDir.resolve(mode.replace('+', '-') + ".jsa");
+            Files.deleteIfExists(archive);
+            List<String> training = new ArrayList<>(flags);
+            training.add("-XX:ArchiveClassesAtExit=" + archive);
+            training.add("-Dspring.context.exit=onRefresh");
+            exec(withArguments(java(training), freePort()), environment, workDir);
+            if (!Files.exists(archive)) throw new IllegalStateException("training run did not write " + archive);
+            flags.add("-XX:SharedArchiveFile=" + archive);
+        }
+        return java(flags);
+    }
+
+    private List<String> java(List<String> flags) {
+        List<String> command = new ArrayList<>();
+        command.add(JAVA);
+        command.addAll(flags);
+        command.addAll(List.of("-jar", appJar.toString()));
+        return command;
+    }
+
+    private static List<String> withArguments(List<String> command, int port) {
+        List<String> full = new ArrayList<>(command);
+        full.addAll(List.of("--server.port=" + port, "--logging.level.root=WARN"));
+        return full;
+    }
+
+    private Sample timeToFirst200(List<String> command) throws IOException, InterruptedException {
+        int port = freePort();
+        ProcessBuilder builder = new ProcessBuilder(withArguments(command, port))
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("last-run.log").toFile());
+        builder.environment().putAll(environment);
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/")).timeout(Duration.ofSeconds(5)).build();
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) throw new IllegalStateException("application exited with " + process.exitValue()
+                        + ", see " + workDir.resolve("last-run.log"));
+                try {
+                    if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        return new Sample(millis, rssKb(process.pid()));
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("no 200 within " + timeout + ", see " + workDir.resolve("last-run.log"));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        }
+    }
+
+    /** VmRSS of a running process in kB. */
+    private static long rssKb(long pid) throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+            if (line.startsWith("VmRSS:")) return Long.parseLong(line.replaceAll("[^0-9]", ""));
+        }
+        throw new IllegalStateException("no VmRSS for process " + pid);
+    }
+
+    private static void exec(List<String> command, Map<String, String> environment, Path directory) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().putAll(environment);
+        Process process = builder.start();
+        if (!process.waitFor(5, TimeUnit.MINUTES) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("failed: " + String.join(" ", command));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("expected --name=value, got " + arg);
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,69 @@
+package nl.cyberella.hands_on.repositories;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.cyberella.hands_on.H2TestDatabase;
+import nl.cyberella.hands_on.repositories.UserBatchRepository.NewAccount;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserBatchRepository's multi-row inserts and email lookup on an in-memory
+ * H2 database with the local profile's schema.
+ */
+public class UserBatchRepositoryTest {
+
+    private static H2TestDatabase database;
+    private static JdbcTemplate jdbc;
+    private static UserBatchRepository repository;
+
+    @BeforeAll
+    static void start() {
+        database = H2TestDatabase.create("userbatch");
+        jdbc = new JdbcTemplate(database.dataSource());
+        repository = new UserBatchRepository(jdbc, new SimpleMeterRegistry());
+    }
+
+    @AfterAll
+    static void stop() {
+        database.shutdown();
+    }
+
+    @Test
+    void insertAll_writesUsersAndLinkedLogins() {
+        repository.insertAll(List.of(
+                new NewAccount("Ann", "ann@example.com", "hash-a"),
+                new NewAccount("Bob", "bob@example.com", "hash-b"),
+                new NewAccount("Cy", "cy@example.com", "hash-c")));
+
+        List<Map<String, Object>> rows = jdbc.queryForList("SELECT u.name, u.joined, u.entries, u.two_factor_enabled, l.hash "
+                + "FROM public.users u JOIN public.login l ON l.user_id = u.id "
+                + "WHERE u.email IN ('ann@example.com', 'bob@example.com', 'cy@example.com') ORDER BY u.name");
+        assertEquals(List.of("Ann", "Bob", "Cy"), rows.stream().map(r -> r.get("NAME")).toList());
+        assertEquals(List.of("hash-a", "hash-b", "hash-c"), rows.stream().map(r -> r.get("HASH")).toList());
+        for (Map<String, Object> row : rows) {
+            assertEquals(java.sql.Date.valueOf(LocalDate.now()), row.get("JOINED"));
+            assertEquals(0, row.get("ENTRIES"));
+            assertEquals(false, row.get("TWO_FACTOR_ENABLED"));
+        }
+        repository.insertAll(List.of()); // nothing to do
+    }
+
+    @Test
+    void findExistingEmails_matchesUsersCaseInsensitively_andLogins() {
+        jdbc.update("INSERT INTO public.users (name, email) VALUES ('Mixed', 'Mixed.Case@Example.com')");
+        repository.insertAll(List.of(new NewAccount("Dee", "dee@example.com", "hash-d")));
+
+        assertEquals(Set.of("mixed.case@example.com", "dee@example.com"),
+                repository.findExistingEmails(List.of("mixed.case@example.com", "dee@example.com", "free@example.com")));
+        assertEquals(Set.of(), repository.findExistingEmails(List.of()));
+    }
+}
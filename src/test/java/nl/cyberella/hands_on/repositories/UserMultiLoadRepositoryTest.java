@@ -0,0 +1,131 @@
+package nl.cyberella.hands_on.repositories;
+
+import nl.cyberella.hands_on.config.SecondLevelCacheConfig;
+import nl.cyberella.hands_on.models.User;
+import nl.cyberella.hands_on.services.ReadYourWritesService;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserMultiLoadRepositoryImpl on an in-memory H2 database, with the
+ * second-level cache configured as SecondLevelCacheConfig configures it for the application.
+ *
+ * Hibernate's statistics count the statements and cache hits, so the tests check that a
+ * batch costs one query at most and nothing for users that are cached.
+ */
+public class UserMultiLoadRepositoryTest {
+
+    private static CacheManager cacheManager;
+    private static SessionFactory sessionFactory;
+    private static Statistics statistics;
+
+    @BeforeAll
+    static void start() {
+        SecondLevelCacheConfig config = new SecondLevelCacheConfig();
+        cacheManager = config.jpaCacheManager(100, 100, Duration.ofMinutes(5));
+        Map<String, Object> settings = new HashMap<>();
+        config.secondLevelCache(cacheManager, true).customize(settings);
+        // User's entity listener is created by Spring, as in the application
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("readYourWritesService", new ReadYourWritesService(false, Duration.ZERO));
+        settings.put(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beans));
+
+        var registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:multiload;DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, new CamelCaseToUnderscoresNamingStrategy())
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySettings(settings)
+                .build();
+        sessionFactory = new MetadataSources(registry).addAnnotatedClass(User.class).buildMetadata().buildSessionFactory();
+        statistics = sessionFactory.getStatistics();
+
+        try (Session session = sessionFactory.openSession()) {
+            session.getTransaction().begin();
+            for (int i = 1; i <= 5; i++) {
+                session.createNativeMutationQuery("INSERT INTO public.users (name, email, entries) VALUES (?, ?, ?)")
+                        .setParameter(1, "user " + i)
+                        .setParameter(2, "user" + i + "@example.com")
+                        .setParameter(3, i)
+                        .executeUpdate();
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    @AfterAll
+    static void stop() {
+        if (sessionFactory != null) sessionFactory.close();
+        if (cacheManager != null) cacheManager.close();
+    }
+
+    @BeforeEach
+    void emptyCache() {
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+    }
+
+    private static Set<Integer> load(List<Integer> ids) {
+        try (Session session = sessionFactory.openSession()) {
+            List<User> users = new UserMultiLoadRepositoryImpl(session).findAllByIdCacheFirst(ids);
+            return users.stream().map(User::getId).collect(Collectors.toSet());
+        }
+    }
+
+    @Test
+    void findAllByIdCacheFirst_leavesOutUnknownIds() {
+        assertEquals(Set.of(1, 3), load(List.of(1, 3, 99)));
+        assertEquals(Set.of(), load(List.of(98, 99)));
+        assertEquals(Set.of(), load(List.of()));
+    }
+
+    @Test
+    void findAllByIdCacheFirst_readsUncachedUsersInOneQuery() {
+        assertEquals(Set.of(1, 2, 3, 4, 5), load(List.of(1, 2, 3, 4, 5)));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(5, statistics.getSecondLevelCachePutCount());
+    }
+
+    @Test
+    void findAllByIdCacheFirst_readsCachedUsersFromTheCache() {
+        load(List.of(1, 2, 3));
+        statistics.clear();
+
+        assertEquals(Set.of(1, 2, 3), load(List.of(1, 2, 3)));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(3, statistics.getSecondLevelCacheHitCount());
+
+        // Only the ids the cache does not have go to the database
+        statistics.clear();
+        assertEquals(Set.of(1, 2, 3, 4), load(List.of(1, 2, 3, 4, 99)));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void findAllByIdCacheFirst_leavesOutUnknownIdsNextToCachedUsers() {
+        load(List.of(1, 2));
+        // Hibernate returns a null for 99 here, even with enableOrderedReturn(false)
+        assertEquals(Set.of(1, 2), load(List.of(1, 2, 99)));
+    }
+}
@@ -0,0 +1,164 @@
+package nl.cyberella.hands_on.repositories;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.Cache;
+import nl.cyberella.hands_on.H2TestDatabase;
+import nl.cyberella.hands_on.repositories.UserStatsRepository.PeriodRow;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for UserStatsRepository's upserts, on both databases it picks SQL for:
+ * an embedded PostgreSQL migrated by Flyway (INSERT ... ON CONFLICT) and an in-memory H2
+ * with the local profile's schema (MERGE). The reactive PUT /image path is checked on H2
+ * over R2DBC, with the statement ReactiveConfig would pick.
+ */
+public class UserStatsRepositoryTest {
+
+    // A Wednesday; its week starts on Monday 2026-10-12
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 14);
+    private static final LocalDate WEEK = LocalDate.of(2026, 10, 12);
+
+    private static EmbeddedPostgres postgres;
+    private static H2TestDatabase h2Database;
+    private static DataSource h2;
+
+    @BeforeAll
+    static void start() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        h2Database = H2TestDatabase.create("userstats");
+        h2 = h2Database.dataSource();
+
+        for (DataSource ds : List.of(postgres.getPostgresDatabase(), h2)) {
+            JdbcTemplate jdbc = new JdbcTemplate(ds);
+            for (int i = 1; i <= 4; i++) {
+                jdbc.update("INSERT INTO public.users (name, email, entries) VALUES (?, ?, 0)", "user " + i, "user" + i + "@example.com");
+            }
+        }
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        if (h2Database != null) h2Database.shutdown();
+        if (postgres != null) postgres.close();
+    }
+
+    private static UserStatsRepository postgresRepository() {
+        return new UserStatsRepository(new JdbcTemplate(postgres.getPostgresDatabase()), new SimpleMeterRegistry(),
+                postgres.getJdbcUrl("postgres", "postgres"));
+    }
+
+    private static UserStatsRepository h2Repository() {
+        return new UserStatsRepository(new JdbcTemplate(h2), new SimpleMeterRegistry(), h2Database.url());
+    }
+
+    private static List<PeriodRow> sorted(List<PeriodRow> rows) {
+        return rows.stream().sorted(Comparator.comparing(PeriodRow::period).thenComparing(PeriodRow::start)).toList();
+    }
+
+    @Test
+    void upsertFor_picksOnConflictForPostgresOnly() {
+        assertSame(UserStatsRepository.UPSERT_POSTGRES, UserStatsRepository.upsertFor("jdbc:postgresql://db:5432/app"));
+        assertSame(UserStatsRepository.UPSERT_POSTGRES, UserStatsRepository.upsertFor("r2dbc:postgresql://db:5432/app"));
+        assertSame(UserStatsRepository.UPSERT_POSTGRES, UserStatsRepository.upsertFor("r2dbc:pool:postgresql://db/app"));
+        assertSame(UserStatsRepository.UPSERT_STANDARD, UserStatsRepository.upsertFor(h2Database.url()));
+        assertSame(UserStatsRepository.UPSERT_STANDARD, UserStatsRepository.upsertFor(""));
+    }
+
+    @Test
+    void weekStart_isTheMondayOfTheIsoWeek() {
+        assertEquals(WEEK, UserStatsRepository.weekStart(WEEK));
+        assertEquals(WEEK, UserStatsRepository.weekStart(DAY));
+        assertEquals(WEEK, UserStatsRepository.weekStart(LocalDate.of(2026, 10, 18)));
+        assertEquals(LocalDate.of(2026, 10, 19), UserStatsRepository.weekStart(LocalDate.of(2026, 10, 19)));
+    }
+
+    @Test
+    void record_onPostgres_addsUpDayAndWeek() {
+        assertRecordsAddUp(postgresRepository(), 1);
+    }
+
+    @Test
+    void record_onH2_addsUpDayAndWeek() {
+        assertRecordsAddUp(h2Repository(), 1);
+    }
+
+    private static void assertRecordsAddUp(UserStatsRepository repository, int userId) {
+        repository.record(userId, DAY, 3);
+        repository.record(userId, DAY, 0);
+        repository.record(userId, DAY.plusDays(1), 5);
+        // The previous week: its own week row, and a day row before fromDay
+        repository.record(userId, WEEK.minusDays(1), 2);
+
+        assertEquals(List.of(
+                new PeriodRow('D', DAY, 2, 3),
+                new PeriodRow('D', DAY.plusDays(1), 1, 5),
+                new PeriodRow('W', WEEK.minusWeeks(1), 1, 2),
+                new PeriodRow('W', WEEK, 3, 8)
+        ), sorted(repository.find(userId, DAY, WEEK.minusWeeks(1))));
+
+        // Other users' rows and older rows are left out
+        assertEquals(List.of(), repository.find(userId + 1, DAY, WEEK));
+        assertEquals(List.of(new PeriodRow('W', WEEK, 3, 8)), repository.find(userId, DAY.plusDays(2), WEEK));
+    }
+
+    @Test
+    void find_onPostgres_usesThePrimaryKey() {
+        JdbcTemplate jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+        postgresRepository().record(2, DAY, 1);
+        // The table is tiny here, so keep the planner off sequential scans to see the index it would use
+        jdbc.execute("SET enable_seqscan = off");
+        List<String> plan;
+        try {
+            plan = jdbc.queryForList("EXPLAIN SELECT period, period_start, images, faces FROM public.user_stats "
+                    + "WHERE user_id = 2 AND ((period = 'D' AND period_start >= DATE '2026-10-01') "
+                    + "OR (period = 'W' AND period_start >= DATE '2026-09-01'))", String.class);
+        } finally {
+            jdbc.execute("RESET enable_seqscan");
+        }
+        assertTrue(plan.stream().anyMatch(line -> line.contains("user_stats_pkey")), String.join("\n", plan));
+    }
+
+    @Test
+    void reactiveAddEntries_onH2_recordsTheImageInTheSameTransaction() {
+        ConnectionFactory connections = ConnectionFactories.get(h2Database.r2dbcUrl());
+        ReactiveUserRepository reactive = new ReactiveUserRepository(DatabaseClient.create(connections),
+                TransactionalOperator.create(new R2dbcTransactionManager(connections)),
+                mock(Cache.class),
+                UserStatsRepository.upsertFor(h2Database.r2dbcUrl()));
+
+        assertEquals(4, reactive.addEntries(3, 4).block());
+        assertEquals(7, reactive.addEntries(3, 3).block());
+        assertNull(reactive.addEntries(99, 1).block());
+
+        LocalDate today = LocalDate.now();
+        assertEquals(List.of(
+                new PeriodRow('D', today, 2, 7),
+                new PeriodRow('W', UserStatsRepository.weekStart(today), 2, 7)
+        ), sorted(h2Repository().find(3, today, UserStatsRepository.weekStart(today))));
+    }
+}
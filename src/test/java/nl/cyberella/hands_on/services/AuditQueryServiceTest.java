@@ -0,0 +1,52 @@
+package nl.cyberella.hands_on.services;
+
+import nl.cyberella.hands_on.audit.AuditEventType;
+import nl.cyberella.hands_on.audit.AuditIndex;
+import nl.cyberella.hands_on.audit.AuditReason;
+import nl.cyberella.hands_on.dto.audit.AuditEventView;
+import nl.cyberella.hands_on.dto.audit.MinuteCount;
+import nl.cyberella.hands_on.exceptions.NotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuditQueryService with and without an AuditIndex bean.
+ */
+public class AuditQueryServiceTest {
+
+    private static ObjectProvider<AuditIndex> provider(AuditIndex index) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        if (index != null) beans.addBean("auditIndex", index);
+        return beans.getBeanProvider(AuditIndex.class);
+    }
+
+    @Test
+    void withoutIndex_queriesAreNotFound() {
+        AuditQueryService service = new AuditQueryService(provider(null));
+
+        // 404 through GlobalExceptionHandler, not a 500
+        assertThrows(NotFoundException.class, () -> service.eventsForUser(1, 15, 100));
+        assertThrows(NotFoundException.class, () -> service.countPerMinute(AuditReason.PASSWORD_MISMATCH, 60));
+    }
+
+    @Test
+    void withIndex_answersFromIt() {
+        AuditIndex index = new AuditIndex(100, 60);
+        long now = System.currentTimeMillis();
+        index.onEvent(now, AuditEventType.SIGNIN_ATTEMPT, 7, false, AuditReason.PASSWORD_MISMATCH);
+        index.onBatchEnd();
+        AuditQueryService service = new AuditQueryService(provider(index));
+
+        List<AuditEventView> events = service.eventsForUser(7, 15, 100);
+        assertEquals(1, events.size());
+        assertEquals("PASSWORD_MISMATCH", events.get(0).reason());
+        List<MinuteCount> counts = service.countPerMinute(AuditReason.PASSWORD_MISMATCH, 5);
+        assertEquals(5, counts.size());
+        assertEquals(1, counts.stream().mapToInt(MinuteCount::count).sum());
+    }
+}
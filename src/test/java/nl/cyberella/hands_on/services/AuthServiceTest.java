@@ -1,6 +1,7 @@
 package nl.cyberella.hands_on.services;
 
 import nl.cyberella.hands_on.audit.AuditLogger;
+import nl.cyberella.hands_on.dto.auth.LoginCredentials;
 import nl.cyberella.hands_on.dto.auth.SigninResult;
 import nl.cyberella.hands_on.models.Login;
 import nl.cyberella.hands_on.models.User;
@@ -85,6 +86,7 @@ public class AuthServiceTest {
         ArgumentCaptor<Login> loginCaptor = ArgumentCaptor.forClass(Login.class); // to capture object passed to collaborators (e.g., to inspect the Login object passed to loginRepository.save) / verify login save called once with correct data
         verify(loginRepository, times(1)).save(loginCaptor.capture()); // login saved once
         // Verify that the Login record was created correctly
+        assertEquals(42, loginCaptor.getValue().getUserId()); // verify login is keyed by the new user's id
         assertEquals(testEmail, loginCaptor.getValue().getEmail()); // verify login email matches
         assertEquals("hashedpw", loginCaptor.getValue().getHash()); // verify login password hash matches
     }
@@ -124,7 +126,7 @@ public class AuthServiceTest {
     void signin_noLoginRecord_auditedAndReturnsNull() {
         // 1. Arrange: set up mocks to simulate a user exists but no login record
         // Simulate that there is no Login entry for the given email
-        when(loginRepository.findById(testEmail)).thenReturn(Optional.empty());
+        when(loginRepository.findCredentialsByEmail(testEmail)).thenReturn(Optional.empty());
         // Simulate that the user exists in the UserRepository with ID = 7
         User u = new User();
         u.setId(7);
@@ -134,7 +136,7 @@ public class AuthServiceTest {
         assertNull(authService.signin(testEmail, testPassword));
 
         // Verify that loginRepository was queried exactly once
-        verify(loginRepository, times(1)).findById(testEmail);
+        verify(loginRepository, times(1)).findCredentialsByEmail(testEmail);
 
         // Verify that an audit entry was created for the failed sign-in attempt
         // Arguments: user ID = 7, success = false, reason = NO_LOGIN_RECORD
@@ -144,11 +146,9 @@ public class AuthServiceTest {
     // Tests for signin method when password does not match
     @Test
     void signin_passwordMismatch_auditedAndReturnsNull() {
-        Login l = new Login(testEmail, "storedhash");
-        when(loginRepository.findById(testEmail)).thenReturn(Optional.of(l));
-        when(passwordEncoder.matches(eq(testPassword), anyString())).thenReturn(false);
         User u = new User(); u.setId(9);
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(u));
+        when(loginRepository.findCredentialsByEmail(testEmail)).thenReturn(Optional.of(new LoginCredentials("storedhash", u)));
+        when(passwordEncoder.matches(eq(testPassword), anyString())).thenReturn(false);
 
         assertNull(authService.signin(testEmail, testPassword));
 
@@ -158,13 +158,11 @@ public class AuthServiceTest {
     // Tests for signin method when successful without 2FA
     @Test
     void signin_success_without2fa_returnsUser() {
-        Login l = new Login(testEmail, "storedhash");
-        when(loginRepository.findById(testEmail)).thenReturn(Optional.of(l));
-        when(passwordEncoder.matches(eq(testPassword), anyString())).thenReturn(true);
         User u = new User();
         u.setId(11);
         u.setTwoFactorEnabled(false);
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(u));
+        when(loginRepository.findCredentialsByEmail(testEmail)).thenReturn(Optional.of(new LoginCredentials("storedhash", u)));
+        when(passwordEncoder.matches(eq(testPassword), anyString())).thenReturn(true);
 
         SigninResult res = authService.signin(testEmail, testPassword);
 
@@ -180,13 +178,11 @@ public class AuthServiceTest {
     // Tests for signin method when successful but 2FA is required
     @Test
     void signin_twoFactorRequired_returnsSigninResultFlag() {
-        Login l = new Login(testEmail, "storedhash");
-        when(loginRepository.findById(testEmail)).thenReturn(Optional.of(l));
-        when(passwordEncoder.matches(eq(testPassword), anyString())).thenReturn(true);
         User u = new User();
         u.setId(13);
         u.setTwoFactorEnabled(true);
-        when(userRepository.findByEmail(testEmail)).thenReturn(Optional.of(u));
+        when(loginRepository.findCredentialsByEmail(testEmail)).thenReturn(Optional.of(new LoginCredentials("storedhash", u)));
+        when(passwordEncoder.matches(eq(testPassword), anyString())).thenReturn(true);
 
         SigninResult res = authService.signin(testEmail, testPassword);
 
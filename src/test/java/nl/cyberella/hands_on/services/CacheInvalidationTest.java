@@ -0,0 +1,211 @@
+package nl.cyberella.hands_on.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import nl.cyberella.hands_on.models.User;
+import nl.cyberella.hands_on.services.interfaces.ILeaderboardService;
+import nl.cyberella.hands_on.services.interfaces.IReadYourWritesService;
+import nl.cyberella.hands_on.twofa.TotpVerifier;
+import org.flywaydb.core.Flyway;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for CacheInvalidationService and CacheInvalidationListener on an embedded
+ * PostgreSQL migrated by Flyway, with three nodes in one JVM: A writes, B listens and
+ * C only polls. The caches and TOTP verifiers are mocks, so the tests check what each
+ * node evicts; B's leaderboard is a real LeaderboardService on the same database.
+ */
+public class CacheInvalidationTest {
+
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(1);
+    private static final long WAIT_MILLIS = 5000;
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbc;
+    private static TransactionTemplate transactions;
+    private static Node a, b, c;
+
+    private record Node(CacheInvalidationService service, CacheInvalidationListener listener, Cache cache,
+                        ILeaderboardService leaderboard, TotpVerifier totpVerifier, IReadYourWritesService readYourWrites) {}
+
+    @BeforeAll
+    static void start() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(postgres.getPostgresDatabase()));
+        jdbc.update("INSERT INTO public.users (name, email, joined, entries) "
+                + "SELECT 'user ' || i, 'user' || i || '@example.com', CURRENT_DATE, 0 FROM generate_series(1, 600) AS i");
+
+        a = node(true, mock(ILeaderboardService.class));
+        LeaderboardService leaderboard = new LeaderboardService(jdbc, null);
+        leaderboard.reconcile();
+        b = node(true, leaderboard);
+        c = node(false, mock(ILeaderboardService.class));
+    }
+
+    private static Node node(boolean listen, ILeaderboardService leaderboard) {
+        Cache cache = mock(Cache.class);
+        when(cache.unwrap(Cache.class)).thenReturn(cache);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        TotpVerifier totpVerifier = mock(TotpVerifier.class);
+        IReadYourWritesService readYourWrites = mock(IReadYourWritesService.class);
+        String url = postgres.getJdbcUrl("postgres", "postgres");
+
+        CacheInvalidationService service = new CacheInvalidationService(jdbc, entityManagerFactory, leaderboard, totpVerifier,
+                readYourWrites, new SimpleMeterRegistry(), true, "cache_invalidation", url);
+        CacheInvalidationListener listener = new CacheInvalidationListener(service, url, "postgres", "postgres",
+                listen, POLL_INTERVAL, Duration.ofMinutes(10));
+        listener.start();
+        return new Node(service, listener, cache, leaderboard, totpVerifier, readYourWrites);
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        for (Node node : new Node[] {a, b, c}) {
+            if (node != null) node.listener().stop();
+        }
+        if (postgres != null) postgres.close();
+    }
+
+    @BeforeEach
+    void clearMocks() {
+        for (Node node : new Node[] {a, b, c}) clearInvocations(node.cache(), node.totpVerifier(), node.readYourWrites());
+    }
+
+    private static int rowsFor(String entries) {
+        return jdbc.queryForObject("SELECT count(*) FROM public.cache_invalidations WHERE payload = ?",
+                Integer.class, a.service().nodeId() + ":" + entries);
+    }
+
+    @Test
+    void committedTransaction_isOneNotification_appliedByTheOtherNodes() throws InterruptedException {
+        transactions.executeWithoutResult(status -> {
+            jdbc.update("UPDATE public.users SET entries = 42 WHERE id = 1");
+            a.service().userChanged(1);
+            a.service().emailChanged(2);
+            a.service().userChanged(1);
+        });
+        assertEquals(1, rowsFor("U1,E2"));
+
+        verify(b.cache(), timeout(WAIT_MILLIS)).evict(User.class, 1);
+        verify(b.cache(), timeout(WAIT_MILLIS)).evict(User.class, 2);
+        verify(b.cache(), timeout(WAIT_MILLIS)).evictNaturalIdData(User.class);
+        // The next read of those users goes to the primary, not a lagging replica
+        verify(b.readYourWrites(), timeout(WAIT_MILLIS)).recordWrite(1);
+        verify(b.readYourWrites(), timeout(WAIT_MILLIS)).recordWrite(2);
+        // The leaderboard re-reads user 1 from the database, right after the evictions
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (b.leaderboard().rankOf(1).orElseThrow().entries() != 42 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertEquals(42, b.leaderboard().rankOf(1).orElseThrow().entries());
+        // C only polls, and still catches up
+        verify(c.cache(), timeout(WAIT_MILLIS)).evict(User.class, 1);
+        verify(c.cache(), timeout(WAIT_MILLIS)).evictNaturalIdData(User.class);
+        verify(c.leaderboard(), timeout(WAIT_MILLIS)).refresh(Set.of(1));
+
+        // The writing node skips its own notification: Hibernate already updated its cache
+        verify(a.cache(), after(POLL_INTERVAL.toMillis() * 2).never()).evict(any(Class.class), any());
+        // Each node applies the row once, whether it saw it by NOTIFY, by polling or both
+        verify(b.cache(), times(1)).evictNaturalIdData(User.class);
+        verify(c.cache(), times(1)).evictNaturalIdData(User.class);
+    }
+
+    @Test
+    void rolledBackTransaction_publishesNothing() {
+        transactions.executeWithoutResult(status -> {
+            a.service().userChanged(3);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, rowsFor("U3"));
+        verify(b.cache(), after(POLL_INTERVAL.toMillis() * 2).never()).evict(User.class, 3);
+        verify(c.cache(), never()).evict(User.class, 3);
+    }
+
+    @Test
+    void changeOutsideATransaction_isPublishedRightAway() {
+        a.service().twoFactorChanged(4);
+
+        verify(b.cache(), timeout(WAIT_MILLIS)).evict(User.class, 4);
+        verify(b.totpVerifier(), timeout(WAIT_MILLIS)).evict(4);
+        verify(c.totpVerifier(), timeout(WAIT_MILLIS)).evict(4);
+        verify(b.cache(), never()).evictNaturalIdData(any(Class.class));
+    }
+
+    @Test
+    void largeTransaction_evictsEverything() {
+        List<Integer> ids = IntStream.rangeClosed(1, CacheInvalidationService.MAX_ENTRIES + 1).boxed().toList();
+        transactions.executeWithoutResult(status -> ids.forEach(a.service()::userChanged));
+        assertEquals(1, rowsFor(CacheInvalidationService.ALL));
+
+        verify(b.cache(), timeout(WAIT_MILLIS)).evict(User.class);
+        verify(b.cache(), timeout(WAIT_MILLIS)).evictNaturalIdData(User.class);
+        verify(c.cache(), timeout(WAIT_MILLIS)).evict(User.class);
+        verify(b.cache(), never()).evict(eq(User.class), anyInt());
+    }
+
+    @Test
+    void evictAll_inABatch_keepsThePerUserStepsOfTheOtherNotifications() {
+        Cache cache = mock(Cache.class);
+        when(cache.unwrap(Cache.class)).thenReturn(cache);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        ILeaderboardService leaderboard = mock(ILeaderboardService.class);
+        TotpVerifier totpVerifier = mock(TotpVerifier.class);
+        IReadYourWritesService readYourWrites = mock(IReadYourWritesService.class);
+        var service = new CacheInvalidationService(jdbc, entityManagerFactory, leaderboard, totpVerifier,
+                readYourWrites, new SimpleMeterRegistry(), true, "cache_invalidation", "jdbc:h2:mem:test");
+
+        service.apply(List.of(new CacheInvalidationService.Invalidation(1, "other:U7,T8"),
+                new CacheInvalidationService.Invalidation(2, "other:" + CacheInvalidationService.ALL),
+                new CacheInvalidationService.Invalidation(3, "other:E9")), "notify");
+
+        var order = inOrder(readYourWrites, cache);
+        order.verify(readYourWrites).recordWrite(7);
+        order.verify(readYourWrites).recordWrite(8);
+        order.verify(readYourWrites).recordWrite(9);
+        order.verify(cache).evict(User.class);
+        verify(cache).evictNaturalIdData(User.class);
+        verify(cache, never()).evict(eq(User.class), anyInt());
+        verify(totpVerifier).evict(8);
+        verify(leaderboard).refresh(Set.of(7));
+    }
+
+    @Test
+    void disabledOrNotPostgres_publishesNothing() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        var h2 = new CacheInvalidationService(jdbc, entityManagerFactory, mock(ILeaderboardService.class), mock(TotpVerifier.class),
+                mock(IReadYourWritesService.class), new SimpleMeterRegistry(), true, "cache_invalidation", "jdbc:h2:mem:test");
+        var off = new CacheInvalidationService(jdbc, entityManagerFactory, mock(ILeaderboardService.class), mock(TotpVerifier.class),
+                mock(IReadYourWritesService.class), new SimpleMeterRegistry(), false, "cache_invalidation", postgres.getJdbcUrl("postgres", "postgres"));
+        assertFalse(h2.isEnabled());
+        assertFalse(off.isEnabled());
+
+        h2.userChanged(5);
+        off.userChanged(5);
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM public.cache_invalidations WHERE payload LIKE '%:U5'", Integer.class));
+        assertThrows(IllegalArgumentException.class, () -> new CacheInvalidationService(jdbc, entityManagerFactory,
+                mock(ILeaderboardService.class), mock(TotpVerifier.class), mock(IReadYourWritesService.class), new SimpleMeterRegistry(), true, "bad; channel", "jdbc:postgresql://x/y"));
+    }
+}
@@ -0,0 +1,198 @@
+package nl.cyberella.hands_on.services;
+
+import nl.cyberella.hands_on.H2TestDatabase;
+import nl.cyberella.hands_on.dto.leaderboard.LeaderboardEntry;
+import nl.cyberella.hands_on.dto.leaderboard.UserRank;
+import nl.cyberella.hands_on.models.User;
+import nl.cyberella.hands_on.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for LeaderboardService on an in-memory H2 database with the local profile's schema.
+ * Names come from a mocked UserRepository ("user <id>"). The JdbcTemplate can run a hook
+ * while reconcile or refresh reads the database, to put an increment in the middle.
+ */
+public class LeaderboardServiceTest {
+
+    /** JdbcTemplate that runs duringRead after each query's rows are read, before it returns. */
+    private static class HookedJdbcTemplate extends JdbcTemplate {
+        Runnable duringRead = () -> { };
+
+        HookedJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch) {
+            super.query(sql, rch);
+            duringRead.run();
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            super.query(sql, rch, args);
+            duringRead.run();
+        }
+    }
+
+    private HookedJdbcTemplate jdbc;
+    private TransactionTemplate transactions;
+    private LeaderboardService leaderboard;
+    private final List<Integer> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        DataSource dataSource = H2TestDatabase.create("leaderboard").dataSource();
+        jdbc = new HookedJdbcTemplate(dataSource);
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        // entries 5, 9, 5, 0, 9: two ties
+        int[] entries = {5, 9, 5, 0, 9};
+        for (int i = 0; i < entries.length; i++) {
+            jdbc.update("INSERT INTO public.users (name, email, entries) VALUES ('u', ?, ?)", "u" + i + "@example.com", entries[i]);
+        }
+        ids.addAll(jdbc.queryForList("SELECT id FROM public.users ORDER BY id", Integer.class));
+
+        UserRepository users = mock(UserRepository.class);
+        when(users.findAllById(any())).thenAnswer(inv -> {
+            List<User> out = new ArrayList<>();
+            for (Integer id : inv.<Iterable<Integer>>getArgument(0)) out.add(user(id, 0));
+            return out;
+        });
+        when(users.findById(anyInt())).thenAnswer(inv -> {
+            Integer id = inv.getArgument(0);
+            List<Integer> stored = jdbc.queryForList("SELECT entries FROM public.users WHERE id = ?", Integer.class, id);
+            return stored.isEmpty() ? Optional.empty() : Optional.of(user(id, stored.get(0)));
+        });
+        leaderboard = new LeaderboardService(jdbc, users);
+        leaderboard.reconcile();
+    }
+
+    @AfterEach
+    void shutdown() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    private static User user(int id, Integer entries) {
+        User u = new User();
+        u.setId(id);
+        u.setName("user " + id);
+        u.setEntries(entries);
+        return u;
+    }
+
+    private int id(int i) {
+        return ids.get(i);
+    }
+
+    private int entriesOf(int i) {
+        return leaderboard.rankOf(id(i)).orElseThrow().entries();
+    }
+
+    @Test
+    void top_ordersByEntriesThenId_withSharedRanksForTies() {
+        assertEquals(List.of(
+                new LeaderboardEntry(1, id(1), "user " + id(1), 9),
+                new LeaderboardEntry(1, id(4), "user " + id(4), 9),
+                new LeaderboardEntry(3, id(0), "user " + id(0), 5),
+                new LeaderboardEntry(3, id(2), "user " + id(2), 5),
+                new LeaderboardEntry(5, id(3), "user " + id(3), 0)
+        ), leaderboard.top(10));
+        assertEquals(List.of(id(1), id(4)), leaderboard.top(2).stream().map(LeaderboardEntry::id).toList());
+        assertEquals(1, leaderboard.top(0).size()); // at least one row
+    }
+
+    @Test
+    void rankOf_countsOnlyHigherScores() {
+        assertEquals(Optional.of(new UserRank(id(2), 3, 5, 5)), leaderboard.rankOf(id(2)));
+        assertEquals(Optional.of(new UserRank(id(3), 5, 0, 5)), leaderboard.rankOf(id(3)));
+
+        leaderboard.recordEntries(id(3), 10);
+        assertEquals(Optional.of(new UserRank(id(3), 1, 10, 5)), leaderboard.rankOf(id(3)));
+        assertEquals(2, leaderboard.rankOf(id(1)).orElseThrow().rank());
+        assertTrue(leaderboard.rankOf(-1).isEmpty());
+    }
+
+    @Test
+    void rankOf_picksUpAUserRegisteredSinceTheLastReconcile() {
+        jdbc.update("INSERT INTO public.users (name, email, entries) VALUES ('new', 'new@example.com', 7)");
+        int newId = jdbc.queryForObject("SELECT id FROM public.users WHERE email = 'new@example.com'", Integer.class);
+
+        assertEquals(Optional.of(new UserRank(newId, 3, 7, 6)), leaderboard.rankOf(newId));
+    }
+
+    @Test
+    void recordEntries_isAppliedOnlyAfterCommit() {
+        transactions.executeWithoutResult(status -> {
+            leaderboard.recordEntries(id(0), 20);
+            assertEquals(5, entriesOf(0), "applied before commit");
+        });
+        assertEquals(20, entriesOf(0));
+
+        transactions.executeWithoutResult(status -> {
+            leaderboard.recordEntries(id(0), 30);
+            status.setRollbackOnly();
+        });
+        assertEquals(20, entriesOf(0));
+    }
+
+    @Test
+    void recordEntries_neverLowersTheCount() {
+        // Two increments whose commit callbacks ran in the opposite order
+        leaderboard.recordEntries(id(0), 7);
+        leaderboard.recordEntries(id(0), 6);
+        assertEquals(7, entriesOf(0));
+        assertEquals(3, leaderboard.rankOf(id(0)).orElseThrow().rank());
+    }
+
+    @Test
+    void reconcile_repairsDrift_andRemovesDeletedUsers() {
+        jdbc.update("UPDATE public.users SET entries = 1 WHERE id = ?", id(1)); // e.g. an admin correction
+        jdbc.update("DELETE FROM public.users WHERE id = ?", id(4));
+
+        leaderboard.reconcile();
+
+        assertEquals(1, entriesOf(1));
+        assertEquals(List.of(id(0), id(2), id(1), id(3)), leaderboard.top(10).stream().map(LeaderboardEntry::id).toList());
+    }
+
+    @Test
+    void reconcile_keepsAnIncrementMadeWhileItReadTheDatabase() {
+        jdbc.update("UPDATE public.users SET entries = 1 WHERE id IN (?, ?)", id(0), id(2));
+        // id(0) is incremented after the snapshot was read, so the snapshot's 1 is older than 50
+        jdbc.duringRead = () -> leaderboard.recordEntries(id(0), 50);
+
+        leaderboard.reconcile();
+
+        assertEquals(50, entriesOf(0));
+        assertEquals(1, entriesOf(2));
+    }
+
+    @Test
+    void refresh_keepsAnIncrementMadeWhileItReadTheDatabase() {
+        jdbc.update("UPDATE public.users SET entries = 2 WHERE id IN (?, ?)", id(0), id(2));
+        jdbc.duringRead = () -> leaderboard.recordEntries(id(0), 40);
+
+        leaderboard.refresh(List.of(id(0), id(2)));
+
+        assertEquals(40, entriesOf(0));
+        assertEquals(2, entriesOf(2));
+    }
+}
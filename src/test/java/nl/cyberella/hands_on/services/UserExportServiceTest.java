@@ -0,0 +1,132 @@
+package nl.cyberella.hands_on.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.cyberella.hands_on.H2TestDatabase;
+import nl.cyberella.hands_on.repositories.UserExportRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for UserExportService on an in-memory H2 database with the local
+ * profile's schema: every exported line is parsed back and compared with the stored row.
+ * The fetch size is two, so the export reads the rows in several fetches.
+ */
+public class UserExportServiceTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static H2TestDatabase database;
+    private static UserExportService exportService;
+    private static int plainId;
+    private static int quotedId;
+    private static int formulaId;
+
+    @BeforeAll
+    static void start() {
+        database = H2TestDatabase.create("userexport");
+        DataSource dataSource = database.dataSource();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("INSERT INTO public.users (name, email, joined, entries, phone, two_factor_enabled, two_factor_secret) "
+                + "VALUES ('Ann', 'ann@example.com', DATE '2024-03-01', 7, NULL, TRUE, 'never-exported')");
+        jdbc.update("INSERT INTO public.users (name, email, entries, phone) "
+                + "VALUES ('Doe, \"Johnny\"', 'john@example.com', NULL, '06 1234')");
+        jdbc.update("INSERT INTO public.users (name, email, phone) "
+                + "VALUES ('=HYPERLINK(\"http://x\",\"y\")', '@evil@example.com', '+31 6 1234 5678')");
+        List<Integer> ids = jdbc.queryForList("SELECT id FROM public.users ORDER BY id", Integer.class);
+        plainId = ids.get(0);
+        quotedId = ids.get(1);
+        formulaId = ids.get(2);
+        exportService = new UserExportService(new UserExportRepository(dataSource, 2, new SimpleMeterRegistry()),
+                objectMapper, new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterAll
+    static void stop() {
+        database.shutdown();
+    }
+
+    private static List<String> export(String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportUsers(format, out);
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        return List.of(body.split("\n"));
+    }
+
+    @Test
+    void ndjson_roundTripsEveryRow_unchanged() throws IOException {
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : export("ndjson")) rows.add(objectMapper.readTree(line));
+
+        assertEquals(3, rows.size());
+        JsonNode ann = rows.get(0);
+        assertEquals(plainId, ann.get("id").asInt());
+        assertEquals("Ann", ann.get("name").asText());
+        assertEquals("ann@example.com", ann.get("email").asText());
+        assertEquals("2024-03-01", ann.get("joined").asText());
+        assertEquals(7, ann.get("entries").asInt());
+        assertTrue(ann.get("phone").isNull());
+        assertTrue(ann.get("two_factor_enabled").asBoolean());
+        assertFalse(ann.has("two_factor_secret"));
+
+        JsonNode john = rows.get(1);
+        assertEquals(quotedId, john.get("id").asInt());
+        assertEquals("Doe, \"Johnny\"", john.get("name").asText());
+        assertEquals(LocalDate.now().toString(), john.get("joined").asText());
+        assertTrue(john.get("entries").isNull());
+        assertFalse(john.get("two_factor_enabled").asBoolean());
+
+        // JSON values are data, never formulas: nothing is escaped
+        JsonNode formula = rows.get(2);
+        assertEquals(formulaId, formula.get("id").asInt());
+        assertEquals("=HYPERLINK(\"http://x\",\"y\")", formula.get("name").asText());
+        assertEquals("@evil@example.com", formula.get("email").asText());
+        assertEquals("+31 6 1234 5678", formula.get("phone").asText());
+    }
+
+    @Test
+    void csv_roundTripsEveryRow_withFormulasEscaped() throws IOException {
+        List<String> lines = export("csv");
+
+        assertEquals(4, lines.size());
+        assertEquals("id,name,email,joined,entries,phone,two_factor_enabled", lines.get(0));
+        assertEquals(List.of(Integer.toString(plainId), "Ann", "ann@example.com", "2024-03-01", "7", "", "true"),
+                UserImportReader.splitCsv(lines.get(1)));
+        assertEquals(List.of(Integer.toString(quotedId), "Doe, \"Johnny\"", "john@example.com", LocalDate.now().toString(),
+                "", "06 1234", "false"), UserImportReader.splitCsv(lines.get(2)));
+        assertEquals(List.of(Integer.toString(formulaId), "'=HYPERLINK(\"http://x\",\"y\")", "'@evil@example.com",
+                LocalDate.now().toString(), "0", "'+31 6 1234 5678", "false"), UserImportReader.splitCsv(lines.get(3)));
+    }
+
+    @Test
+    void writeCsvField_escapesEveryFormulaPrefix() throws IOException {
+        for (String value : new String[] {"=1+1", "+1", "-1", "@SUM(A1)", "\tx", "\rx"}) {
+            StringWriter w = new StringWriter();
+            UserExportService.writeCsvField(w, value);
+            assertTrue(w.toString().startsWith("'") || w.toString().startsWith("\"'"), w.toString());
+        }
+        StringWriter w = new StringWriter();
+        UserExportService.writeCsvField(w, "a=b");
+        assertEquals("a=b", w.toString());
+    }
+
+    @Test
+    void unknownFormat_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> exportService.exportUsers("xml", new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,97 @@
+package nl.cyberella.hands_on.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.cyberella.hands_on.services.UserImportReader.Format;
+import nl.cyberella.hands_on.services.UserImportReader.Row;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserImportReader: CSV field splitting, header mapping, NDJSON lines and
+ * chunking. Line numbers count the header and blank lines, as ImportRowError reports them.
+ */
+public class UserImportReaderTest {
+
+    private static UserImportReader reader(String body, Format format) throws IOException {
+        return new UserImportReader(new BufferedReader(new StringReader(body)), format, new ObjectMapper());
+    }
+
+    @Test
+    void splitCsv_handlesQuotesEscapesAndEmptyFields() {
+        assertEquals(List.of("a", "b", "c"), UserImportReader.splitCsv("a,b,c"));
+        assertEquals(List.of("Ben", "Pass,word1!"), UserImportReader.splitCsv("Ben,\"Pass,word1!\""));
+        assertEquals(List.of("say \"hi\"", "x"), UserImportReader.splitCsv("\"say \"\"hi\"\"\",x"));
+        assertEquals(List.of("", "", ""), UserImportReader.splitCsv(",,"));
+        // A quote inside an unquoted field is kept as is
+        assertEquals(List.of("O\"Brien", "x"), UserImportReader.splitCsv("O\"Brien,x"));
+        assertNull(UserImportReader.splitCsv("a,\"unterminated"));
+    }
+
+    @Test
+    void csv_mapsColumnsByHeader_inAnyOrder_ignoringExtraColumns() throws IOException {
+        UserImportReader reader = reader("""
+                Password, EMAIL ,team,name
+                "Pass,word1!",ben@example.com,blue,Ben
+
+                Secret1!,ella@example.com,red,Ella
+                """, Format.CSV);
+
+        assertEquals(List.of(
+                new Row(2, "Ben", "ben@example.com", "Pass,word1!", null),
+                new Row(4, "Ella", "ella@example.com", "Secret1!", null)
+        ), reader.nextChunk(10));
+        assertEquals(List.of(), reader.nextChunk(10));
+    }
+
+    @Test
+    void csv_headerWithoutRequiredColumn_isRejected() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> reader("name,email\nBen,ben@example.com\n", Format.CSV));
+        assertTrue(ex.getMessage().contains("name, email and password"));
+        assertThrows(IllegalArgumentException.class, () -> reader("name,\"email\n", Format.CSV));
+    }
+
+    @Test
+    void csv_emptyBody_hasNoRows() throws IOException {
+        assertEquals(List.of(), reader("", Format.CSV).nextChunk(10));
+    }
+
+    @Test
+    void csv_badLines_becomeInvalidRows() throws IOException {
+        List<Row> rows = reader("name,email,password\nBen,ben@example.com\nElla,\"ella@example.com,x\n", Format.CSV).nextChunk(10);
+
+        assertEquals(List.of(Row.invalid(2, "Missing columns"), Row.invalid(3, "Malformed CSV line")), rows);
+    }
+
+    @Test
+    void ndjson_readsObjects_andReportsBadLines() throws IOException {
+        List<Row> rows = reader("""
+                {"name":"Ben","email":"ben@example.com","password":"Pass,word1!","extra":1}
+                {"name":"Ella","email":null}
+                [1,2]
+                {not json
+                """, Format.NDJSON).nextChunk(10);
+
+        assertEquals(List.of(
+                new Row(1, "Ben", "ben@example.com", "Pass,word1!", null),
+                new Row(2, "Ella", null, null, null),
+                Row.invalid(3, "Expected a JSON object"),
+                Row.invalid(4, "Malformed JSON line")
+        ), rows);
+    }
+
+    @Test
+    void nextChunk_returnsAtMostMaxRows() throws IOException {
+        UserImportReader reader = reader("name,email,password\na,a@x,p\nb,b@x,p\nc,c@x,p\n", Format.CSV);
+
+        assertEquals(List.of(2L, 3L), reader.nextChunk(2).stream().map(Row::line).toList());
+        assertEquals(List.of(4L), reader.nextChunk(2).stream().map(Row::line).toList());
+        assertTrue(reader.nextChunk(2).isEmpty());
+    }
+}
@@ -0,0 +1,135 @@
+package nl.cyberella.hands_on.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.cyberella.hands_on.H2TestDatabase;
+import nl.cyberella.hands_on.dto.admin.ImportResult;
+import nl.cyberella.hands_on.dto.admin.ImportRowError;
+import nl.cyberella.hands_on.repositories.UserBatchRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for UserImportService on an in-memory H2 database with the local profile's
+ * schema and the real UserBatchRepository. Chunks are three rows, so every import here
+ * spans several chunks and transactions.
+ */
+public class UserImportServiceTest {
+
+    private static final String PASSWORD = "Import2024!";
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+    private UserImportService importService;
+
+    @BeforeEach
+    void setup() {
+        dataSource = H2TestDatabase.create("userimport").dataSource();
+        jdbc = new JdbcTemplate(dataSource);
+        importService = new UserImportService(new UserBatchRepository(jdbc, new SimpleMeterRegistry()), passwordEncoder,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), new ObjectMapper(), 3, 1);
+    }
+
+    @AfterEach
+    void shutdown() {
+        importService.shutdown();
+        jdbc.execute("SHUTDOWN");
+    }
+
+    private ImportResult importCsv(String csv) {
+        return importService.importUsers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "text/csv; charset=UTF-8");
+    }
+
+    @Test
+    void validRows_areStoredWithALoginForEachUser() {
+        StringBuilder csv = new StringBuilder("name,email,password\n");
+        for (int i = 1; i <= 7; i++) csv.append("User ").append(i).append(",User").append(i).append("@Example.com,").append(PASSWORD).append('\n');
+
+        ImportResult result = importCsv(csv.toString());
+
+        assertEquals(new ImportResult(7, 7, 0, List.of()), result);
+        assertEquals(7, jdbc.queryForObject("SELECT count(*) FROM public.users", Integer.class));
+        // Emails are stored lower-cased; login points at the user with the same email
+        assertEquals(7, jdbc.queryForObject("SELECT count(*) FROM public.users u JOIN public.login l "
+                + "ON l.user_id = u.id AND l.email = u.email WHERE u.email = lower(u.email)", Integer.class));
+        String hash = jdbc.queryForObject("SELECT hash FROM public.login WHERE email = 'user5@example.com'", String.class);
+        assertTrue(passwordEncoder.matches(PASSWORD, hash));
+    }
+
+    @Test
+    void invalidRows_areReportedPerLine_andDoNotStopTheImport() {
+        ImportResult result = importCsv("name,email,password\n"
+                + ",nobody@example.com," + PASSWORD + "\n"
+                + "Ben,not-an-email," + PASSWORD + "\n"
+                + "Ella,ella@example.com,\n"
+                + "Weak,weak@example.com,weakpw\n"
+                + "Broken,\"broken@example.com\n"
+                + "Ok,ok@example.com," + PASSWORD + "\n");
+
+        assertEquals(6, result.total());
+        assertEquals(1, result.imported());
+        assertEquals(5, result.failed());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), result.errors().stream().map(ImportRowError::line).toList());
+        assertEquals("Name is required.", result.errors().get(0).reason());
+        assertEquals("Valid email is required.", result.errors().get(1).reason());
+        assertEquals("Password is required.", result.errors().get(2).reason());
+        assertTrue(result.errors().get(3).reason().startsWith("Password invalid: "));
+        assertEquals("Malformed CSV line", result.errors().get(4).reason());
+        // Reasons never echo the row's email or password
+        result.errors().forEach(e -> assertFalse(e.reason().contains("example.com") || e.reason().contains("weakpw")));
+    }
+
+    @Test
+    void duplicateEmails_inTheFileAndInTheDatabase_areSkipped() {
+        jdbc.update("INSERT INTO public.users (name, email) VALUES ('Old', 'Taken@Example.com')");
+
+        ImportResult result = importService.importUsers(new ByteArrayInputStream(("""
+                {"name":"A","email":"twice@example.com","password":"%1$s"}
+                {"name":"B","email":"TWICE@example.com","password":"%1$s"}
+                {"name":"C","email":"taken@example.com","password":"%1$s"}
+                {"name":"D","email":"later@example.com","password":"%1$s"}
+                {"name":"E","email":"twice@example.com","password":"%1$s"}
+                """).formatted(PASSWORD).getBytes(StandardCharsets.UTF_8)), "application/x-ndjson");
+
+        // Line 2 repeats line 1 in the same chunk; line 5 repeats it in a later chunk, after line 1 was committed
+        assertEquals(new ImportResult(5, 2, 3, List.of(
+                new ImportRowError(2, "Duplicate email in import"),
+                new ImportRowError(3, "Email already registered"),
+                new ImportRowError(5, "Email already registered"))), result);
+        assertEquals(List.of("later@example.com", "twice@example.com"),
+                jdbc.queryForList("SELECT email FROM public.login ORDER BY email", String.class));
+    }
+
+    @Test
+    void failingChunk_isRetriedRowByRow() {
+        // users.name is VARCHAR(100): the multi-row INSERT of the first chunk fails as a whole
+        ImportResult result = importCsv("name,email,password\n"
+                + "A,a@example.com," + PASSWORD + "\n"
+                + "x".repeat(101) + ",long@example.com," + PASSWORD + "\n"
+                + "C,c@example.com," + PASSWORD + "\n");
+
+        assertEquals(new ImportResult(3, 2, 1, List.of(new ImportRowError(3, "Row could not be stored"))), result);
+        assertEquals(List.of("a@example.com", "c@example.com"),
+                jdbc.queryForList("SELECT email FROM public.login ORDER BY email", String.class));
+        assertEquals(2, jdbc.queryForObject("SELECT count(*) FROM public.users", Integer.class));
+    }
+
+    @Test
+    void unsupportedContentType_isRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.importUsers(new ByteArrayInputStream(new byte[0]), "application/json"));
+    }
+}
@@ -0,0 +1,200 @@
+package nl.cyberella.hands_on.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import nl.cyberella.hands_on.H2TestDatabase;
+import nl.cyberella.hands_on.config.SecondLevelCacheConfig;
+import nl.cyberella.hands_on.models.User;
+import nl.cyberella.hands_on.repositories.LoginRepository;
+import nl.cyberella.hands_on.repositories.UserRepository;
+import nl.cyberella.hands_on.services.interfaces.ICacheInvalidationService;
+import nl.cyberella.hands_on.services.interfaces.ILeaderboardService;
+import nl.cyberella.hands_on.services.interfaces.IReadYourWritesService;
+import nl.cyberella.hands_on.services.interfaces.IUserStatsService;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.cache.CacheManager;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests that UserService's writes keep Hibernate's second-level cache correct, with the
+ * real Spring Data repositories on an in-memory H2 database (local profile schema) and
+ * the cache configured as SecondLevelCacheConfig configures it for the application.
+ *
+ * Each test first reads the user by id and by email, so both regions hold it, then writes
+ * through UserService and reads again: a stale entry in either region fails the test.
+ * The changeEmail tests also cover how the new email is normalized and checked.
+ */
+@SpringJUnitConfig(UserServiceCacheTest.JpaConfig.class)
+public class UserServiceCacheTest {
+
+    @Configuration
+    @EnableTransactionManagement(proxyTargetClass = true) // class proxies, as Spring Boot creates them
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    static class JpaConfig {
+
+        @Bean(destroyMethod = "shutdown")
+        H2TestDatabase database() {
+            return H2TestDatabase.create("usercache");
+        }
+
+        @Bean
+        DataSource dataSource(H2TestDatabase database) {
+            return database.dataSource();
+        }
+
+        @Bean(destroyMethod = "close")
+        CacheManager jpaCacheManager() {
+            return new SecondLevelCacheConfig().jpaCacheManager(100, 100, Duration.ofMinutes(5));
+        }
+
+        @Bean
+        IReadYourWritesService readYourWritesService() {
+            return new ReadYourWritesService(false, Duration.ZERO);
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, CacheManager jpaCacheManager,
+                                                                   ConfigurableListableBeanFactory beanFactory) {
+            Map<String, Object> properties = new HashMap<>();
+            new SecondLevelCacheConfig().secondLevelCache(jpaCacheManager, true).customize(properties);
+            properties.put(AvailableSettings.PHYSICAL_NAMING_STRATEGY, new CamelCaseToUnderscoresNamingStrategy());
+            // User's entity listener is created by Spring, as in the application
+            properties.put(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory));
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan(User.class.getPackageName());
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaPropertyMap(properties);
+            return factory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        UserService userService(UserRepository userRepository, LoginRepository loginRepository,
+                                IReadYourWritesService readYourWritesService) {
+            return new UserService(userRepository, loginRepository, mock(ILeaderboardService.class), readYourWritesService,
+                    mock(IUserStatsService.class), mock(ICacheInvalidationService.class));
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate jdbc;
+    private Statistics statistics;
+    private int userId;
+
+    @BeforeEach
+    void createUser() {
+        jdbc = new JdbcTemplate(dataSource);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String email = "cache-" + System.nanoTime() + "@example.com";
+        userId = userService.createUser("Before", email).getId();
+        jdbc.update("INSERT INTO public.login (user_id, email, hash) VALUES (?, ?, 'x')", userId, email);
+        entityManagerFactory.getCache().evictAll();
+
+        // Both regions hold the user; the second round of reads costs no statement
+        assertEquals(userId, userService.findByEmail(email).orElseThrow().getId());
+        assertEquals("Before", userService.findById(userId).orElseThrow().getName());
+        statistics.clear();
+        assertEquals(userId, userService.findByEmail(email).orElseThrow().getId());
+        assertEquals("Before", userService.findById(userId).orElseThrow().getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void save_replacesTheCachedUser() {
+        User user = userService.findById(userId).orElseThrow();
+        user.setName("After");
+        user.setPhone("+31 6 1234 5678");
+        userService.save(user);
+
+        User reread = userService.findById(userId).orElseThrow();
+        assertEquals("After", reread.getName());
+        assertEquals("+31 6 1234 5678", reread.getPhone());
+        assertEquals("After", userService.findByEmail(user.getEmail()).orElseThrow().getName());
+    }
+
+    @Test
+    void changeEmail_movesTheNaturalIdAndReplacesTheCachedUser() {
+        User user = userService.findById(userId).orElseThrow();
+        String oldEmail = user.getEmail();
+        String newEmail = "moved-" + oldEmail;
+
+        assertTrue(userService.changeEmail(user, newEmail));
+
+        assertTrue(userService.findByEmail(oldEmail).isEmpty(), "old email still resolves from the cache");
+        assertEquals(userId, userService.findByEmail(newEmail).orElseThrow().getId());
+        assertEquals(newEmail, userService.findById(userId).orElseThrow().getEmail());
+        assertEquals(newEmail, jdbc.queryForObject("SELECT email FROM public.login WHERE user_id = ?", String.class, userId));
+    }
+
+    @Test
+    void changeEmail_storesTheEmailTrimmedAndLowerCased() {
+        User user = userService.findById(userId).orElseThrow();
+        String newEmail = "lower-" + user.getEmail();
+
+        assertTrue(userService.changeEmail(user, "  " + newEmail.toUpperCase() + " "));
+
+        // Signin lower-cases its input, so it finds the login row
+        assertEquals(newEmail, jdbc.queryForObject("SELECT email FROM public.login WHERE user_id = ?", String.class, userId));
+        assertEquals(newEmail, userService.findById(userId).orElseThrow().getEmail());
+        assertEquals(userId, userService.findByEmail(newEmail).orElseThrow().getId());
+    }
+
+    @Test
+    void changeEmail_toAnEmailTakenIgnoringCase_isRefused() {
+        // A row stored before emails were normalized
+        String legacy = "Legacy-" + System.nanoTime() + "@Example.com";
+        jdbc.update("INSERT INTO public.users (name, email) VALUES ('Legacy', ?)", legacy);
+        User user = userService.findById(userId).orElseThrow();
+        String oldEmail = user.getEmail();
+
+        assertFalse(userService.changeEmail(user, legacy.toLowerCase()));
+        assertEquals(oldEmail, userService.findById(userId).orElseThrow().getEmail());
+
+        // The user's own email, in another case, is not "taken"
+        assertTrue(userService.changeEmail(user, oldEmail.toUpperCase()));
+        assertEquals(oldEmail, userService.findById(userId).orElseThrow().getEmail());
+    }
+
+    @Test
+    void findByEmail_worksOutsideATransaction() {
+        String email = userService.findById(userId).orElseThrow().getEmail();
+        assertEquals(userId, userRepository.findByEmail(email).orElseThrow().getId());
+        assertTrue(userRepository.findByEmail("nobody@example.com").isEmpty());
+    }
+}
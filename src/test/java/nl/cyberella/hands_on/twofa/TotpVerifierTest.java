@@ -0,0 +1,77 @@
+package nl.cyberella.hands_on.twofa;
+
+import com.warrenstrange.googleauth.GoogleAuthenticator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TotpVerifier.
+ *
+ * Codes are generated with GoogleAuthenticator so the tests also prove the
+ * verifier stays compatible with the library (and the authenticator apps) it replaces.
+ * A fixed, adjustable clock keeps the tests deterministic.
+ */
+public class TotpVerifierTest {
+
+    private static final long STEP = 30_000L;
+
+    private final GoogleAuthenticator gAuth = new GoogleAuthenticator();
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private TotpVerifier verifier;
+    private String secret;
+
+    @BeforeEach
+    void setup() {
+        verifier = new TotpVerifier(3, 100, 100, now::get);
+        secret = gAuth.createCredentials().getKey();
+    }
+
+    @Test
+    void verify_acceptsCurrentCode() {
+        int code = gAuth.getTotpPassword(secret, now.get());
+        assertTrue(verifier.verify(1, secret, code));
+    }
+
+    @Test
+    void verify_acceptsAdjacentStepsOnly() {
+        int previous = gAuth.getTotpPassword(secret, now.get() - STEP);
+        int next = gAuth.getTotpPassword(secret, now.get() + STEP);
+        int tooOld = gAuth.getTotpPassword(secret, now.get() - 2 * STEP);
+
+        assertTrue(verifier.verify(1, secret, previous));
+        assertTrue(verifier.verify(1, secret, next));
+        assertFalse(verifier.verify(1, secret, tooOld));
+    }
+
+    @Test
+    void verify_rejectsReplayedCode_forSameUser() {
+        int code = gAuth.getTotpPassword(secret, now.get());
+
+        assertTrue(verifier.verify(1, secret, code));
+        assertFalse(verifier.verify(1, secret, code), "replayed code must be rejected");
+        // a different user with the same secret is not affected by user 1's replay entry
+        assertTrue(verifier.verify(2, secret, code));
+    }
+
+    @Test
+    void verify_picksUpChangedSecret() {
+        String other = gAuth.createCredentials().getKey();
+        assertTrue(verifier.verify(1, secret, gAuth.getTotpPassword(secret, now.get())));
+
+        now.addAndGet(STEP * 5);
+        assertFalse(verifier.verify(1, other, gAuth.getTotpPassword(secret, now.get())));
+        assertTrue(verifier.verify(1, other, gAuth.getTotpPassword(other, now.get())));
+    }
+
+    @Test
+    void verify_rejectsInvalidInput() {
+        assertFalse(verifier.verify(null, secret, 123456));
+        assertFalse(verifier.verify(1, null, 123456));
+        assertFalse(verifier.verify(1, secret, -1));
+        assertFalse(verifier.verify(1, secret, 1_000_000));
+    }
+}
@@ -0,0 +1,50 @@
+package nl.cyberella.hands_on.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IntLongHashMap; a randomised test replays the same operations on a
+ * java.util.HashMap and checks that both agree.
+ */
+public class IntLongHashMapTest {
+
+    @Test
+    void putGet_overwriteAndMissing() {
+        IntLongHashMap map = new IntLongHashMap(4);
+        map.put(1, 10);
+        map.put(-1, 20);
+        map.put(1, 11);
+        assertEquals(11, map.get(1, -1));
+        assertEquals(20, map.get(-1, -1));
+        assertEquals(-1, map.get(2, -1));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void randomisedOperations_matchHashMap() {
+        Random random = new Random(7);
+        IntLongHashMap map = new IntLongHashMap(4);
+        Map<Integer, Long> reference = new HashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            long value = random.nextLong();
+            map.put(key, value);
+            reference.put(key, value);
+            if (i % 10_000 == 9_999) {
+                map.removeIfValue(v -> v < 0);
+                reference.values().removeIf(v -> v < 0);
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        for (int key = -100; key < 4_900; key++) {
+            assertEquals(reference.getOrDefault(key, Long.MIN_VALUE), map.get(key, Long.MIN_VALUE));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package nl.cyberella.hands_on.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OrderStatisticTree.
+ *
+ * Besides a few explicit cases, a randomised test replays the same operations on
+ * a java.util.TreeSet and checks that positions and order always agree.
+ */
+public class OrderStatisticTreeTest {
+
+    @Test
+    void insertRemove_trackSizeAndMembership() {
+        OrderStatisticTree tree = new OrderStatisticTree();
+        assertTrue(tree.insert(5));
+        assertTrue(tree.insert(1));
+        assertFalse(tree.insert(5), "duplicate keys are ignored");
+        assertEquals(2, tree.size());
+
+        assertTrue(tree.remove(5));
+        assertFalse(tree.remove(5));
+        assertFalse(tree.contains(5));
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    void countLessThan_selectAndFirst_followKeyOrder() {
+        OrderStatisticTree tree = new OrderStatisticTree();
+        for (long k : new long[]{40, 10, 30, 20}) tree.insert(k);
+
+        assertEquals(0, tree.countLessThan(10));
+        assertEquals(2, tree.countLessThan(25)); // key need not be present
+        assertEquals(4, tree.countLessThan(100));
+        assertEquals(30, tree.select(2));
+        assertArrayEquals(new long[]{10, 20, 30}, tree.first(3));
+        assertArrayEquals(new long[]{10, 20, 30, 40}, tree.first(10));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(4));
+    }
+
+    @Test
+    void randomisedOperations_matchTreeSet() {
+        Random random = new Random(42);
+        OrderStatisticTree tree = new OrderStatisticTree();
+        TreeSet<Long> reference = new TreeSet<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            if (random.nextBoolean()) {
+                assertEquals(reference.add(key), tree.insert(key));
+            } else {
+                assertEquals(reference.remove(key), tree.remove(key));
+            }
+            if (i % 500 == 0) {
+                assertEquals(reference.size(), tree.size());
+                assertEquals(reference.headSet(key).size(), tree.countLessThan(key));
+            }
+        }
+
+        List<Long> expected = new ArrayList<>(reference);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), tree.select(i));
+        }
+    }
+}
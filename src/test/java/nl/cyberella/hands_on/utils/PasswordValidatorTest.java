@@ -0,0 +1,110 @@
+package nl.cyberella.hands_on.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordValidator, PasswordRules and MappedBloomFilter.
+ *
+ * A randomised test compares the single-pass rules with the regex implementation they
+ * replaced, message for message, including non-ASCII input.
+ */
+public class PasswordValidatorTest {
+
+    @AfterEach
+    void noBreachedPasswords() {
+        PasswordValidator.useBreachedPasswords(null);
+    }
+
+    // The validator before PasswordRules, kept as the reference
+    private static List<String> regexErrors(String password) {
+        List<String> errors = new ArrayList<>();
+        if (password.length() < 8) errors.add("at least 8 characters");
+        if (!Pattern.compile("[A-Z]").matcher(password).find()) errors.add("at least one uppercase letter");
+        if (!Pattern.compile("[a-z]").matcher(password).find()) errors.add("at least one lowercase letter");
+        if (!Pattern.compile("\\d").matcher(password).find()) errors.add("at least one number");
+        if (!Pattern.compile("[!@#$%^&*(),.?\":{}|<>]").matcher(password).find()) errors.add("at least one special character (!@#$%^&*(),.?\":{}|<>)");
+        return errors;
+    }
+
+    @Test
+    void validate_keepsMessagesAndOrder() {
+        assertTrue(PasswordValidator.validate("Str0ng!Passw0rd").isValid());
+        assertEquals(List.of("password required"), PasswordValidator.validate("   ").getErrors());
+        assertEquals(List.of("at least one uppercase letter", "at least one number",
+                        "at least one special character (!@#$%^&*(),.?\":{}|<>)"),
+                PasswordValidator.validate("password").getErrors());
+        assertEquals(List.of("at least 8 characters"), PasswordValidator.validate("Ab1!").getErrors());
+    }
+
+    @Test
+    void randomPasswords_matchRegexImplementation() {
+        Random random = new Random(11);
+        int[] alphabet = "aZ9!@ {}|<>\"xY0-_=+~`'\\/éÉ٣ 😀".codePoints().toArray();
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(14);
+            for (int j = 0; j < length; j++) {
+                sb.appendCodePoint(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String password = sb.toString();
+            if (password.isBlank()) continue;
+            assertEquals(regexErrors(password), PasswordValidator.validate(password).getErrors(), password);
+        }
+    }
+
+    @Test
+    void rules_nonAsciiPredicates_andRuleLimit() {
+        PasswordRules rules = PasswordRules.builder()
+                .requireAny(Character::isLetter, "a letter")
+                .reject(p -> p.contains("cyberella"), "not the site name")
+                .build();
+        assertEquals(List.of(), rules.check("été"));
+        assertEquals(List.of("a letter"), rules.check("12345"));
+        assertEquals(List.of("not the site name"), rules.check("cyberella"));
+
+        PasswordRules.Builder builder = PasswordRules.builder();
+        IntStream.range(0, 64).forEach(i -> builder.requireAny(c -> c == i, "char " + i));
+        assertThrows(IllegalStateException.class, () -> builder.requireAny(c -> true, "one too many"));
+    }
+
+    @Test
+    void breachedPasswords_areRejectedWithTheirOwnMessage(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("breached.bloom");
+        MappedBloomFilter.write(file, List.of("P@ssw0rd123", "password1").iterator(), 2, 0.001);
+        PasswordValidator.useBreachedPasswords(MappedBloomFilter.open(file));
+
+        assertEquals(List.of("not a password known from data breaches"), PasswordValidator.validate("P@ssw0rd123").getErrors());
+        // after the strength rules
+        assertEquals(List.of("at least one uppercase letter", "at least one special character (!@#$%^&*(),.?\":{}|<>)",
+                "not a password known from data breaches"), PasswordValidator.validate("password1").getErrors());
+        assertTrue(PasswordValidator.validate("Str0ng!Passw0rd").isValid());
+    }
+
+    @Test
+    void bloomFilter_hasNoFalseNegatives_andAboutTheConfiguredFalsePositiveRate(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("filter.bloom");
+        List<String> added = IntStream.range(0, 50_000).mapToObj(i -> "leaked-" + i).toList();
+        MappedBloomFilter.write(file, added.iterator(), added.size(), 0.01);
+        MappedBloomFilter filter = MappedBloomFilter.open(file);
+
+        for (String value : added) assertTrue(filter.mightContain(value), value);
+        long falsePositives = IntStream.range(0, 50_000).filter(i -> filter.mightContain("other-" + i)).count();
+        assertTrue(falsePositives < 1_000, "false positives: " + falsePositives); // 1% would be 500
+
+        Path corrupt = Files.write(dir.resolve("corrupt.bloom"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        assertThrows(IOException.class, () -> MappedBloomFilter.open(corrupt));
+    }
+}